@@ -217,6 +217,11 @@ public final class OkHttpUtils {
     return new GZipByteBufferRequestBody(buffers);
   }
 
+  /**
+   * Streams the buffers straight to the sink, without copying them first. The positions of the
+   * buffers are never changed, so the body can be written again when the request is retried and
+   * the buffers can be reused by their owner as soon as the call has completed.
+   */
   private static class ByteBufferRequestBody extends RequestBody {
 
     private static final MediaType MSGPACK = MediaType.get("application/msgpack");
@@ -244,8 +249,13 @@ public final class OkHttpUtils {
     @Override
     public void writeTo(BufferedSink sink) throws IOException {
       for (ByteBuffer buffer : buffers) {
-        while (buffer.hasRemaining()) {
-          sink.write(buffer);
+        if (buffer.hasArray()) {
+          sink.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+          ByteBuffer view = buffer.duplicate();
+          while (view.hasRemaining()) {
+            sink.write(view);
+          }
         }
       }
     }
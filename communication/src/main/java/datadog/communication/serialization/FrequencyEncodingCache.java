@@ -0,0 +1,134 @@
+package datadog.communication.serialization;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Bounded {@link EncodingCache} which keeps the UTF-8 encoding of the most frequently written
+ * strings, so that tag keys and common tag values are only encoded once across payloads.
+ *
+ * <p>Strings are stored in a small open addressing table, each one can only live in one of {@link
+ * #PROBES} consecutive slots. When all slots of a string are taken, the least frequently hit entry
+ * is only evicted once its hit count has decayed to zero: every miss ages the entries it probed, so
+ * a string must be written repeatedly before it can replace an established entry. This keeps
+ * high-cardinality values, such as ids or urls, from flushing the cache.
+ *
+ * <p>This class is not thread-safe, it is meant to be owned by a single mapper.
+ */
+public final class FrequencyEncodingCache implements EncodingCache {
+
+  /** Number of consecutive slots a string can be stored in. */
+  static final int PROBES = 4;
+  /** Hit counts saturate at this value, so that entries which are not written anymore decay. */
+  static final int MAX_HITS = 15;
+
+  private final String[] keys;
+  private final byte[][] values;
+  private final byte[] hits;
+  private final int mask;
+  private final int maxLength;
+
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  /**
+   * @param capacity maximum number of cached strings, rounded up to a power of 2.
+   * @param maxLength strings longer than this are never cached.
+   */
+  public FrequencyEncodingCache(final int capacity, final int maxLength) {
+    final int size = Math.max(PROBES, nextPowerOfTwo(capacity));
+    this.keys = new String[size];
+    this.values = new byte[size][];
+    this.hits = new byte[size];
+    this.mask = size - 1;
+    this.maxLength = maxLength;
+  }
+
+  /**
+   * Returns the UTF-8 encoding of the string, or {@code null} when it should be encoded by the
+   * caller: for strings which are not {@link String} instances (e.g. {@code UTF8BytesString}
+   * already carries its encoding) or which are too long to be worth caching.
+   */
+  @Override
+  public byte[] encode(final CharSequence s) {
+    if (!(s instanceof String) || s.length() > maxLength) {
+      return null;
+    }
+    final String key = (String) s;
+    final int start = spread(key.hashCode()) & mask;
+    int victim = -1;
+    int victimHits = Integer.MAX_VALUE;
+    for (int i = 0; i < PROBES; i++) {
+      final int index = (start + i) & mask;
+      final String candidate = keys[index];
+      if (null == candidate) {
+        // slots are never cleared, so the string is not further down
+        victim = index;
+        victimHits = -1;
+        break;
+      }
+      // tag keys are usually constants, so try identity first
+      if (candidate == key || candidate.equals(key)) {
+        if (hits[index] < MAX_HITS) {
+          hits[index]++;
+        }
+        hitCount++;
+        return values[index];
+      }
+      if (hits[index] < victimHits) {
+        victim = index;
+        victimHits = hits[index];
+      }
+    }
+    missCount++;
+    final byte[] utf8 = key.getBytes(UTF_8);
+    if (victimHits > 0) {
+      // all slots hold entries which were hit recently, age them instead of evicting one
+      for (int i = 0; i < PROBES; i++) {
+        hits[(start + i) & mask]--;
+      }
+      return utf8;
+    }
+    if (victimHits == 0) {
+      evictionCount++;
+    }
+    // new entries survive the next miss, so they get a chance to be hit
+    keys[victim] = key;
+    values[victim] = utf8;
+    hits[victim] = 1;
+    return utf8;
+  }
+
+  /** Number of strings served from the cache since the counts were last reset. */
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Number of strings which had to be encoded, whether they were then cached or not, since the
+   * counts were last reset.
+   */
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /** Number of cached strings replaced by a new string since the counts were last reset. */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /** Resets the hit, miss and eviction counts once they have been reported. */
+  public void resetCounts() {
+    hitCount = 0;
+    missCount = 0;
+    evictionCount = 0;
+  }
+
+  private static int spread(final int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private static int nextPowerOfTwo(final int value) {
+    return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+  }
+}
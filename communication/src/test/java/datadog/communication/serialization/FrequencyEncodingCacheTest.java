@@ -0,0 +1,97 @@
+package datadog.communication.serialization;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
+import org.junit.Test;
+
+public class FrequencyEncodingCacheTest {
+
+  @Test
+  public void testCachedStringsAreEncodedOnce() {
+    FrequencyEncodingCache cache = new FrequencyEncodingCache(16, 64);
+    byte[] first = cache.encode("http.method");
+    byte[] second = cache.encode(new String("http.method"));
+    assertArrayEquals("http.method".getBytes(UTF_8), first);
+    assertSame(first, second);
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(0, cache.getEvictionCount());
+  }
+
+  @Test
+  public void testCountsAreReset() {
+    FrequencyEncodingCache cache = new FrequencyEncodingCache(16, 64);
+    cache.encode("http.method");
+    cache.encode("http.method");
+    cache.resetCounts();
+    assertEquals(0, cache.getHitCount());
+    assertEquals(0, cache.getMissCount());
+    byte[] cached = cache.encode("http.method");
+    assertArrayEquals("http.method".getBytes(UTF_8), cached);
+    assertEquals(1, cache.getHitCount());
+    assertEquals(0, cache.getMissCount());
+  }
+
+  @Test
+  public void testNonUtf8StringsAreEncoded() {
+    FrequencyEncodingCache cache = new FrequencyEncodingCache(16, 64);
+    assertArrayEquals("tschüß".getBytes(UTF_8), cache.encode("tschüß"));
+    assertArrayEquals("道".getBytes(UTF_8), cache.encode("道"));
+  }
+
+  @Test
+  public void testLongStringsAndUtf8BytesStringsAreNotCached() {
+    FrequencyEncodingCache cache = new FrequencyEncodingCache(16, 4);
+    assertNull(cache.encode("too long"));
+    assertNull(cache.encode(UTF8BytesString.create("key")));
+    assertEquals(0, cache.getHitCount());
+    assertEquals(0, cache.getMissCount());
+  }
+
+  @Test
+  public void testFrequentStringsAreNotEvictedByUniqueStrings() {
+    FrequencyEncodingCache cache = new FrequencyEncodingCache(FrequencyEncodingCache.PROBES, 64);
+    String[] frequent = {"env", "version", "component", "span.kind"};
+    for (int i = 0; i < 10; i++) {
+      for (String key : frequent) {
+        cache.encode(key);
+      }
+    }
+    long hits = cache.getHitCount();
+    // fewer unique strings than the hits accumulated by the frequent ones
+    for (int i = 0; i < 5; i++) {
+      assertArrayEquals(("id-" + i).getBytes(UTF_8), cache.encode("id-" + i));
+    }
+    for (String key : frequent) {
+      cache.encode(key);
+    }
+    assertEquals(hits + frequent.length, cache.getHitCount());
+    assertEquals(0, cache.getEvictionCount());
+  }
+
+  @Test
+  public void testStaleStringsAreEvicted() {
+    FrequencyEncodingCache cache = new FrequencyEncodingCache(FrequencyEncodingCache.PROBES, 64);
+    for (int i = 0; i < FrequencyEncodingCache.PROBES; i++) {
+      cache.encode("old-" + i);
+    }
+    // the old strings are not written anymore, so they decay and get replaced
+    for (int round = 0; round < 2; round++) {
+      for (int i = 0; i < FrequencyEncodingCache.PROBES; i++) {
+        cache.encode("new-" + i);
+      }
+    }
+    assertTrue(cache.getEvictionCount() >= FrequencyEncodingCache.PROBES);
+    long hits = cache.getHitCount();
+    for (int i = 0; i < FrequencyEncodingCache.PROBES; i++) {
+      cache.encode("new-" + i);
+    }
+    assertEquals(hits + FrequencyEncodingCache.PROBES, cache.getHitCount());
+  }
+}
@@ -15,6 +15,7 @@ import static datadog.trace.util.Strings.toEnvVar;
 
 import datadog.trace.api.Config;
 import datadog.trace.api.EndpointCheckpointer;
+import datadog.trace.api.InstrumenterTimings;
 import datadog.trace.api.Platform;
 import datadog.trace.api.StatsDClientManager;
 import datadog.trace.api.WithGlobalTracer;
@@ -543,6 +544,7 @@ public class Agent {
       startJmxFetch();
     }
     initializeJmxSystemAccessProvider(AGENT_CLASSLOADER);
+    InstrumenterTimings.registerMBean();
     if (profilingEnabled) {
       registerDeadlockDetectionEvent();
       if (PROFILER_INIT_AFTER_JMX != null) {
@@ -0,0 +1,327 @@
+package datadog.trace.bootstrap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Memory-mapped blob of the agent's nested class data, used instead of separate {@code .classdata}
+ * entries when the agent jar is built with {@code -PagentClassDataBlob=true}.
+ *
+ * <p>The blob is stored uncompressed in the agent jar, so it can be mapped straight from the jar
+ * file. Classes are then defined from slices of the mapped buffer without inflating or copying.
+ */
+public final class AgentClassData {
+  private static final Logger log = LoggerFactory.getLogger(AgentClassData.class);
+
+  static final String CLASS_DATA_FILE_NAME = "dd-java-agent.classdata";
+
+  private static final int MAGIC = 0xDDC1A55D;
+
+  private static final int END_OF_CENTRAL_DIR_SIGNATURE = 0x06054b50;
+  private static final int CENTRAL_DIR_SIGNATURE = 0x02014b50;
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+  private final MappedByteBuffer blob;
+  private final String[] entryNames; // sorted
+  private final int[] offsets;
+  private final int[] lengths;
+
+  private final URLStreamHandler urlHandler = new ClassDataURLHandler();
+
+  private AgentClassData(
+      MappedByteBuffer blob, String[] entryNames, int[] offsets, int[] lengths) {
+    this.blob = blob;
+    this.entryNames = entryNames;
+    this.offsets = offsets;
+    this.lengths = lengths;
+  }
+
+  /** Returns a read-only slice of the mapped class data for the entry; null if it's not there. */
+  public ByteBuffer classData(String entryName) {
+    int index = Arrays.binarySearch(entryNames, entryName);
+    if (index < 0) {
+      return null;
+    }
+    ByteBuffer buf = blob.duplicate();
+    buf.position(offsets[index]);
+    buf.limit(offsets[index] + lengths[index]);
+    return buf.slice();
+  }
+
+  /** Returns a URL that streams the mapped class data for the entry; null if it's not there. */
+  public URL classDataURL(String location, String entryName) {
+    if (Arrays.binarySearch(entryNames, entryName) < 0) {
+      return null;
+    }
+    try {
+      return new URL(null, location, urlHandler);
+    } catch (Exception e) {
+      log.warn("Malformed location {}", location);
+      return null;
+    }
+  }
+
+  /** Maps the class data blob from the agent jar; null if the jar uses separate entries. */
+  public static AgentClassData mapClassData(File agentJar, JarFile agentJarFile) {
+    ZipEntry blobEntry = agentJarFile.getEntry(CLASS_DATA_FILE_NAME);
+    if (null == blobEntry) {
+      return null;
+    }
+    try (RandomAccessFile file = new RandomAccessFile(agentJar, "r");
+        FileChannel channel = file.getChannel()) {
+      if (blobEntry.getMethod() != ZipEntry.STORED) {
+        throw new IOException(CLASS_DATA_FILE_NAME + " is compressed");
+      }
+      long dataOffset = findDataOffset(channel, CLASS_DATA_FILE_NAME);
+      MappedByteBuffer blob =
+          channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, blobEntry.getSize());
+      if (blob.getInt() != MAGIC) {
+        throw new IOException("Unexpected " + CLASS_DATA_FILE_NAME + " magic");
+      }
+      int count = blob.getInt();
+      String[] entryNames = new String[count];
+      int[] offsets = new int[count];
+      int[] lengths = new int[count];
+      for (int i = 0; i < count; i++) {
+        byte[] name = new byte[blob.getShort() & 0xFFFF];
+        blob.get(name);
+        entryNames[i] = new String(name, StandardCharsets.UTF_8);
+        offsets[i] = blob.getInt();
+        lengths[i] = blob.getInt();
+      }
+      return new AgentClassData(blob, entryNames, offsets, lengths);
+    } catch (Throwable e) {
+      log.error("Unable to map " + CLASS_DATA_FILE_NAME, e);
+      return null;
+    }
+  }
+
+  /** Walks the zip's central directory to find where the named entry's data starts. */
+  private static long findDataOffset(FileChannel channel, String entryName) throws IOException {
+    long fileSize = channel.size();
+    int tailSize = (int) Math.min(fileSize, 22 + 0xFFFF);
+    ByteBuffer tail = read(channel, fileSize - tailSize, tailSize);
+    int eocd = tailSize - 22;
+    while (eocd >= 0 && tail.getInt(eocd) != END_OF_CENTRAL_DIR_SIGNATURE) {
+      eocd--;
+    }
+    if (eocd < 0) {
+      throw new IOException("Missing end of central directory");
+    }
+    long centralDirSize = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+    long centralDirOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+    ByteBuffer centralDir = read(channel, centralDirOffset, (int) centralDirSize);
+    byte[] expectedName = entryName.getBytes(StandardCharsets.UTF_8);
+    // walk entries until the end of the central directory, as the 16-bit entry count can overflow
+    int pos = 0;
+    while (pos < centralDirSize) {
+      if (centralDir.getInt(pos) != CENTRAL_DIR_SIGNATURE) {
+        throw new IOException("Malformed central directory");
+      }
+      int nameLength = centralDir.getShort(pos + 28) & 0xFFFF;
+      int extraLength = centralDir.getShort(pos + 30) & 0xFFFF;
+      int commentLength = centralDir.getShort(pos + 32) & 0xFFFF;
+      if (nameLength == expectedName.length && matches(centralDir, pos + 46, expectedName)) {
+        long localHeaderOffset = centralDir.getInt(pos + 42) & 0xFFFFFFFFL;
+        ByteBuffer localHeader = read(channel, localHeaderOffset, 30);
+        if (localHeader.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+          throw new IOException("Malformed local header");
+        }
+        return localHeaderOffset
+            + 30
+            + (localHeader.getShort(26) & 0xFFFF)
+            + (localHeader.getShort(28) & 0xFFFF);
+      }
+      pos += 46 + nameLength + extraLength + commentLength;
+    }
+    throw new IOException("Missing central directory entry for " + entryName);
+  }
+
+  private static boolean matches(ByteBuffer buf, int pos, byte[] expected) {
+    for (int i = 0; i < expected.length; i++) {
+      if (buf.get(pos + i) != expected[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static ByteBuffer read(FileChannel channel, long position, int size)
+      throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    while (buf.hasRemaining()) {
+      if (channel.read(buf, position + buf.position()) < 0) {
+        throw new IOException("Unexpected end of file");
+      }
+    }
+    buf.flip();
+    return buf;
+  }
+
+  /** Serves resource requests for class data from the mapped blob. */
+  final class ClassDataURLHandler extends URLStreamHandler {
+    @Override
+    protected URLConnection openConnection(URL url) {
+      String location = url.toString();
+      final String entryName = location.substring(location.lastIndexOf("!/") + 2);
+      return new URLConnection(url) {
+        @Override
+        public void connect() {}
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+          ByteBuffer buf = classData(entryName);
+          if (null == buf) {
+            throw new IOException("Missing class data for " + entryName);
+          }
+          return new ByteBufferInputStream(buf);
+        }
+      };
+    }
+  }
+
+  static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buf;
+
+    ByteBufferInputStream(ByteBuffer buf) {
+      this.buf = buf;
+    }
+
+    @Override
+    public int read() {
+      return buf.hasRemaining() ? buf.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buf.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, buf.remaining());
+      buf.get(bytes, off, n);
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return buf.remaining();
+    }
+  }
+
+  /**
+   * Rewrites the agent jar, moving all {@code .classdata} entries into a single uncompressed blob.
+   */
+  static class BlobGenerator {
+    static void rewriteJar(Path agentJar) throws IOException {
+      Path tempJar = Files.createTempFile(agentJar.toAbsolutePath().getParent(), "agent", ".jar");
+      Map<String, byte[]> classData = new TreeMap<>();
+      try (JarFile in = new JarFile(agentJar.toFile(), false);
+          JarOutputStream out = new JarOutputStream(Files.newOutputStream(tempJar))) {
+        Enumeration<JarEntry> entries = in.entries();
+        while (entries.hasMoreElements()) {
+          JarEntry entry = entries.nextElement();
+          try (InputStream entryIn = in.getInputStream(entry)) {
+            if (entry.getName().endsWith(".classdata")) {
+              classData.put(entry.getName(), readFully(entryIn));
+            } else {
+              out.putNextEntry(new JarEntry(entry.getName()));
+              copy(entryIn, out);
+              out.closeEntry();
+            }
+          }
+        }
+        byte[] blob = buildBlob(classData);
+        JarEntry blobEntry = new JarEntry(CLASS_DATA_FILE_NAME);
+        blobEntry.setMethod(ZipEntry.STORED);
+        blobEntry.setSize(blob.length);
+        blobEntry.setCompressedSize(blob.length);
+        CRC32 crc = new CRC32();
+        crc.update(blob, 0, blob.length);
+        blobEntry.setCrc(crc.getValue());
+        out.putNextEntry(blobEntry);
+        out.write(blob);
+        out.closeEntry();
+      }
+      Files.move(tempJar, agentJar, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static byte[] buildBlob(Map<String, byte[]> classData) throws IOException {
+      // header: magic, count, then (name, offset, length) for each entry sorted by name
+      int headerSize = 8;
+      for (String name : classData.keySet()) {
+        headerSize += 2 + name.getBytes(StandardCharsets.UTF_8).length + 8;
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (DataOutputStream out = new DataOutputStream(bytes)) {
+        out.writeInt(MAGIC);
+        out.writeInt(classData.size());
+        int offset = headerSize;
+        for (Map.Entry<String, byte[]> e : classData.entrySet()) {
+          byte[] name = e.getKey().getBytes(StandardCharsets.UTF_8);
+          out.writeShort(name.length);
+          out.write(name);
+          out.writeInt(offset);
+          out.writeInt(e.getValue().length);
+          offset += e.getValue().length;
+        }
+        for (byte[] data : classData.values()) {
+          out.write(data);
+        }
+      }
+      return bytes.toByteArray();
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      copy(in, bytes);
+      return bytes.toByteArray();
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+      byte[] buf = new byte[8192];
+      int bytesRead;
+      while ((bytesRead = in.read(buf)) >= 0) {
+        out.write(buf, 0, bytesRead);
+      }
+    }
+
+    /** Called from 'shadowJar' task in 'dd-java-agent/build.gradle' with -PagentClassDataBlob. */
+    public static void main(String[] args) throws IOException {
+      if (args.length < 1) {
+        throw new IllegalArgumentException("Expected: agent-jar");
+      }
+      rewriteJar(Paths.get(args[0]).toAbsolutePath());
+    }
+  }
+}
@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.ref.WeakReference;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.security.CodeSource;
 import java.security.SecureClassLoader;
 import java.security.cert.Certificate;
@@ -31,6 +32,7 @@ public final class DatadogClassLoader extends SecureClassLoader {
   private final CodeSource agentCodeSource;
   private final String agentResourcePrefix;
   private final AgentJarIndex agentJarIndex;
+  private final AgentClassData agentClassData;
 
   private final Object instrumentationClassLoaderLock = new Object();
   private volatile WeakReference<InstrumentationClassLoader> instrumentationClassLoader =
@@ -39,10 +41,12 @@ public final class DatadogClassLoader extends SecureClassLoader {
   public DatadogClassLoader(final URL agentJarURL, final ClassLoader parent) throws Exception {
     super(parent);
 
-    agentJarFile = new JarFile(new File(agentJarURL.toURI()), false);
+    File agentJar = new File(agentJarURL.toURI());
+    agentJarFile = new JarFile(agentJar, false);
     agentCodeSource = new CodeSource(agentJarURL, (Certificate[]) null);
     agentResourcePrefix = "jar:file:" + agentJarFile.getName() + "!/";
     agentJarIndex = AgentJarIndex.readIndex(agentJarFile);
+    agentClassData = AgentClassData.mapClassData(agentJar, agentJarFile);
   }
 
   /** For testing purposes only. */
@@ -53,6 +57,7 @@ public final class DatadogClassLoader extends SecureClassLoader {
     agentJarFile = null;
     agentResourcePrefix = null;
     agentJarIndex = AgentJarIndex.emptyIndex();
+    agentClassData = null;
   }
 
   @Override
@@ -67,6 +72,12 @@ public final class DatadogClassLoader extends SecureClassLoader {
   @Override
   protected URL findResource(String name) {
     String entryName = agentJarIndex.resourceEntryName(name);
+    if (null != entryName && null != agentClassData && entryName.endsWith(".classdata")) {
+      URL classDataURL = agentClassData.classDataURL(agentResourcePrefix + entryName, entryName);
+      if (null != classDataURL) {
+        return classDataURL;
+      }
+    }
     if (null != entryName) {
       JarEntry jarEntry = agentJarFile.getJarEntry(entryName);
       if (null != jarEntry) {
@@ -112,8 +123,21 @@ public final class DatadogClassLoader extends SecureClassLoader {
 
   @Override
   protected Class<?> findClass(String name) throws ClassNotFoundException {
-    byte[] buf = loadClassBytes(name);
-    return defineClass(name, buf, 0, buf.length, agentCodeSource);
+    return defineClass(name, loadClassData(name), agentCodeSource);
+  }
+
+  /** Returns the class data, mapped directly from the agent jar if it was packed in a blob. */
+  ByteBuffer loadClassData(String name) throws ClassNotFoundException {
+    if (null != agentClassData) {
+      String entryName = agentJarIndex.classEntryName(name);
+      if (null != entryName) {
+        ByteBuffer buf = agentClassData.classData(entryName);
+        if (null != buf) {
+          return buf;
+        }
+      }
+    }
+    return ByteBuffer.wrap(loadClassBytes(name));
   }
 
   byte[] loadClassBytes(String name) throws ClassNotFoundException {
@@ -1,5 +1,6 @@
 package datadog.trace.bootstrap;
 
+import java.nio.ByteBuffer;
 import java.security.CodeSource;
 import java.security.SecureClassLoader;
 
@@ -21,8 +22,8 @@ final class InstrumentationClassLoader extends SecureClassLoader {
         return instrumentationClass;
       } else {
         // load bytecode from dd-java-agent jar, but define the class locally
-        byte[] buf = ((DatadogClassLoader) getParent()).loadClassBytes(name);
-        return defineClass(name, buf, 0, buf.length, agentCodeSource);
+        ByteBuffer buf = ((DatadogClassLoader) getParent()).loadClassData(name);
+        return defineClass(name, buf, agentCodeSource);
       }
     }
   }
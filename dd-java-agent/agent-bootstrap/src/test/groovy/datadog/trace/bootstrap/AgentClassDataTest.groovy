@@ -0,0 +1,79 @@
+package datadog.trace.bootstrap
+
+import datadog.trace.test.util.DDSpecification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.jar.JarEntry
+import java.util.jar.JarFile
+import java.util.jar.JarOutputStream
+
+class AgentClassDataTest extends DDSpecification {
+
+  Path agentJar = Files.createTempDirectory("agent-class-data").resolve("agent.jar")
+
+  def cleanup() {
+    Files.deleteIfExists(agentJar)
+  }
+
+  def "class data is packed into a mapped blob"() {
+    setup:
+    writeJar([
+      "inst/foo/Bar.classdata"    : "bar",
+      "inst/foo/Baz.classdata"    : "baz",
+      "profiling/foo/Qux.classdata": "qux",
+      "dd-java-agent.index"       : "index"
+    ])
+
+    when:
+    AgentClassData.BlobGenerator.rewriteJar(agentJar)
+    def jarFile = new JarFile(agentJar.toFile())
+    def classData = AgentClassData.mapClassData(agentJar.toFile(), jarFile)
+
+    then:
+    jarFile.entries().collect { it.name } as Set == ["dd-java-agent.index", "dd-java-agent.classdata"] as Set
+    read(classData, "inst/foo/Bar.classdata") == "bar"
+    read(classData, "inst/foo/Baz.classdata") == "baz"
+    read(classData, "profiling/foo/Qux.classdata") == "qux"
+    classData.classData("inst/foo/Missing.classdata") == null
+    classData.classData("inst/foo/Bar.classdata").isDirect()
+
+    when:
+    def url = classData.classDataURL("jar:file:${agentJar}!/inst/foo/Baz.classdata", "inst/foo/Baz.classdata")
+
+    then:
+    url.openStream().text == "baz"
+
+    cleanup:
+    jarFile?.close()
+  }
+
+  def "jars without blob use separate entries"() {
+    setup:
+    writeJar(["inst/foo/Bar.classdata": "bar"])
+    def jarFile = new JarFile(agentJar.toFile())
+
+    expect:
+    AgentClassData.mapClassData(agentJar.toFile(), jarFile) == null
+
+    cleanup:
+    jarFile.close()
+  }
+
+  void writeJar(Map<String, String> entries) {
+    new JarOutputStream(Files.newOutputStream(agentJar)).withCloseable { out ->
+      entries.each { name, content ->
+        out.putNextEntry(new JarEntry(name))
+        out.write(content.bytes)
+        out.closeEntry()
+      }
+    }
+  }
+
+  static String read(AgentClassData classData, String entryName) {
+    def buf = classData.classData(entryName)
+    def bytes = new byte[buf.remaining()]
+    buf.get(bytes)
+    return new String(bytes)
+  }
+}
@@ -7,6 +7,7 @@ import datadog.trace.agent.tooling.bytebuddy.DDCachingPoolStrategy;
 import datadog.trace.agent.tooling.bytebuddy.DDOutlinePoolStrategy;
 import datadog.trace.agent.tooling.bytebuddy.SharedTypePools;
 import datadog.trace.agent.tooling.bytebuddy.matcher.DDElementMatchers;
+import datadog.trace.agent.tooling.bytebuddy.outline.OutlinePrewarmer;
 import datadog.trace.api.InstrumenterConfig;
 import datadog.trace.api.IntegrationsCollector;
 import datadog.trace.api.ProductActivation;
@@ -57,6 +58,7 @@ public class AgentInstaller {
       if (DEBUG) {
         log.debug("Instrumentation installed for {}", enabledSystems);
       }
+      OutlinePrewarmer.startIfEnabled();
       int poolCleaningInterval = InstrumenterConfig.get().getResolverResetInterval();
       if (poolCleaningInterval > 0) {
         AgentTaskScheduler.INSTANCE.scheduleAtFixedRate(
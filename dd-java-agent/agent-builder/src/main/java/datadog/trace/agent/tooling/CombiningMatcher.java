@@ -1,5 +1,7 @@
 package datadog.trace.agent.tooling;
 
+import datadog.trace.api.InstrumenterConfig;
+import datadog.trace.api.InstrumenterTimings;
 import java.security.ProtectionDomain;
 import java.util.BitSet;
 import java.util.List;
@@ -16,18 +18,38 @@ final class CombiningMatcher implements AgentBuilder.RawMatcher {
   // optimization to avoid repeated allocations inside BitSet as matched ids are set
   static final int MAX_COMBINED_ID_HINT = 512;
 
+  // only time matchers for 1 in 64 types, as timing every matcher would add noticeable overhead
+  private static final int MATCH_TIMING_SAMPLE_MASK = 63;
+
   /** Matcher results shared between {@link CombiningMatcher} and {@link SplittingTransformer} */
   static final ThreadLocal<BitSet> recordedMatches =
       ThreadLocal.withInitial(() -> new BitSet(MAX_COMBINED_ID_HINT));
 
   private final BitSet knownTypesMask;
   private final MatchRecorder[] matchers;
+  private final MatchCache matchCache;
+  private final InstrumenterTimings timings;
+
+  // deliberately not thread-safe; lost updates just shift which types are sampled
+  private int matchCount;
 
   private static final KnownTypesIndex knownTypesIndex = KnownTypesIndex.readIndex();
 
-  CombiningMatcher(BitSet knownTypesMask, List<MatchRecorder> matchers) {
+  /** Shared with {@link MatchRecorder.ForHierarchy} to skip unnecessary hierarchy matching. */
+  static final SuperTypeFilter superTypeFilter = new SuperTypeFilter(knownTypesIndex);
+
+  CombiningMatcher(
+      BitSet knownTypesMask, List<MatchRecorder> matchers, InstrumenterTimings timings) {
     this.knownTypesMask = knownTypesMask;
     this.matchers = matchers.toArray(new MatchRecorder[0]);
+    this.timings = timings;
+    this.matchCache =
+        MatchCache.create(InstrumenterConfig.get().getResolverMatchCacheFile(), this.matchers);
+    if (null != matchCache) {
+      for (int slot = 0; slot < this.matchers.length; slot++) {
+        this.matchers[slot].useMatchCache(slot, matchCache);
+      }
+    }
   }
 
   @Override
@@ -43,7 +65,13 @@ final class CombiningMatcher implements AgentBuilder.RawMatcher {
 
     knownTypesIndex.apply(target.getName(), knownTypesMask, ids);
 
+    if (null != matchCache) {
+      matchCache.begin(target.getName(), classLoader, pd);
+    }
+
+    boolean timed = null != timings && (++matchCount & MATCH_TIMING_SAMPLE_MASK) == 0;
     for (MatchRecorder matcher : matchers) {
+      long start = timed ? System.nanoTime() : 0;
       try {
         matcher.record(target, classLoader, classBeingRedefined, ids);
       } catch (Throwable e) {
@@ -51,8 +79,17 @@ final class CombiningMatcher implements AgentBuilder.RawMatcher {
           log.debug("Instrumentation matcher unexpected exception - {}", matcher.describe(), e);
         }
       }
+      if (timed) {
+        timings.recordMatch(matcher.id, System.nanoTime() - start);
+      }
     }
 
+    if (null != matchCache) {
+      matchCache.end();
+    }
+
+    superTypeFilter.reset();
+
     return !ids.isEmpty();
   }
 }
@@ -12,35 +12,56 @@ import datadog.trace.agent.tooling.context.FieldBackedContextMatcher;
 import datadog.trace.agent.tooling.context.FieldBackedContextRequestRewriter;
 import datadog.trace.agent.tooling.muzzle.MuzzleCheck;
 import datadog.trace.api.InstrumenterConfig;
+import datadog.trace.api.InstrumenterTimings;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.Instrumentation;
+import java.security.ProtectionDomain;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import net.bytebuddy.agent.builder.AgentBuilder;
 import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
 import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.utility.JavaModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /** Builds multiple instrumentations into a single combining-matcher and splitting-transformer. */
 public final class CombiningTransformerBuilder extends AbstractTransformerBuilder {
+  private static final Logger log = LoggerFactory.getLogger(CombiningTransformerBuilder.class);
+
   private final AgentBuilder agentBuilder;
 
   private final List<MatchRecorder> matchers = new ArrayList<>();
   private final BitSet knownTypesMask;
+  private final boolean lazyAdvice;
   private AdviceStack[] transformers;
+  private String[] instrumenterNames;
   private int nextSupplementaryId;
 
-  // temporary buffer for collecting advice; reset for each instrumenter
+  // temporary buffer for collecting test advice; reset for each test instrumenter
   private final List<AgentBuilder.Transformer> advice = new ArrayList<>();
   private ElementMatcher<? super MethodDescription> ignoredMethods;
 
+  // deferred advice currently being built by each thread
+  private final ThreadLocal<Set<DeferredAdvice>> buildingAdvice =
+      ThreadLocal.withInitial(() -> Collections.newSetFromMap(new IdentityHashMap<>()));
+
   public CombiningTransformerBuilder(AgentBuilder agentBuilder, int maxInstrumentationId) {
     this.agentBuilder = agentBuilder;
+    this.lazyAdvice = InstrumenterConfig.get().isLazyAdviceEnabled();
     int maxInstrumentationCount = maxInstrumentationId + 1;
     this.knownTypesMask = new BitSet(maxInstrumentationCount);
     this.transformers = new AdviceStack[maxInstrumentationCount];
+    this.instrumenterNames = new String[maxInstrumentationCount];
     this.nextSupplementaryId = maxInstrumentationId + 1;
   }
 
@@ -59,6 +80,7 @@ public final class CombiningTransformerBuilder extends AbstractTransformerBuilde
       }
     }
 
+    nameInstrumenter(id, instrumenter.name() + "/" + instrumenter.getClass().getSimpleName());
     buildInstrumentationMatcher(instrumenter, id);
     buildInstrumentationAdvice(instrumenter, id);
   }
@@ -70,7 +92,8 @@ public final class CombiningTransformerBuilder extends AbstractTransformerBuilde
       knownTypesMask.set(id);
     } else if (instrumenter instanceof Instrumenter.ForTypeHierarchy) {
       matchers.add(
-          new MatchRecorder.ForHierarchy(id, (Instrumenter.ForTypeHierarchy) instrumenter));
+          new MatchRecorder.ForHierarchy(
+              id, (Instrumenter.ForTypeHierarchy) instrumenter, CombiningMatcher.superTypeFilter));
     } else if (instrumenter instanceof Instrumenter.ForCallSite) {
       matchers.add(
           new MatchRecorder.ForType(id, ((Instrumenter.ForCallSite) instrumenter).callerType()));
@@ -86,7 +109,8 @@ public final class CombiningTransformerBuilder extends AbstractTransformerBuilde
     if (instrumenter instanceof Instrumenter.CanShortcutTypeMatching
         && !((Instrumenter.CanShortcutTypeMatching) instrumenter).onlyMatchKnownTypes()) {
       matchers.add(
-          new MatchRecorder.ForHierarchy(id, (Instrumenter.ForTypeHierarchy) instrumenter));
+          new MatchRecorder.ForHierarchy(
+              id, (Instrumenter.ForTypeHierarchy) instrumenter, CombiningMatcher.superTypeFilter));
     }
 
     ElementMatcher<ClassLoader> classLoaderMatcher = instrumenter.classLoaderMatcher();
@@ -105,6 +129,24 @@ public final class CombiningTransformerBuilder extends AbstractTransformerBuilde
 
   private void buildInstrumentationAdvice(Instrumenter.Default instrumenter, int id) {
 
+    Map<String, String> contextStore = instrumenter.contextStore();
+    if (!contextStore.isEmpty()) {
+      // context fields must be injected before the instrumentation first matches
+      registerContextStoreInjection(instrumenter, contextStore);
+    }
+
+    if (lazyAdvice) {
+      transformers[id] = new AdviceStack(new DeferredAdvice(instrumenter));
+    } else {
+      transformers[id] = buildAdviceStack(instrumenter);
+    }
+  }
+
+  private AdviceStack buildAdviceStack(Instrumenter.Default instrumenter) {
+
+    // collect advice locally, deferred advice may be built while another instrumenter is building
+    List<AgentBuilder.Transformer> advice = new ArrayList<>();
+
     String[] helperClassNames = instrumenter.helperClassNames();
     if (instrumenter.injectHelperDependencies()) {
       helperClassNames = HelperScanner.withClassDependencies(helperClassNames);
@@ -119,8 +161,6 @@ public final class CombiningTransformerBuilder extends AbstractTransformerBuilde
       advice.add(
           new VisitingTransformer(
               new FieldBackedContextRequestRewriter(contextStore, instrumenter.name())));
-
-      registerContextStoreInjection(instrumenter, contextStore);
     }
 
     Instrumenter.AdviceTransformer customTransformer = instrumenter.transformer();
@@ -128,13 +168,91 @@ public final class CombiningTransformerBuilder extends AbstractTransformerBuilde
       advice.add(customTransformer::transform);
     }
 
-    ignoredMethods = instrumenter.methodIgnoreMatcher();
-    instrumenter.adviceTransformations(this);
-    transformers[id] = new AdviceStack(advice);
+    instrumenter.adviceTransformations(
+        new AdviceCollector(advice, instrumenter.methodIgnoreMatcher()));
+    return new AdviceStack(advice);
+  }
 
-    advice.clear();
+  /** Collects the advice transformations declared by an instrumentation. */
+  private static final class AdviceCollector implements Instrumenter.AdviceTransformation {
+    private final List<AgentBuilder.Transformer> advice;
+    private final ElementMatcher<? super MethodDescription> ignoredMethods;
+
+    AdviceCollector(
+        List<AgentBuilder.Transformer> advice,
+        ElementMatcher<? super MethodDescription> ignoredMethods) {
+      this.advice = advice;
+      this.ignoredMethods = ignoredMethods;
+    }
+
+    @Override
+    public void applyAdvice(ElementMatcher<? super MethodDescription> matcher, String name) {
+      advice.add(newAdvice(ignoredMethods, matcher, name));
+    }
   }
 
+  /**
+   * Builds the instrumentation's advice the first time one of its types is transformed.
+   *
+   * <p>No lock is held while building, because building can load classes which may be transformed
+   * (or be waiting to be defined) on other threads. Threads racing to build the same advice each
+   * build a copy and the first one to finish is kept.
+   */
+  private final class DeferredAdvice implements AgentBuilder.Transformer {
+    private final Instrumenter.Default instrumenter;
+    volatile AdviceStack adviceStack;
+
+    DeferredAdvice(Instrumenter.Default instrumenter) {
+      this.instrumenter = instrumenter;
+    }
+
+    @Override
+    public DynamicType.Builder<?> transform(
+        DynamicType.Builder<?> builder,
+        TypeDescription target,
+        ClassLoader classLoader,
+        JavaModule module,
+        ProtectionDomain pd) {
+      AdviceStack stack = adviceStack;
+      if (null == stack) {
+        stack = materialize();
+        if (null == stack) {
+          // type was loaded while this thread was building the same advice, leave it unchanged
+          return builder;
+        }
+      }
+      return stack.transform(builder, target, classLoader, module, pd);
+    }
+
+    private AdviceStack materialize() {
+      Set<DeferredAdvice> building = buildingAdvice.get();
+      if (!building.add(this)) {
+        log.debug(
+            "Skipping re-entrant transformation - instrumentation.class={}",
+            instrumenter.getClass().getName());
+        return null;
+      }
+      AdviceStack stack;
+      try {
+        stack = buildAdviceStack(instrumenter);
+      } catch (Exception | LinkageError e) {
+        log.error(
+            "Failed to load - instrumentation.class={}", instrumenter.getClass().getName(), e);
+        stack = new AdviceStack(Collections.<AgentBuilder.Transformer>emptyList());
+      } finally {
+        building.remove(this);
+      }
+      if (ADVICE_STACK.compareAndSet(this, null, stack)) {
+        return stack;
+      }
+      return adviceStack; // another thread finished building first
+    }
+  }
+
+  private static final AtomicReferenceFieldUpdater<DeferredAdvice, AdviceStack> ADVICE_STACK =
+      AtomicReferenceFieldUpdater.newUpdater(
+          DeferredAdvice.class, AdviceStack.class, "adviceStack");
+
   @Override
   protected void buildSingleAdvice(Instrumenter.ForSingleType instrumenter) {
 
@@ -144,6 +262,8 @@ public final class CombiningTransformerBuilder extends AbstractTransformerBuilde
       transformers = Arrays.copyOf(transformers, id + 1);
     }
 
+    nameInstrumenter(id, "test/" + instrumenter.getClass().getSimpleName());
+
     // can't use known-types index because it doesn't include test instrumenters
     matchers.add(new MatchRecorder.ForType(id, named(instrumenter.instrumentedType())));
 
@@ -156,11 +276,17 @@ public final class CombiningTransformerBuilder extends AbstractTransformerBuilde
 
   @Override
   public void applyAdvice(ElementMatcher<? super MethodDescription> matcher, String name) {
-    advice.add(
-        new AgentBuilder.Transformer.ForAdvice()
-            .include(Utils.getBootstrapProxy(), Utils.getAgentClassLoader())
-            .withExceptionHandler(ExceptionHandlers.defaultExceptionHandler())
-            .advice(not(ignoredMethods).and(matcher), name));
+    advice.add(newAdvice(ignoredMethods, matcher, name));
+  }
+
+  private static AgentBuilder.Transformer newAdvice(
+      ElementMatcher<? super MethodDescription> ignoredMethods,
+      ElementMatcher<? super MethodDescription> matcher,
+      String name) {
+    return new AgentBuilder.Transformer.ForAdvice()
+        .include(Utils.getBootstrapProxy(), Utils.getAgentClassLoader())
+        .withExceptionHandler(ExceptionHandlers.defaultExceptionHandler())
+        .advice(not(ignoredMethods).and(matcher), name);
   }
 
   @Override
@@ -175,6 +301,7 @@ public final class CombiningTransformerBuilder extends AbstractTransformerBuilde
         new FieldBackedContextInjector(keyClassName, contextClassName);
 
     int id = nextSupplementaryId++;
+    nameInstrumenter(id, "context-store/" + keyClassName);
 
     matchers.add(new MatchRecorder.ForContextStore(id, activation, contextMatcher));
     transformers[id] = new AdviceStack(new VisitingTransformer(contextAdvice));
@@ -188,11 +315,25 @@ public final class CombiningTransformerBuilder extends AbstractTransformerBuilde
       applyContextStoreInjection();
     }
 
+    AgentBuilder agentBuilder = this.agentBuilder;
+    InstrumenterTimings timings = null;
+    if (InstrumenterConfig.get().isInstrumenterTimingEnabled()) {
+      timings = InstrumenterTimings.init(Arrays.copyOf(instrumenterNames, transformers.length));
+      agentBuilder = agentBuilder.with(new InstrumenterTimingListener(timings));
+    }
+
     return agentBuilder
-        .type(new CombiningMatcher(knownTypesMask, matchers))
+        .type(new CombiningMatcher(knownTypesMask, matchers, timings))
         .and(NOT_DECORATOR_MATCHER)
         .transform(defaultTransformers())
-        .transform(new SplittingTransformer(transformers))
+        .transform(new SplittingTransformer(transformers, timings))
         .installOn(instrumentation);
   }
+
+  private void nameInstrumenter(int id, String name) {
+    if (instrumenterNames.length <= id) {
+      instrumenterNames = Arrays.copyOf(instrumenterNames, id + 1);
+    }
+    instrumenterNames[id] = name;
+  }
 }
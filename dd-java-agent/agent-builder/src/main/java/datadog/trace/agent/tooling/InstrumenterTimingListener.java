@@ -0,0 +1,32 @@
+package datadog.trace.agent.tooling;
+
+import datadog.trace.api.InstrumenterTimings;
+import java.util.BitSet;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.utility.JavaModule;
+
+/** Records the size of each transformed class against the instrumentations that matched it. */
+final class InstrumenterTimingListener extends AgentBuilder.Listener.Adapter {
+  private final InstrumenterTimings timings;
+
+  InstrumenterTimingListener(InstrumenterTimings timings) {
+    this.timings = timings;
+  }
+
+  @Override
+  public void onTransformation(
+      TypeDescription typeDescription,
+      ClassLoader classLoader,
+      JavaModule module,
+      boolean loaded,
+      DynamicType dynamicType) {
+    // matches recorded by CombiningMatcher are still available on this thread
+    BitSet ids = CombiningMatcher.recordedMatches.get();
+    int size = dynamicType.getBytes().length;
+    for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+      timings.recordBytes(id, size);
+    }
+  }
+}
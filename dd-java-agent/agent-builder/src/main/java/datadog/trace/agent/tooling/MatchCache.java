@@ -0,0 +1,313 @@
+package datadog.trace.agent.tooling;
+
+import static datadog.trace.util.AgentThreadFactory.AgentThread.MATCH_CACHE_WRITER;
+import static datadog.trace.util.AgentThreadFactory.newAgentThread;
+
+import datadog.communication.ddagent.TracerVersion;
+import datadog.trace.agent.tooling.bytebuddy.outline.TypePoolFacade;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the results of type matchers across restarts, so types whose class-file has not changed
+ * can skip outlining and hierarchy matching. Results are recorded per {@link MatchRecorder} slot
+ * and are only replayed when the checksum of the class-file and its location are the same as when
+ * they were recorded. Matchers against class-loaders are never cached.
+ *
+ * <p>Results which inspected other types, such as supertypes, also depend on where those types
+ * come from. They are only cached for types from the system class-loader, when the JDK and the
+ * jars on the class-path are part of the fingerprint. Other class-loaders can't be identified
+ * across restarts, so those results are evaluated again every time.
+ *
+ * <p>Results are loaded when the agent is installed and written back when the JVM shuts down. The
+ * whole cache is discarded when the agent version, the set of matchers, the JDK or the class-path
+ * has changed.
+ */
+final class MatchCache {
+  private static final Logger log = LoggerFactory.getLogger(MatchCache.class);
+
+  private static final int MAGIC = 0xDD4D4301;
+
+  // bounds the memory used by the cache, as well as the size of the file
+  static final int MAX_ENTRIES = 1 << 17;
+
+  // fingerprint used when the class-path can't be tracked, e.g. it contains directories
+  static final long UNTRACKED_CLASS_PATH = 0;
+
+  private final Path file;
+  private final long fingerprint;
+  private final boolean cacheSystemHierarchy;
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private volatile boolean dirty;
+
+  private final ThreadLocal<Lookup> lookups = ThreadLocal.withInitial(Lookup::new);
+
+  /**
+   * @param cacheSystemHierarchy whether results which inspected other types can be cached for
+   *     system types, because the fingerprint covers the class-path
+   */
+  MatchCache(Path file, long fingerprint, boolean cacheSystemHierarchy) {
+    this.file = file;
+    this.fingerprint = fingerprint;
+    this.cacheSystemHierarchy = cacheSystemHierarchy;
+  }
+
+  /** Creates the match cache configured with {@code dd.resolver.match.cache.file}, if any. */
+  static MatchCache create(String fileName, MatchRecorder[] matchers) {
+    if (null == fileName || fileName.isEmpty()) {
+      return null;
+    }
+    long classPathFingerprint = classPathFingerprint(System.getProperty("java.class.path"));
+    MatchCache matchCache =
+        new MatchCache(
+            Paths.get(fileName),
+            31 * fingerprint(matchers) + classPathFingerprint,
+            classPathFingerprint != UNTRACKED_CLASS_PATH);
+    matchCache.load();
+    try {
+      Runtime.getRuntime().addShutdownHook(newAgentThread(MATCH_CACHE_WRITER, matchCache::save));
+    } catch (IllegalStateException e) {
+      // The JVM is already shutting down.
+    }
+    return matchCache;
+  }
+
+  /** Starts matching the named type, previous results are used if the type has not changed. */
+  void begin(String name, ClassLoader classLoader, ProtectionDomain pd) {
+    Lookup lookup = lookups.get();
+    lookup.reset();
+    byte[] bytecode = TypePoolFacade.targetBytecode(name);
+    if (null == bytecode) {
+      return; // only available when outlining is enabled
+    }
+    lookup.crc.reset();
+    lookup.crc.update(bytecode, 0, bytecode.length);
+    lookup.active = true;
+    lookup.name = name;
+    lookup.checksum = lookup.crc.getValue();
+    lookup.location = location(pd);
+    lookup.cacheHierarchy =
+        cacheSystemHierarchy && classLoader == ClassLoader.getSystemClassLoader();
+    Entry entry = entries.get(name);
+    if (null != entry && entry.checksum == lookup.checksum && entry.location == lookup.location) {
+      lookup.cached = entry;
+    }
+  }
+
+  /** Evaluates the type matcher in the given slot, unless its previous result is known. */
+  boolean matches(int slot, ElementMatcher<TypeDescription> typeMatcher, TypeDescription type) {
+    Lookup lookup = lookups.get();
+    if (!lookup.active) {
+      return typeMatcher.matches(type);
+    }
+    Entry cached = lookup.cached;
+    if (null != cached && cached.evaluated.get(slot)) {
+      return cached.matched.get(slot);
+    }
+    int otherTypeLookups = TypePoolFacade.otherTypeLookups();
+    boolean matched = typeMatcher.matches(type);
+    if (lookup.cacheHierarchy || otherTypeLookups == TypePoolFacade.otherTypeLookups()) {
+      lookup.evaluated.set(slot);
+      if (matched) {
+        lookup.matched.set(slot);
+      }
+    }
+    return matched;
+  }
+
+  /** Records any new results for the type being matched. */
+  void end() {
+    Lookup lookup = lookups.get();
+    if (lookup.active && !lookup.evaluated.isEmpty()) {
+      BitSet evaluated = (BitSet) lookup.evaluated.clone();
+      BitSet matched = (BitSet) lookup.matched.clone();
+      if (null != lookup.cached) {
+        // some matchers may have been skipped this time, keep their previous results
+        evaluated.or(lookup.cached.evaluated);
+        matched.or(lookup.cached.matched);
+      }
+      if (entries.size() < MAX_ENTRIES || entries.containsKey(lookup.name)) {
+        entries.put(
+            lookup.name, new Entry(lookup.checksum, lookup.location, evaluated, matched));
+        dirty = true;
+      }
+    }
+    lookup.reset();
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  void load() {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readLong() != fingerprint) {
+        log.debug("Ignoring outdated match cache {}", file);
+        return;
+      }
+      int count = Math.min(in.readInt(), MAX_ENTRIES);
+      for (int i = 0; i < count; i++) {
+        String name = in.readUTF();
+        long checksum = in.readLong();
+        int location = in.readInt();
+        BitSet evaluated = readBits(in);
+        BitSet matched = readBits(in);
+        entries.put(name, new Entry(checksum, location, evaluated, matched));
+      }
+      log.debug("Loaded {} entries from match cache {}", count, file);
+    } catch (NoSuchFileException e) {
+      log.debug("No match cache at {}, it will be created on shutdown", file);
+    } catch (Throwable e) {
+      entries.clear();
+      log.debug("Problem reading match cache {}", file, e);
+    }
+  }
+
+  void save() {
+    if (!dirty) {
+      return;
+    }
+    dirty = false;
+    try {
+      Path parent = file.toAbsolutePath().getParent();
+      if (null != parent) {
+        Files.createDirectories(parent);
+      }
+      // write to a separate file first, so concurrent JVMs never read a partial cache
+      Path tempFile = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        out.writeInt(MAGIC);
+        out.writeLong(fingerprint);
+        // snapshot the entries, as the map can still change while we write it
+        List<Map.Entry<String, Entry>> snapshot = new ArrayList<>(entries.entrySet());
+        out.writeInt(snapshot.size());
+        for (Map.Entry<String, Entry> e : snapshot) {
+          Entry entry = e.getValue();
+          out.writeUTF(e.getKey());
+          out.writeLong(entry.checksum);
+          out.writeInt(entry.location);
+          writeBits(out, entry.evaluated);
+          writeBits(out, entry.matched);
+        }
+      }
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (Throwable e) {
+      log.debug("Problem writing match cache {}", file, e);
+    }
+  }
+
+  private static BitSet readBits(DataInputStream in) throws IOException {
+    long[] words = new long[in.readUnsignedShort()];
+    for (int i = 0; i < words.length; i++) {
+      words[i] = in.readLong();
+    }
+    return BitSet.valueOf(words);
+  }
+
+  private static void writeBits(DataOutputStream out, BitSet bits) throws IOException {
+    long[] words = bits.toLongArray();
+    out.writeShort(words.length);
+    for (long word : words) {
+      out.writeLong(word);
+    }
+  }
+
+  private static int location(ProtectionDomain pd) {
+    CodeSource codeSource = null != pd ? pd.getCodeSource() : null;
+    URL location = null != codeSource ? codeSource.getLocation() : null;
+    return null != location ? location.toString().hashCode() : 0;
+  }
+
+  /**
+   * Hashes the JDK and the jars on the class-path, which decide the supertypes of system types.
+   * Returns {@link #UNTRACKED_CLASS_PATH} if the class-path has directories, because their content
+   * can change without being noticed.
+   */
+  static long classPathFingerprint(String classPath) {
+    long fingerprint = 31L * String.valueOf(System.getProperty("java.home")).hashCode();
+    fingerprint = 31 * fingerprint + String.valueOf(System.getProperty("java.version")).hashCode();
+    if (null != classPath && !classPath.isEmpty()) {
+      for (String entry : classPath.split(File.pathSeparator)) {
+        File file = new File(entry);
+        if (file.isDirectory()) {
+          return UNTRACKED_CLASS_PATH;
+        }
+        fingerprint = 31 * fingerprint + entry.hashCode();
+        fingerprint = 31 * fingerprint + file.length();
+        fingerprint = 31 * fingerprint + file.lastModified();
+      }
+    }
+    return fingerprint == UNTRACKED_CLASS_PATH ? 1 : fingerprint;
+  }
+
+  /** Results can only be reused with the same agent and the same matchers in the same order. */
+  private static long fingerprint(MatchRecorder[] matchers) {
+    long fingerprint = TracerVersion.TRACER_VERSION.hashCode();
+    for (MatchRecorder matcher : matchers) {
+      fingerprint = 31 * fingerprint + matcher.getClass().getName().hashCode();
+      fingerprint = 31 * fingerprint + matcher.describe().hashCode();
+    }
+    return fingerprint;
+  }
+
+  static final class Entry {
+    final long checksum;
+    final int location;
+    final BitSet evaluated;
+    final BitSet matched;
+
+    Entry(long checksum, int location, BitSet evaluated, BitSet matched) {
+      this.checksum = checksum;
+      this.location = location;
+      this.evaluated = evaluated;
+      this.matched = matched;
+    }
+  }
+
+  /** Matching state of the current thread. */
+  static final class Lookup {
+    final CRC32 crc = new CRC32();
+    final BitSet evaluated = new BitSet();
+    final BitSet matched = new BitSet();
+
+    boolean active;
+    String name;
+    long checksum;
+    int location;
+    boolean cacheHierarchy;
+    Entry cached;
+
+    void reset() {
+      active = false;
+      name = null;
+      cached = null;
+      evaluated.clear();
+      matched.clear();
+    }
+  }
+}
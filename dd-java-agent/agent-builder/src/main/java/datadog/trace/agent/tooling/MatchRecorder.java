@@ -12,10 +12,28 @@ import net.bytebuddy.matcher.ElementMatcher;
 abstract class MatchRecorder {
   protected final int id;
 
+  // assigned by the CombiningMatcher
+  private int slot;
+  private MatchCache matchCache;
+
   MatchRecorder(int id) {
     this.id = id;
   }
 
+  void useMatchCache(int slot, MatchCache matchCache) {
+    this.slot = slot;
+    this.matchCache = matchCache;
+  }
+
+  /** Evaluates a matcher which only depends on the type, so its result can be cached. */
+  protected final boolean matchesType(
+      ElementMatcher<TypeDescription> typeMatcher, TypeDescription type) {
+    if (null == matchCache) {
+      return typeMatcher.matches(type);
+    }
+    return matchCache.matches(slot, typeMatcher, type);
+  }
+
   public abstract void record(
       TypeDescription type, ClassLoader classLoader, Class<?> classBeingRedefined, BitSet matches);
 
@@ -38,7 +56,7 @@ abstract class MatchRecorder {
         ClassLoader classLoader,
         Class<?> classBeingRedefined,
         BitSet matches) {
-      if (typeMatcher.matches(type)) {
+      if (matchesType(typeMatcher, type)) {
         matches.set(id);
       }
     }
@@ -49,11 +67,12 @@ abstract class MatchRecorder {
     private final ElementMatcher<ClassLoader> hintMatcher;
     private final ElementMatcher<TypeDescription> typeMatcher;
 
-    ForHierarchy(int id, Instrumenter.ForTypeHierarchy instrumenter) {
+    ForHierarchy(
+        int id, Instrumenter.ForTypeHierarchy instrumenter, SuperTypeFilter superTypeFilter) {
       super(id);
       String hint = instrumenter.hierarchyMarkerType();
       this.hintMatcher = null != hint ? hasClassNamed(hint) : ANY_CLASS_LOADER;
-      this.typeMatcher = instrumenter.hierarchyMatcher();
+      this.typeMatcher = superTypeFilter.guard(id, instrumenter.hierarchyMatcher());
     }
 
     @Override
@@ -63,7 +82,7 @@ abstract class MatchRecorder {
         Class<?> classBeingRedefined,
         BitSet matches) {
       // check current state first in case a known-type already matched this instrumentation
-      if (!matches.get(id) && hintMatcher.matches(classLoader) && typeMatcher.matches(type)) {
+      if (!matches.get(id) && hintMatcher.matches(classLoader) && matchesType(typeMatcher, type)) {
         matches.set(id);
       }
     }
@@ -114,7 +133,7 @@ abstract class MatchRecorder {
         ClassLoader classLoader,
         Class<?> classBeingRedefined,
         BitSet matches) {
-      if (matches.get(id) && !matcher.matches(type)) {
+      if (matches.get(id) && !matchesType(matcher, type)) {
         matches.clear(id);
       }
     }
@@ -1,5 +1,6 @@
 package datadog.trace.agent.tooling;
 
+import datadog.trace.api.InstrumenterTimings;
 import java.security.ProtectionDomain;
 import java.util.BitSet;
 import net.bytebuddy.agent.builder.AgentBuilder;
@@ -10,9 +11,11 @@ import net.bytebuddy.utility.JavaModule;
 /** Splits matches recorded by {@link CombiningMatcher} back into separate transformation steps. */
 final class SplittingTransformer implements AgentBuilder.Transformer {
   private final AdviceStack[] transformers;
+  private final InstrumenterTimings timings;
 
-  SplittingTransformer(AdviceStack[] transformers) {
+  SplittingTransformer(AdviceStack[] transformers, InstrumenterTimings timings) {
     this.transformers = transformers;
+    this.timings = timings;
   }
 
   @Override
@@ -25,7 +28,13 @@ final class SplittingTransformer implements AgentBuilder.Transformer {
 
     BitSet ids = CombiningMatcher.recordedMatches.get();
     for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
-      builder = transformers[id].transform(builder, target, classLoader, module, pd);
+      if (null == timings) {
+        builder = transformers[id].transform(builder, target, classLoader, module, pd);
+      } else {
+        long start = System.nanoTime();
+        builder = transformers[id].transform(builder, target, classLoader, module, pd);
+        timings.recordTransform(id, System.nanoTime() - start);
+      }
     }
 
     return builder;
@@ -0,0 +1,121 @@
+package datadog.trace.agent.tooling;
+
+import datadog.trace.agent.tooling.bytebuddy.outline.TypePoolFacade;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import net.bytebuddy.description.type.TypeDefinition;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Skips hierarchy matchers when the type's hierarchy contains none of the super-types they require,
+ * according to the {@link KnownTypesIndex}. The hierarchy is walked at most once per type and each
+ * super-type costs a single trie lookup, instead of each hierarchy matcher walking it separately.
+ */
+final class SuperTypeFilter {
+  private static final Logger log = LoggerFactory.getLogger(SuperTypeFilter.class);
+
+  // how often to log the number of types rejected by the filter
+  private static final int REPORT_INTERVAL = 1 << 14;
+
+  private final KnownTypesIndex knownTypesIndex;
+  private final BitSet superTypesMask;
+
+  private final ThreadLocal<Walk> walks = ThreadLocal.withInitial(Walk::new);
+
+  private final LongAdder walkCount = new LongAdder();
+  private final LongAdder rejectCount = new LongAdder();
+
+  SuperTypeFilter(KnownTypesIndex knownTypesIndex) {
+    this.knownTypesIndex = knownTypesIndex;
+    this.superTypesMask = knownTypesIndex.superTypesMask();
+  }
+
+  /** Guards the hierarchy matcher with the filter, if its super-types are indexed. */
+  ElementMatcher<TypeDescription> guard(int id, ElementMatcher<TypeDescription> typeMatcher) {
+    if (!superTypesMask.get(id)) {
+      return typeMatcher;
+    }
+    return type -> mayMatch(id, type) && typeMatcher.matches(type);
+  }
+
+  /** Forgets the hierarchy of the last type, ready for the next type to be matched. */
+  void reset() {
+    walks.get().reset();
+  }
+
+  boolean mayMatch(int id, TypeDescription type) {
+    Walk walk = walks.get();
+    if (walk.type != type) {
+      walk.reset();
+      walk.type = type;
+      int otherTypeLookups = TypePoolFacade.otherTypeLookups();
+      try {
+        walk.superTypes(type);
+      } catch (Throwable e) {
+        // hierarchy is incomplete, leave it to the hierarchy matchers to decide
+        walk.candidates.or(superTypesMask);
+      }
+      walk.otherTypeLookups = TypePoolFacade.otherTypeLookups() - otherTypeLookups;
+      recordWalk(walk.candidates.isEmpty());
+    } else {
+      // reusing the walk still depends on the super-types it looked up
+      TypePoolFacade.recordOtherTypeLookups(walk.otherTypeLookups);
+    }
+    return walk.candidates.get(id);
+  }
+
+  private void recordWalk(boolean rejected) {
+    if (rejected) {
+      rejectCount.increment();
+    }
+    walkCount.increment();
+    if (log.isDebugEnabled() && walkCount.sum() % REPORT_INTERVAL == 0) {
+      log.debug(
+          "Super-type index rejected {} of {} types before hierarchy matching",
+          rejectCount.sum(),
+          walkCount.sum());
+    }
+  }
+
+  /** Hierarchy walk of the current thread. */
+  final class Walk {
+    final BitSet candidates = new BitSet();
+    final Set<String> visited = new HashSet<>();
+
+    TypeDescription type;
+    int otherTypeLookups;
+
+    void superTypes(TypeDefinition typeDefinition) {
+      while (null != typeDefinition) {
+        TypeDescription erasure = typeDefinition.asErasure();
+        if (visited.add(erasure.getName())) {
+          knownTypesIndex.applySuperType(erasure.getName(), candidates);
+          interfaces(erasure);
+        }
+        typeDefinition = erasure.getSuperClass();
+      }
+    }
+
+    private void interfaces(TypeDescription typeDescription) {
+      for (TypeDescription.Generic iface : typeDescription.getInterfaces()) {
+        TypeDescription erasure = iface.asErasure();
+        if (visited.add(erasure.getName())) {
+          knownTypesIndex.applySuperType(erasure.getName(), candidates);
+          interfaces(erasure);
+        }
+      }
+    }
+
+    void reset() {
+      type = null;
+      otherTypeLookups = 0;
+      candidates.clear();
+      visited.clear();
+    }
+  }
+}
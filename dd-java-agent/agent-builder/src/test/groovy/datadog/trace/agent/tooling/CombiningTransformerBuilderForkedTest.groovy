@@ -0,0 +1,213 @@
+package datadog.trace.agent.tooling
+
+import datadog.trace.test.util.DDSpecification
+import net.bytebuddy.agent.builder.AgentBuilder
+import net.bytebuddy.description.type.TypeDescription
+import net.bytebuddy.dynamic.DynamicType
+import net.bytebuddy.utility.JavaModule
+import spock.lang.Timeout
+
+import java.security.ProtectionDomain
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import static datadog.trace.api.config.TraceInstrumentationConfig.LAZY_ADVICE_ENABLED
+
+@Timeout(value = 30, unit = TimeUnit.SECONDS)
+class CombiningTransformerBuilderForkedTest extends DDSpecification {
+
+  def builder = Stub(DynamicType.Builder)
+  def target = Stub(TypeDescription)
+
+  def setup() {
+    injectSysConfig(LAZY_ADVICE_ENABLED, "true")
+    // instrumentations created outside of Instrumenters.load take the last id it handed out;
+    // start from zero so the first one gets transformers[0] and the next a supplementary id of 1
+    Instrumenters.currentInstrumentationId = 0
+  }
+
+  def "advice is built when the instrumentation first matches"() {
+    setup:
+    def transformerBuilder = new CombiningTransformerBuilder(Stub(AgentBuilder), 0)
+    def instrumentation = new DeferredInstrumentation()
+
+    when:
+    transformerBuilder.applyInstrumentation(instrumentation)
+
+    then:
+    instrumentation.builds.get() == 0
+
+    when:
+    def transformed = transform(transformerBuilder, 0)
+
+    then:
+    transformed.is(builder)
+    instrumentation.builds.get() == 1
+    instrumentation.transforms.get() == 1
+
+    when:
+    transform(transformerBuilder, 0)
+
+    then:
+    instrumentation.builds.get() == 1
+    instrumentation.transforms.get() == 2
+  }
+
+  def "instrumentation is inert when its advice fails to build"() {
+    setup:
+    def transformerBuilder = new CombiningTransformerBuilder(Stub(AgentBuilder), 0)
+    def instrumentation = new DeferredInstrumentation()
+    instrumentation.onBuild = {
+      throw new NoClassDefFoundError("missing/Advice")
+    }
+    transformerBuilder.applyInstrumentation(instrumentation)
+
+    when:
+    def transformed = transform(transformerBuilder, 0)
+
+    then:
+    transformed.is(builder)
+    instrumentation.builds.get() == 1
+
+    when:
+    transformed = transform(transformerBuilder, 0)
+
+    then:
+    transformed.is(builder)
+    instrumentation.builds.get() == 1
+    instrumentation.transforms.get() == 0
+  }
+
+  def "threads racing to build the advice all apply it"() {
+    setup:
+    def threads = 8
+    def transformerBuilder = new CombiningTransformerBuilder(Stub(AgentBuilder), 0)
+    def instrumentation = new DeferredInstrumentation()
+    def start = new CountDownLatch(1)
+    instrumentation.onBuild = {
+      Thread.sleep(10) // widen the race
+    }
+    transformerBuilder.applyInstrumentation(instrumentation)
+    def executor = Executors.newFixedThreadPool(threads)
+
+    when:
+    def futures = (1..threads).collect {
+      executor.submit {
+        start.await()
+        transform(transformerBuilder, 0)
+      }
+    }
+    start.countDown()
+    futures*.get(10, TimeUnit.SECONDS)
+    def builds = instrumentation.builds.get()
+
+    then:
+    builds >= 1
+    builds <= threads
+    instrumentation.transforms.get() == threads
+
+    when:
+    transform(transformerBuilder, 0)
+
+    then:
+    instrumentation.builds.get() == builds
+    instrumentation.transforms.get() == threads + 1
+
+    cleanup:
+    executor.shutdownNow()
+  }
+
+  def "types loaded while building advice are transformed by other instrumentations"() {
+    setup:
+    def transformerBuilder = new CombiningTransformerBuilder(Stub(AgentBuilder), 0)
+    def outer = new DeferredInstrumentation()
+    def inner = new DeferredInstrumentation()
+    transformerBuilder.applyInstrumentation(outer)
+    transformerBuilder.applyInstrumentation(inner)
+    outer.onBuild = {
+      // loading a type matched by this instrumentation while building it leaves the type alone
+      transform(transformerBuilder, 0)
+      // loading a type matched by another instrumentation builds and applies that one
+      transform(transformerBuilder, 1)
+    }
+
+    when:
+    transform(transformerBuilder, 0)
+
+    then:
+    outer.builds.get() == 1
+    outer.transforms.get() == 1
+    inner.builds.get() == 1
+    inner.transforms.get() == 1
+  }
+
+  def "building advice does not block transformations on other threads"() {
+    setup:
+    def transformerBuilder = new CombiningTransformerBuilder(Stub(AgentBuilder), 0)
+    def outer = new DeferredInstrumentation()
+    def inner = new DeferredInstrumentation()
+    transformerBuilder.applyInstrumentation(outer)
+    transformerBuilder.applyInstrumentation(inner)
+    def transformedOnOtherThread = new CountDownLatch(1)
+    outer.onBuild = {
+      // simulates waiting on a class being defined by another thread, which is transforming it
+      Thread.start {
+        transform(transformerBuilder, 1)
+        transformedOnOtherThread.countDown()
+      }
+      assert transformedOnOtherThread.await(10, TimeUnit.SECONDS)
+    }
+
+    when:
+    transform(transformerBuilder, 0)
+
+    then:
+    outer.transforms.get() == 1
+    inner.builds.get() == 1
+    inner.transforms.get() == 1
+  }
+
+  DynamicType.Builder<?> transform(CombiningTransformerBuilder transformerBuilder, int id) {
+    return transformerBuilder.transformers[id].transform(builder, target, null, null, null)
+  }
+
+  static class DeferredInstrumentation extends Instrumenter.Default
+  implements Instrumenter.ForSingleType {
+    final AtomicInteger builds = new AtomicInteger()
+    final AtomicInteger transforms = new AtomicInteger()
+    volatile Closure onBuild = {}
+
+    DeferredInstrumentation() {
+      super("deferred")
+    }
+
+    @Override
+    String instrumentedType() {
+      return "foo.Bar"
+    }
+
+    @Override
+    void adviceTransformations(Instrumenter.AdviceTransformation transformation) {
+      builds.incrementAndGet()
+      onBuild.call()
+    }
+
+    @Override
+    Instrumenter.AdviceTransformer transformer() {
+      return new Instrumenter.AdviceTransformer() {
+          @Override
+          DynamicType.Builder<?> transform(
+            DynamicType.Builder<?> builder,
+            TypeDescription typeDescription,
+            ClassLoader classLoader,
+            JavaModule module,
+            ProtectionDomain pd) {
+            transforms.incrementAndGet()
+            return builder
+          }
+        }
+    }
+  }
+}
@@ -0,0 +1,238 @@
+package datadog.trace.agent.tooling
+
+import datadog.trace.agent.tooling.bytebuddy.outline.TypePoolFacade
+import datadog.trace.test.util.DDSpecification
+import datadog.trace.util.ClassNameTrie
+import net.bytebuddy.ByteBuddy
+import net.bytebuddy.description.type.TypeDescription
+import net.bytebuddy.matcher.ElementMatcher
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class MatchCacheTest extends DDSpecification {
+
+  Path cacheFile = Files.createTempDirectory("match-cache").resolve("matches.bin")
+
+  int evaluations = 0
+
+  def cleanup() {
+    TypePoolFacade.INSTANCE.endTransform()
+    Files.deleteIfExists(cacheFile)
+  }
+
+  def "results are replayed after a restart"() {
+    setup:
+    def matchCache = new MatchCache(cacheFile, 42, false)
+
+    when:
+    def results = match(matchCache, "foo.Bar", [1, 2, 3] as byte[])
+
+    then:
+    results == [true, false]
+    evaluations == 2
+    matchCache.size() == 1
+
+    when:
+    matchCache.save()
+    def restarted = new MatchCache(cacheFile, 42, false)
+    restarted.load()
+    results = match(restarted, "foo.Bar", [1, 2, 3] as byte[])
+
+    then:
+    results == [true, false]
+    evaluations == 2
+    restarted.size() == 1
+  }
+
+  def "changed class-files are matched again"() {
+    setup:
+    def matchCache = new MatchCache(cacheFile, 42, false)
+    match(matchCache, "foo.Bar", [1, 2, 3] as byte[])
+
+    when:
+    def results = match(matchCache, "foo.Bar", [1, 2, 4] as byte[])
+
+    then:
+    results == [true, false]
+    evaluations == 4
+  }
+
+  def "results are discarded when the matchers change"() {
+    setup:
+    def matchCache = new MatchCache(cacheFile, 42, false)
+    match(matchCache, "foo.Bar", [1, 2, 3] as byte[])
+    matchCache.save()
+
+    when:
+    def restarted = new MatchCache(cacheFile, 43, false)
+    restarted.load()
+
+    then:
+    restarted.size() == 0
+  }
+
+  def "types without class-file are not cached"() {
+    setup:
+    def matchCache = new MatchCache(cacheFile, 42, false)
+
+    when:
+    matchCache.begin("foo.Bar", null, null)
+    def matched = matchCache.matches(0, matcher(true), null)
+    matchCache.end()
+
+    then:
+    matched
+    evaluations == 1
+    matchCache.size() == 0
+  }
+
+  def "results which inspected other types are only cached for tracked system types"() {
+    setup:
+    def matchCache = new MatchCache(cacheFile, 42, cacheSystemHierarchy)
+
+    when:
+    def results = matchHierarchy(matchCache, "foo.Bar", [1, 2, 3] as byte[], classLoader)
+    results += matchHierarchy(matchCache, "foo.Bar", [1, 2, 3] as byte[], classLoader)
+
+    then:
+    results == [true, false, true, false]
+    evaluations == expectedEvaluations
+
+    where:
+    cacheSystemHierarchy | classLoader                                        | expectedEvaluations
+    true                 | ClassLoader.systemClassLoader                      | 2
+    true                 | new URLClassLoader(new URL[0], (ClassLoader) null) | 3
+    false                | ClassLoader.systemClassLoader                      | 3
+  }
+
+  def "rejections by the super-type filter are not cached for other class-loaders"() {
+    setup:
+    // fixture.Impl extends fixture.Base, which lives in another jar
+    def dir = Files.createTempDirectory("super-types")
+    def base = new ByteBuddy().subclass(Object).name("fixture.Base").make()
+    def impl = new ByteBuddy().subclass(base.typeDescription).name("fixture.Impl").make()
+    def baseJar = base.toJar(dir.resolve("base.jar").toFile())
+    def implJar = impl.toJar(dir.resolve("impl.jar").toFile())
+    def classLoader = new URLClassLoader(
+      [implJar.toURI().toURL(), baseJar.toURI().toURL()] as URL[], (ClassLoader) null)
+    // both hierarchy matchers require a super-type that fixture.Impl doesn't have
+    def superTypes = new ClassNameTrie.Builder()
+    superTypes.put("fixture.Missing", 0x1000)
+    def superTypesMask = BitSet.valueOf([0b11L] as long[])
+    def knownTypesIndex = new KnownTypesIndex(
+      new int[0][], ClassNameTrie.Builder.EMPTY_TRIE, superTypesMask,
+      [[0, 1] as int[]] as int[][], superTypes.buildTrie())
+    def superTypeFilter = new SuperTypeFilter(knownTypesIndex)
+    def matchers = (0..1).collect { id ->
+      def guarded = superTypeFilter.guard(id, matcher(true))
+      return { type ->
+        evaluations++
+        return guarded.matches(type)
+      } as ElementMatcher<TypeDescription>
+    }
+    def matchCache = new MatchCache(cacheFile, 42, true)
+
+    when:
+    def results = matchGuarded(matchCache, impl.bytes, classLoader, superTypeFilter, matchers)
+    results += matchGuarded(matchCache, impl.bytes, classLoader, superTypeFilter, matchers)
+
+    then:
+    results == [false, false, false, false]
+    evaluations == 4
+
+    cleanup:
+    baseJar.delete()
+    implJar.delete()
+    Files.deleteIfExists(dir)
+  }
+
+  def "class-path fingerprint tracks jars but not directories"() {
+    setup:
+    def dir = Files.createTempDirectory("class-path")
+    def jar = Files.write(dir.resolve("lib.jar"), [1, 2, 3] as byte[]).toFile()
+    jar.setLastModified(1_000_000_000_000L)
+
+    when:
+    def fingerprint = MatchCache.classPathFingerprint(jar.path)
+
+    then:
+    fingerprint != MatchCache.UNTRACKED_CLASS_PATH
+    MatchCache.classPathFingerprint(jar.path) == fingerprint
+
+    when:
+    jar.setLastModified(2_000_000_000_000L)
+
+    then:
+    MatchCache.classPathFingerprint(jar.path) != fingerprint
+
+    when:
+    def classPath = jar.path + File.pathSeparator + dir
+
+    then:
+    MatchCache.classPathFingerprint(classPath) == MatchCache.UNTRACKED_CLASS_PATH
+
+    cleanup:
+    jar.delete()
+    Files.deleteIfExists(dir)
+  }
+
+  List<Boolean> match(MatchCache matchCache, String name, byte[] bytecode) {
+    TypePoolFacade.beginTransform(name, bytecode)
+    matchCache.begin(name, null, null)
+    def results = [matchCache.matches(0, matcher(true), null), matchCache.matches(1, matcher(false), null)]
+    matchCache.end()
+    TypePoolFacade.INSTANCE.endTransform()
+    return results
+  }
+
+  ElementMatcher<TypeDescription> matcher(boolean result) {
+    return { type ->
+      evaluations++
+      return result
+    } as ElementMatcher<TypeDescription>
+  }
+
+  List<Boolean> matchHierarchy(
+    MatchCache matchCache, String name, byte[] bytecode, ClassLoader classLoader) {
+    TypePoolFacade.switchContext(ClassLoader.systemClassLoader)
+    TypePoolFacade.beginTransform(name, bytecode)
+    matchCache.begin(name, classLoader, null)
+    def results = [
+      matchCache.matches(0, matcher(true), null),
+      matchCache.matches(1, hierarchyMatcher(false), null)
+    ]
+    matchCache.end()
+    TypePoolFacade.INSTANCE.endTransform()
+    return results
+  }
+
+  ElementMatcher<TypeDescription> hierarchyMatcher(boolean result) {
+    return { type ->
+      evaluations++
+      // inspects another type, so the result depends on more than the class-file being matched
+      TypePoolFacade.INSTANCE.describe("java.util.AbstractList").resolve().getModifiers()
+      return result
+    } as ElementMatcher<TypeDescription>
+  }
+
+  List<Boolean> matchGuarded(
+    MatchCache matchCache,
+    byte[] bytecode,
+    ClassLoader classLoader,
+    SuperTypeFilter superTypeFilter,
+    List<ElementMatcher<TypeDescription>> matchers) {
+    TypePoolFacade.switchContext(classLoader)
+    TypePoolFacade.beginTransform("fixture.Impl", bytecode)
+    def type = TypePoolFacade.INSTANCE.describe("fixture.Impl").resolve()
+    matchCache.begin("fixture.Impl", classLoader, null)
+    def results = [
+      matchCache.matches(0, matchers[0], type),
+      matchCache.matches(1, matchers[1], type)
+    ]
+    matchCache.end()
+    superTypeFilter.reset()
+    TypePoolFacade.INSTANCE.endTransform()
+    return results
+  }
+}
@@ -19,8 +19,10 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -57,6 +59,7 @@ public class ConfigurationUpdater
   private final EnvironmentAndVersionChecker envAndVersionCheck;
   private final DebuggerSink sink;
   private final ClassesToRetransformFinder finder;
+  private final RetransformScheduler retransformScheduler;
   private final String serviceName;
 
   private final Map<String, InstrumentationResult> instrumentationResults =
@@ -84,6 +87,7 @@ public class ConfigurationUpdater
     this.serviceName = TagsHelper.sanitize(config.getServiceName());
     this.sink = sink;
     this.finder = finder;
+    this.retransformScheduler = new RetransformScheduler(instrumentation);
   }
 
   // Should be called by only one thread
@@ -172,7 +176,13 @@ public class ConfigurationUpdater
     }
     List<Class<?>> changedClasses =
         finder.getAllLoadedChangedClasses(instrumentation.getAllLoadedClasses(), changes);
-    retransformClasses(changedClasses);
+    // classes with newly added probes go first, so their probes start emitting as soon as possible
+    Set<String> addedTypeNames = getAddedTypeNames(changes);
+    retransformScheduler.retransform(
+        changedClasses,
+        clazz ->
+            addedTypeNames.contains(clazz.getName())
+                || addedTypeNames.contains(clazz.getSimpleName()));
     // ensures that we have at least re-transformed 1 class
     if (changedClasses.size() > 0) {
       log.debug("Re-transformation done");
@@ -223,17 +233,15 @@ public class ConfigurationUpdater
     return Configuration.builder().setService(serviceName).build();
   }
 
-  private void retransformClasses(List<Class<?>> classesToBeTransformed) {
-    for (Class<?> clazz : classesToBeTransformed) {
-      try {
-        log.info("re-transforming {}", clazz.getCanonicalName());
-        instrumentation.retransformClasses(clazz);
-      } catch (Exception ex) {
-        ExceptionHelper.logException(log, ex, "re-transform error:");
-      } catch (Throwable ex) {
-        ExceptionHelper.logException(log, ex, "re-transform throwable:");
+  private static Set<String> getAddedTypeNames(ConfigurationComparer changes) {
+    Set<String> typeNames = new HashSet<>();
+    for (ProbeDefinition definition : changes.getAddedDefinitions()) {
+      String typeName = definition.getWhere().getTypeName();
+      if (typeName != null && !typeName.isEmpty()) {
+        typeNames.add(typeName);
       }
     }
+    return typeNames;
   }
 
   private void storeDebuggerDefinitions(ConfigurationComparer changes) {
@@ -252,7 +260,7 @@ public class ConfigurationUpdater
     ProbeDefinition definition = appliedDefinitions.get(id);
     if (definition == null) {
       log.info("Cannot resolve probe, re-transforming calling class: {}", callingClass.getName());
-      retransformClasses(Collections.singletonList(callingClass));
+      retransformScheduler.retransform(Collections.singletonList(callingClass));
       return null;
     }
     String type = definition.getWhere().getTypeName();
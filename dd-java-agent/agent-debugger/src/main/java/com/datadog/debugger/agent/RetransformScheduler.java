@@ -0,0 +1,151 @@
+package com.datadog.debugger.agent;
+
+import com.datadog.debugger.util.ExceptionHelper;
+import java.lang.instrument.Instrumentation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Re-transforms classes in batches, so large sets of classes don't need one safepoint per class,
+ * while keeping each batch short enough to bound the pause seen by application threads.
+ *
+ * <p>The batch size starts at 1 and doubles while batches finish under the pause target, halving
+ * again when a batch goes over it. Classes accepted by the priority predicate are re-transformed
+ * first. If a batch fails, its classes are re-transformed one by one so a single bad class doesn't
+ * prevent the others from being instrumented.
+ */
+public class RetransformScheduler {
+  private static final Logger log = LoggerFactory.getLogger(RetransformScheduler.class);
+
+  static final long DEFAULT_PAUSE_TARGET_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+  static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+  // log2 buckets of batch pauses in microseconds: [0,1), [1,2), [2,4), ... [2^30,+inf)
+  static final int PAUSE_BUCKETS = 32;
+
+  private final Instrumentation instrumentation;
+  private final long pauseTargetNanos;
+  private final int maxBatchSize;
+
+  private final AtomicLongArray pauseHistogram = new AtomicLongArray(PAUSE_BUCKETS);
+
+  public RetransformScheduler(Instrumentation instrumentation) {
+    this(instrumentation, DEFAULT_PAUSE_TARGET_NANOS, DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  RetransformScheduler(Instrumentation instrumentation, long pauseTargetNanos, int maxBatchSize) {
+    this.instrumentation = instrumentation;
+    this.pauseTargetNanos = pauseTargetNanos;
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  public void retransform(List<Class<?>> classes) {
+    retransform(classes, clazz -> false);
+  }
+
+  public void retransform(List<Class<?>> classes, Predicate<Class<?>> priority) {
+    if (classes.isEmpty()) {
+      return;
+    }
+    List<Class<?>> ordered = prioritize(classes, priority);
+    int batchSize = 1;
+    int batchCount = 0;
+    long maxPauseNanos = 0;
+    int start = 0;
+    while (start < ordered.size()) {
+      int end = Math.min(start + batchSize, ordered.size());
+      List<Class<?>> batch = ordered.subList(start, end);
+      long pauseNanos = retransformBatch(batch);
+      recordPause(pauseNanos);
+      maxPauseNanos = Math.max(maxPauseNanos, pauseNanos);
+      batchCount++;
+      if (pauseNanos < pauseTargetNanos / 2) {
+        batchSize = Math.min(batchSize * 2, maxBatchSize);
+      } else if (pauseNanos > pauseTargetNanos) {
+        batchSize = Math.max(batchSize / 2, 1);
+      }
+      start = end;
+    }
+    if (log.isDebugEnabled()) {
+      log.debug(
+          "Re-transformed {} classes in {} batches, max pause {}us, pause histogram (log2 us): {}",
+          ordered.size(),
+          batchCount,
+          TimeUnit.NANOSECONDS.toMicros(maxPauseNanos),
+          pauseHistogram);
+    }
+  }
+
+  /** Returns the number of batches recorded in each log2 bucket of pause microseconds. */
+  public long[] getPauseHistogram() {
+    long[] counts = new long[PAUSE_BUCKETS];
+    for (int i = 0; i < PAUSE_BUCKETS; i++) {
+      counts[i] = pauseHistogram.get(i);
+    }
+    return counts;
+  }
+
+  private static List<Class<?>> prioritize(List<Class<?>> classes, Predicate<Class<?>> priority) {
+    List<Class<?>> ordered = new ArrayList<>(classes.size());
+    List<Class<?>> others = new ArrayList<>(classes.size());
+    for (Class<?> clazz : classes) {
+      if (priority.test(clazz)) {
+        ordered.add(clazz);
+      } else {
+        others.add(clazz);
+      }
+    }
+    ordered.addAll(others);
+    return ordered;
+  }
+
+  private long retransformBatch(List<Class<?>> batch) {
+    if (log.isInfoEnabled()) {
+      for (Class<?> clazz : batch) {
+        log.info("re-transforming {}", clazz.getCanonicalName());
+      }
+    }
+    long start = System.nanoTime();
+    try {
+      instrumentation.retransformClasses(batch.toArray(new Class<?>[0]));
+      return System.nanoTime() - start;
+    } catch (Throwable ex) {
+      if (batch.size() == 1) {
+        logException(ex);
+        return System.nanoTime() - start;
+      }
+      log.debug("re-transform of batch failed, retrying classes one by one: {}", ex.toString());
+    }
+    // a failed batch is rolled back entirely, retry each class so the others still get applied
+    long maxPauseNanos = 0;
+    for (Class<?> clazz : batch) {
+      long classStart = System.nanoTime();
+      try {
+        instrumentation.retransformClasses(clazz);
+      } catch (Throwable ex) {
+        logException(ex);
+      }
+      maxPauseNanos = Math.max(maxPauseNanos, System.nanoTime() - classStart);
+    }
+    return maxPauseNanos;
+  }
+
+  private static void logException(Throwable ex) {
+    if (ex instanceof Exception) {
+      ExceptionHelper.logException(log, ex, "re-transform error:");
+    } else {
+      ExceptionHelper.logException(log, ex, "re-transform throwable:");
+    }
+  }
+
+  private void recordPause(long pauseNanos) {
+    long micros = TimeUnit.NANOSECONDS.toMicros(pauseNanos);
+    int bucket = micros == 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+    pauseHistogram.incrementAndGet(Math.min(bucket, PAUSE_BUCKETS - 1));
+  }
+}
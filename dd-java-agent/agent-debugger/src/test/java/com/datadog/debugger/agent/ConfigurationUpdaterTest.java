@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -771,13 +772,15 @@ public class ConfigurationUpdaterTest {
     configurationUpdater.accept(createAppMetrics(metricProbes));
     verify(inst).removeTransformer(any());
     ArgumentCaptor<Class<?>[]> captor = ArgumentCaptor.forClass(Class[].class);
-    verify(inst, times(5)).retransformClasses(captor.capture());
+    // classes of the new probe come first, however the classes are batched
+    verify(inst, atLeastOnce()).retransformClasses(captor.capture());
     List<Class<?>[]> allValues = captor.getAllValues();
     assertEquals(String.class, allValues.get(0));
     assertEquals(HashMap.class, allValues.get(1));
-    assertEquals(String.class, allValues.get(2));
-    assertEquals(HashMap.class, allValues.get(3));
-    assertEquals(StringBuilder.class, allValues.get(4));
+    assertEquals(StringBuilder.class, allValues.get(2));
+    assertEquals(String.class, allValues.get(3));
+    assertEquals(HashMap.class, allValues.get(4));
+    assertEquals(5, allValues.size());
     Map<String, ProbeDefinition> appliedDefinitions = configurationUpdater.getAppliedDefinitions();
     assertEquals(1, appliedDefinitions.size());
     assertTrue(appliedDefinitions.containsKey(METRIC_ID));
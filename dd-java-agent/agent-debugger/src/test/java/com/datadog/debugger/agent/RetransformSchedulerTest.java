@@ -0,0 +1,75 @@
+package com.datadog.debugger.agent;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class RetransformSchedulerTest {
+
+  @Mock private Instrumentation inst;
+
+  @Test
+  public void batchesGrowWhileUnderPauseTarget() throws UnmodifiableClassException {
+    RetransformScheduler scheduler = doublingScheduler(2);
+    List<Class<?>> classes =
+        Arrays.asList(String.class, HashMap.class, ArrayList.class, LinkedList.class);
+    scheduler.retransform(classes);
+    verify(inst).retransformClasses(String.class);
+    verify(inst).retransformClasses(HashMap.class, ArrayList.class);
+    verify(inst).retransformClasses(LinkedList.class);
+    assertEquals(3, LongStream.of(scheduler.getPauseHistogram()).sum());
+  }
+
+  @Test
+  public void priorityClassesFirst() throws UnmodifiableClassException {
+    RetransformScheduler scheduler = doublingScheduler(2);
+    scheduler.retransform(
+        Arrays.asList(String.class, HashMap.class, StringBuilder.class),
+        clazz -> clazz == StringBuilder.class);
+    ArgumentCaptor<Class<?>[]> captor = ArgumentCaptor.forClass(Class[].class);
+    verify(inst, times(2)).retransformClasses(captor.capture());
+    assertArrayEquals(
+        new Class<?>[] {StringBuilder.class, String.class, HashMap.class},
+        captor.getAllValues().toArray());
+  }
+
+  @Test
+  public void failedBatchRetriedOneByOne() throws UnmodifiableClassException {
+    doThrow(new UnmodifiableClassException())
+        .when(inst)
+        .retransformClasses(eq(HashMap.class), eq(ArrayList.class));
+    RetransformScheduler scheduler = doublingScheduler(2);
+    scheduler.retransform(Arrays.asList(String.class, HashMap.class, ArrayList.class));
+    verify(inst).retransformClasses(String.class);
+    verify(inst).retransformClasses(HashMap.class, ArrayList.class);
+    verify(inst).retransformClasses(HashMap.class);
+    verify(inst).retransformClasses(ArrayList.class);
+  }
+
+  /**
+   * Batches double up to the given size, whatever the pauses, because no mocked call comes close to
+   * the pause target.
+   */
+  private RetransformScheduler doublingScheduler(int maxBatchSize) {
+    return new RetransformScheduler(inst, TimeUnit.HOURS.toNanos(1), maxBatchSize);
+  }
+}
@@ -15,9 +15,11 @@ import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OperationsPerInvocation;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Timeout;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.Blackhole;
@@ -36,13 +38,16 @@ public class TaintedMapPutsBenchmark {
 
   private static final Range[] EMPTY_RANGES = new Range[0];
 
+  @Param({"default", "segmented"})
+  String mapType;
+
   private TaintedMap map;
   private List<Object> initialObjectList;
   private CircularBuffer<Object> objectBuffer;
 
   @Setup(Level.Iteration)
   public void setup() {
-    map = new DefaultTaintedMap();
+    map = "segmented".equals(mapType) ? new SegmentedTaintedMap() : new DefaultTaintedMap();
     objectBuffer = new CircularBuffer<>(OP_COUNT);
     initialObjectList = new ArrayList<>(INITIAL_OP_COUNT);
     for (int i = 0; i < INITIAL_OP_COUNT; i++) {
@@ -65,10 +70,34 @@ public class TaintedMapPutsBenchmark {
   @Benchmark
   @OperationsPerInvocation(OP_COUNT)
   public void puts() {
+    putObjects(objectBuffer);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(OP_COUNT)
+  @Threads(16)
+  public void puts16Threads(final ThreadObjects objects) {
+    putObjects(objects.objectBuffer);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(OP_COUNT)
+  @Threads(64)
+  public void puts64Threads(final ThreadObjects objects) {
+    putObjects(objects.objectBuffer);
+  }
+
+  private void putObjects(final CircularBuffer<Object> objectBuffer) {
     for (int i = 0; i < OP_COUNT; i++) {
       final Object k = new Object();
       objectBuffer.add(k);
       map.put(new TaintedObject(k, EMPTY_RANGES, map.getReferenceQueue()));
     }
   }
+
+  /** Keeps the objects put by each thread alive, as {@link #objectBuffer} is not thread safe. */
+  @State(Scope.Thread)
+  public static class ThreadObjects {
+    final CircularBuffer<Object> objectBuffer = new CircularBuffer<>(OP_COUNT);
+  }
 }
@@ -0,0 +1,362 @@
+package com.datadog.iast.taint;
+
+import static com.datadog.iast.taint.DefaultTaintedMap.POSITIVE_MASK;
+
+import java.lang.ref.ReferenceQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * {@link TaintedMap} optimized for high concurrency. Entries are spread over a fixed number of
+ * segments, each one with its own hash table which grows independently.
+ *
+ * <p>Gets never block, not even while a segment is resized. Puts lock the segment of the entry, so
+ * puts are not lost under concurrency.
+ * Each put also sweeps a few buckets of its segment to remove the entries whose key has been
+ * garbage collected, and a segment is fully swept before it grows, so there is no need for a
+ * reference queue nor for a global purge.
+ *
+ * <p>Entries have two chain links, and consecutive table sizes use different links. A resize
+ * relinks the entries into the new table through the link the current table doesn't use, so gets
+ * can keep reading the current table until the new one is published.
+ *
+ * <p>A segment stops growing once it reaches its maximum capacity. Past that point, entries keep
+ * being chained until the segment holds as many entries as its maximum capacity, further puts are
+ * discarded and counted in {@link #getLostPuts()}.
+ */
+public final class SegmentedTaintedMap implements TaintedMap {
+
+  /** Default number of segments. It MUST be a power of 2. */
+  public static final int DEFAULT_SEGMENTS = 1 << 4;
+  /** Default initial capacity of each segment. It MUST be a power of 2. */
+  public static final int DEFAULT_INITIAL_SEGMENT_CAPACITY = 1 << 4;
+  /** Default maximum capacity of each segment. It MUST be a power of 2. */
+  public static final int DEFAULT_MAX_SEGMENT_CAPACITY = 1 << 12;
+  /** Number of buckets swept on every put. */
+  static final int SWEEP_BUCKETS = 2;
+
+  private final Segment[] segments;
+  /** Bitmask for fast modulo with segments length. */
+  private final int segmentMask;
+  /** Number of hash bits used to select the segment, the remaining ones select the bucket. */
+  private final int segmentBits;
+
+  /**
+   * Default constructor. Uses {@link #DEFAULT_SEGMENTS}, {@link #DEFAULT_INITIAL_SEGMENT_CAPACITY}
+   * and {@link #DEFAULT_MAX_SEGMENT_CAPACITY}.
+   */
+  public SegmentedTaintedMap() {
+    this(DEFAULT_SEGMENTS, DEFAULT_INITIAL_SEGMENT_CAPACITY, DEFAULT_MAX_SEGMENT_CAPACITY);
+  }
+
+  /**
+   * Create a new hash map with the given number of segments and capacities.
+   *
+   * @param segmentCount Number of segments. It must be a power of 2.
+   * @param initialSegmentCapacity Initial capacity of each segment. It must be a power of 2.
+   * @param maxSegmentCapacity Maximum capacity of each segment. It must be a power of 2.
+   */
+  SegmentedTaintedMap(
+      final int segmentCount, final int initialSegmentCapacity, final int maxSegmentCapacity) {
+    segmentMask = segmentCount - 1;
+    segmentBits = Integer.bitCount(segmentMask);
+    segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment(segmentBits, initialSegmentCapacity, maxSegmentCapacity);
+    }
+  }
+
+  /**
+   * Returns the {@link TaintedObject} for the given input object.
+   *
+   * @param key Key object.
+   * @return The {@link TaintedObject} if it exists, {@code null} otherwise.
+   */
+  @Override
+  @Nullable
+  public TaintedObject get(final @Nonnull Object key) {
+    final int hash = System.identityHashCode(key) & POSITIVE_MASK;
+    return segments[hash & segmentMask].get(key, hash >>> segmentBits);
+  }
+
+  /**
+   * Put a new {@link TaintedObject} in the hash table. The put is only discarded if the segment of
+   * the entry is full.
+   *
+   * @param entry Tainted object.
+   */
+  @Override
+  public void put(final @Nonnull TaintedObject entry) {
+    final int hash = entry.positiveHashCode;
+    segments[hash & segmentMask].put(entry, hash >>> segmentBits);
+  }
+
+  @Override
+  public void clear() {
+    for (final Segment segment : segments) {
+      segment.clear();
+    }
+  }
+
+  /** Entries are removed by sweeping the segments, so no reference queue is needed. */
+  @Override
+  @Nullable
+  public ReferenceQueue<Object> getReferenceQueue() {
+    return null;
+  }
+
+  /**
+   * Estimated number of entries in the map, including the entries whose key has been garbage
+   * collected but which have not been swept yet.
+   */
+  public int getEstimatedSize() {
+    int size = 0;
+    for (final Segment segment : segments) {
+      size += segment.count;
+    }
+    return size;
+  }
+
+  /** Number of puts discarded because the segment of the entry was full. */
+  public long getLostPuts() {
+    long lostPuts = 0;
+    for (final Segment segment : segments) {
+      lostPuts += segment.lostPuts;
+    }
+    return lostPuts;
+  }
+
+  /** Testing only. */
+  int getCapacity() {
+    int capacity = 0;
+    for (final Segment segment : segments) {
+      capacity += segment.table.length();
+    }
+    return capacity;
+  }
+
+  @Override
+  public Iterator<TaintedObject> iterator() {
+    return new Iterator<TaintedObject>() {
+      int segmentIndex = 0;
+      int bucketIndex = 0;
+      AtomicReferenceArray<TaintedObject> table = segments[0].table;
+      boolean alt = usesAltLinks(table);
+      TaintedObject nextEntry;
+
+      @Override
+      public boolean hasNext() {
+        while (nextEntry == null) {
+          if (bucketIndex < table.length()) {
+            nextEntry = table.get(bucketIndex++);
+          } else if (++segmentIndex < segments.length) {
+            table = segments[segmentIndex].table;
+            alt = usesAltLinks(table);
+            bucketIndex = 0;
+          } else {
+            return false;
+          }
+        }
+        return true;
+      }
+
+      @Override
+      public TaintedObject next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final TaintedObject entry = nextEntry;
+        nextEntry = nextInChain(entry, alt);
+        return entry;
+      }
+    };
+  }
+
+  /** Whether the chains of the table are linked through {@link TaintedObject#nextAlt}. */
+  private static boolean usesAltLinks(final AtomicReferenceArray<TaintedObject> table) {
+    return (Integer.numberOfTrailingZeros(table.length()) & 1) != 0;
+  }
+
+  @Nullable
+  private static TaintedObject nextInChain(final TaintedObject entry, final boolean alt) {
+    return alt ? entry.nextAlt : entry.next;
+  }
+
+  private static void setNextInChain(
+      final TaintedObject entry, final boolean alt, @Nullable final TaintedObject next) {
+    if (alt) {
+      entry.nextAlt = next;
+    } else {
+      entry.next = next;
+    }
+  }
+
+  /**
+   * Hash table of a segment. Modifications are done while holding the segment lock, gets read the
+   * table without locking. A resize only relinks the chain links of the table before the current
+   * one, so a get is only retried if a second resize started while it was reading.
+   */
+  private static final class Segment {
+    /** Shift to apply to the hash of an entry to get its bucket hash. */
+    private final int hashShift;
+
+    private final int initialCapacity;
+    private final int maxCapacity;
+
+    private volatile AtomicReferenceArray<TaintedObject> table;
+    /** Number of resizes started, incremented before the entries are relinked. */
+    private volatile int resizes;
+    /** Number of entries, including the ones not swept yet. */
+    private volatile int count;
+
+    private volatile long lostPuts;
+    /** Number of entries above which the table is swept and resized. */
+    private int threshold;
+    /** Next bucket to be swept. */
+    private int sweepIndex;
+    /** Number of lost puts after which a full segment is swept. */
+    private long nextFullSweep;
+
+    Segment(final int hashShift, final int initialCapacity, final int maxCapacity) {
+      this.hashShift = hashShift;
+      this.initialCapacity = initialCapacity;
+      this.maxCapacity = maxCapacity;
+      reset();
+    }
+
+    @Nullable
+    TaintedObject get(final Object key, final int hash) {
+      while (true) {
+        final int seq = resizes;
+        // the table read is at most one resize behind, its chains are intact until the next resize
+        final TaintedObject entry = find(table, key, hash);
+        if (entry != null || seq == resizes) {
+          return entry;
+        }
+      }
+    }
+
+    synchronized void put(final TaintedObject entry, final int hash) {
+      sweep(SWEEP_BUCKETS);
+      if (count >= threshold) {
+        if (table.length() < maxCapacity) {
+          sweep(table.length());
+          // only skip the resize if the sweep made enough room, so the segment is not swept again
+          // and again when it is mostly made of live entries
+          if (count >= threshold - (threshold >>> 2)) {
+            resize();
+          }
+        } else if (lostPuts >= nextFullSweep) {
+          sweep(table.length());
+          // same as above, if the sweep did not make enough room the segment is swept again only
+          // once another quarter of its capacity has been lost
+          if (count >= threshold - (threshold >>> 2)) {
+            nextFullSweep = lostPuts + (threshold >>> 2);
+          }
+        }
+        if (count >= maxCapacity) {
+          lostPuts++;
+          return;
+        }
+      }
+      // We do not control duplicate keys (although we expect they are generally not used).
+      final AtomicReferenceArray<TaintedObject> table = this.table;
+      final int index = hash & (table.length() - 1);
+      setNextInChain(entry, usesAltLinks(table), table.get(index));
+      table.set(index, entry);
+      count++;
+    }
+
+    synchronized void clear() {
+      reset();
+    }
+
+    private void reset() {
+      table = new AtomicReferenceArray<>(initialCapacity);
+      threshold = thresholdFor(initialCapacity);
+      count = 0;
+      lostPuts = 0;
+      sweepIndex = 0;
+      nextFullSweep = 0;
+    }
+
+    /** Removes the entries whose key has been garbage collected from the next buckets. */
+    private void sweep(final int buckets) {
+      final AtomicReferenceArray<TaintedObject> table = this.table;
+      final boolean alt = usesAltLinks(table);
+      final int mask = table.length() - 1;
+      int removed = 0;
+      for (int i = 0; i < buckets; i++) {
+        final int index = sweepIndex++ & mask;
+        TaintedObject prev = null;
+        for (TaintedObject cur = table.get(index); cur != null; cur = nextInChain(cur, alt)) {
+          if (cur.get() == null) {
+            // concurrent gets standing on the removed entry can still walk the rest of the chain
+            if (prev == null) {
+              table.set(index, nextInChain(cur, alt));
+            } else {
+              setNextInChain(prev, alt, nextInChain(cur, alt));
+            }
+            removed++;
+          } else {
+            prev = cur;
+          }
+        }
+      }
+      if (removed > 0) {
+        count -= removed;
+      }
+    }
+
+    /**
+     * Doubles the table, entries whose key has been garbage collected are dropped. The old chains
+     * are left untouched, so gets can keep reading the old table until the new one is published.
+     */
+    private void resize() {
+      final AtomicReferenceArray<TaintedObject> oldTable = table;
+      final AtomicReferenceArray<TaintedObject> newTable =
+          new AtomicReferenceArray<>(oldTable.length() << 1);
+      final boolean oldAlt = usesAltLinks(oldTable);
+      final int mask = newTable.length() - 1;
+      int removed = 0;
+      // gets still reading chains from before the last resize must retry, their links get reused
+      resizes++;
+      for (int i = 0; i < oldTable.length(); i++) {
+        for (TaintedObject cur = oldTable.get(i); cur != null; cur = nextInChain(cur, oldAlt)) {
+          if (cur.get() == null) {
+            removed++;
+          } else {
+            final int index = (cur.positiveHashCode >>> hashShift) & mask;
+            setNextInChain(cur, !oldAlt, newTable.get(index));
+            newTable.set(index, cur);
+          }
+        }
+      }
+      table = newTable;
+      count -= removed;
+      threshold = thresholdFor(newTable.length());
+    }
+
+    @Nullable
+    private static TaintedObject find(
+        final AtomicReferenceArray<TaintedObject> table, final Object key, final int hash) {
+      final boolean alt = usesAltLinks(table);
+      TaintedObject entry = table.get(hash & (table.length() - 1));
+      while (entry != null) {
+        if (key == entry.get()) {
+          return entry;
+        }
+        entry = nextInChain(entry, alt);
+      }
+      return null;
+    }
+
+    /** Segments are resized when 3/4 full, once at maximum capacity they can be filled up. */
+    private int thresholdFor(final int capacity) {
+      return capacity < maxCapacity ? capacity - (capacity >>> 2) : maxCapacity;
+    }
+  }
+}
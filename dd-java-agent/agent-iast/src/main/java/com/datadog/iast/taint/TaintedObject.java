@@ -10,7 +10,13 @@ import javax.annotation.Nullable;
 
 public class TaintedObject extends WeakReference<Object> {
   final int positiveHashCode;
-  TaintedObject next;
+  /** Volatile so that {@link SegmentedTaintedMap} can read chains without locking. */
+  volatile TaintedObject next;
+  /**
+   * Second chain link used by {@link SegmentedTaintedMap}, which alternates between both links on
+   * every resize, so that gets can keep reading the previous chains while the table is resized.
+   */
+  volatile TaintedObject nextAlt;
   private Range[] ranges;
 
   public TaintedObject(
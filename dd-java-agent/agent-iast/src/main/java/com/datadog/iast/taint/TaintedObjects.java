@@ -31,7 +31,7 @@ public interface TaintedObjects {
     private final TaintedMap map;
 
     public TaintedObjectsImpl() {
-      this(new DefaultTaintedMap());
+      this(new SegmentedTaintedMap());
     }
 
     public TaintedObjectsImpl(final @Nonnull TaintedMap map) {
@@ -94,6 +94,11 @@ public interface TaintedObjects {
             entries.add(to);
           }
           LOGGER.debug("release {}: map={}", id, TaintedObjectEncoding.toJson(entries));
+          if (delegated.map instanceof SegmentedTaintedMap) {
+            final SegmentedTaintedMap map = (SegmentedTaintedMap) delegated.map;
+            LOGGER.debug(
+                "release {}: size={}, lostPuts={}", id, map.getEstimatedSize(), map.getLostPuts());
+          }
         } catch (final Throwable e) {
           LOGGER.error("Failed to debug tainted objects release", e);
         }
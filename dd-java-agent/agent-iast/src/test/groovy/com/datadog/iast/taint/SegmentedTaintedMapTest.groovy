@@ -0,0 +1,210 @@
+package com.datadog.iast.taint
+
+import com.datadog.iast.model.Range
+import datadog.trace.test.util.DDSpecification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicBoolean
+
+class SegmentedTaintedMapTest extends DDSpecification {
+
+  def 'simple workflow'() {
+    given:
+    def map = new SegmentedTaintedMap()
+    final o = new Object()
+    final to = new TaintedObject(o, [] as Range[], map.getReferenceQueue())
+
+    expect:
+    map.getReferenceQueue() == null
+    map.get(o) == null
+    map.toList().size() == 0
+
+    when:
+    map.put(to)
+
+    then:
+    map.toList().size() == 1
+    map.getEstimatedSize() == 1
+
+    and:
+    map.get(o) != null
+    map.get(o).get() == o
+
+    when:
+    map.clear()
+
+    then:
+    map.get(o) == null
+    map.toList().size() == 0
+    map.getEstimatedSize() == 0
+  }
+
+  def 'segments grow instead of discarding entries'() {
+    given:
+    def map = new SegmentedTaintedMap(4, 2, 1024)
+    def objects = (1..2048).collect { new Object() }
+
+    when:
+    objects.each { o ->
+      map.put(new TaintedObject(o, [] as Range[], map.getReferenceQueue()))
+    }
+
+    then:
+    map.getCapacity() > 8
+    map.getEstimatedSize() == objects.size()
+    map.getLostPuts() == 0
+    map.toList().size() == objects.size()
+
+    and: 'all objects are present'
+    objects.each { o ->
+      assert map.get(o).get() == o
+    }
+  }
+
+  def 'garbage-collected entries are swept'() {
+    given:
+    def map = new SegmentedTaintedMap(1, 16, 16)
+    def gcObjects = (1..12).collect { new TaintedObject(new Object(), [] as Range[], null) }
+    def objects = (1..12).collect { new Object() }
+
+    when:
+    gcObjects.each { to -> map.put(to) }
+    // simulates the garbage collection of the keys
+    gcObjects.each { to -> to.clear() }
+
+    and:
+    objects.each { o ->
+      map.put(new TaintedObject(o, [] as Range[], map.getReferenceQueue()))
+    }
+
+    then:
+    map.getCapacity() == 16
+    map.getLostPuts() == 0
+    map.getEstimatedSize() == objects.size()
+    map.toList().every { it.get() != null }
+
+    and: 'all objects are present'
+    objects.each { o ->
+      assert map.get(o).get() == o
+    }
+  }
+
+  def 'puts to full segments are counted as lost'() {
+    given:
+    def map = new SegmentedTaintedMap(1, 4, 8)
+    def objects = (1..10).collect { new Object() }
+
+    when:
+    objects.each { o ->
+      map.put(new TaintedObject(o, [] as Range[], map.getReferenceQueue()))
+    }
+
+    then:
+    map.getCapacity() == 8
+    map.getEstimatedSize() == 8
+    map.getLostPuts() == 2
+    objects.take(8).each { o ->
+      assert map.get(o).get() == o
+    }
+    objects.drop(8).each { o ->
+      assert map.get(o) == null
+    }
+
+    when:
+    map.clear()
+
+    then:
+    map.getCapacity() == 4
+    map.getLostPuts() == 0
+  }
+
+  def 'multi-threaded puts are not lost'() {
+    given:
+    def map = new SegmentedTaintedMap(16, 2, 1024)
+
+    and:
+    int nThreads = 16
+    int nObjectsPerThread = 500
+    def executorService = Executors.newFixedThreadPool(nThreads)
+    def latch = new CountDownLatch(nThreads)
+    def objects = (1..nThreads).collect { (1..nObjectsPerThread).collect { new Object() } }
+
+    when: 'puts and gets from different threads'
+    def futures = (0..nThreads - 1).collect { thread ->
+      executorService.submit({
+        ->
+        latch.countDown()
+        latch.await()
+        objects[thread].each { o ->
+          final to = new TaintedObject(o, [] as Range[], map.getReferenceQueue())
+          map.put(to)
+          assert map.get(o) == to
+        }
+      } as Runnable)
+    }
+    futures.collect({
+      it.get()
+    })
+
+    then:
+    map.getLostPuts() == 0
+    map.getEstimatedSize() == nThreads * nObjectsPerThread
+    map.toList().size() == nThreads * nObjectsPerThread
+
+    and: 'all objects are as expected'
+    objects.flatten().each { o ->
+      assert map.get(o).get() == o
+    }
+
+    cleanup:
+    executorService?.shutdown()
+  }
+
+  def 'gets find existing entries while the segment is resized'() {
+    given:
+    def map = new SegmentedTaintedMap(1, 2, 1 << 14)
+    def present = new Object()
+    final to = new TaintedObject(present, [] as Range[], map.getReferenceQueue())
+    map.put(to)
+    def objects = (1..(1 << 13)).collect { new Object() }
+
+    and:
+    int nReaders = 4
+    def executorService = Executors.newFixedThreadPool(nReaders)
+    def latch = new CountDownLatch(nReaders + 1)
+    def writing = new AtomicBoolean(true)
+
+    when: 'one thread keeps resizing the segment while others read'
+    def futures = (1..nReaders).collect {
+      executorService.submit({
+        ->
+        latch.countDown()
+        latch.await()
+        while (writing.get()) {
+          assert map.get(present) == to
+        }
+      } as Runnable)
+    }
+    latch.countDown()
+    latch.await()
+    objects.each { o ->
+      map.put(new TaintedObject(o, [] as Range[], map.getReferenceQueue()))
+    }
+    writing.set(false)
+    futures.collect({
+      it.get()
+    })
+
+    then:
+    map.getCapacity() == 1 << 14
+    map.getLostPuts() == 0
+    map.get(present) == to
+    objects.each { o ->
+      assert map.get(o).get() == o
+    }
+
+    cleanup:
+    executorService?.shutdown()
+  }
+}
@@ -0,0 +1,103 @@
+package datadog.trace.agent.tooling.bytebuddy.outline;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import net.bytebuddy.utility.StreamDrainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Outlines the class-files of the JDK's own {@code java.*} classes, comparing the single-pass
+ * scanner with the ASM based outline parser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(value = 1)
+public class TypeParserBenchmark {
+
+  private final TypeParser scanningTypeParser = new ScanningTypeParser();
+
+  private final TypeParser outlineTypeParser = new OutlineTypeParser();
+
+  private final List<byte[]> classFiles = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void readClassFiles() throws IOException {
+    String bootClassPath = System.getProperty("sun.boot.class.path");
+    if (null != bootClassPath) {
+      for (String path : bootClassPath.split(File.pathSeparator)) {
+        if (path.endsWith("rt.jar")) {
+          readFromJar(new File(path));
+        }
+      }
+    } else {
+      readFromModules();
+    }
+  }
+
+  private void readFromJar(File jar) throws IOException {
+    try (JarFile jarFile = new JarFile(jar)) {
+      Enumeration<JarEntry> entries = jarFile.entries();
+      while (entries.hasMoreElements()) {
+        JarEntry entry = entries.nextElement();
+        if (isJavaClassFile(entry.getName())) {
+          try (InputStream in = jarFile.getInputStream(entry)) {
+            classFiles.add(StreamDrainer.DEFAULT.drain(in));
+          }
+        }
+      }
+    }
+  }
+
+  private void readFromModules() throws IOException {
+    FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+    try (Stream<Path> paths = Files.walk(jrt.getPath("/modules/java.base/java"))) {
+      for (Path path : (Iterable<Path>) paths::iterator) {
+        if (path.toString().endsWith(".class")) {
+          classFiles.add(Files.readAllBytes(path));
+        }
+      }
+    }
+  }
+
+  private static boolean isJavaClassFile(String name) {
+    return name.startsWith("java/") && name.endsWith(".class");
+  }
+
+  @Benchmark
+  public void scanning(Blackhole blackhole) {
+    for (byte[] bytecode : classFiles) {
+      blackhole.consume(scanningTypeParser.parse(bytecode));
+    }
+  }
+
+  @Benchmark
+  public void outline(Blackhole blackhole) {
+    for (byte[] bytecode : classFiles) {
+      blackhole.consume(outlineTypeParser.parse(bytecode));
+    }
+  }
+}
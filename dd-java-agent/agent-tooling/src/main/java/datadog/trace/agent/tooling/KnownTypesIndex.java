@@ -2,6 +2,7 @@ package datadog.trace.agent.tooling;
 
 import datadog.trace.agent.tooling.bytebuddy.SharedTypePools;
 import datadog.trace.agent.tooling.bytebuddy.matcher.HierarchyMatchers;
+import datadog.trace.agent.tooling.bytebuddy.matcher.SuperTypeRequirement;
 import datadog.trace.util.ClassNameTrie;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
@@ -15,10 +16,16 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Maintains an index from known instrumented class names to stable {@link Instrumenter} ids. */
+/**
+ * Maintains an index from known instrumented class names to stable {@link Instrumenter} ids.
+ *
+ * <p>Also indexes the super-types required by hierarchy matchers, so types whose hierarchy contains
+ * none of these super-types can skip the hierarchy matcher.
+ */
 public final class KnownTypesIndex {
   private static final Logger log = LoggerFactory.getLogger(KnownTypesIndex.class);
 
@@ -32,16 +39,47 @@ public final class KnownTypesIndex {
 
   private final ClassNameTrie knownTypesTrie;
 
-  private KnownTypesIndex(int[][] multipleIdTable, ClassNameTrie knownTypesTrie) {
+  // instrumentations whose hierarchy matcher requires one of the indexed super-types
+  private final BitSet superTypesMask;
+
+  // lookup table of multiple-id super-type results
+  private final int[][] superTypesIdTable;
+
+  private final ClassNameTrie superTypesTrie;
+
+  private KnownTypesIndex(
+      int[][] multipleIdTable,
+      ClassNameTrie knownTypesTrie,
+      BitSet superTypesMask,
+      int[][] superTypesIdTable,
+      ClassNameTrie superTypesTrie) {
     this.multipleIdTable = multipleIdTable;
     this.knownTypesTrie = knownTypesTrie;
+    this.superTypesMask = superTypesMask;
+    this.superTypesIdTable = superTypesIdTable;
+    this.superTypesTrie = superTypesTrie;
   }
 
   public void apply(String name, BitSet mask, BitSet instrumentationIds) {
-    int instrumentationId = knownTypesTrie.apply(name);
+    apply(knownTypesTrie, multipleIdTable, name, mask, instrumentationIds);
+  }
+
+  /** Returns the instrumentations whose hierarchy matcher requires an indexed super-type. */
+  public BitSet superTypesMask() {
+    return superTypesMask;
+  }
+
+  /** Records instrumentations whose hierarchy matcher requires the named super-type. */
+  public void applySuperType(String name, BitSet instrumentationIds) {
+    apply(superTypesTrie, superTypesIdTable, name, superTypesMask, instrumentationIds);
+  }
+
+  private static void apply(
+      ClassNameTrie trie, int[][] idTable, String name, BitSet mask, BitSet instrumentationIds) {
+    int instrumentationId = trie.apply(name);
     if (instrumentationId >= 0) {
       if ((instrumentationId & MULTIPLE_ID_MARKER) != 0) {
-        for (int id : multipleIdTable[instrumentationId & ~MULTIPLE_ID_MARKER]) {
+        for (int id : idTable[instrumentationId & ~MULTIPLE_ID_MARKER]) {
           if (mask.get(id)) {
             instrumentationIds.set(id);
           }
@@ -58,17 +96,20 @@ public final class KnownTypesIndex {
     if (null != indexResource) {
       try (DataInputStream in =
           new DataInputStream(new BufferedInputStream(indexResource.openStream()))) {
-        int multipleIdCount = in.readInt();
-        int[][] multipleIdTable = new int[multipleIdCount][];
-        for (int i = 0; i < multipleIdCount; i++) {
-          int idCount = in.readInt();
-          int[] ids = new int[idCount];
-          for (int j = 0; j < idCount; j++) {
-            ids[j] = in.readInt();
-          }
-          multipleIdTable[i] = ids;
+        int[][] multipleIdTable = readIdTable(in);
+        ClassNameTrie knownTypesTrie = ClassNameTrie.readFrom(in);
+        long[] superTypesMask = new long[in.readInt()];
+        for (int i = 0; i < superTypesMask.length; i++) {
+          superTypesMask[i] = in.readLong();
         }
-        return new KnownTypesIndex(multipleIdTable, ClassNameTrie.readFrom(in));
+        int[][] superTypesIdTable = readIdTable(in);
+        ClassNameTrie superTypesTrie = ClassNameTrie.readFrom(in);
+        return new KnownTypesIndex(
+            multipleIdTable,
+            knownTypesTrie,
+            BitSet.valueOf(superTypesMask),
+            superTypesIdTable,
+            superTypesTrie);
       } catch (Throwable e) {
         log.error("Problem reading " + KNOWN_TYPES_INDEX_NAME, e);
       }
@@ -76,15 +117,38 @@ public final class KnownTypesIndex {
     return buildIndex(); // fallback to runtime generation when testing
   }
 
+  private static int[][] readIdTable(DataInputStream in) throws IOException {
+    int multipleIdCount = in.readInt();
+    int[][] idTable = new int[multipleIdCount][];
+    for (int i = 0; i < multipleIdCount; i++) {
+      int idCount = in.readInt();
+      int[] ids = new int[idCount];
+      for (int j = 0; j < idCount; j++) {
+        ids[j] = in.readInt();
+      }
+      idTable[i] = ids;
+    }
+    return idTable;
+  }
+
   public static KnownTypesIndex buildIndex() {
     IndexGenerator indexGenerator = new IndexGenerator();
     indexGenerator.buildIndex();
     // bypass writing to file, convert into structure expected at runtime
-    int[][] multipleIdTable = new int[indexGenerator.multipleIdTable.size()][];
-    for (int i = 0; i < multipleIdTable.length; i++) {
-      multipleIdTable[i] = indexGenerator.multipleIdTable.get(i).stream().toArray();
+    return new KnownTypesIndex(
+        toIdTable(indexGenerator.multipleIdTable),
+        indexGenerator.knownTypesTrie.buildTrie(),
+        indexGenerator.superTypesMask,
+        toIdTable(indexGenerator.superTypesIdTable),
+        indexGenerator.superTypesTrie.buildTrie());
+  }
+
+  private static int[][] toIdTable(List<BitSet> multipleIdTable) {
+    int[][] idTable = new int[multipleIdTable.size()][];
+    for (int i = 0; i < idTable.length; i++) {
+      idTable[i] = multipleIdTable.get(i).stream().toArray();
     }
-    return new KnownTypesIndex(multipleIdTable, indexGenerator.knownTypesTrie.buildTrie());
+    return idTable;
   }
 
   /** Generates an index from known instrumented types referenced by {@link Instrumenter}s. */
@@ -92,6 +156,10 @@ public final class KnownTypesIndex {
     final ClassNameTrie.Builder knownTypesTrie = new ClassNameTrie.Builder();
     final List<BitSet> multipleIdTable = new ArrayList<>();
 
+    final BitSet superTypesMask = new BitSet();
+    final ClassNameTrie.Builder superTypesTrie = new ClassNameTrie.Builder();
+    final List<BitSet> superTypesIdTable = new ArrayList<>();
+
     public void buildIndex() {
       log.debug("Generating KnownTypesIndex");
       for (Instrumenter instrumenter : Instrumenters.load(Instrumenter.class.getClassLoader())) {
@@ -104,6 +172,27 @@ public final class KnownTypesIndex {
             indexKnownType(instrumenter, type, instrumentationId);
           }
         }
+        if (instrumenter instanceof Instrumenter.ForTypeHierarchy) {
+          indexSuperTypes((Instrumenter.ForTypeHierarchy) instrumenter, instrumentationId);
+        }
+      }
+    }
+
+    /** Indexes the super-types required by the instrumenter's hierarchy matcher, if known. */
+    private void indexSuperTypes(
+        Instrumenter.ForTypeHierarchy instrumenter, int instrumentationId) {
+      Set<String> superTypes;
+      try {
+        superTypes = SuperTypeRequirement.requiredSuperTypes(instrumenter.hierarchyMatcher());
+      } catch (Throwable e) {
+        log.debug("Problem indexing hierarchy matcher of {}", instrumenter.getClass(), e);
+        return;
+      }
+      if (null != superTypes && !superTypes.isEmpty()) {
+        for (String superType : superTypes) {
+          index(superTypesTrie, superTypesIdTable, superType, instrumentationId);
+        }
+        superTypesMask.set(instrumentationId);
       }
     }
 
@@ -114,19 +203,25 @@ public final class KnownTypesIndex {
         throw new IllegalArgumentException(
             instrumenter.getClass() + " declares a null or empty known-type");
       }
-      int existingId = knownTypesTrie.apply(knownType);
+      index(knownTypesTrie, multipleIdTable, knownType, instrumentationId);
+    }
+
+    /** Indexes a single match from type name to instrumentation-id. */
+    private static void index(
+        ClassNameTrie.Builder trie, List<BitSet> idTable, String name, int instrumentationId) {
+      int existingId = trie.apply(name);
       if (existingId < 0) {
-        knownTypesTrie.put(knownType, instrumentationId);
+        trie.put(name, instrumentationId);
       } else {
         BitSet instrumentationIds;
         if ((existingId & MULTIPLE_ID_MARKER) != 0) {
           // add new instrumentation-id to existing table entry, no need to update trie
-          instrumentationIds = multipleIdTable.get(existingId & ~MULTIPLE_ID_MARKER);
+          instrumentationIds = idTable.get(existingId & ~MULTIPLE_ID_MARKER);
         } else {
           // create new table entry to hold multiple ids and update trie with its offset
-          knownTypesTrie.put(knownType, multipleIdTable.size() | MULTIPLE_ID_MARKER);
+          trie.put(name, idTable.size() | MULTIPLE_ID_MARKER);
           instrumentationIds = new BitSet();
-          multipleIdTable.add(instrumentationIds);
+          idTable.add(instrumentationIds);
           instrumentationIds.set(existingId);
         }
         instrumentationIds.set(instrumentationId);
@@ -136,14 +231,31 @@ public final class KnownTypesIndex {
     public void writeIndex(Path indexFile) throws IOException {
       try (DataOutputStream out =
           new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)))) {
-        out.writeInt(multipleIdTable.size());
-        for (BitSet ids : multipleIdTable) {
-          out.writeInt(ids.cardinality());
-          for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
-            out.writeInt(id);
-          }
-        }
+        writeIdTable(out, multipleIdTable);
         knownTypesTrie.writeTo(out);
+        long[] mask = superTypesMask.toLongArray();
+        out.writeInt(mask.length);
+        for (long word : mask) {
+          out.writeLong(word);
+        }
+        writeIdTable(out, superTypesIdTable);
+        if (superTypesTrie.isEmpty()) {
+          // make sure the trie we read back at runtime has a valid structure
+          new ClassNameTrie.Builder(ClassNameTrie.Builder.EMPTY_TRIE).writeTo(out);
+        } else {
+          superTypesTrie.writeTo(out);
+        }
+      }
+    }
+
+    private static void writeIdTable(DataOutputStream out, List<BitSet> idTable)
+        throws IOException {
+      out.writeInt(idTable.size());
+      for (BitSet ids : idTable) {
+        out.writeInt(ids.cardinality());
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+          out.writeInt(id);
+        }
       }
     }
 
@@ -157,8 +269,9 @@ public final class KnownTypesIndex {
 
       Path resourcesDir = Paths.get(args[0]).toAbsolutePath();
 
-      // satisfy some instrumenters that cache matchers in initializers
-      HierarchyMatchers.registerIfAbsent(HierarchyMatchers.simpleChecks());
+      // satisfy some instrumenters that cache matchers in initializers,
+      // while also recording which super-types each hierarchy matcher requires
+      HierarchyMatchers.registerIfAbsent(HierarchyMatchers.indexingChecks());
       SharedTypePools.registerIfAbsent(SharedTypePools.simpleCache());
 
       IndexGenerator indexGenerator = new IndexGenerator();
@@ -44,6 +44,16 @@ public final class TypeInfoCache<T> {
     return sharedTypeInfo.put(name, new SharedTypeInfo<>(loaderId(loader), classFile, typeInfo));
   }
 
+  /**
+   * Shares information for the named type, unless details for that name are already shared.
+   *
+   * @return {@code true} if the information was shared
+   */
+  public boolean shareIfAbsent(String name, ClassLoader loader, URL classFile, T typeInfo) {
+    SharedTypeInfo<T> sharedInfo = new SharedTypeInfo<>(loaderId(loader), classFile, typeInfo);
+    return null == sharedTypeInfo.putIfAbsent(name, sharedInfo);
+  }
+
   /** Clears all type information from the shared cache. */
   public void clear() {
     sharedTypeInfo.clear();
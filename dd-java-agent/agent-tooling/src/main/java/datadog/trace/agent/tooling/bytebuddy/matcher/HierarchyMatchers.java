@@ -206,5 +206,71 @@ public final class HierarchyMatchers {
     };
   }
 
+  /** Simple hierarchy checks that also track the super-types required by hierarchy matchers. */
+  public static HierarchyMatchers.Supplier indexingChecks() {
+    HierarchyMatchers.Supplier checks = simpleChecks();
+    return new HierarchyMatchers.Supplier() {
+      @Override
+      public ElementMatcher.Junction<TypeDescription> declaresAnnotation(
+          ElementMatcher.Junction<? super NamedElement> matcher) {
+        return checks.declaresAnnotation(matcher);
+      }
+
+      @Override
+      public ElementMatcher.Junction<TypeDescription> declaresField(
+          ElementMatcher.Junction<? super FieldDescription> matcher) {
+        return checks.declaresField(matcher);
+      }
+
+      @Override
+      public ElementMatcher.Junction<TypeDescription> declaresMethod(
+          ElementMatcher.Junction<? super MethodDescription> matcher) {
+        return checks.declaresMethod(matcher);
+      }
+
+      @Override
+      public ElementMatcher.Junction<TypeDescription> abstractClass() {
+        return checks.abstractClass();
+      }
+
+      @Override
+      public ElementMatcher.Junction<TypeDescription> extendsClass(
+          ElementMatcher.Junction<? super TypeDescription> matcher) {
+        return SuperTypeRequirement.requireSuperType(matcher, checks.extendsClass(matcher));
+      }
+
+      @Override
+      public ElementMatcher.Junction<TypeDescription> implementsInterface(
+          ElementMatcher.Junction<? super TypeDescription> matcher) {
+        return SuperTypeRequirement.requireSuperType(
+            matcher, checks.implementsInterface(matcher));
+      }
+
+      @Override
+      public ElementMatcher.Junction<TypeDescription> hasInterface(
+          ElementMatcher.Junction<? super TypeDescription> matcher) {
+        return SuperTypeRequirement.requireSuperType(matcher, checks.hasInterface(matcher));
+      }
+
+      @Override
+      public ElementMatcher.Junction<TypeDescription> hasSuperType(
+          ElementMatcher.Junction<? super TypeDescription> matcher) {
+        return SuperTypeRequirement.requireSuperType(matcher, checks.hasSuperType(matcher));
+      }
+
+      @Override
+      public ElementMatcher.Junction<MethodDescription> hasSuperMethod(
+          ElementMatcher.Junction<? super MethodDescription> matcher) {
+        return checks.hasSuperMethod(matcher);
+      }
+
+      @Override
+      public ElementMatcher.Junction<TypeDescription> declaresContextField(
+          String keyClassName, String contextClassName) {
+        return checks.declaresContextField(keyClassName, contextClassName);
+      }
+    };
+  }
+
   private HierarchyMatchers() {}
 }
@@ -0,0 +1,85 @@
+package datadog.trace.agent.tooling.bytebuddy.matcher;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+
+/**
+ * Hierarchy matcher that can only match types with one of the named super-types somewhere in their
+ * hierarchy (including the type itself). Used when generating the known-types index to record the
+ * super-types each hierarchy matcher depends on.
+ *
+ * <p>Narrowing this matcher with {@link #and} keeps the requirement, widening it with {@link #or}
+ * only keeps the requirement if the other matcher also has one. Any other combination loses the
+ * requirement, in which case the hierarchy matcher is left out of the index.
+ */
+public final class SuperTypeRequirement
+    extends ElementMatcher.Junction.AbstractBase<TypeDescription> {
+  private final Set<String> superTypes;
+  private final ElementMatcher<TypeDescription> delegate;
+
+  private SuperTypeRequirement(Set<String> superTypes, ElementMatcher<TypeDescription> delegate) {
+    this.superTypes = superTypes;
+    this.delegate = delegate;
+  }
+
+  /** Returns the super-types required by the matcher; {@code null} if they are not known. */
+  public static Set<String> requiredSuperTypes(ElementMatcher<?> matcher) {
+    return matcher instanceof SuperTypeRequirement
+        ? ((SuperTypeRequirement) matcher).superTypes
+        : null;
+  }
+
+  @Override
+  public boolean matches(TypeDescription target) {
+    return delegate.matches(target);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <U extends TypeDescription> ElementMatcher.Junction<U> and(
+      ElementMatcher<? super U> other) {
+    return (ElementMatcher.Junction<U>)
+        new SuperTypeRequirement(
+            superTypes,
+            (ElementMatcher<TypeDescription>)
+                (ElementMatcher<?>) new ElementMatcher.Junction.Conjunction<U>(delegate, other));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <U extends TypeDescription> ElementMatcher.Junction<U> or(
+      ElementMatcher<? super U> other) {
+    if (!(other instanceof SuperTypeRequirement)) {
+      return super.or(other);
+    }
+    Set<String> combined = new HashSet<>(superTypes);
+    combined.addAll(((SuperTypeRequirement) other).superTypes);
+    return (ElementMatcher.Junction<U>)
+        new SuperTypeRequirement(
+            combined,
+            (ElementMatcher<TypeDescription>)
+                (ElementMatcher<?>) new ElementMatcher.Junction.Disjunction<U>(delegate, other));
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+
+  /** Records the super-types when the check only accepts types with specific names. */
+  static ElementMatcher.Junction<TypeDescription> requireSuperType(
+      ElementMatcher.Junction<? super TypeDescription> matcher,
+      ElementMatcher.Junction<TypeDescription> check) {
+    if (matcher instanceof NameMatchers.Named) {
+      return new SuperTypeRequirement(
+          Collections.singleton(((NameMatchers.Named<?>) matcher).name), check);
+    } else if (matcher instanceof NameMatchers.OneOf) {
+      return new SuperTypeRequirement(((NameMatchers.OneOf<?>) matcher).names, check);
+    } else {
+      return check;
+    }
+  }
+}
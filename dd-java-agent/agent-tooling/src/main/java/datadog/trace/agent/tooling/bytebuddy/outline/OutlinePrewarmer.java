@@ -0,0 +1,210 @@
+package datadog.trace.agent.tooling.bytebuddy.outline;
+
+import static datadog.trace.util.AgentThreadFactory.AgentThread.OUTLINE_PREWARMER;
+import static datadog.trace.util.AgentThreadFactory.newAgentThread;
+
+import datadog.trace.api.InstrumenterConfig;
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import net.bytebuddy.jar.asm.ClassReader;
+import net.bytebuddy.utility.OpenedClassReader;
+import net.bytebuddy.utility.StreamDrainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Outlines the supertypes of application classes in the background, so that matching doesn't have
+ * to parse them on application threads while they hold class-loading locks.
+ *
+ * <p>Jars from the system class-path are scanned in parallel to find which types are extended or
+ * implemented by other types. The outlines of those types are then shared as if they had been
+ * parsed while matching classes from the system class-loader. The number of pre-warmed outlines is
+ * limited to half of the outline cache, to leave room for types loaded from other class-loaders.
+ */
+public final class OutlinePrewarmer implements Runnable {
+  private static final Logger log = LoggerFactory.getLogger(OutlinePrewarmer.class);
+
+  private static final String CLASS_FILE_SUFFIX = ".class";
+
+  private final List<File> jars;
+  private final int maxOutlines;
+  private final ClassLoader classLoader;
+
+  /** Internal names of the types extended or implemented by another type. */
+  private final Set<String> supertypes = ConcurrentHashMap.newKeySet();
+  /** Class-path index of the jar declaring each internal type name, the lowest index wins. */
+  private final Map<String, Integer> declaringJars = new ConcurrentHashMap<>();
+
+  private final AtomicInteger outlineCount = new AtomicInteger();
+
+  OutlinePrewarmer(List<File> jars, int maxOutlines, ClassLoader classLoader) {
+    this.jars = jars;
+    this.maxOutlines = maxOutlines;
+    this.classLoader = classLoader;
+  }
+
+  /** Starts pre-warming outlines in the background if enabled; must be called after install. */
+  public static void startIfEnabled() {
+    InstrumenterConfig config = InstrumenterConfig.get();
+    if (!config.isResolverOutliningEnabled() || !config.isResolverOutlinePrewarm()) {
+      return;
+    }
+    List<File> jars = classPathJars(System.getProperty("java.class.path"));
+    if (!jars.isEmpty()) {
+      OutlinePrewarmer prewarmer =
+          new OutlinePrewarmer(
+              jars, config.getResolverOutlinePoolSize() / 2, ClassLoader.getSystemClassLoader());
+      newAgentThread(OUTLINE_PREWARMER, prewarmer).start();
+    }
+  }
+
+  @Override
+  public void run() {
+    long startNanos = System.nanoTime();
+    AtomicInteger threadCount = new AtomicInteger();
+    int parallelism =
+        Math.max(1, Math.min(jars.size(), Runtime.getRuntime().availableProcessors() / 2));
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            parallelism,
+            r -> newAgentThread(OUTLINE_PREWARMER, "-" + threadCount.incrementAndGet(), r));
+    try {
+      List<Callable<Void>> scans = new ArrayList<>(jars.size());
+      for (int i = 0; i < jars.size(); i++) {
+        int jarIndex = i;
+        scans.add(() -> scanSupertypes(jarIndex));
+      }
+      executor.invokeAll(scans);
+
+      Map<File, List<String>> supertypesByJar = new ConcurrentHashMap<>();
+      for (String supertype : supertypes) {
+        Integer jarIndex = declaringJars.get(supertype);
+        if (null != jarIndex) {
+          supertypesByJar
+              .computeIfAbsent(jars.get(jarIndex), k -> new ArrayList<>())
+              .add(supertype);
+        }
+      }
+      List<Callable<Void>> outlines = new ArrayList<>(supertypesByJar.size());
+      for (Map.Entry<File, List<String>> e : supertypesByJar.entrySet()) {
+        outlines.add(() -> outlineSupertypes(e.getKey(), e.getValue()));
+      }
+      executor.invokeAll(outlines);
+
+      log.debug(
+          "Pre-warmed {} outlines from {} jars in {}ms",
+          outlineCount.get(),
+          jars.size(),
+          (System.nanoTime() - startNanos) / 1_000_000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Records the supertypes of every class in the jar, as well as which types it declares. */
+  Void scanSupertypes(int jarIndex) {
+    File jar = jars.get(jarIndex);
+    try (JarFile jarFile = new JarFile(jar, false)) {
+      Enumeration<JarEntry> entries = jarFile.entries();
+      while (entries.hasMoreElements()) {
+        JarEntry entry = entries.nextElement();
+        String entryName = entry.getName();
+        if (!isClassFile(entryName)) {
+          continue;
+        }
+        String internalName =
+            entryName.substring(0, entryName.length() - CLASS_FILE_SUFFIX.length());
+        // jars are scanned in parallel, keep the jar that comes first on the class-path
+        declaringJars.merge(internalName, jarIndex, Math::min);
+        try (InputStream in = jarFile.getInputStream(entry)) {
+          // only the class header is parsed here, which is enough for the supertypes
+          ClassReader classReader = OpenedClassReader.of(StreamDrainer.DEFAULT.drain(in));
+          addSupertype(classReader.getSuperName());
+          for (String iface : classReader.getInterfaces()) {
+            addSupertype(iface);
+          }
+        } catch (Throwable ignore) {
+          // skip invalid class-files
+        }
+      }
+    } catch (Throwable e) {
+      log.debug("Problem scanning {} for supertypes", jar, e);
+    }
+    return null;
+  }
+
+  /** Outlines the given supertypes declared by the jar. */
+  Void outlineSupertypes(File jar, List<String> internalNames) {
+    try (JarFile jarFile = new JarFile(jar, false)) {
+      String jarUrl = "jar:" + jar.toURI().toURL() + "!/";
+      for (String internalName : internalNames) {
+        if (outlineCount.get() >= maxOutlines) {
+          break;
+        }
+        String entryName = internalName + CLASS_FILE_SUFFIX;
+        JarEntry entry = jarFile.getJarEntry(entryName);
+        if (null == entry) {
+          continue;
+        }
+        try (InputStream in = jarFile.getInputStream(entry)) {
+          if (TypeFactory.prewarmOutline(
+              internalName.replace('/', '.'),
+              classLoader,
+              new URL(jarUrl + entryName),
+              StreamDrainer.DEFAULT.drain(in))) {
+            outlineCount.incrementAndGet();
+          }
+        } catch (Throwable ignore) {
+          // skip invalid class-files
+        }
+      }
+    } catch (Throwable e) {
+      log.debug("Problem outlining supertypes from {}", jar, e);
+    }
+    return null;
+  }
+
+  private void addSupertype(String internalName) {
+    // JDK types are already available to every class-loader
+    if (null != internalName && !internalName.startsWith("java/")) {
+      supertypes.add(internalName);
+    }
+  }
+
+  private static boolean isClassFile(String entryName) {
+    return entryName.endsWith(CLASS_FILE_SUFFIX)
+        && !entryName.startsWith("META-INF/")
+        && !entryName.endsWith("module-info.class")
+        && !entryName.endsWith("package-info.class");
+  }
+
+  static List<File> classPathJars(String classPath) {
+    if (null == classPath || classPath.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<File> jars = new ArrayList<>();
+    for (String entry : classPath.split(File.pathSeparator)) {
+      File file = new File(entry);
+      if (file.getName().endsWith(".jar") && file.isFile()) {
+        jars.add(file);
+      }
+    }
+    return jars;
+  }
+}
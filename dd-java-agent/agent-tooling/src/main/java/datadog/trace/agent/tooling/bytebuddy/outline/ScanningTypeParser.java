@@ -0,0 +1,352 @@
+package datadog.trace.agent.tooling.bytebuddy.outline;
+
+import static datadog.trace.agent.tooling.bytebuddy.outline.AnnotationOutline.annotationOutline;
+
+import java.nio.charset.StandardCharsets;
+import net.bytebuddy.description.type.TypeDescription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Outlines class-files with a hand-written scanner that reads the named elements we need for
+ * matching straight from the bytecode, without building visitor events or decoding the rest of the
+ * constant pool.
+ *
+ * <p>Only UTF8 constants that end up in the outline are decoded; attribute names are compared
+ * byte-by-byte and everything else is skipped by length. Class attributes are read before members,
+ * like ASM does, so member outlines can reference the finished type outline. Loaded types, and any
+ * bytecode the scanner doesn't understand, are left to {@link OutlineTypeParser}.
+ */
+final class ScanningTypeParser implements TypeParser {
+  private static final Logger log = LoggerFactory.getLogger(ScanningTypeParser.class);
+
+  private static final byte[] INNER_CLASSES = bytesOf("InnerClasses");
+  private static final byte[] SYNTHETIC = bytesOf("Synthetic");
+  private static final byte[] VISIBLE_ANNOTATIONS = bytesOf("RuntimeVisibleAnnotations");
+  private static final byte[] INVISIBLE_ANNOTATIONS = bytesOf("RuntimeInvisibleAnnotations");
+
+  private static final int ACC_SYNTHETIC = 0x1000;
+
+  private final TypeParser fallbackParser = new OutlineTypeParser();
+
+  @Override
+  public TypeDescription parse(byte[] bytecode) {
+    try {
+      return scan(bytecode);
+    } catch (RuntimeException e) {
+      log.debug("Unable to scan class-file, falling back to ASM", e);
+      return fallbackParser.parse(bytecode);
+    }
+  }
+
+  @Override
+  public TypeDescription parse(Class<?> loadedType) {
+    return fallbackParser.parse(loadedType);
+  }
+
+  static TypeOutline scan(byte[] bytecode) {
+    // record where each constant starts, skipping over its content
+    int[] cpOffsets = new int[u2(bytecode, 8)];
+    int pos = 10;
+    for (int i = 1; i < cpOffsets.length; i++) {
+      cpOffsets[i] = pos + 1;
+      int tag = bytecode[pos];
+      switch (tag) {
+        case 1: // Utf8
+          pos += 3 + u2(bytecode, pos + 1);
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+        case 12: // NameAndType
+        case 17: // Dynamic
+        case 18: // InvokeDynamic
+          pos += 5;
+          break;
+        case 5: // Long
+        case 6: // Double
+          pos += 9;
+          i++; // takes up two slots
+          break;
+        case 7: // Class
+        case 8: // String
+        case 16: // MethodType
+        case 19: // Module
+        case 20: // Package
+          pos += 3;
+          break;
+        case 15: // MethodHandle
+          pos += 4;
+          break;
+        default:
+          throw new IllegalArgumentException("Unexpected constant pool tag " + tag);
+      }
+    }
+
+    int version = u2(bytecode, 4) << 16 | u2(bytecode, 6);
+    int access = u2(bytecode, pos);
+    int thisClass = u2(bytecode, pos + 2);
+    String name = className(bytecode, cpOffsets, thisClass);
+    String superName = className(bytecode, cpOffsets, u2(bytecode, pos + 4));
+    String[] interfaces = new String[u2(bytecode, pos + 6)];
+    pos += 8;
+    for (int i = 0; i < interfaces.length; i++, pos += 2) {
+      interfaces[i] = className(bytecode, cpOffsets, u2(bytecode, pos));
+    }
+
+    // skip ahead to the class attributes, we need them before we can outline members
+    int fieldsPos = pos;
+    pos = skipMembers(bytecode, pos);
+    int methodsPos = pos;
+    pos = skipMembers(bytecode, pos);
+
+    int declaringClass = 0;
+    int visibleAnnotations = 0;
+    int invisibleAnnotations = 0;
+    int attributeCount = u2(bytecode, pos);
+    pos += 2;
+    for (int i = 0; i < attributeCount; i++) {
+      int attributeName = cpOffsets[u2(bytecode, pos)];
+      int attributeLength = u4(bytecode, pos + 2);
+      int attributePos = pos + 6;
+      if (utf8Equals(bytecode, attributeName, INNER_CLASSES)) {
+        declaringClass = declaringClass(bytecode, cpOffsets, thisClass, attributePos);
+      } else if (utf8Equals(bytecode, attributeName, SYNTHETIC)) {
+        access |= ACC_SYNTHETIC;
+      } else if (utf8Equals(bytecode, attributeName, VISIBLE_ANNOTATIONS)) {
+        visibleAnnotations = attributePos;
+      } else if (utf8Equals(bytecode, attributeName, INVISIBLE_ANNOTATIONS)) {
+        invisibleAnnotations = attributePos;
+      }
+      pos = attributePos + attributeLength;
+    }
+
+    TypeOutline typeOutline = new TypeOutline(version, access, name, superName, interfaces);
+    if (declaringClass > 0) {
+      typeOutline.declaredBy(className(bytecode, cpOffsets, declaringClass));
+    }
+    if (visibleAnnotations > 0) {
+      declareAnnotations(bytecode, cpOffsets, visibleAnnotations, typeOutline, null, null);
+    }
+    if (invisibleAnnotations > 0) {
+      declareAnnotations(bytecode, cpOffsets, invisibleAnnotations, typeOutline, null, null);
+    }
+
+    outlineMembers(bytecode, cpOffsets, fieldsPos, typeOutline, true);
+    outlineMembers(bytecode, cpOffsets, methodsPos, typeOutline, false);
+
+    return typeOutline;
+  }
+
+  /** Returns the index of the outer class if this type is a member of another type, otherwise 0. */
+  private static int declaringClass(byte[] bytecode, int[] cpOffsets, int thisClass, int pos) {
+    int thisName = cpOffsets[u2(bytecode, cpOffsets[thisClass])];
+    for (int classCount = u2(bytecode, pos), i = 0; i < classCount; i++) {
+      int entryPos = pos + 2 + 8 * i;
+      int innerClass = u2(bytecode, entryPos);
+      int outerClass = u2(bytecode, entryPos + 2);
+      if (outerClass > 0 && innerClass > 0) {
+        if (innerClass == thisClass
+            || sameUtf8(bytecode, thisName, cpOffsets[u2(bytecode, cpOffsets[innerClass])])) {
+          return outerClass;
+        }
+      }
+    }
+    return 0;
+  }
+
+  private static int skipMembers(byte[] bytecode, int pos) {
+    int memberCount = u2(bytecode, pos);
+    pos += 2;
+    for (int i = 0; i < memberCount; i++) {
+      pos = skipAttributes(bytecode, pos + 6);
+    }
+    return pos;
+  }
+
+  private static int skipAttributes(byte[] bytecode, int pos) {
+    int attributeCount = u2(bytecode, pos);
+    pos += 2;
+    for (int i = 0; i < attributeCount; i++) {
+      pos += 6 + u4(bytecode, pos + 2);
+    }
+    return pos;
+  }
+
+  private static void outlineMembers(
+      byte[] bytecode, int[] cpOffsets, int pos, TypeOutline typeOutline, boolean fields) {
+    int memberCount = u2(bytecode, pos);
+    pos += 2;
+    for (int i = 0; i < memberCount; i++) {
+      int access = u2(bytecode, pos);
+      String name = utf8(bytecode, cpOffsets[u2(bytecode, pos + 2)]);
+      String descriptor = utf8(bytecode, cpOffsets[u2(bytecode, pos + 4)]);
+      int attributesPos = pos + 6;
+
+      int visibleAnnotations = 0;
+      int invisibleAnnotations = 0;
+      int attributeCount = u2(bytecode, attributesPos);
+      pos = attributesPos + 2;
+      for (int j = 0; j < attributeCount; j++) {
+        int attributeName = cpOffsets[u2(bytecode, pos)];
+        int attributeLength = u4(bytecode, pos + 2);
+        if (utf8Equals(bytecode, attributeName, SYNTHETIC)) {
+          access |= ACC_SYNTHETIC;
+        } else if (utf8Equals(bytecode, attributeName, VISIBLE_ANNOTATIONS)) {
+          visibleAnnotations = pos + 6;
+        } else if (utf8Equals(bytecode, attributeName, INVISIBLE_ANNOTATIONS)) {
+          invisibleAnnotations = pos + 6;
+        }
+        pos += 6 + attributeLength;
+      }
+
+      FieldOutline fieldOutline = null;
+      MethodOutline methodOutline = null;
+      if (fields) {
+        fieldOutline = new FieldOutline(typeOutline, access, name, descriptor);
+        typeOutline.declare(fieldOutline);
+      } else {
+        methodOutline = new MethodOutline(typeOutline, access, name, descriptor);
+        typeOutline.declare(methodOutline);
+      }
+      if (visibleAnnotations > 0) {
+        declareAnnotations(
+            bytecode, cpOffsets, visibleAnnotations, null, fieldOutline, methodOutline);
+      }
+      if (invisibleAnnotations > 0) {
+        declareAnnotations(
+            bytecode, cpOffsets, invisibleAnnotations, null, fieldOutline, methodOutline);
+      }
+    }
+  }
+
+  private static void declareAnnotations(
+      byte[] bytecode,
+      int[] cpOffsets,
+      int pos,
+      TypeOutline typeOutline,
+      FieldOutline fieldOutline,
+      MethodOutline methodOutline) {
+    int annotationCount = u2(bytecode, pos);
+    pos += 2;
+    for (int i = 0; i < annotationCount; i++) {
+      String descriptor = utf8(bytecode, cpOffsets[u2(bytecode, pos)]);
+      if (null != typeOutline) {
+        typeOutline.declare(annotationOutline(descriptor));
+      } else if (null != fieldOutline) {
+        fieldOutline.declare(annotationOutline(descriptor));
+      } else {
+        methodOutline.declare(annotationOutline(descriptor));
+      }
+      pos = skipAnnotationValues(bytecode, pos + 2);
+    }
+  }
+
+  private static int skipAnnotationValues(byte[] bytecode, int pos) {
+    int pairCount = u2(bytecode, pos);
+    pos += 2;
+    for (int i = 0; i < pairCount; i++) {
+      pos = skipElementValue(bytecode, pos + 2);
+    }
+    return pos;
+  }
+
+  private static int skipElementValue(byte[] bytecode, int pos) {
+    int tag = bytecode[pos];
+    switch (tag) {
+      case 'B':
+      case 'C':
+      case 'D':
+      case 'F':
+      case 'I':
+      case 'J':
+      case 'S':
+      case 'Z':
+      case 's':
+      case 'c':
+        return pos + 3;
+      case 'e':
+        return pos + 5;
+      case '@':
+        return skipAnnotationValues(bytecode, pos + 3);
+      case '[':
+        int valueCount = u2(bytecode, pos + 1);
+        pos += 3;
+        for (int i = 0; i < valueCount; i++) {
+          pos = skipElementValue(bytecode, pos);
+        }
+        return pos;
+      default:
+        throw new IllegalArgumentException("Unexpected element value tag " + tag);
+    }
+  }
+
+  private static String className(byte[] bytecode, int[] cpOffsets, int classIndex) {
+    return classIndex > 0 ? utf8(bytecode, cpOffsets[u2(bytecode, cpOffsets[classIndex])]) : null;
+  }
+
+  /** Decodes the modified UTF8 constant starting at the given offset. */
+  private static String utf8(byte[] bytecode, int offset) {
+    int length = u2(bytecode, offset);
+    int pos = offset + 2;
+    int end = pos + length;
+    char[] chars = new char[length];
+    int charCount = 0;
+    while (pos < end) {
+      int c = bytecode[pos++] & 0xFF;
+      if (c < 0x80) {
+        chars[charCount++] = (char) c;
+      } else if (c < 0xE0) {
+        chars[charCount++] = (char) ((c & 0x1F) << 6 | bytecode[pos++] & 0x3F);
+      } else {
+        chars[charCount++] =
+            (char) ((c & 0x0F) << 12 | (bytecode[pos++] & 0x3F) << 6 | bytecode[pos++] & 0x3F);
+      }
+    }
+    return new String(chars, 0, charCount);
+  }
+
+  private static boolean utf8Equals(byte[] bytecode, int offset, byte[] expected) {
+    if (u2(bytecode, offset) != expected.length) {
+      return false;
+    }
+    for (int i = 0, pos = offset + 2; i < expected.length; i++, pos++) {
+      if (bytecode[pos] != expected[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean sameUtf8(byte[] bytecode, int offset1, int offset2) {
+    int length = u2(bytecode, offset1);
+    if (offset1 == offset2) {
+      return true;
+    } else if (u2(bytecode, offset2) != length) {
+      return false;
+    }
+    for (int i = 2; i < length + 2; i++) {
+      if (bytecode[offset1 + i] != bytecode[offset2 + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int u2(byte[] bytecode, int pos) {
+    return (bytecode[pos] & 0xFF) << 8 | bytecode[pos + 1] & 0xFF;
+  }
+
+  private static int u4(byte[] bytecode, int pos) {
+    return (bytecode[pos] & 0xFF) << 24
+        | (bytecode[pos + 1] & 0xFF) << 16
+        | (bytecode[pos + 2] & 0xFF) << 8
+        | bytecode[pos + 3] & 0xFF;
+  }
+
+  private static byte[] bytesOf(String name) {
+    return name.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -67,7 +67,10 @@ final class TypeFactory {
     }
   }
 
-  private static final TypeParser outlineTypeParser = new OutlineTypeParser();
+  private static final TypeParser outlineTypeParser =
+      InstrumenterConfig.get().isResolverOutlineScanner()
+          ? new ScanningTypeParser()
+          : new OutlineTypeParser();
 
   private static final TypeParser fullTypeParser = new FullTypeParser();
 
@@ -96,6 +99,9 @@ final class TypeFactory {
 
   byte[] targetBytecode;
 
+  /** Counts how often types other than the target have been inspected while matching. */
+  int otherTypeLookups;
+
   /** Sets the current class-loader context of this type-factory. */
   void switchContext(ClassLoader classLoader) {
     if (this.classLoader != classLoader || null == classFileLocator) {
@@ -261,6 +267,17 @@ final class TypeFactory {
     return type;
   }
 
+  /** Shares the outline of a type ahead of matching, unless it has already been shared. */
+  static boolean prewarmOutline(
+      String name, ClassLoader classLoader, URL classFile, byte[] bytecode) {
+    if (null != outlineTypes.find(name)) {
+      return false; // avoid parsing when the outline is already shared
+    }
+    // matching may have shared the type while it was being parsed, don't replace that outline
+    return outlineTypes.shareIfAbsent(
+        name, classLoader, classFile, outlineTypeParser.parse(bytecode));
+  }
+
   /** Falls back to loading the class directly; note this will bypass transformation. */
   private TypeDescription loadType(String name, TypeParser typeParser) {
     LOCATING_CLASS.begin();
@@ -354,6 +371,7 @@ final class TypeFactory {
     }
 
     private TypeDescription outline() {
+      recordLookup();
       if (null != delegate) {
         return delegate; // will be at least an outline, no need to re-resolve
       }
@@ -375,6 +393,7 @@ final class TypeFactory {
     }
 
     TypeDescription doResolve(boolean throwIfMissing) {
+      recordLookup();
       // re-resolve type when switching to full descriptions
       if (null == delegate || (isOutline && !createOutlines)) {
         delegate = resolveType(this);
@@ -385,6 +404,12 @@ final class TypeFactory {
       }
       return delegate;
     }
+
+    private void recordLookup() {
+      if (!name.equals(targetName)) {
+        otherTypeLookups++;
+      }
+    }
   }
 
   /** Type resolution that provides more details on-demand. */
@@ -46,6 +46,25 @@ public final class TypePoolFacade implements TypePool, SharedTypePools.Supplier
     typeFactory.get().beginTransform(name, bytecode);
   }
 
+  /** Returns the class-file of the type being transformed, if it has the given name. */
+  public static byte[] targetBytecode(String name) {
+    TypeFactory factory = typeFactory.get();
+    return name.equals(factory.targetName) ? factory.targetBytecode : null;
+  }
+
+  /**
+   * Returns how often the active thread has inspected types other than the one being transformed.
+   * Matching results only depend on the target's class-file when this count doesn't change.
+   */
+  public static int otherTypeLookups() {
+    return typeFactory.get().otherTypeLookups;
+  }
+
+  /** Records lookups of other types made earlier, whose results are being reused. */
+  public static void recordOtherTypeLookups(int count) {
+    typeFactory.get().otherTypeLookups += count;
+  }
+
   /** Switch to full descriptions, needed for the actual class transformation. */
   public static void enableFullDescriptions() {
     typeFactory.get().enableFullDescriptions();
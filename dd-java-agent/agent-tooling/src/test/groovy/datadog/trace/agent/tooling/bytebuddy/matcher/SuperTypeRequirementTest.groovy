@@ -0,0 +1,43 @@
+package datadog.trace.agent.tooling.bytebuddy.matcher
+
+import datadog.trace.test.util.DDSpecification
+import net.bytebuddy.description.type.TypeDescription
+
+import static datadog.trace.agent.tooling.bytebuddy.matcher.NameMatchers.named
+import static datadog.trace.agent.tooling.bytebuddy.matcher.NameMatchers.nameStartsWith
+import static datadog.trace.agent.tooling.bytebuddy.matcher.NameMatchers.namedOneOf
+import static net.bytebuddy.matcher.ElementMatchers.isInterface
+import static net.bytebuddy.matcher.ElementMatchers.not
+
+class SuperTypeRequirementTest extends DDSpecification {
+
+  def checks = HierarchyMatchers.indexingChecks()
+
+  def "super-types are recorded for simple hierarchy matchers"() {
+    expect:
+    SuperTypeRequirement.requiredSuperTypes(checks.extendsClass(named("foo.Base"))) == ["foo.Base"] as Set
+    SuperTypeRequirement.requiredSuperTypes(checks.implementsInterface(namedOneOf("foo.A", "foo.B"))) == ["foo.A", "foo.B"] as Set
+    SuperTypeRequirement.requiredSuperTypes(checks.hasSuperType(nameStartsWith("foo."))) == null
+    SuperTypeRequirement.requiredSuperTypes(checks.declaresMethod(named("foo"))) == null
+  }
+
+  def "narrowing keeps the requirement"() {
+    expect:
+    SuperTypeRequirement.requiredSuperTypes(checks.hasSuperType(named("foo.Base")).and(not(isInterface()))) == ["foo.Base"] as Set
+  }
+
+  def "widening only keeps the requirement when both sides have one"() {
+    expect:
+    SuperTypeRequirement.requiredSuperTypes(checks.hasSuperType(named("foo.A")).or(checks.hasInterface(named("foo.B")))) == ["foo.A", "foo.B"] as Set
+    SuperTypeRequirement.requiredSuperTypes(checks.hasSuperType(named("foo.A")).or(named("foo.C"))) == null
+  }
+
+  def "requirement does not change what is matched"() {
+    setup:
+    def type = TypeDescription.ForLoadedType.of(ArrayList)
+
+    expect:
+    checks.implementsInterface(named("java.util.List")).and(not(isInterface())).matches(type)
+    !checks.implementsInterface(named("java.util.Map")).matches(type)
+  }
+}
@@ -0,0 +1,138 @@
+package datadog.trace.agent.tooling.bytebuddy.outline
+
+import datadog.trace.agent.tooling.bytebuddy.matcher.DDElementMatchers
+import net.bytebuddy.ByteBuddy
+import net.bytebuddy.description.type.TypeDescription
+import net.bytebuddy.dynamic.DynamicType
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class OutlinePrewarmerForkedTest extends Specification {
+  static {
+    DDElementMatchers.registerAsSupplier()
+  }
+
+  @Shared
+  File fixtureJar
+
+  @Shared
+  File shadowJar
+
+  @Shared
+  DynamicType.Unloaded<?> base
+
+  def setupSpec() {
+    // fixture.Impl extends fixture.Base implements fixture.Api
+    base = new ByteBuddy().subclass(Object).name("fixture.Base").make()
+    def api = new ByteBuddy().makeInterface().name("fixture.Api").make()
+    def impl = new ByteBuddy()
+      .subclass(base.typeDescription)
+      .implement(api.typeDescription)
+      .name("fixture.Impl")
+      .make()
+    fixtureJar = Files.createTempDirectory("outline-prewarmer").resolve("fixture.jar").toFile()
+    base.toJar(fixtureJar)
+    api.inject(fixtureJar)
+    impl.inject(fixtureJar)
+    // declares another fixture.Base, which is shadowed when it comes later on the class-path
+    shadowJar = new File(fixtureJar.parentFile, "shadow.jar")
+    new ByteBuddy().makeInterface().name("fixture.Base").make().toJar(shadowJar)
+  }
+
+  def cleanupSpec() {
+    fixtureJar.delete()
+    shadowJar.delete()
+    fixtureJar.parentFile.delete()
+  }
+
+  def cleanup() {
+    TypeFactory.clear()
+  }
+
+  def "supertype outlines are shared from the class-path jars"() {
+    setup:
+    def loader = new URLClassLoader([fixtureJar.toURI().toURL()] as URL[], (ClassLoader) null)
+
+    when:
+    new OutlinePrewarmer([fixtureJar], 10, loader).run()
+
+    then:
+    def baseOutline = TypeFactory.outlineTypes.find("fixture.Base")
+    baseOutline.sameClassLoader(loader)
+    baseOutline.sameClassFile(new URL("jar:${fixtureJar.toURI().toURL()}!/fixture/Base.class"))
+    baseOutline.get().name == "fixture.Base"
+    def apiOutline = TypeFactory.outlineTypes.find("fixture.Api")
+    apiOutline.sameClassLoader(loader)
+    apiOutline.get().isInterface()
+    // only types extended or implemented by another type are pre-warmed
+    TypeFactory.outlineTypes.find("fixture.Impl") == null
+  }
+
+  def "supertypes are outlined from the first jar on the class-path that declares them"() {
+    setup:
+    def jars = shadowFirst ? [shadowJar, fixtureJar] : [fixtureJar, shadowJar]
+
+    when:
+    new OutlinePrewarmer(jars, 10, ClassLoader.systemClassLoader).run()
+
+    then:
+    def baseOutline = TypeFactory.outlineTypes.find("fixture.Base")
+    baseOutline.sameClassFile(new URL("jar:${jars[0].toURI().toURL()}!/fixture/Base.class"))
+    baseOutline.get().isInterface() == shadowFirst
+
+    where:
+    shadowFirst << [false, true]
+  }
+
+  def "number of pre-warmed outlines is limited"() {
+    when:
+    new OutlinePrewarmer([fixtureJar], 1, ClassLoader.systemClassLoader).run()
+
+    then:
+    ["fixture.Base", "fixture.Api"].count { TypeFactory.outlineTypes.find(it) != null } == 1
+  }
+
+  def "outlines shared while matching are not replaced"() {
+    setup:
+    def matchingOutline = TypeDescription.ForLoadedType.of(Object)
+    TypeFactory.outlineTypes.share("fixture.Base", null, null, matchingOutline)
+
+    when:
+    new OutlinePrewarmer([fixtureJar], 10, ClassLoader.systemClassLoader).run()
+
+    then:
+    TypeFactory.outlineTypes.find("fixture.Base").get().is(matchingOutline)
+    TypeFactory.outlineTypes.find("fixture.Api") != null
+  }
+
+  def "only one thread shares an outline when racing"() {
+    setup:
+    def threads = 8
+    def bytecode = base.bytes
+    def classFile = new URL("jar:${fixtureJar.toURI().toURL()}!/fixture/Base.class")
+    def executor = Executors.newFixedThreadPool(threads)
+    def start = new CountDownLatch(1)
+
+    when:
+    def futures = (1..threads).collect {
+      executor.submit {
+        start.await()
+        TypeFactory.prewarmOutline("fixture.Base", ClassLoader.systemClassLoader, classFile, bytecode)
+      }
+    }
+    start.countDown()
+    def shared = futures.collect { it.get(10, TimeUnit.SECONDS) }
+
+    then:
+    shared.count { it } == 1
+    TypeFactory.outlineTypes.find("fixture.Base").get().name == "fixture.Base"
+
+    cleanup:
+    executor.shutdownNow()
+  }
+}
@@ -0,0 +1,83 @@
+package datadog.trace.agent.tooling.bytebuddy.outline
+
+import datadog.trace.agent.tooling.bytebuddy.ClassFileLocators
+import spock.lang.Shared
+import spock.lang.Specification
+
+class ScanningTypeParserTest extends Specification {
+  static {
+    AnnotationOutline.prepareAnnotationOutline('java.lang.Deprecated')
+    AnnotationOutline.prepareAnnotationOutline('java.lang.FunctionalInterface')
+    AnnotationOutline.prepareAnnotationOutline('java.lang.annotation.Retention')
+  }
+
+  @Shared
+  def scanningParser = new ScanningTypeParser()
+
+  @Shared
+  def outlineParser = new OutlineTypeParser()
+
+  def "scanned outline matches ASM outline of #className"() {
+    setup:
+    def bytecode = ClassFileLocators.classFileLocator(ClassLoader.systemClassLoader).locate(className).resolve()
+
+    when:
+    def scanned = scanningParser.parse(bytecode)
+    def expected = outlineParser.parse(bytecode)
+
+    then:
+    describe(scanned) == describe(expected)
+
+    where:
+    className << [
+      'java.lang.Object',
+      'java.lang.String',
+      'java.lang.Thread',
+      'java.lang.Thread$State',
+      'java.lang.Runnable',
+      'java.lang.annotation.Documented',
+      'java.util.HashMap',
+      'java.util.concurrent.ConcurrentHashMap',
+      'java.util.concurrent.CompletableFuture$Signaller',
+      'java.util.function.Function',
+      'java.util.Date',
+      ScanningTypeParserTest.name
+    ]
+  }
+
+  def "falls back to ASM for unexpected bytecode"() {
+    setup:
+    def bytecode = ClassFileLocators.classFileLocator(ClassLoader.systemClassLoader).locate('java.lang.Runnable').resolve()
+    bytecode[10] = 99 // corrupt the first constant pool tag
+
+    when:
+    ScanningTypeParser.scan(bytecode)
+
+    then:
+    thrown(IllegalArgumentException)
+
+    when:
+    scanningParser.parse(bytecode)
+
+    then:
+    thrown(RuntimeException) // ASM also rejects it
+  }
+
+  static describe(type) {
+    [
+      name        : type.name,
+      modifiers   : type.modifiers,
+      version     : type.classFileVersion,
+      superClass  : type.superClass?.asErasure()?.name,
+      interfaces  : type.interfaces.collect { it.asErasure().name },
+      declaredBy  : type.declaringType?.name,
+      annotations : type.declaredAnnotations.collect { it.annotationType.name },
+      fields      : type.declaredFields.collect {
+        [it.name, it.descriptor, it.modifiers, it.declaredAnnotations.collect { a -> a.annotationType.name }]
+      },
+      methods     : type.declaredMethods.collect {
+        [it.name, it.descriptor, it.modifiers, it.declaredAnnotations.collect { a -> a.annotationType.name }]
+      }
+    ]
+  }
+}
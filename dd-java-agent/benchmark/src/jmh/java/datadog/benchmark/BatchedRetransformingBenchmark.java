@@ -0,0 +1,106 @@
+package datadog.benchmark;
+
+import datadog.benchmark.classes.UntracedClass;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.util.Arrays;
+import net.bytebuddy.agent.ByteBuddyAgent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Re-transforms thousands of loaded classes, like when remote configuration changes the probes
+ * applied to a large application. Each class is a copy of {@link UntracedClass} defined by its own
+ * class-loader. Compares one class per call with batches of {@code batchSize} classes per call,
+ * which trades the number of safepoints against the length of each pause.
+ */
+public class BatchedRetransformingBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class BenchmarkState {
+    private final Instrumentation inst = ByteBuddyAgent.install();
+
+    @Param({"5000"})
+    int classCount;
+
+    @Param({"1", "64", "512"})
+    int batchSize;
+
+    Class<?>[] classes;
+
+    @Setup(Level.Trial)
+    public void loadClasses() throws Exception {
+      byte[] bytecode = readBytecode(UntracedClass.class);
+      classes = new Class<?>[classCount];
+      for (int i = 0; i < classCount; i++) {
+        classes[i] =
+            new CopyingClassLoader(UntracedClass.class.getName(), bytecode)
+                .loadClass(UntracedClass.class.getName());
+      }
+    }
+  }
+
+  @Benchmark
+  public void testRetransformAll(final BenchmarkState state) throws UnmodifiableClassException {
+    Class<?>[] classes = state.classes;
+    for (int start = 0; start < classes.length; start += state.batchSize) {
+      int end = Math.min(start + state.batchSize, classes.length);
+      state.inst.retransformClasses(Arrays.copyOfRange(classes, start, end));
+    }
+  }
+
+  static byte[] readBytecode(Class<?> clazz) throws IOException {
+    String resource = clazz.getName().replace('.', '/') + ".class";
+    try (InputStream in = clazz.getClassLoader().getResourceAsStream(resource)) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buf = new byte[8192];
+      int bytesRead;
+      while ((bytesRead = in.read(buf)) >= 0) {
+        bytes.write(buf, 0, bytesRead);
+      }
+      return bytes.toByteArray();
+    }
+  }
+
+  /** Defines its own copy of a class, delegating everything else to the benchmark class-loader. */
+  static final class CopyingClassLoader extends ClassLoader {
+    private final String className;
+    private final byte[] bytecode;
+
+    CopyingClassLoader(String className, byte[] bytecode) {
+      super(BatchedRetransformingBenchmark.class.getClassLoader());
+      this.className = className;
+      this.bytecode = bytecode;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!className.equals(name)) {
+        return super.loadClass(name, resolve);
+      }
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> clazz = findLoadedClass(name);
+        if (null == clazz) {
+          clazz = defineClass(name, bytecode, 0, bytecode.length);
+        }
+        return clazz;
+      }
+    }
+  }
+
+  @Fork(jvmArgsAppend = "-javaagent:/path/to/dd-java-agent-master.jar")
+  public static class WithAgentMaster extends BatchedRetransformingBenchmark {}
+
+  @Fork(
+      jvmArgsAppend =
+          "-javaagent:/path/to/dd-trace-java/dd-java-agent/build/libs/dd-java-agent.jar")
+  public static class WithAgent extends BatchedRetransformingBenchmark {}
+}
@@ -0,0 +1,96 @@
+package datadog.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Loads every class of the benchmark class-path in a new class-loader, which is what the agent
+ * sees when an application starts. Each fork is a new JVM, so comparing {@link WithAgent} with the
+ * first and later forks of {@link WithAgentAndMatchCache} gives the startup cost with no match
+ * cache, with a cold match cache and with a warm one. {@link WithAgentAndOutlinePrewarm} shows how
+ * much of the matching cost is saved by outlining supertypes from the class-path in the background.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class ClassMatchCacheBenchmark {
+
+  private URL[] classPath;
+  private List<String> classNames;
+
+  @Setup(Level.Trial)
+  public void init() throws IOException {
+    List<URL> urls = new ArrayList<>();
+    classNames = new ArrayList<>();
+    for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      File file = new File(entry);
+      if (file.getName().endsWith(".jar") && !file.getName().startsWith("dd-java-agent")) {
+        urls.add(file.toURI().toURL());
+        try (JarFile jar = new JarFile(file)) {
+          Enumeration<JarEntry> entries = jar.entries();
+          while (entries.hasMoreElements()) {
+            String name = entries.nextElement().getName();
+            if (name.endsWith(".class") && !name.contains("-")) {
+              classNames.add(name.substring(0, name.length() - 6).replace('/', '.'));
+            }
+          }
+        }
+      }
+    }
+    classPath = urls.toArray(new URL[0]);
+  }
+
+  @Benchmark
+  public void loadClasses(Blackhole blackhole) throws IOException {
+    try (URLClassLoader classLoader = new URLClassLoader(classPath, null)) {
+      for (String className : classNames) {
+        try {
+          blackhole.consume(Class.forName(className, false, classLoader));
+        } catch (Throwable ignore) {
+          // missing optional dependencies
+        }
+      }
+    }
+  }
+
+  @Fork(
+      value = 3,
+      jvmArgsAppend =
+          "-javaagent:/path/to/dd-trace-java/dd-java-agent/build/libs/dd-java-agent.jar")
+  public static class WithAgent extends ClassMatchCacheBenchmark {}
+
+  @Fork(
+      value = 3,
+      jvmArgsAppend = {
+        "-javaagent:/path/to/dd-trace-java/dd-java-agent/build/libs/dd-java-agent.jar",
+        "-Ddd.resolver.match.cache.file=build/match-cache/classes.bin"
+      })
+  public static class WithAgentAndMatchCache extends ClassMatchCacheBenchmark {}
+
+  @Fork(
+      value = 3,
+      jvmArgsAppend = {
+        "-javaagent:/path/to/dd-trace-java/dd-java-agent/build/libs/dd-java-agent.jar",
+        "-Ddd.resolver.outline.prewarm=true"
+      })
+  public static class WithAgentAndOutlinePrewarm extends ClassMatchCacheBenchmark {}
+}
@@ -0,0 +1,74 @@
+package datadog.trace.instrumentation.java.concurrent;
+
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activeScope;
+import static datadog.trace.bootstrap.instrumentation.java.concurrent.ExcludeFilter.ExcludeType.RUNNABLE;
+import static datadog.trace.bootstrap.instrumentation.java.concurrent.ExcludeFilter.exclude;
+import static net.bytebuddy.matcher.ElementMatchers.isConstructor;
+import static net.bytebuddy.matcher.ElementMatchers.takesArgument;
+
+import com.google.auto.service.AutoService;
+import datadog.trace.agent.tooling.Instrumenter;
+import datadog.trace.bootstrap.InstrumentationContext;
+import datadog.trace.bootstrap.instrumentation.api.AgentScope;
+import datadog.trace.bootstrap.instrumentation.java.concurrent.RunnableWrapper;
+import datadog.trace.bootstrap.instrumentation.java.concurrent.State;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.FutureTask;
+import net.bytebuddy.asm.Advice;
+
+/**
+ * Propagates the active scope to the task of a virtual thread, whether it was started with {@code
+ * Thread.ofVirtual()}, {@code Thread.startVirtualThread} or by the executor returned by {@code
+ * Executors.newVirtualThreadPerTaskExecutor()}, which all end up creating a {@code
+ * java.lang.VirtualThread}. The continuation is activated by {@link RunnableInstrumentation} when
+ * the task runs.
+ */
+@AutoService(Instrumenter.class)
+public final class VirtualThreadInstrumentation extends Instrumenter.Tracing
+    implements Instrumenter.ForBootstrap, Instrumenter.ForSingleType {
+
+  public VirtualThreadInstrumentation() {
+    super("java_concurrent", "virtual-thread");
+  }
+
+  @Override
+  public String instrumentedType() {
+    return "java.lang.VirtualThread";
+  }
+
+  @Override
+  public Map<String, String> contextStore() {
+    return Collections.singletonMap(Runnable.class.getName(), State.class.getName());
+  }
+
+  @Override
+  public void adviceTransformations(AdviceTransformation transformation) {
+    transformation.applyAdvice(
+        isConstructor().and(takesArgument(3, Runnable.class)),
+        getClass().getName() + "$CaptureTaskAdvice");
+  }
+
+  public static final class CaptureTaskAdvice {
+
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static void captureScope(@Advice.Argument(value = 3, readOnly = false) Runnable task) {
+      // FutureTask captures the active scope itself when it is created, which includes the
+      // ThreadBoundFuture submitted by the virtual thread executor; other futures that capture
+      // the scope themselves are excluded below, any other RunnableFuture is captured here
+      if (null == task || task instanceof FutureTask) {
+        return;
+      }
+      final AgentScope scope = activeScope();
+      if (null != scope && scope.isAsyncPropagating()) {
+        final Runnable newTask = RunnableWrapper.wrapIfNeeded(task);
+        if (!exclude(RUNNABLE, newTask)) {
+          task = newTask;
+          InstrumentationContext.get(Runnable.class, State.class)
+              .putIfAbsent(newTask, State.FACTORY)
+              .captureAndSetContinuation(scope);
+        }
+      }
+    }
+  }
+}
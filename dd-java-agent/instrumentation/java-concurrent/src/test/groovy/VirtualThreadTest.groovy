@@ -0,0 +1,89 @@
+import datadog.trace.agent.test.AgentTestRunner
+import datadog.trace.api.Platform
+import datadog.trace.api.Trace
+import datadog.trace.core.DDSpan
+import spock.lang.Requires
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.FutureTask
+
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activeScope
+
+@Requires({
+  Platform.isJavaVersionAtLeast(21)
+})
+class VirtualThreadTest extends AgentTestRunner {
+
+  def "virtual thread started with '#name' propagates"() {
+    setup:
+    def start = method
+
+    new Runnable() {
+        @Override
+        @Trace(operationName = "parent")
+        void run() {
+          activeScope().setAsyncPropagation(true)
+          // this child will have a span
+          start(new JavaAsyncChild())
+          // this child won't
+          start(new JavaAsyncChild(false, false))
+          blockUntilChildSpansFinished(1)
+        }
+      }.run()
+
+    TEST_WRITER.waitForTraces(1)
+    List<DDSpan> trace = TEST_WRITER.get(0)
+
+    expect:
+    TEST_WRITER.size() == 1
+    trace.size() == 2
+    trace.get(0).operationName == "parent"
+    trace.get(1).operationName == "asyncChild"
+    trace.get(1).parentId == trace.get(0).spanId
+
+    where:
+    name                                | method
+    "Thread.ofVirtual().start"          | { Runnable r -> Thread.ofVirtual().start(r) }
+    "Thread.ofVirtual().unstarted"      | { Runnable r -> Thread.ofVirtual().unstarted(r).start() }
+    "Thread.startVirtualThread"         | { Runnable r -> Thread.startVirtualThread(r) }
+    "virtual thread factory"            | { Runnable r -> Thread.ofVirtual().factory().newThread(r).start() }
+    "virtual thread executor execute"   | { Runnable r -> Executors.newVirtualThreadPerTaskExecutor().execute(r) }
+    "virtual thread executor submit"    | { Runnable r -> Executors.newVirtualThreadPerTaskExecutor().submit(r) }
+    "FutureTask on a virtual thread"    | { Runnable r -> Thread.ofVirtual().start(new FutureTask(r, null)) }
+  }
+
+  def "virtual thread executor '#name' continues the parent trace once"() {
+    setup:
+    def executor = Executors.newVirtualThreadPerTaskExecutor()
+
+    when:
+    new Runnable() {
+        @Override
+        @Trace(operationName = "parent")
+        void run() {
+          activeScope().setAsyncPropagation(true)
+          submit(executor, new JavaAsyncChild()).get()
+        }
+      }.run()
+    // a second capture of the parent scope would never be released, so the trace wouldn't be written
+    TEST_WRITER.waitForTraces(1)
+    List<DDSpan> trace = TEST_WRITER.get(0)
+
+    then:
+    TEST_WRITER.size() == 1
+    trace.size() == 2
+    trace.get(0).operationName == "parent"
+    trace.get(1).operationName == "asyncChild"
+    trace.get(1).parentId == trace.get(0).spanId
+
+    cleanup:
+    executor.shutdown()
+
+    where:
+    name              | submit
+    "submit runnable" | { ExecutorService e, JavaAsyncChild c -> e.submit((Runnable) c) }
+    "submit callable" | { ExecutorService e, JavaAsyncChild c -> e.submit((Callable) c) }
+  }
+}
@@ -100,8 +100,12 @@ public final class KafkaProducerInstrumentation extends Instrumenter.Tracing
         sortedTags.put(TOPIC_TAG, record.topic());
         sortedTags.put(TYPE_TAG, "kafka");
         try {
-          propagate().inject(span, record.headers(), SETTER);
-          propagate().injectBinaryPathwayContext(span, record.headers(), SETTER, sortedTags);
+          if (Config.get().isKafkaClientBinaryPropagationEnabled()) {
+            propagate().injectBinary(span, record.headers(), SETTER, sortedTags);
+          } else {
+            propagate().inject(span, record.headers(), SETTER);
+            propagate().injectBinaryPathwayContext(span, record.headers(), SETTER, sortedTags);
+          }
         } catch (final IllegalStateException e) {
           // headers must be read-only from reused record. try again with new one.
           record =
@@ -113,8 +117,12 @@ public final class KafkaProducerInstrumentation extends Instrumenter.Tracing
                   record.value(),
                   record.headers());
 
-          propagate().inject(span, record.headers(), SETTER);
-          propagate().injectBinaryPathwayContext(span, record.headers(), SETTER, sortedTags);
+          if (Config.get().isKafkaClientBinaryPropagationEnabled()) {
+            propagate().injectBinary(span, record.headers(), SETTER, sortedTags);
+          } else {
+            propagate().inject(span, record.headers(), SETTER);
+            propagate().injectBinaryPathwayContext(span, record.headers(), SETTER, sortedTags);
+          }
         }
         if (!KAFKA_LEGACY_TRACING) {
           SETTER.injectTimeInQueue(record.headers());
@@ -71,7 +71,10 @@ public class TracingIterator implements Iterator<ConsumerRecord<?, ?>> {
       AgentSpan span, queueSpan = null;
       if (val != null) {
         if (!Config.get().isKafkaClientPropagationDisabledForTopic(val.topic())) {
-          final Context spanContext = propagate().extract(val.headers(), GETTER);
+          Context spanContext = propagate().extractBinary(val.headers(), GETTER);
+          if (null == spanContext) {
+            spanContext = propagate().extract(val.headers(), GETTER);
+          }
           long timeInQueueStart = GETTER.extractTimeInQueueStart(val.headers());
           if (timeInQueueStart == 0 || KAFKA_LEGACY_TRACING) {
             span = startSpan(operationName, spanContext);
@@ -218,7 +218,10 @@ public class KafkaStreamTaskInstrumentation extends Instrumenter.Tracing
       StreamTaskContext streamTaskContext =
           InstrumentationContext.get(StreamTask.class, StreamTaskContext.class).get(task);
       if (!Config.get().isKafkaClientPropagationDisabledForTopic(record.topic())) {
-        final AgentSpan.Context extractedContext = propagate().extract(record, SR_GETTER);
+        AgentSpan.Context extractedContext = propagate().extractBinary(record, SR_GETTER);
+        if (null == extractedContext) {
+          extractedContext = propagate().extract(record, SR_GETTER);
+        }
         long timeInQueueStart = SR_GETTER.extractTimeInQueueStart(record);
         if (timeInQueueStart == 0 || KAFKA_LEGACY_TRACING) {
           span = startSpan(KAFKA_CONSUME, extractedContext);
@@ -284,7 +287,10 @@ public class KafkaStreamTaskInstrumentation extends Instrumenter.Tracing
       StreamTaskContext streamTaskContext =
           InstrumentationContext.get(StreamTask.class, StreamTaskContext.class).get(task);
       if (!Config.get().isKafkaClientPropagationDisabledForTopic(record.topic())) {
-        final AgentSpan.Context extractedContext = propagate().extract(record, PR_GETTER);
+        AgentSpan.Context extractedContext = propagate().extractBinary(record, PR_GETTER);
+        if (null == extractedContext) {
+          extractedContext = propagate().extract(record, PR_GETTER);
+        }
         long timeInQueueStart = PR_GETTER.extractTimeInQueueStart(record);
         if (timeInQueueStart == 0 || KAFKA_LEGACY_TRACING) {
           span = startSpan(KAFKA_CONSUME, extractedContext);
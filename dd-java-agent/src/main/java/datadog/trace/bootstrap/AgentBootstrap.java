@@ -177,7 +177,7 @@ public final class AgentBootstrap {
 
         if (!ddJavaAgentJarPath.isDirectory()) {
           checkJarManifestMainClassIsThis(ddJavaAgentJarURL);
-          inst.appendToBootstrapClassLoaderSearch(new JarFile(ddJavaAgentJarPath));
+          appendToBootstrapClassLoaderSearch(inst, ddJavaAgentJarPath);
           return ddJavaAgentJarURL;
         }
       }
@@ -222,11 +222,24 @@ public final class AgentBootstrap {
     }
     ddJavaAgentJarURL = javaagentFile.toURI().toURL();
     checkJarManifestMainClassIsThis(ddJavaAgentJarURL);
-    inst.appendToBootstrapClassLoaderSearch(new JarFile(javaagentFile));
+    appendToBootstrapClassLoaderSearch(inst, javaagentFile);
 
     return ddJavaAgentJarURL;
   }
 
+  /**
+   * Adds the agent jar to the bootstrap search path, unless the JVM was launched with the agent jar
+   * already on the bootstrap class-path ({@code -Xbootclasspath/a}). Appending to the bootstrap
+   * search path at runtime stops the JVM from using class data sharing for application classes.
+   */
+  private static void appendToBootstrapClassLoaderSearch(
+      final Instrumentation inst, final File agentJar) throws IOException {
+    if (thisClass.getClassLoader() == null) {
+      return; // this class was loaded by the bootstrap class-loader, so the jar is already there
+    }
+    inst.appendToBootstrapClassLoaderSearch(new JarFile(agentJar));
+  }
+
   @SuppressForbidden
   private static List<String> getVMArgumentsThroughReflection() {
     try {
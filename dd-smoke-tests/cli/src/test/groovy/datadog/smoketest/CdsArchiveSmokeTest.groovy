@@ -0,0 +1,79 @@
+package datadog.smoketest
+
+import datadog.trace.api.Platform
+import spock.lang.Requires
+import spock.lang.Shared
+
+import static java.util.concurrent.TimeUnit.SECONDS
+
+/**
+ * Runs the CLI application with a dynamic class data sharing archive, created by a training run
+ * with the agent jar on the bootstrap class-path. Before the tested run, it compares the run time
+ * with and without the archive. The CLI application sleeps for a fixed time, so the difference is
+ * the startup saving.
+ */
+@Requires({
+  Platform.isJavaVersionAtLeast(13) && !Platform.isJ9()
+})
+class CdsArchiveSmokeTest extends CliApplicationSmokeTest {
+  private static final int RUN_TIMEOUT_SECS = 60
+
+  @Shared
+  String archivePath = "${buildDirectory}/tmp/cds-smoke-test.jsa"
+
+  @Override
+  protected void beforeProcessBuilders() {
+    new File(archivePath).delete()
+    long baselineMillis = runCli("baseline", ["-Xbootclasspath/a:${shadowJarPath}".toString()])
+    runCli("training", [
+      "-Xbootclasspath/a:${shadowJarPath}".toString(),
+      "-XX:ArchiveClassesAtExit=${archivePath}".toString()
+    ])
+    assert new File(archivePath).isFile()
+    long archivedMillis = runCli("archived", [
+      "-Xbootclasspath/a:${shadowJarPath}".toString(),
+      "-XX:SharedArchiveFile=${archivePath}".toString()
+    ])
+    println("CDS startup benchmark: baseline ${baselineMillis}ms, with archive ${archivedMillis}ms")
+  }
+
+  @Override
+  List<String> additionalArguments() {
+    return [
+      "-Xbootclasspath/a:${shadowJarPath}".toString(),
+      "-XX:SharedArchiveFile=${archivePath}".toString(),
+      "-Xlog:class+load=info"
+    ]
+  }
+
+  def "agent and application classes are loaded from the archive"() {
+    when:
+    assert testedProcess.waitFor(RUN_TIMEOUT_SECS, SECONDS)
+    def log = new File(logFilePath).text
+
+    then:
+    testedProcess.exitValue() == 0
+    log.contains("datadog.trace.bootstrap.Agent source: shared objects file")
+    // appending to the bootstrap search path at runtime would disable sharing of these
+    log.contains("datadog.smoketest.cli.CliApplication source: shared objects file")
+  }
+
+  long runCli(String name, List<String> cdsArguments) {
+    List<String> command = new ArrayList<>()
+    command.add(javaPath())
+    command.addAll(defaultJavaProperties)
+    command.addAll(cdsArguments)
+    command.addAll((String[]) ["-jar", System.getProperty("datadog.smoketest.cli.shadowJar.path")])
+
+    ProcessBuilder processBuilder = new ProcessBuilder(command)
+    processBuilder.directory(new File(buildDirectory))
+    processBuilder.redirectErrorStream(true)
+    processBuilder.redirectOutput(new File("${buildDirectory}/reports/cdsProcess.${name}.log"))
+
+    long start = System.currentTimeMillis()
+    Process process = processBuilder.start()
+    assert process.waitFor(RUN_TIMEOUT_SECS, SECONDS)
+    assert process.exitValue() == 0
+    return System.currentTimeMillis() - start
+  }
+}
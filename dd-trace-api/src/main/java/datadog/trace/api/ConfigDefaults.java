@@ -57,6 +57,7 @@ public final class ConfigDefaults {
   static final boolean DEFAULT_PROPAGATION_EXTRACT_LOG_HEADER_NAMES_ENABLED = false;
   static final boolean DEFAULT_JMX_FETCH_ENABLED = true;
   static final boolean DEFAULT_TRACE_AGENT_V05_ENABLED = false;
+  static final int DEFAULT_TRACE_SERIALIZER_SHARDS = 1;
 
   static final boolean DEFAULT_CLIENT_IP_ENABLED = false;
 
@@ -123,6 +124,10 @@ public final class ConfigDefaults {
   static final boolean DEFAULT_TRACE_ANALYTICS_ENABLED = false;
   static final float DEFAULT_ANALYTICS_SAMPLE_RATE = 1.0f;
   static final int DEFAULT_TRACE_RATE_LIMIT = 100;
+  static final boolean DEFAULT_TRACE_TAIL_SAMPLING_ENABLED = false;
+  static final int DEFAULT_TRACE_TAIL_SAMPLING_LATENCY_THRESHOLD_MS = 1000;
+  static final int DEFAULT_TRACE_TAIL_SAMPLING_RATE_LIMIT = 1;
+  static final int DEFAULT_TRACE_TAIL_SAMPLING_MAX_BUFFERED_SPANS = 10000;
 
   public static final boolean DEFAULT_ASYNC_PROPAGATING = true;
 
@@ -138,6 +143,7 @@ public final class ConfigDefaults {
   static final boolean DEFAULT_TELEMETRY_DEPENDENCY_COLLECTION_ENABLED = true;
 
   static final boolean DEFAULT_SECURE_RANDOM = false;
+  static final boolean DEFAULT_TRACE_128_BIT_TRACEID_GENERATION_ENABLED = false;
 
   public static final int DEFAULT_TRACE_X_DATADOG_TAGS_MAX_LENGTH = 512;
 
@@ -83,7 +83,7 @@ final class DDId {
 
   static long parseUnsignedLongHex(String s, int start, int len) throws NumberFormatException {
     if (len > 0) {
-      if (len > 16 && (len - firstNonZeroCharacter(s, start)) > 16) {
+      if (len > 16 && (start + len - firstNonZeroCharacter(s, start)) > 16) {
         // Unsigned 64 bits max is 16 digits, so this always overflows
         throw numberFormatOutOfRange(s);
       }
@@ -34,6 +34,26 @@ public final class DDSpanId {
     return DDId.parseUnsignedLongHex(s);
   }
 
+  /**
+   * Parse the unsigned 64 bit id from a hex representation embedded in the given {@code String},
+   * without creating a substring.
+   *
+   * @param s String containing the hex of an unsigned 64 bit id
+   * @param start index of the first hex character
+   * @param len number of hex characters
+   * @return long
+   * @throws NumberFormatException
+   */
+  public static long fromHex(String s, int start, int len) throws NumberFormatException {
+    if (s == null) {
+      throw new NumberFormatException("null");
+    }
+    if (start < 0 || len > s.length() - start) {
+      throw new NumberFormatException("Range out of bounds in " + s);
+    }
+    return DDId.parseUnsignedLongHex(s, start, len);
+  }
+
   /**
    * Returns the decimal string representation of the unsigned 64 bit id. The {@code String} will
    * NOT be cached.
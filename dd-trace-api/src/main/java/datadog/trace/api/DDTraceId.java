@@ -1,11 +1,15 @@
 package datadog.trace.api;
 
 /**
- * Class encapsulating the unsigned 64 bit id used for Traceids.
+ * Class encapsulating the unsigned 64 or 128 bit id used for Traceids.
  *
  * <p>It contains generation of new ids, parsing, and to string for both decimal and hex
  * representations. The decimal string representation is either kept from parsing, or generated on
  * demand and cached.
+ *
+ * <p>128 bit ids are kept as two {@code long}s. The decimal representation only covers the lower 64
+ * bits, which is what the Datadog headers and log correlation use, the hex representation covers
+ * all 128 bits.
  */
 public class DDTraceId {
 
@@ -71,17 +75,61 @@ public class DDTraceId {
     return new DDTraceId(DDId.parseUnsignedLongHex(s, len - trimmed, trimmed), null, s);
   }
 
+  /**
+   * Create a new {@code DDTraceId} from the bits of an unsigned 128 bit id. The result is a plain
+   * 64 bit id when the higher order bits are all zero.
+   *
+   * @param highOrderBits long representing the higher 64 bits of the id
+   * @param lowOrderBits long representing the lower 64 bits of the id
+   * @return DDTraceId
+   */
+  public static DDTraceId from(long highOrderBits, long lowOrderBits) {
+    if (highOrderBits == 0) {
+      return DDTraceId.create(lowOrderBits, null);
+    }
+    return new DDTraceId(highOrderBits, lowOrderBits, null, null);
+  }
+
+  /**
+   * Create a new {@code DDTraceId} from the given {@code String} hex representation of the unsigned
+   * 128 bit (or less) id, while retaining the original {@code String} representation for use in
+   * headers.
+   *
+   * @param s String in hex of unsigned 128 bit (or less) id
+   * @return DDTraceId
+   * @throws NumberFormatException
+   */
+  public static DDTraceId fromHex128WithOriginal(String s) throws NumberFormatException {
+    if (s == null) {
+      throw new NumberFormatException("null");
+    }
+
+    int len = s.length();
+    if (len <= 16) {
+      return new DDTraceId(0, DDId.parseUnsignedLongHex(s, 0, len), null, s);
+    }
+    long highOrderBits = DDId.parseUnsignedLongHex(s, 0, len - 16);
+    long lowOrderBits = DDId.parseUnsignedLongHex(s, len - 16, 16);
+    return new DDTraceId(highOrderBits, lowOrderBits, null, s);
+  }
+
   private static DDTraceId create(long id, String str) {
     if (id == 0) return ZERO;
     if (id == -1) return MAX;
     return new DDTraceId(id, str, null);
   }
 
+  private final long highOrderBits; // zero for 64 bit ids
   private final long id;
   private String str; // cache for string representation
   private String hex; //
 
   private DDTraceId(long id, String str, String original) {
+    this(0, id, str, original);
+  }
+
+  private DDTraceId(long highOrderBits, long id, String str, String original) {
+    this.highOrderBits = highOrderBits;
     this.id = id;
     this.str = str;
     this.hex = original;
@@ -92,18 +140,19 @@ public class DDTraceId {
     if (this == o) return true;
     if (!(o instanceof DDTraceId)) return false;
     DDTraceId ddId = (DDTraceId) o;
-    return this.id == ddId.id;
+    return this.id == ddId.id && this.highOrderBits == ddId.highOrderBits;
   }
 
   @Override
   public int hashCode() {
     long id = this.id;
-    return (int) (id ^ (id >>> 32));
+    long high = this.highOrderBits;
+    return (int) (id ^ (id >>> 32)) ^ 31 * (int) (high ^ (high >>> 32));
   }
 
   /**
-   * Returns the decimal string representation of the unsigned 64 bit id. The {@code String} will be
-   * cached.
+   * Returns the decimal string representation of the lower 64 bits of the id. The {@code String}
+   * will be cached.
    *
    * @return decimal string
    */
@@ -119,25 +168,33 @@ public class DDTraceId {
   }
 
   /**
-   * Returns the no zero padded hex representation, in lower case, of the unsigned 64 bit id. The
-   * hex {@code String} will NOT be cached.
+   * Returns the no zero padded hex representation, in lower case, of the unsigned 64 or 128 bit id.
+   * The hex {@code String} will NOT be cached.
    *
    * @return non zero padded hex String
    */
   public String toHexString() {
     // TODO use the cached String and trim it if necessary
+    if (this.highOrderBits != 0) {
+      return Long.toHexString(this.highOrderBits) + DDId.toHexStringPadded(this.id, 16);
+    }
     return Long.toHexString(this.id);
   }
 
   /**
-   * Returns the zero padded hex representation, in lower case, of the unsigned 64 bit id. The size
-   * will be rounded up to 16 or 32 characters. The hex {@code String} will NOT be cached.
+   * Returns the zero padded hex representation, in lower case, of the unsigned 64 or 128 bit id.
+   * The size will be rounded up to 16 or 32 characters, 128 bit ids are always 32 characters. The
+   * hex {@code String} will NOT be cached.
    *
    * @param size the size in characters of the 0 padded String (rounded up to 16 or 32)
    * @return zero padded hex String
    */
   public String toHexStringPadded(int size) {
     // TODO use the cached String and pad it if necessary
+    if (this.highOrderBits != 0) {
+      return DDId.toHexStringPadded(this.highOrderBits, 16)
+          + DDId.toHexStringPadded(this.id, 16);
+    }
     return DDId.toHexStringPadded(this.id, size);
   }
 
@@ -157,12 +214,22 @@ public class DDTraceId {
   }
 
   /**
-   * Returns the id as a long representing the bits of the unsigned 64 bit id. This means that
-   * values larger than Long.MAX_VALUE will be represented as negative numbers.
+   * Returns the id as a long representing the bits of the unsigned 64 bit id, or the lower 64 bits
+   * of a 128 bit id. This means that values larger than Long.MAX_VALUE will be represented as
+   * negative numbers.
    *
    * @return long value representing the bits of the unsigned 64 bit id.
    */
   public long toLong() {
     return this.id;
   }
+
+  /**
+   * Returns the higher 64 bits of a 128 bit id, or zero for a 64 bit id.
+   *
+   * @return long value representing the higher 64 bits of the id.
+   */
+  public long toHighOrderLong() {
+    return this.highOrderBits;
+  }
 }
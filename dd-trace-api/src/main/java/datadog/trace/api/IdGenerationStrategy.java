@@ -11,16 +11,25 @@ import java.util.concurrent.atomic.AtomicLong;
  * configuration based, for example 128 bit trace ids et.c., without changing the public API.
  */
 public abstract class IdGenerationStrategy {
-  private IdGenerationStrategy() {}
+  private final boolean traceId128BitGenerationEnabled;
+
+  private IdGenerationStrategy(boolean traceId128BitGenerationEnabled) {
+    this.traceId128BitGenerationEnabled = traceId128BitGenerationEnabled;
+  }
 
   public static IdGenerationStrategy fromName(String name) {
+    return fromName(name, false);
+  }
+
+  public static IdGenerationStrategy fromName(
+      String name, boolean traceId128BitGenerationEnabled) {
     switch (name.toUpperCase()) {
       case "RANDOM":
-        return new Random();
+        return new Random(traceId128BitGenerationEnabled);
       case "SEQUENTIAL":
-        return new Sequential();
+        return new Sequential(traceId128BitGenerationEnabled);
       case "SECURE_RANDOM":
-        return new SRandom();
+        return new SRandom(traceId128BitGenerationEnabled);
       default:
         return null;
     }
@@ -30,10 +39,26 @@ public abstract class IdGenerationStrategy {
 
   public abstract long generateSpanId();
 
+  /**
+   * Returns a trace id with the given lower order bits. When 128 bit trace ids are enabled the
+   * higher order bits are the current epoch seconds followed by 32 zero bits, so the id stays
+   * compatible with tracers that only look at the lower 64 bits.
+   */
+  DDTraceId newTraceId(long lowOrderBits) {
+    if (traceId128BitGenerationEnabled) {
+      return DDTraceId.from((System.currentTimeMillis() / 1000) << 32, lowOrderBits);
+    }
+    return DDTraceId.from(lowOrderBits);
+  }
+
   static final class Random extends IdGenerationStrategy {
+    Random(boolean traceId128BitGenerationEnabled) {
+      super(traceId128BitGenerationEnabled);
+    }
+
     @Override
     public DDTraceId generateTraceId() {
-      return DDTraceId.from(ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE));
+      return newTraceId(ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE));
     }
 
     @Override
@@ -45,9 +70,13 @@ public abstract class IdGenerationStrategy {
   static final class Sequential extends IdGenerationStrategy {
     private final AtomicLong id = new AtomicLong(0);
 
+    Sequential(boolean traceId128BitGenerationEnabled) {
+      super(traceId128BitGenerationEnabled);
+    }
+
     @Override
     public DDTraceId generateTraceId() {
-      return DDTraceId.from(id.incrementAndGet());
+      return newTraceId(id.incrementAndGet());
     }
 
     @Override
@@ -64,11 +93,16 @@ public abstract class IdGenerationStrategy {
   static final class SRandom extends IdGenerationStrategy {
     private final SecureRandom secureRandom;
 
-    SRandom() {
-      this(SecureRandom::getInstanceStrong);
+    SRandom(boolean traceId128BitGenerationEnabled) {
+      this(traceId128BitGenerationEnabled, SecureRandom::getInstanceStrong);
     }
 
     SRandom(ThrowingSupplier<SecureRandom> supplier) {
+      this(false, supplier);
+    }
+
+    SRandom(boolean traceId128BitGenerationEnabled, ThrowingSupplier<SecureRandom> supplier) {
+      super(traceId128BitGenerationEnabled);
       try {
         secureRandom = supplier.get();
       } catch (Throwable e) {
@@ -86,7 +120,7 @@ public abstract class IdGenerationStrategy {
 
     @Override
     public DDTraceId generateTraceId() {
-      return DDTraceId.from(getNonZeroPositiveLong());
+      return newTraceId(getNonZeroPositiveLong());
     }
 
     @Override
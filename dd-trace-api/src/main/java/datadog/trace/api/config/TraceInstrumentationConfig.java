@@ -12,6 +12,8 @@ public final class TraceInstrumentationConfig {
   public static final String TRACE_ENABLED = "trace.enabled";
   public static final String INTEGRATIONS_ENABLED = "integrations.enabled";
   public static final String LEGACY_INSTALLER_ENABLED = "legacy.installer.enabled";
+  public static final String LAZY_ADVICE_ENABLED = "lazy.advice.enabled";
+  public static final String INSTRUMENTER_TIMING_ENABLED = "instrumenter.timing.enabled";
 
   public static final String INTEGRATION_SYNAPSE_LEGACY_OPERATION_NAME =
       "integration.synapse.legacy-operation-name";
@@ -55,6 +57,8 @@ public final class TraceInstrumentationConfig {
       "kafka.client.propagation.disabled.topics";
   public static final String KAFKA_CLIENT_BASE64_DECODING_ENABLED =
       "kafka.client.base64.decoding.enabled";
+  public static final String KAFKA_CLIENT_BINARY_PROPAGATION_ENABLED =
+      "kafka.client.binary.propagation.enabled";
 
   public static final String JMS_PROPAGATION_DISABLED_TOPICS = "jms.propagation.disabled.topics";
   public static final String JMS_PROPAGATION_DISABLED_QUEUES = "jms.propagation.disabled.queues";
@@ -97,6 +101,9 @@ public final class TraceInstrumentationConfig {
   public static final String RESOLVER_CACHE_CONFIG = "resolver.cache.config";
   public static final String RESOLVER_USE_LOADCLASS = "resolver.use.loadclass";
   public static final String RESOLVER_RESET_INTERVAL = "resolver.reset.interval";
+  public static final String RESOLVER_MATCH_CACHE_FILE = "resolver.match.cache.file";
+  public static final String RESOLVER_OUTLINE_PREWARM = "resolver.outline.prewarm";
+  public static final String RESOLVER_OUTLINE_SCANNER = "resolver.outline.scanner";
 
   private TraceInstrumentationConfig() {}
 }
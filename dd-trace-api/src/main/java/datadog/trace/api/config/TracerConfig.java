@@ -13,6 +13,8 @@ package datadog.trace.api.config;
  */
 public final class TracerConfig {
   public static final String ID_GENERATION_STRATEGY = "id.generation.strategy";
+  public static final String TRACE_128_BIT_TRACEID_GENERATION_ENABLED =
+      "trace.128.bit.traceid.generation.enabled";
   public static final String WRITER_TYPE = "writer.type";
   public static final String PRIORITIZATION_TYPE = "prioritization.type";
   public static final String TRACE_AGENT_URL = "trace.agent.url";
@@ -45,6 +47,14 @@ public final class TracerConfig {
   // a global rate used for all services (that don’t have a dedicated rule defined).
   public static final String TRACE_SAMPLE_RATE = "trace.sample.rate";
   public static final String TRACE_RATE_LIMIT = "trace.rate.limit";
+  // local tail-sampling of traces that were going to be dropped; only sees traces the sampler hands
+  // to the writer (the built-in samplers do, and mark drops with a sampling priority)
+  public static final String TRACE_TAIL_SAMPLING_ENABLED = "trace.tail.sampling.enabled";
+  public static final String TRACE_TAIL_SAMPLING_LATENCY_THRESHOLD_MS =
+      "trace.tail.sampling.latency.threshold.ms";
+  public static final String TRACE_TAIL_SAMPLING_RATE_LIMIT = "trace.tail.sampling.rate.limit";
+  public static final String TRACE_TAIL_SAMPLING_MAX_BUFFERED_SPANS =
+      "trace.tail.sampling.max.buffered.spans";
   public static final String TRACE_REPORT_HOSTNAME = "trace.report-hostname";
   public static final String TRACE_CLIENT_IP_HEADER = "trace.client-ip-header";
   public static final String TRACE_CLIENT_IP_RESOLVER_ENABLED = "trace.client-ip.resolver.enabled";
@@ -77,6 +87,12 @@ public final class TracerConfig {
 
   public static final String ENABLE_TRACE_AGENT_V05 = "trace.agent.v0.5.enabled";
 
+  /**
+   * Number of threads serializing traces for the agent writer. Each thread has its own queues and
+   * buffer, and traces are routed between them by trace id.
+   */
+  public static final String TRACE_SERIALIZER_SHARDS = "trace.serializer.shards";
+
   public static final String CLIENT_IP_ENABLED = "trace.client-ip.enabled";
 
   public static final String SECURE_RANDOM = "trace.secure-random";
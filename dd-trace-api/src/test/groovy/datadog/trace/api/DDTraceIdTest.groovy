@@ -164,6 +164,91 @@ class DDTraceIdTest extends DDSpecification {
     "1" * 12 + "0123456789abcdef"  | DDTraceId.from(81985529216486895)
   }
 
+  def "convert 128 bit ids from/to hex String while keeping the original"() {
+    when:
+    final ddid = DDTraceId.fromHex128WithOriginal(hexId)
+
+    then:
+    ddid == expectedId
+    ddid.toHighOrderLong() == expectedId.toHighOrderLong()
+    ddid.toLong() == expectedId.toLong()
+    ddid.toString() == expectedId.toString()
+    ddid.toHexStringOrOriginal() == hexId
+    ddid.toHexStringPadded(32) == ("0" * 32).substring(0, 32 - hexId.length()) + hexId
+
+    where:
+    hexId                          | expectedId
+    "0001"                         | DDTraceId.ONE
+    "f" * 16                       | DDTraceId.MAX
+    "1" + "0" * 16                 | DDTraceId.from(1, 0)
+    "f" * 32                       | DDTraceId.from(-1, -1)
+    "0" * 16 + "cafebabe"          | DDTraceId.from(3405691582)
+    "1" * 8 + "0" * 8 + "cafebabe" | DDTraceId.from(0x11111111L, 3405691582)
+    "640cfd8d" + "0" * 8 + "1" * 8 | DDTraceId.from(0x640cfd8d00000000L, 0x11111111L)
+  }
+
+  def "fail on illegal 128 bit hex String"() {
+    when:
+    DDTraceId.fromHex128WithOriginal(hexId)
+
+    then:
+    thrown NumberFormatException
+
+    where:
+    hexId << [
+      null,
+      "",
+      "-1",
+      "1" + "0" * 32,
+      "f" * 14 + "zf" + "f" * 16,
+      "f" * 31 + "z"
+    ]
+  }
+
+  def "128 bit ids keep the higher order bits"() {
+    when:
+    final ddid = DDTraceId.from(highOrderBits, lowOrderBits)
+
+    then:
+    ddid.toHighOrderLong() == highOrderBits
+    ddid.toLong() == lowOrderBits
+    ddid.toString() == Long.toUnsignedString(lowOrderBits)
+    ddid.toHexString() == expectedHex
+    ddid.toHexStringPadded(16) == expectedPadded
+    (ddid == DDTraceId.from(lowOrderBits)) == (highOrderBits == 0)
+    (ddid.hashCode() == DDTraceId.from(lowOrderBits).hashCode()) == (highOrderBits == 0)
+
+    where:
+    highOrderBits | lowOrderBits | expectedHex          | expectedPadded
+    0             | 1            | "1"                  | "0" * 15 + "1"
+    1             | 0            | "1" + "0" * 16       | "0" * 15 + "1" + "0" * 16
+    1             | 1            | "1" + "0" * 15 + "1" | "0" * 15 + "1" + "0" * 15 + "1"
+    -1            | -1           | "f" * 32             | "f" * 32
+  }
+
+  def "generate 128 bit trace ids with #strategyName"() {
+    setup:
+    def strategy = IdGenerationStrategy.fromName(strategyName, true)
+    long before = System.currentTimeMillis().intdiv(1000)
+
+    when:
+    def traceIds = (0..1024).collect { strategy.generateTraceId() }
+    long after = System.currentTimeMillis().intdiv(1000)
+
+    then:
+    traceIds.forEach { traceId ->
+      assert traceId.toLong() != 0
+      assert (traceId.toHighOrderLong() & 0xFFFFFFFFL) == 0
+      assert (traceId.toHighOrderLong() >>> 32) >= before
+      assert (traceId.toHighOrderLong() >>> 32) <= after
+      assert traceId.toHexStringPadded(16).length() == 32
+    }
+    strategy.generateSpanId() != 0
+
+    where:
+    strategyName << ["RANDOM", "SEQUENTIAL", "SECURE_RANDOM"]
+  }
+
   def "exception created on SecureRandom strategy"() {
     setup:
     def provider = Mock(IdGenerationStrategy.ThrowingSupplier)
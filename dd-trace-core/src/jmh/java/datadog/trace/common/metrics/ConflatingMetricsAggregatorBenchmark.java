@@ -0,0 +1,220 @@
+package datadog.trace.common.metrics;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.communication.ddagent.DDAgentFeaturesDiscovery;
+import datadog.communication.monitor.Monitoring;
+import datadog.trace.common.writer.ListWriter;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import de.thetaphi.forbiddenapis.SuppressForbidden;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import okhttp3.HttpUrl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares publishing spans through the inbox with pre-aggregating them in striped batches.
+ *
+ * <p>{@link #publish} measures the cost of publishing a span on the application thread. {@link
+ * #publishAt100kSpansPerSecond} paces the publishing threads to 100k spans per second in total,
+ * and prints after each iteration the fraction of the spans missing from the reported metrics and
+ * the CPU time used by the aggregator thread.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = SECONDS)
+@Fork(value = 1)
+@SuppressForbidden
+public class ConflatingMetricsAggregatorBenchmark {
+
+  private static final int THREADS = 8;
+  private static final long SPANS_PER_SECOND = 100_000;
+  private static final long PUBLISH_INTERVAL_NANOS =
+      SECONDS.toNanos(1) * THREADS / SPANS_PER_SECOND;
+
+  @Param({"false", "true"})
+  boolean preAggregation;
+
+  @Param({"16"})
+  int distinctKeys;
+
+  private ConflatingMetricsAggregator aggregator;
+  private CountingWriter writer;
+  private List<List<DDSpan>> traces;
+  private final LongAdder published = new LongAdder();
+  private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+  private long aggregatorThreadId = -1;
+  private long aggregatorCpuTime;
+
+  @Setup(Level.Trial)
+  public void init() {
+    CoreTracer tracer =
+        CoreTracer.builder().writer(new ListWriter()).strictTraceWrites(true).build();
+    traces = new ArrayList<>(distinctKeys);
+    for (int i = 0; i < distinctKeys; i++) {
+      DDSpan span =
+          (DDSpan)
+              tracer
+                  .buildSpan("operation")
+                  .withServiceName("service")
+                  .withResourceName("resource-" + i)
+                  .withSpanType("web")
+                  .start();
+      span.setError(i % 8 == 0);
+      span.finishWithDuration(MICROSECONDS.toNanos(100 + i));
+      traces.add(Collections.singletonList(span));
+    }
+    writer = new CountingWriter();
+    aggregator =
+        new ConflatingMetricsAggregator(
+            Collections.<String>emptySet(),
+            new SupportingFeatures(),
+            new NoopSink(),
+            writer,
+            2048,
+            2048,
+            1,
+            TimeUnit.HOURS,
+            preAggregation);
+    aggregator.start();
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if ("dd-metrics-aggregator".equals(thread.getName())) {
+        aggregatorThreadId = thread.getId();
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void close() {
+    aggregator.close();
+  }
+
+  @Setup(Level.Iteration)
+  public void startIteration() throws Exception {
+    aggregator.forceReport().get();
+    published.reset();
+    writer.hits.set(0);
+    aggregatorCpuTime = threads.getThreadCpuTime(aggregatorThreadId);
+  }
+
+  @TearDown(Level.Iteration)
+  public void finishIteration() throws Exception {
+    aggregator.forceReport().get();
+    long cpuTime = threads.getThreadCpuTime(aggregatorThreadId) - aggregatorCpuTime;
+    long spans = published.sum();
+    System.out.printf(
+        "%n%d spans published, %.2f%% missing from metrics, aggregator used %d ms of CPU%n",
+        spans,
+        spans == 0 ? 0.0 : 100.0 * (spans - writer.hits.get()) / spans,
+        cpuTime / 1_000_000);
+  }
+
+  @Threads(THREADS)
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public boolean publish() {
+    published.increment();
+    return aggregator.publish(traces.get(ThreadLocalRandom.current().nextInt(distinctKeys)));
+  }
+
+  @Threads(THREADS)
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(SECONDS)
+  public boolean publishAt100kSpansPerSecond(Pacer pacer) {
+    pacer.await();
+    published.increment();
+    return aggregator.publish(traces.get(ThreadLocalRandom.current().nextInt(distinctKeys)));
+  }
+
+  @State(Scope.Thread)
+  public static class Pacer {
+    private long next;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      next = System.nanoTime();
+    }
+
+    void await() {
+      next += PUBLISH_INTERVAL_NANOS;
+      long wait;
+      while ((wait = next - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(wait);
+      }
+    }
+  }
+
+  static final class CountingWriter implements MetricWriter {
+    final AtomicLong hits = new AtomicLong();
+
+    @Override
+    public void startBucket(int metricCount, long start, long duration) {}
+
+    @Override
+    public void add(MetricKey key, AggregateMetric aggregate) {
+      hits.addAndGet(aggregate.getHitCount());
+    }
+
+    @Override
+    public void finishBucket() {}
+
+    @Override
+    public void reset() {}
+  }
+
+  static final class NoopSink implements Sink {
+    @Override
+    public void register(EventListener listener) {}
+
+    @Override
+    public void accept(int messageCount, ByteBuffer buffer) {}
+  }
+
+  static final class SupportingFeatures extends DDAgentFeaturesDiscovery {
+    SupportingFeatures() {
+      super(null, Monitoring.DISABLED, HttpUrl.get("http://localhost:8126"), false, true);
+    }
+
+    @Override
+    public void discover() {}
+
+    @Override
+    public void discoverIfOutdated() {}
+
+    @Override
+    public boolean supportsMetrics() {
+      return true;
+    }
+
+    @Override
+    public String getMetricsEndpoint() {
+      return V6_METRICS_ENDPOINT;
+    }
+  }
+}
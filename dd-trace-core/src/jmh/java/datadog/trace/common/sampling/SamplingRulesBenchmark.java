@@ -0,0 +1,112 @@
+package datadog.trace.common.sampling;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import datadog.trace.common.writer.ListWriter;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import datadog.trace.core.util.GlobPattern;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Finds the first matching span sampling rule for spans from a handful of services. Compares the
+ * compiled rules against evaluating each rule in turn, and against the regular expressions the
+ * globs used to be translated into.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(value = 1)
+public class SamplingRulesBenchmark {
+
+  @Param({"1", "20", "200"})
+  int ruleCount;
+
+  private CoreTracer tracer;
+  private DDSpan[] spans;
+  private int nextSpan;
+
+  private List<SamplingRule.SpanSamplingRule> rules;
+  private CompiledSamplingRules<SamplingRule.SpanSamplingRule> compiledRules;
+  private Pattern[] servicePatterns;
+  private Pattern[] operationPatterns;
+
+  @Setup(Level.Trial)
+  public void init() {
+    tracer = CoreTracer.builder().writer(new ListWriter()).strictTraceWrites(true).build();
+    spans = new DDSpan[16];
+    for (int i = 0; i < spans.length; i++) {
+      spans[i] =
+          (DDSpan)
+              tracer
+                  .buildSpan("operation." + (i % 4) + ".request")
+                  .withServiceName("service-" + i)
+                  .start();
+    }
+
+    rules = new ArrayList<>(ruleCount);
+    servicePatterns = new Pattern[ruleCount];
+    operationPatterns = new Pattern[ruleCount];
+    for (int i = 0; i < ruleCount; i++) {
+      // most rules don't match, the last one matches everything
+      String service = i == ruleCount - 1 ? "service-*" : "other-" + i + "-*";
+      String operation = i % 2 == 0 ? "operation.?.request" : "*.request";
+      rules.add(
+          new SamplingRule.SpanSamplingRule(
+              service, operation, new DeterministicSampler.SpanSampler(1.0), null));
+      servicePatterns[i] = GlobPattern.globToRegexPattern(service);
+      operationPatterns[i] = GlobPattern.globToRegexPattern(operation);
+    }
+    compiledRules = new CompiledSamplingRules<>(rules);
+  }
+
+  @TearDown(Level.Trial)
+  public void close() {
+    tracer.close();
+  }
+
+  private DDSpan nextSpan() {
+    return spans[nextSpan++ & (spans.length - 1)];
+  }
+
+  @Benchmark
+  public SamplingRule compiled() {
+    return compiledRules.firstMatch(nextSpan());
+  }
+
+  @Benchmark
+  public SamplingRule linear() {
+    DDSpan span = nextSpan();
+    for (SamplingRule.SpanSamplingRule rule : rules) {
+      if (rule.matches(span)) {
+        return rule;
+      }
+    }
+    return null;
+  }
+
+  @Benchmark
+  public SamplingRule regex() {
+    DDSpan span = nextSpan();
+    for (int i = 0; i < servicePatterns.length; i++) {
+      if (servicePatterns[i].matcher(span.getServiceName()).matches()
+          && operationPatterns[i].matcher(span.getOperationName()).matches()) {
+        return rules.get(i);
+      }
+    }
+    return null;
+  }
+}
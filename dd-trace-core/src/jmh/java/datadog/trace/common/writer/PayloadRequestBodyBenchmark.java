@@ -0,0 +1,82 @@
+package datadog.trace.common.writer;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.trace.common.writer.ddagent.TraceMapperV0_4;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Sink;
+import okio.Timeout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writes a serialized payload to an OkHttp sink the way the agent api does. Run with {@code -prof
+ * gc} to get the allocations per payload, which should stay independent of the payload size.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(value = 1)
+public class PayloadRequestBodyBenchmark {
+
+  @Param({"1048576", "10485760"})
+  int payloadSize;
+
+  private ByteBuffer body;
+  private final TraceMapperV0_4 mapper = new TraceMapperV0_4();
+
+  @Setup(Level.Trial)
+  public void init() {
+    byte[] bytes = new byte[payloadSize];
+    ThreadLocalRandom.current().nextBytes(bytes);
+    body = ByteBuffer.wrap(bytes);
+  }
+
+  @Benchmark
+  public long writeRequestBody() throws IOException {
+    DiscardingSink discardingSink = new DiscardingSink();
+    BufferedSink sink = Okio.buffer(discardingSink);
+    mapper.newPayload().withBody(1000, body).toRequest().writeTo(sink);
+    sink.flush();
+    return discardingSink.written;
+  }
+
+  static final class DiscardingSink implements Sink {
+    long written;
+
+    @Override
+    public void write(Buffer source, long byteCount) throws IOException {
+      source.skip(byteCount);
+      written += byteCount;
+    }
+
+    @Override
+    public void flush() {}
+
+    @Override
+    public Timeout timeout() {
+      return Timeout.NONE;
+    }
+
+    @Override
+    public void close() {}
+  }
+}
@@ -134,6 +134,16 @@ public class TraceMapperBenchmark {
     mapper.map(trace, writable);
   }
 
+  /**
+   * Maps the trace as the first one of a payload, v0.5 mappers have to rebuild their dictionary
+   * while their encoding cache is kept.
+   */
+  @Benchmark
+  public void mapTraceToNewPayload() {
+    mapper.reset();
+    mapper.map(trace, writable);
+  }
+
   public static final class BlackholeBuffer implements StreamingBuffer {
     private final Blackhole blackhole;
 
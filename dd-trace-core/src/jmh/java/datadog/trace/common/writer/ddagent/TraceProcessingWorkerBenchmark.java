@@ -0,0 +1,203 @@
+package datadog.trace.common.writer.ddagent;
+
+import static datadog.trace.api.DDTags.LANGUAGE_TAG_KEY;
+import static datadog.trace.api.DDTags.LANGUAGE_TAG_VALUE;
+import static datadog.trace.api.DDTags.RUNTIME_ID_TAG;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.communication.monitor.Monitoring;
+import datadog.trace.api.DDSpanId;
+import datadog.trace.api.DDTraceId;
+import datadog.trace.api.sampling.PrioritySampling;
+import datadog.trace.bootstrap.instrumentation.api.AgentTracer.NoopPathwayContext;
+import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
+import datadog.trace.common.writer.Payload;
+import datadog.trace.common.writer.PayloadDispatcher;
+import datadog.trace.common.writer.RemoteApi;
+import datadog.trace.common.writer.RemoteMapper;
+import datadog.trace.common.writer.RemoteMapperDiscovery;
+import datadog.trace.common.writer.RemoteResponseListener;
+import datadog.trace.common.writer.TraceProcessingWorker;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import datadog.trace.core.DDSpanContext;
+import datadog.trace.core.DDSpanHelper;
+import datadog.trace.core.PendingTrace;
+import datadog.trace.core.monitor.HealthMetrics;
+import de.thetaphi.forbiddenapis.SuppressForbidden;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures how many traces per second the {@link TraceProcessingWorker} can serialize, using the
+ * same trace shape as {@link TraceMapperBenchmark}, depending on the number of serializer shards.
+ * Traces are only counted once they have been accepted by a queue, so the throughput is bounded by
+ * the serializer threads rather than by the publishing threads.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 30, timeUnit = SECONDS)
+@Measurement(iterations = 3, time = 30, timeUnit = SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+@Fork(value = 1)
+@SuppressForbidden
+public class TraceProcessingWorkerBenchmark {
+
+  private static final int DISTINCT_TRACES = 1024;
+
+  @Param({"v04", "v05"})
+  String mapperName;
+
+  @Param({"1", "2", "4", "8"})
+  int shards;
+
+  private TraceProcessingWorker worker;
+  private List<List<DDSpan>> traces;
+
+  @Setup(Level.Trial)
+  public void init() {
+    CoreTracer tracer = CoreTracer.builder().strictTraceWrites(true).build();
+    Map<String, Object> tags = new HashMap<>();
+    tags.put(RUNTIME_ID_TAG, "fdd790b3-4aeb-4517-9b84-cafcc0129c48");
+    tags.put(LANGUAGE_TAG_KEY, LANGUAGE_TAG_VALUE);
+    tags.put("env", "prod");
+    traces = new ArrayList<>(DISTINCT_TRACES);
+    for (int i = 0; i < DISTINCT_TRACES; i++) {
+      DDTraceId traceId = DDTraceId.from(ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE));
+      PendingTrace pendingTrace = tracer.createTrace(traceId);
+      DDSpanContext rootContext =
+          new DDSpanContext(
+              traceId,
+              2,
+              DDSpanId.ZERO,
+              null,
+              "service",
+              UTF8BytesString.create("operation"),
+              UTF8BytesString.create("resource"),
+              PrioritySampling.SAMPLER_KEEP,
+              null,
+              Collections.<String, String>emptyMap(),
+              false,
+              UTF8BytesString.create("type"),
+              0,
+              pendingTrace,
+              null,
+              null,
+              NoopPathwayContext.INSTANCE,
+              false,
+              null);
+      DDSpanHelper.setAllTags(rootContext, tags);
+      DDSpan root = DDSpanHelper.create(System.currentTimeMillis() * 1000, rootContext);
+      root.setResourceName(UTF8BytesString.create("benchmark"));
+      traces.add(Collections.singletonList(root));
+    }
+
+    PayloadDispatcher dispatcher =
+        new PayloadDispatcher(
+            new FixedMapperDiscovery(mapperName),
+            new DiscardingApi(),
+            HealthMetrics.NO_OP,
+            Monitoring.DISABLED);
+    List<PayloadDispatcher> dispatchers = new ArrayList<>(shards);
+    dispatchers.add(dispatcher);
+    for (int i = 1; i < shards; i++) {
+      dispatchers.add(dispatcher.newShard(new FixedMapperDiscovery(mapperName)));
+    }
+    worker =
+        new TraceProcessingWorker(
+            1024,
+            HealthMetrics.NO_OP,
+            dispatchers,
+            () -> false,
+            Prioritization.ENSURE_TRACE,
+            1,
+            TimeUnit.SECONDS,
+            null);
+    worker.start();
+  }
+
+  @TearDown(Level.Trial)
+  public void close() {
+    worker.close();
+  }
+
+  @Threads(8)
+  @Benchmark
+  public void publishTrace() {
+    List<DDSpan> trace = traces.get(ThreadLocalRandom.current().nextInt(DISTINCT_TRACES));
+    // ENSURE_TRACE blocks until the trace has been enqueued
+    worker.publish(trace.get(0), PrioritySampling.SAMPLER_KEEP, trace);
+  }
+
+  static final class FixedMapperDiscovery implements RemoteMapperDiscovery {
+    private final String mapperName;
+    private RemoteMapper mapper;
+
+    FixedMapperDiscovery(String mapperName) {
+      this.mapperName = mapperName;
+    }
+
+    @Override
+    public void discover() {
+      mapper = "v05".equals(mapperName) ? new TraceMapperV0_5() : new TraceMapperV0_4();
+    }
+
+    @Override
+    public RemoteMapper getMapper() {
+      return mapper;
+    }
+  }
+
+  static final class DiscardingApi extends RemoteApi {
+    private final WritableByteChannel sink =
+        Channels.newChannel(
+            new OutputStream() {
+              @Override
+              public void write(int b) {}
+
+              @Override
+              public void write(byte[] b, int off, int len) {}
+            });
+
+    @Override
+    protected Response sendSerializedTraces(Payload payload) {
+      try {
+        payload.writeTo(sink);
+      } catch (Exception ignored) {
+      }
+      return Response.success(200);
+    }
+
+    @Override
+    protected void addResponseListener(RemoteResponseListener listener) {}
+
+    @Override
+    protected Logger getLogger() {
+      return LoggerFactory.getLogger(DiscardingApi.class);
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package datadog.trace.core;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.trace.api.time.SystemTimeSource;
+import de.thetaphi.forbiddenapis.SuppressForbidden;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the CPU time used by the {@link PendingTraceBuffer} worker thread while it holds a
+ * steady number of pending traces. None of the traces is ever ready, so each one is looked at again
+ * every time its send delay passes. The {@code workerCpuNanos} counter is the CPU time used by the
+ * worker per second of wall clock time.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+@Fork(value = 1)
+@SuppressForbidden
+public class PendingTraceBufferBenchmark {
+
+  @Param({"0", "1000", "100000"})
+  int pendingTraces;
+
+  private PendingTraceBuffer buffer;
+
+  @Setup(Level.Trial)
+  public void init() throws InterruptedException {
+    buffer = PendingTraceBuffer.delaying(SystemTimeSource.INSTANCE);
+    buffer.start();
+    for (int i = 0; i < pendingTraces; i++) {
+      buffer.enqueue(new NeverReadyElement());
+      if ((i & 1023) == 1023) {
+        // leave time for the worker to move the traces from the queue to the wheel
+        Thread.sleep(1);
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void close() {
+    buffer.close();
+  }
+
+  @Threads(1)
+  @Benchmark
+  public void idle(WorkerCpu cpu) throws InterruptedException {
+    Thread.sleep(10);
+    cpu.update();
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class WorkerCpu {
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private long workerThreadId = -1;
+    private long lastCpuTime;
+
+    public long workerCpuNanos;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      workerCpuNanos = 0;
+      if (workerThreadId < 0) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+          if ("dd-trace-monitor".equals(thread.getName())) {
+            workerThreadId = thread.getId();
+          }
+        }
+      }
+      lastCpuTime = threads.getThreadCpuTime(workerThreadId);
+    }
+
+    void update() {
+      long cpuTime = threads.getThreadCpuTime(workerThreadId);
+      workerCpuNanos += cpuTime - lastCpuTime;
+      lastCpuTime = cpuTime;
+    }
+  }
+
+  /** Pending trace which has always just been referenced, so it stays in the buffer. */
+  private static final class NeverReadyElement implements PendingTraceBuffer.Element {
+    private final AtomicBoolean enqueued = new AtomicBoolean();
+
+    @Override
+    public long oldestFinishedTime() {
+      return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean lastReferencedNanosAgo(long nanos) {
+      return false;
+    }
+
+    @Override
+    public long nanosSinceLastReferenced() {
+      return 0;
+    }
+
+    @Override
+    public void write() {
+      // only happens when the buffer is closed
+    }
+
+    @Override
+    public DDSpan getRootSpan() {
+      return null;
+    }
+
+    @Override
+    public boolean setEnqueued(boolean enqueued) {
+      return this.enqueued.compareAndSet(!enqueued, enqueued);
+    }
+  }
+}
@@ -98,4 +98,72 @@ public class PendingTraceWrite {
     }
     trace.onPublish(root);
   }
+
+  /**
+   * Many threads finishing child spans of the same trace while its root is still open, so the spans
+   * accumulate in the trace and are written by partial flushes.
+   */
+  @Threads(8)
+  @Benchmark
+  public void finishChildSpansConcurrently(OpenTrace openTrace) {
+    openTrace.finishChild();
+  }
+
+  @Threads(32)
+  @Benchmark
+  public void finishChildSpansHighlyContended(OpenTrace openTrace) {
+    openTrace.finishChild();
+  }
+
+  @State(Scope.Benchmark)
+  public static class OpenTrace {
+    PendingTrace trace;
+    DDSpan child;
+
+    @Setup(Level.Trial)
+    public void init(Blackhole blackhole) {
+      // partial flushes happen on whichever thread finishes a span, so counters aren't reported
+      CoreTracer tracer =
+          CoreTracer.builder()
+              .writer(new BlackholeWriter(blackhole, new TraceCounters(), 0))
+              .strictTraceWrites(false)
+              .build();
+      DDTraceId traceId = DDTraceId.ONE;
+      trace = tracer.createTrace(traceId);
+      DDSpan root =
+          DDSpan.create(System.currentTimeMillis() * 1000, context(traceId, trace, 2, 0));
+      child = DDSpan.create(System.currentTimeMillis() * 1000, context(traceId, trace, 3, 2));
+      // the root is never published, so the trace stays pending
+      trace.registerSpan(root);
+    }
+
+    void finishChild() {
+      trace.registerSpan(child);
+      trace.onPublish(child);
+    }
+
+    private static DDSpanContext context(
+        DDTraceId traceId, PendingTrace trace, long spanId, long parentId) {
+      return new DDSpanContext(
+          traceId,
+          spanId,
+          parentId,
+          null,
+          "service",
+          "operation",
+          "resource",
+          PrioritySampling.SAMPLER_KEEP,
+          null,
+          Collections.<String, String>emptyMap(),
+          false,
+          "type",
+          0,
+          trace,
+          null,
+          null,
+          NoopPathwayContext.INSTANCE,
+          false,
+          null);
+    }
+  }
 }
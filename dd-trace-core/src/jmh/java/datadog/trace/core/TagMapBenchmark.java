@@ -0,0 +1,163 @@
+package datadog.trace.core;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import datadog.communication.serialization.Writable;
+import datadog.communication.serialization.msgpack.MsgPackWriter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the {@link TagMap} used by {@link DDSpanContext} with the synchronized {@link HashMap}
+ * it replaced, when setting tags, taking a read-only snapshot of them with {@code getTags()} and
+ * serializing them the way the trace mappers do. Run with {@code -prof gc} to compare allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+public class TagMapBenchmark {
+
+  private static final String[] KEYS = {
+    "http.method",
+    "http.url",
+    "http.status_code",
+    "component",
+    "span.kind",
+    "peer.hostname",
+    "peer.port",
+    "thread.id",
+    "_dd.agent_psr",
+    "_dd.measured",
+    "db.instance",
+    "error.msg",
+    "env",
+    "version",
+    "language",
+    "runtime-id"
+  };
+
+  @Param({"4", "8", "16"})
+  int tagCount;
+
+  private Writable writable;
+  private Map<String, Object> hashMapTags;
+  private TagMap tagMapTags;
+
+  @Setup(Level.Trial)
+  public void init(Blackhole blackhole) {
+    writable = new MsgPackWriter(new BlackholeBuffer(blackhole));
+    hashMapTags = setTagsHashMap();
+    tagMapTags = setTagsTagMap();
+  }
+
+  @Benchmark
+  public Map<String, Object> setTagsHashMap() {
+    Map<String, Object> tags = new HashMap<>(Math.max((tagCount + 1) * 4 / 3, 8));
+    for (int i = 0; i < tagCount; i++) {
+      synchronized (tags) {
+        if ((i & 1) == 0) {
+          tags.put(KEYS[i], i);
+        } else {
+          tags.put(KEYS[i], KEYS[i]);
+        }
+      }
+    }
+    return tags;
+  }
+
+  @Benchmark
+  public TagMap setTagsTagMap() {
+    TagMap tags = new TagMap(tagCount + 1);
+    for (int i = 0; i < tagCount; i++) {
+      synchronized (tags) {
+        if ((i & 1) == 0) {
+          tags.putInt(KEYS[i], i);
+        } else {
+          tags.put(KEYS[i], KEYS[i]);
+        }
+      }
+    }
+    return tags;
+  }
+
+  @Benchmark
+  public Map<String, Object> getTagsHashMap() {
+    synchronized (hashMapTags) {
+      Map<String, Object> tags = new HashMap<>(hashMapTags);
+      tags.put("thread.name", "main");
+      return Collections.unmodifiableMap(tags);
+    }
+  }
+
+  @Benchmark
+  public Map<String, Object> getTagsTagMap() {
+    synchronized (tagMapTags) {
+      TagMap tags = tagMapTags.copy();
+      tags.put("thread.name", "main");
+      return tags.freeze();
+    }
+  }
+
+  @Benchmark
+  public void serializeHashMap() {
+    for (Map.Entry<String, Object> entry : hashMapTags.entrySet()) {
+      if (entry.getValue() instanceof Number) {
+        writable.writeString(entry.getKey(), null);
+        writable.writeObject(entry.getValue(), null);
+      }
+    }
+    for (Map.Entry<String, Object> entry : hashMapTags.entrySet()) {
+      if (!(entry.getValue() instanceof Number)) {
+        writable.writeString(entry.getKey(), null);
+        writable.writeObjectString(entry.getValue(), null);
+      }
+    }
+  }
+
+  @Benchmark
+  public void serializeTagMap() {
+    tagMapTags.visit(
+        new TagMap.Visitor() {
+          @Override
+          public void visit(String key, Object value) {
+            writable.writeString(key, null);
+            writable.writeObjectString(value, null);
+          }
+
+          @Override
+          public void visit(String key, int value) {
+            writable.writeString(key, null);
+            writable.writeInt(value);
+          }
+
+          @Override
+          public void visit(String key, long value) {
+            writable.writeString(key, null);
+            writable.writeLong(value);
+          }
+
+          @Override
+          public void visit(String key, float value) {
+            writable.writeString(key, null);
+            writable.writeFloat(value);
+          }
+
+          @Override
+          public void visit(String key, double value) {
+            writable.writeString(key, null);
+            writable.writeDouble(value);
+          }
+        });
+  }
+}
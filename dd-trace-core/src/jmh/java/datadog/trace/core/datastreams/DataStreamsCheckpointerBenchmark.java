@@ -0,0 +1,143 @@
+package datadog.trace.core.datastreams;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.communication.ddagent.DDAgentFeaturesDiscovery;
+import datadog.communication.monitor.Monitoring;
+import datadog.trace.api.WellKnownTags;
+import datadog.trace.api.time.SystemTimeSource;
+import datadog.trace.bootstrap.instrumentation.api.StatsPoint;
+import datadog.trace.common.metrics.EventListener;
+import datadog.trace.common.metrics.Sink;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import okhttp3.HttpUrl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how many checkpoints per second can be recorded by the {@link
+ * DefaultDataStreamsCheckpointer}, depending on the number of threads doing checkpoints. Buckets
+ * last one second so that they are regularly swapped out by the reporter during the measurement.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(value = 1)
+public class DataStreamsCheckpointerBenchmark {
+
+  private static final int PATHWAYS = 16;
+  private static final List<String> EDGE_TAGS =
+      Arrays.asList("direction:in", "group:benchmark", "topic:benchmark", "type:kafka");
+
+  private DefaultDataStreamsCheckpointer checkpointer;
+
+  @Setup(Level.Trial)
+  public void init() {
+    checkpointer =
+        new DefaultDataStreamsCheckpointer(
+            new NoopSink(),
+            new SupportingFeatures(),
+            SystemTimeSource.INSTANCE,
+            new WellKnownTags("runtimeid", "hostname", "env", "service", "version", "java"),
+            new DiscardingPayloadWriter(),
+            SECONDS.toNanos(1));
+    checkpointer.start();
+  }
+
+  @TearDown(Level.Trial)
+  public void close() {
+    checkpointer.close();
+  }
+
+  @Threads(1)
+  @Benchmark
+  public void checkpoint1Thread() {
+    checkpoint();
+  }
+
+  @Threads(8)
+  @Benchmark
+  public void checkpoint8Threads() {
+    checkpoint();
+  }
+
+  @Threads(32)
+  @Benchmark
+  public void checkpoint32Threads() {
+    checkpoint();
+  }
+
+  private void checkpoint() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long hash = random.nextInt(PATHWAYS);
+    checkpointer.accept(
+        new StatsPoint(
+            EDGE_TAGS,
+            hash,
+            hash + 1,
+            SystemTimeSource.INSTANCE.getCurrentTimeNanos(),
+            random.nextLong(1, SECONDS.toNanos(10)),
+            random.nextLong(1, MILLISECONDS.toNanos(100))));
+  }
+
+  static final class DiscardingPayloadWriter implements DatastreamsPayloadWriter {
+    @Override
+    public void writePayload(Collection<StatsBucket> data) {
+      for (StatsBucket bucket : data) {
+        for (StatsGroup group : bucket.getGroups()) {
+          // merges the stripes as serialization would
+          group.getPathwayLatency();
+          group.getEdgeLatency();
+        }
+      }
+    }
+  }
+
+  static final class NoopSink implements Sink {
+    @Override
+    public void register(EventListener listener) {}
+
+    @Override
+    public void accept(int messageCount, ByteBuffer buffer) {}
+  }
+
+  static final class SupportingFeatures extends DDAgentFeaturesDiscovery {
+    SupportingFeatures() {
+      super(null, Monitoring.DISABLED, HttpUrl.get("http://localhost:8126"), false, false);
+    }
+
+    @Override
+    public void discover() {}
+
+    @Override
+    public void discoverIfOutdated() {}
+
+    @Override
+    public boolean supportsDataStreams() {
+      return true;
+    }
+
+    @Override
+    public String getDataStreamsEndpoint() {
+      return V01_DATASTREAMS_ENDPOINT;
+    }
+  }
+}
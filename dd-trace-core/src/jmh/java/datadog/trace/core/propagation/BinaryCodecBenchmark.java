@@ -0,0 +1,142 @@
+package datadog.trace.core.propagation;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import datadog.trace.api.Config;
+import datadog.trace.api.DDSpanId;
+import datadog.trace.api.DDTraceId;
+import datadog.trace.api.Pair;
+import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
+import datadog.trace.bootstrap.instrumentation.api.TagContext;
+import datadog.trace.common.writer.ListWriter;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpanContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares the Datadog text headers against the single binary header on a carrier that takes
+ * {@code byte[]} values, the way the Kafka instrumentation writes and reads record headers. Run
+ * with {@code -prof gc} to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(value = 1)
+public class BinaryCodecBenchmark {
+
+  private CoreTracer tracer;
+  private DDSpanContext spanContext;
+  private HttpCodec.Injector textInjector;
+  private HttpCodec.Extractor textExtractor;
+  private PropagationTags.Factory propagationTagsFactory;
+
+  private List<Pair<String, byte[]>> textHeaders;
+  private List<Pair<String, byte[]>> binaryHeaders;
+
+  @Setup(Level.Trial)
+  public void init() {
+    tracer = CoreTracer.builder().writer(new ListWriter()).strictTraceWrites(false).build();
+    propagationTagsFactory = PropagationTags.factory();
+    DDTraceId traceId = DDTraceId.from("1234567890123456789");
+    spanContext =
+        new DDSpanContext(
+            traceId,
+            DDSpanId.from("2345678901234567890"),
+            DDSpanId.ZERO,
+            "",
+            "service",
+            "operation",
+            "resource",
+            1,
+            "origin",
+            Collections.<String, String>emptyMap(),
+            false,
+            "type",
+            0,
+            tracer.createTrace(traceId),
+            null,
+            null,
+            null,
+            false,
+            propagationTagsFactory.fromHeaderValue(
+                PropagationTags.HeaderType.DATADOG, "_dd.p.anytag=value,_dd.p.dm=934086a686-4"));
+    textInjector = DatadogHttpCodec.newInjector(Collections.<String, String>emptyMap());
+    textExtractor =
+        DatadogHttpCodec.newExtractor(
+            Collections.<String, String>emptyMap(),
+            Collections.<String, String>emptyMap(),
+            Config.get());
+
+    textHeaders = new ArrayList<>();
+    textInjector.inject(spanContext, textHeaders, TEXT_SETTER);
+    binaryHeaders = new ArrayList<>();
+    BINARY_SETTER.set(binaryHeaders, BinaryCodec.CONTEXT_KEY, BinaryCodec.encode(spanContext, null));
+  }
+
+  @TearDown(Level.Trial)
+  public void close() {
+    tracer.close();
+  }
+
+  @Benchmark
+  public List<Pair<String, byte[]>> injectText() {
+    List<Pair<String, byte[]>> headers = new ArrayList<>();
+    textInjector.inject(spanContext, headers, TEXT_SETTER);
+    return headers;
+  }
+
+  @Benchmark
+  public List<Pair<String, byte[]>> injectBinary() {
+    List<Pair<String, byte[]>> headers = new ArrayList<>();
+    BINARY_SETTER.set(headers, BinaryCodec.CONTEXT_KEY, BinaryCodec.encode(spanContext, null));
+    return headers;
+  }
+
+  @Benchmark
+  public TagContext extractText() {
+    return textExtractor.extract(textHeaders, TEXT_VISITOR);
+  }
+
+  @Benchmark
+  public TagContext extractBinary() {
+    return BinaryCodec.extract(binaryHeaders, BINARY_VISITOR, propagationTagsFactory);
+  }
+
+  private static final AgentPropagation.Setter<List<Pair<String, byte[]>>> TEXT_SETTER =
+      (carrier, key, value) -> carrier.add(Pair.of(key, value.getBytes(UTF_8)));
+
+  private static final AgentPropagation.BinarySetter<List<Pair<String, byte[]>>> BINARY_SETTER =
+      (carrier, key, value) -> carrier.add(Pair.of(key, value));
+
+  private static final AgentPropagation.ContextVisitor<List<Pair<String, byte[]>>> TEXT_VISITOR =
+      (carrier, classifier) -> {
+        for (Pair<String, byte[]> header : carrier) {
+          if (!classifier.accept(header.getLeft(), new String(header.getRight(), UTF_8))) {
+            return;
+          }
+        }
+      };
+
+  private static final AgentPropagation.BinaryContextVisitor<List<Pair<String, byte[]>>>
+      BINARY_VISITOR =
+          (carrier, classifier) -> {
+            for (Pair<String, byte[]> header : carrier) {
+              if (!classifier.accept(header.getLeft(), header.getRight())) {
+                return;
+              }
+            }
+          };
+}
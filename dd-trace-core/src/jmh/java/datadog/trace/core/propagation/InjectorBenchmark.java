@@ -38,7 +38,15 @@ import org.openjdk.jmh.infra.Blackhole;
 @Fork(value = 1)
 @SuppressForbidden
 public class InjectorBenchmark {
-  @Param({"datadog", "b3", "datadog,b3", "datadog:x-dth", "datadog:x-dth-mod"})
+  @Param({
+    "datadog",
+    "b3",
+    "datadog,b3",
+    "datadog:x-dth",
+    "datadog:x-dth-mod",
+    "datadog:128-bit",
+    "b3:128-bit"
+  })
   String injectPropagationStyles;
 
   static String dup(String input) {
@@ -53,6 +61,7 @@ public class InjectorBenchmark {
   DDSpanContext spanContext;
   PropagationTags propagationTags;
   boolean modifyPropagationTags = false;
+  boolean traceId128Bit = false;
 
   @Setup(Level.Trial)
   public void setUp(Blackhole blackhole) {
@@ -86,6 +95,9 @@ public class InjectorBenchmark {
                         "_dd.p.anytag=value,_dd.p.dm=934086a686-4");
             modifyPropagationTags = true;
             break;
+          case "128-bit":
+            traceId128Bit = true;
+            break;
           default:
             System.out.println("Unknown benchmark feature " + feature + ". Will be ignored!");
         }
@@ -97,7 +109,8 @@ public class InjectorBenchmark {
         HttpCodec.createInjector(
             Config.get().getTracePropagationStylesToInject(), Collections.emptyMap());
 
-    traceId = DDTraceId.from("12345");
+    traceId =
+        traceId128Bit ? DDTraceId.from(0x640cfd8d00000000L, 12345) : DDTraceId.from("12345");
     spanId = DDSpanId.from("23456");
 
     tracer =
@@ -0,0 +1,109 @@
+package datadog.trace.core.scopemanager;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.trace.bootstrap.instrumentation.api.AgentScope;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.bootstrap.instrumentation.api.ScopeSource;
+import datadog.trace.common.writer.ListWriter;
+import datadog.trace.core.CoreTracer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of activating and closing a continuation in a task, either on a pool of
+ * platform threads which reuse their scope stack, or on a new virtual thread per task (requires
+ * Java 21). {@link #cancel} runs the same tasks without activating the continuation, the difference
+ * between both is the cost of the activation.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5, timeUnit = SECONDS)
+@Measurement(iterations = 3, time = 5, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(value = 1)
+public class ContinuationActivationBenchmark {
+
+  private static final int TASKS = 1000;
+
+  @Param({"platform", "virtual"})
+  String threads;
+
+  private CoreTracer tracer;
+  private AgentSpan span;
+  private ExecutorService executor;
+
+  @Setup(Level.Trial)
+  public void init() {
+    tracer = CoreTracer.builder().writer(new ListWriter()).strictTraceWrites(true).build();
+    span = tracer.buildSpan("operation").start();
+    executor =
+        "virtual".equals(threads)
+            ? newVirtualThreadPerTaskExecutor()
+            : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+  }
+
+  @TearDown(Level.Trial)
+  public void close() {
+    executor.shutdown();
+    span.finish();
+    tracer.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TASKS)
+  public void activateAndClose() throws InterruptedException {
+    final CountDownLatch done = new CountDownLatch(TASKS);
+    for (int i = 0; i < TASKS; i++) {
+      final AgentScope.Continuation continuation =
+          tracer.captureSpan(span, ScopeSource.INSTRUMENTATION);
+      executor.execute(
+          () -> {
+            continuation.activate().close();
+            done.countDown();
+          });
+    }
+    done.await();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TASKS)
+  public void cancel() throws InterruptedException {
+    final CountDownLatch done = new CountDownLatch(TASKS);
+    for (int i = 0; i < TASKS; i++) {
+      final AgentScope.Continuation continuation =
+          tracer.captureSpan(span, ScopeSource.INSTRUMENTATION);
+      executor.execute(
+          () -> {
+            continuation.cancel();
+            done.countDown();
+          });
+    }
+    done.await();
+  }
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService)
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Virtual threads require Java 21", e);
+    }
+  }
+}
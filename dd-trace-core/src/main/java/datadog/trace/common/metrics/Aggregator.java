@@ -4,7 +4,9 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import datadog.trace.common.metrics.SignalItem.StopSignal;
 import datadog.trace.core.util.LRUCache;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
@@ -25,6 +27,9 @@ final class Aggregator implements Runnable {
   private final MpscCompoundQueue<InboxItem> inbox;
   private final LRUCache<MetricKey, AggregateMetric> aggregates;
   private final NonBlockingHashMap<MetricKey, Batch> pending;
+  private final NonBlockingHashMap<MetricKey, StripedBatch> striped;
+  // striped batches no longer tracked, which may have received durations after they were collected
+  private final List<StripedBatch> retired = new ArrayList<>();
   private final Set<MetricKey> commonKeys;
   private final MetricWriter writer;
   // the reporting interval controls how much history will be buffered
@@ -41,6 +46,7 @@ final class Aggregator implements Runnable {
       Queue<Batch> batchPool,
       MpscCompoundQueue<InboxItem> inbox,
       NonBlockingHashMap<MetricKey, Batch> pending,
+      NonBlockingHashMap<MetricKey, StripedBatch> striped,
       final Set<MetricKey> commonKeys,
       int maxAggregates,
       long reportingInterval,
@@ -50,6 +56,7 @@ final class Aggregator implements Runnable {
         batchPool,
         inbox,
         pending,
+        striped,
         commonKeys,
         maxAggregates,
         reportingInterval,
@@ -62,6 +69,7 @@ final class Aggregator implements Runnable {
       Queue<Batch> batchPool,
       MpscCompoundQueue<InboxItem> inbox,
       NonBlockingHashMap<MetricKey, Batch> pending,
+      NonBlockingHashMap<MetricKey, StripedBatch> striped,
       final Set<MetricKey> commonKeys,
       int maxAggregates,
       long reportingInterval,
@@ -75,12 +83,14 @@ final class Aggregator implements Runnable {
         new LRUCache<>(
             new CommonKeyCleaner(commonKeys), maxAggregates * 4 / 3, 0.75f, maxAggregates);
     this.pending = pending;
+    this.striped = striped;
     this.reportingIntervalNanos = reportingIntervalTimeUnit.toNanos(reportingInterval);
     this.sleepMillis = sleepMillis;
   }
 
   public void clearAggregates() {
     this.aggregates.clear();
+    this.retired.clear();
   }
 
   @Override
@@ -135,6 +145,7 @@ final class Aggregator implements Runnable {
   }
 
   private void report(long when, SignalItem signal) {
+    collectStripedBatches();
     boolean skipped = true;
     if (dirty) {
       try {
@@ -161,6 +172,32 @@ final class Aggregator implements Runnable {
     }
   }
 
+  private void collectStripedBatches() {
+    if (!retired.isEmpty()) {
+      for (StripedBatch batch : retired) {
+        collect(batch);
+      }
+      retired.clear();
+    }
+    for (StripedBatch batch : striped.values()) {
+      collect(batch);
+    }
+  }
+
+  private void collect(StripedBatch batch) {
+    AggregateMetric aggregate = aggregates.get(batch.getKey());
+    if (null == aggregate) {
+      aggregate = new AggregateMetric();
+      if (!batch.contributeTo(aggregate, batchPool)) {
+        return;
+      }
+      aggregates.put(batch.getKey(), aggregate);
+      dirty = true;
+    } else {
+      dirty |= batch.contributeTo(aggregate, batchPool);
+    }
+  }
+
   private void expungeStaleAggregates() {
     Iterator<Map.Entry<MetricKey, AggregateMetric>> it = aggregates.entrySet().iterator();
     while (it.hasNext()) {
@@ -169,6 +206,11 @@ final class Aggregator implements Runnable {
       if (metric.getHitCount() == 0) {
         it.remove();
         commonKeys.remove(pair.getKey());
+        StripedBatch batch = striped.remove(pair.getKey());
+        if (null != batch) {
+          batch.retired = true;
+          retired.add(batch);
+        }
       }
     }
   }
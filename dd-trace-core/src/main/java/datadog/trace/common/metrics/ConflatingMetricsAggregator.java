@@ -52,6 +52,7 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
   private final Set<String> ignoredResources;
   private final Queue<Batch> batchPool;
   private final NonBlockingHashMap<MetricKey, Batch> pending;
+  private final NonBlockingHashMap<MetricKey, StripedBatch> striped;
   private final NonBlockingHashMap<MetricKey, MetricKey> keys;
   private final Thread thread;
   private final MpscCompoundQueue<InboxItem> inbox;
@@ -60,6 +61,8 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
   private final long reportingInterval;
   private final TimeUnit reportingIntervalTimeUnit;
   private final DDAgentFeaturesDiscovery features;
+  private final boolean preAggregationEnabled;
+  private final int maxAggregates;
 
   private volatile AgentTaskScheduler.Scheduled<?> cancellation;
 
@@ -77,7 +80,10 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
             false,
             DEFAULT_HEADERS),
         config.getTracerMetricsMaxAggregates(),
-        config.getTracerMetricsMaxPending());
+        config.getTracerMetricsMaxPending(),
+        10,
+        SECONDS,
+        config.isTracerMetricsPreAggregationEnabled());
   }
 
   ConflatingMetricsAggregator(
@@ -99,6 +105,28 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
       int queueSize,
       long reportingInterval,
       TimeUnit timeUnit) {
+    this(
+        wellKnownTags,
+        ignoredResources,
+        features,
+        sink,
+        maxAggregates,
+        queueSize,
+        reportingInterval,
+        timeUnit,
+        false);
+  }
+
+  ConflatingMetricsAggregator(
+      WellKnownTags wellKnownTags,
+      Set<String> ignoredResources,
+      DDAgentFeaturesDiscovery features,
+      Sink sink,
+      int maxAggregates,
+      int queueSize,
+      long reportingInterval,
+      TimeUnit timeUnit,
+      boolean preAggregationEnabled) {
     this(
         ignoredResources,
         features,
@@ -107,7 +135,8 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
         maxAggregates,
         queueSize,
         reportingInterval,
-        timeUnit);
+        timeUnit,
+        preAggregationEnabled);
   }
 
   ConflatingMetricsAggregator(
@@ -119,11 +148,36 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
       int queueSize,
       long reportingInterval,
       TimeUnit timeUnit) {
+    this(
+        ignoredResources,
+        features,
+        sink,
+        metricWriter,
+        maxAggregates,
+        queueSize,
+        reportingInterval,
+        timeUnit,
+        false);
+  }
+
+  ConflatingMetricsAggregator(
+      Set<String> ignoredResources,
+      DDAgentFeaturesDiscovery features,
+      Sink sink,
+      MetricWriter metricWriter,
+      int maxAggregates,
+      int queueSize,
+      long reportingInterval,
+      TimeUnit timeUnit,
+      boolean preAggregationEnabled) {
     this.ignoredResources = ignoredResources;
     this.inbox = new MpscCompoundQueue<>(queueSize);
     this.batchPool = new SpmcArrayQueue<>(maxAggregates);
     this.pending = new NonBlockingHashMap<>(maxAggregates * 4 / 3);
+    this.striped = new NonBlockingHashMap<>();
     this.keys = new NonBlockingHashMap<>();
+    this.preAggregationEnabled = preAggregationEnabled;
+    this.maxAggregates = maxAggregates;
     this.features = features;
     this.sink = sink;
     this.aggregator =
@@ -132,6 +186,7 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
             batchPool,
             inbox,
             pending,
+            striped,
             keys.keySet(),
             maxAggregates,
             reportingInterval,
@@ -250,6 +305,10 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
     }
     long tag = (span.getError() > 0 ? ERROR_TAG : 0L) | (isTopLevel ? TOP_LEVEL_TAG : 0L);
     long durationNanos = span.getDurationNano();
+    if (preAggregationEnabled && preAggregate(key, tag, durationNanos)) {
+      // force keep keys we haven't seen before or errors
+      return isNewKey || span.getError() > 0;
+    }
     Batch batch = pending.get(key);
     if (null != batch) {
       // there is a pending batch, try to win the race to add to it
@@ -276,6 +335,31 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
     return isNewKey || span.getError() > 0;
   }
 
+  /**
+   * Adds the duration to the striped batch of the key, the aggregator collects them when reporting.
+   *
+   * @return false if there are too many striped keys already and the span must be published
+   */
+  private boolean preAggregate(MetricKey key, long tag, long durationNanos) {
+    StripedBatch batch = striped.get(key);
+    if (null == batch || batch.retired) {
+      if (null != batch) {
+        // the aggregator stopped tracking the key because it wasn't used in the last interval
+        striped.remove(key, batch);
+      }
+      if (striped.size() >= maxAggregates) {
+        return false;
+      }
+      StripedBatch newBatch = new StripedBatch(key);
+      batch = striped.putIfAbsent(key, newBatch);
+      if (null == batch) {
+        batch = newBatch;
+      }
+    }
+    batch.add(tag, durationNanos, batchPool, inbox);
+    return true;
+  }
+
   private static boolean isSynthetic(CoreSpan<?> span) {
     return span.getOrigin() != null && SYNTHETICS_ORIGIN.equals(span.getOrigin().toString());
   }
@@ -331,6 +415,7 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
       }
       this.thread.interrupt();
       this.pending.clear();
+      this.striped.clear();
       this.batchPool.clear();
       this.inbox.clear();
       this.aggregator.clearAggregates();
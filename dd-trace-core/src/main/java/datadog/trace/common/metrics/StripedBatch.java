@@ -0,0 +1,83 @@
+package datadog.trace.common.metrics;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Pre-aggregates the durations of a key in a {@link Batch} per stripe, so that threads publishing
+ * the same key mostly don't contend. A batch stays in its stripe until it is full, it is then
+ * handed to the aggregator through the inbox, or until the aggregator collects it at report time.
+ *
+ * <p>Whoever removes a batch from its stripe is responsible for handing it to the aggregator, as
+ * is a thread whose new batch lost the race to replace the batch of its stripe.
+ */
+final class StripedBatch {
+
+  private static final int STRIPES =
+      Math.min(8, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+  private final MetricKey key;
+  // batches are only allocated once a thread publishes to the stripe
+  private final AtomicReferenceArray<Batch> stripes = new AtomicReferenceArray<>(STRIPES);
+
+  /** set once the aggregator stopped tracking the key, its last batches are collected once more */
+  volatile boolean retired;
+
+  StripedBatch(MetricKey key) {
+    this.key = key;
+  }
+
+  MetricKey getKey() {
+    return key;
+  }
+
+  /**
+   * @param batchPool batches recycled by the aggregator
+   * @param inbox receives the batches which are full
+   */
+  void add(long tag, long durationNanos, Queue<Batch> batchPool, Queue<InboxItem> inbox) {
+    int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+    Batch batch = stripes.get(stripe);
+    if (null != batch && batch.add(tag, durationNanos)) {
+      return;
+    }
+    Batch spare = newBatch(batchPool);
+    spare.add(tag, durationNanos);
+    // either the stripe is empty or its batch is full, the aggregator removes the batches it uses
+    if (stripes.compareAndSet(stripe, batch, spare)) {
+      if (null != batch) {
+        inbox.offer(batch);
+      }
+    } else {
+      // another thread replaced the batch first, only the aggregator returns batches to the pool
+      inbox.offer(spare);
+    }
+  }
+
+  /**
+   * Removes the batches of every stripe and adds them to the aggregate, must only be called by the
+   * aggregator thread.
+   *
+   * @return true if any batch was added
+   */
+  boolean contributeTo(AggregateMetric aggregate, Queue<Batch> batchPool) {
+    boolean contributed = false;
+    for (int i = 0; i < STRIPES; i++) {
+      Batch batch = stripes.getAndSet(i, null);
+      if (null != batch) {
+        batch.contributeTo(aggregate);
+        batchPool.offer(batch);
+        contributed = true;
+      }
+    }
+    return contributed;
+  }
+
+  private Batch newBatch(Queue<Batch> batchPool) {
+    Batch batch = batchPool.poll();
+    if (null == batch) {
+      return new Batch(key);
+    }
+    return batch.reset(key);
+  }
+}
@@ -0,0 +1,80 @@
+package datadog.trace.common.sampling;
+
+import datadog.trace.api.cache.DDCache;
+import datadog.trace.api.cache.DDCaches;
+import datadog.trace.core.CoreSpan;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Finds the first rule that matches a span. When every rule is name-based the answer only depends
+ * on the span's service and operation names, so it is memoized per name pair in bounded caches and
+ * the rules are only evaluated in order for pairs that haven't been seen recently.
+ */
+final class CompiledSamplingRules<R extends SamplingRule> {
+  private static final int SERVICE_CACHE_SIZE = 64;
+  private static final int OPERATION_CACHE_SIZE = 128;
+
+  private static final Object NO_MATCH = new Object();
+
+  private final SamplingRule[] rules;
+
+  private final DDCache<String, OperationMatches> matchesByService;
+
+  private final Function<String, OperationMatches> newOperationMatches = OperationMatches::new;
+
+  CompiledSamplingRules(List<R> rules) {
+    this.rules = rules.toArray(new SamplingRule[0]);
+    boolean nameBased = true;
+    for (SamplingRule rule : this.rules) {
+      nameBased &= rule instanceof SamplingRule.NameBased;
+    }
+    this.matchesByService =
+        nameBased && this.rules.length > 0 ? DDCaches.newFixedSizeCache(SERVICE_CACHE_SIZE) : null;
+  }
+
+  /** Returns the first rule that matches the span; {@code null} if none of the rules match. */
+  @SuppressWarnings("unchecked")
+  <T extends CoreSpan<T>> R firstMatch(T span) {
+    String serviceName = span.getServiceName();
+    CharSequence operationName = span.getOperationName();
+    if (null != matchesByService && null != serviceName && null != operationName) {
+      Object match =
+          matchesByService
+              .computeIfAbsent(serviceName, newOperationMatches)
+              .find(operationName.toString());
+      return match == NO_MATCH ? null : (R) match;
+    }
+    for (SamplingRule rule : rules) {
+      if (rule.matches(span)) {
+        return (R) rule;
+      }
+    }
+    return null;
+  }
+
+  /** Memoized matches for operations of a given service. */
+  private final class OperationMatches implements Function<String, Object> {
+    private final String serviceName;
+    private final DDCache<String, Object> matchesByOperation =
+        DDCaches.newFixedSizeCache(OPERATION_CACHE_SIZE);
+
+    OperationMatches(String serviceName) {
+      this.serviceName = serviceName;
+    }
+
+    Object find(String operationName) {
+      return matchesByOperation.computeIfAbsent(operationName, this);
+    }
+
+    @Override
+    public Object apply(String operationName) {
+      for (SamplingRule rule : rules) {
+        if (((SamplingRule.NameBased) rule).matches(serviceName, operationName)) {
+          return rule;
+        }
+      }
+      return NO_MATCH;
+    }
+  }
+}
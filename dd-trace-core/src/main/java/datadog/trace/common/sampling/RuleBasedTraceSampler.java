@@ -19,7 +19,7 @@ import org.slf4j.LoggerFactory;
 public class RuleBasedTraceSampler<T extends CoreSpan<T>> implements Sampler, PrioritySampler {
 
   private static final Logger log = LoggerFactory.getLogger(RuleBasedTraceSampler.class);
-  private final List<SamplingRule> samplingRules;
+  private final CompiledSamplingRules<SamplingRule> samplingRules;
   private final PrioritySampler fallbackSampler;
   private final SimpleRateLimiter rateLimiter;
   private final long rateLimit;
@@ -31,7 +31,7 @@ public class RuleBasedTraceSampler<T extends CoreSpan<T>> implements Sampler, Pr
       final List<SamplingRule> samplingRules,
       final int rateLimit,
       final PrioritySampler fallbackSampler) {
-    this.samplingRules = samplingRules;
+    this.samplingRules = new CompiledSamplingRules<>(samplingRules);
     this.fallbackSampler = fallbackSampler;
     rateLimiter = new SimpleRateLimiter(rateLimit);
 
@@ -117,14 +117,7 @@ public class RuleBasedTraceSampler<T extends CoreSpan<T>> implements Sampler, Pr
 
   @Override
   public <T extends CoreSpan<T>> void setSamplingPriority(final T span) {
-    SamplingRule matchedRule = null;
-
-    for (final SamplingRule samplingRule : samplingRules) {
-      if (samplingRule.matches(span)) {
-        matchedRule = samplingRule;
-        break;
-      }
-    }
+    final SamplingRule matchedRule = samplingRules.firstMatch(span);
 
     if (matchedRule == null) {
       fallbackSampler.setSamplingPriority(span);
@@ -1,7 +1,7 @@
 package datadog.trace.common.sampling;
 
 import datadog.trace.core.CoreSpan;
-import datadog.trace.core.util.GlobPattern;
+import datadog.trace.core.util.GlobMatcher;
 import datadog.trace.core.util.SimpleRateLimiter;
 import java.util.regex.Pattern;
 
@@ -22,7 +22,16 @@ public abstract class SamplingRule {
     return sampler;
   }
 
-  public static class AlwaysMatchesSamplingRule extends SamplingRule {
+  /**
+   * Implemented by rules which only look at the span's service and operation names, in which case
+   * {@link #matches(String, CharSequence)} gives the same answer as {@link
+   * SamplingRule#matches(CoreSpan)} and the result can be memoized per name pair.
+   */
+  public interface NameBased {
+    boolean matches(String serviceName, CharSequence operationName);
+  }
+
+  public static class AlwaysMatchesSamplingRule extends SamplingRule implements NameBased {
 
     public AlwaysMatchesSamplingRule(final RateSampler sampler) {
       super(sampler);
@@ -32,6 +41,11 @@ public abstract class SamplingRule {
     public <T extends CoreSpan<T>> boolean matches(final T span) {
       return true;
     }
+
+    @Override
+    public boolean matches(String serviceName, CharSequence operationName) {
+      return true;
+    }
   }
 
   public abstract static class PatternMatchSamplingRule extends SamplingRule {
@@ -44,14 +58,17 @@ public abstract class SamplingRule {
 
     @Override
     public <T extends CoreSpan<T>> boolean matches(final T span) {
-      final CharSequence relevantString = getRelevantString(span);
+      return matchesPattern(getRelevantString(span));
+    }
+
+    protected boolean matchesPattern(final CharSequence relevantString) {
       return relevantString != null && pattern.matcher(relevantString).matches();
     }
 
     protected abstract <T extends CoreSpan<T>> CharSequence getRelevantString(T span);
   }
 
-  public static class ServiceSamplingRule extends PatternMatchSamplingRule {
+  public static class ServiceSamplingRule extends PatternMatchSamplingRule implements NameBased {
     public ServiceSamplingRule(final String regex, final RateSampler sampler) {
       super(regex, sampler);
     }
@@ -60,9 +77,14 @@ public abstract class SamplingRule {
     protected <T extends CoreSpan<T>> String getRelevantString(final T span) {
       return span.getServiceName();
     }
+
+    @Override
+    public boolean matches(String serviceName, CharSequence operationName) {
+      return matchesPattern(serviceName);
+    }
   }
 
-  public static class OperationSamplingRule extends PatternMatchSamplingRule {
+  public static class OperationSamplingRule extends PatternMatchSamplingRule implements NameBased {
     public OperationSamplingRule(final String regex, final RateSampler sampler) {
       super(regex, sampler);
     }
@@ -71,9 +93,14 @@ public abstract class SamplingRule {
     protected <T extends CoreSpan<T>> CharSequence getRelevantString(final T span) {
       return span.getOperationName();
     }
+
+    @Override
+    public boolean matches(String serviceName, CharSequence operationName) {
+      return matchesPattern(operationName);
+    }
   }
 
-  public static final class TraceSamplingRule extends SamplingRule {
+  public static final class TraceSamplingRule extends SamplingRule implements NameBased {
     private final String serviceName;
     private final String operationName;
 
@@ -86,16 +113,19 @@ public abstract class SamplingRule {
 
     @Override
     public <T extends CoreSpan<T>> boolean matches(T span) {
-      return (serviceName == null || serviceName.equals(span.getServiceName()))
-          && (operationName == null || operationName.contentEquals(span.getOperationName()));
+      return matches(span.getServiceName(), span.getOperationName());
+    }
+
+    @Override
+    public boolean matches(String serviceName, CharSequence operationName) {
+      return (this.serviceName == null || this.serviceName.equals(serviceName))
+          && (this.operationName == null || this.operationName.contentEquals(operationName));
     }
   }
 
-  public static final class SpanSamplingRule extends SamplingRule {
-    private final String serviceExactName;
-    private final Pattern servicePattern;
-    private final String operationExactName;
-    private final Pattern operationPattern;
+  public static final class SpanSamplingRule extends SamplingRule implements NameBased {
+    private final GlobMatcher serviceMatcher;
+    private final GlobMatcher operationMatcher;
 
     private final SimpleRateLimiter rateLimiter;
 
@@ -106,43 +136,19 @@ public abstract class SamplingRule {
         final SimpleRateLimiter rateLimiter) {
       super(sampler);
 
-      if (serviceName == null || "*".equals(serviceName)) {
-        this.serviceExactName = null;
-        this.servicePattern = null;
-      } else if (isExactMatcher(serviceName)) {
-        this.serviceExactName = serviceName;
-        this.servicePattern = null;
-      } else {
-        this.serviceExactName = null;
-        this.servicePattern = GlobPattern.globToRegexPattern(serviceName);
-      }
-
-      if (operationName == null || "*".equals(operationName)) {
-        this.operationExactName = null;
-        this.operationPattern = null;
-      } else if (isExactMatcher(operationName)) {
-        this.operationExactName = operationName;
-        this.operationPattern = null;
-      } else {
-        this.operationExactName = null;
-        this.operationPattern = GlobPattern.globToRegexPattern(operationName);
-      }
-
+      this.serviceMatcher = GlobMatcher.compile(serviceName);
+      this.operationMatcher = GlobMatcher.compile(operationName);
       this.rateLimiter = rateLimiter;
     }
 
-    private boolean isExactMatcher(String serviceNameGlob) {
-      return !serviceNameGlob.contains("*") && !serviceNameGlob.contains("?");
+    @Override
+    public <T extends CoreSpan<T>> boolean matches(T span) {
+      return matches(span.getServiceName(), span.getOperationName());
     }
 
     @Override
-    public <T extends CoreSpan<T>> boolean matches(T span) {
-      return (serviceExactName == null || serviceExactName.equals(span.getServiceName()))
-          && (servicePattern == null || servicePattern.matcher(span.getServiceName()).matches())
-          && (operationExactName == null
-              || operationExactName.contentEquals(span.getOperationName()))
-          && (operationPattern == null
-              || operationPattern.matcher(span.getOperationName()).matches());
+    public boolean matches(String serviceName, CharSequence operationName) {
+      return serviceMatcher.matches(serviceName) && operationMatcher.matches(operationName);
     }
 
     @Override
@@ -14,6 +14,8 @@ import datadog.trace.common.writer.ddagent.DDAgentApi;
 import datadog.trace.common.writer.ddagent.DDAgentMapperDiscovery;
 import datadog.trace.common.writer.ddagent.Prioritization;
 import datadog.trace.core.monitor.HealthMetrics;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
@@ -40,6 +42,7 @@ public class DDAgentWriter extends RemoteWriter {
     boolean traceAgentV05Enabled = Config.get().isTraceAgentV05Enabled();
     boolean metricsReportingEnabled = Config.get().isTracerMetricsEnabled();
     boolean alwaysFlush = false;
+    int serializerShards = Config.get().getTraceSerializerShards();
 
     private DDAgentApi agentApi;
     private Prioritization prioritization;
@@ -121,6 +124,11 @@ public class DDAgentWriter extends RemoteWriter {
       return this;
     }
 
+    public DDAgentWriterBuilder serializerShards(int serializerShards) {
+      this.serializerShards = serializerShards;
+      return this;
+    }
+
     public DDAgentWriterBuilder spanSamplingRules(SingleSpanSampler singleSpanSampler) {
       this.singleSpanSampler = singleSpanSampler;
       return this;
@@ -145,11 +153,16 @@ public class DDAgentWriter extends RemoteWriter {
       final DDAgentMapperDiscovery mapperDiscovery = new DDAgentMapperDiscovery(featureDiscovery);
       final PayloadDispatcher dispatcher =
           new PayloadDispatcher(mapperDiscovery, agentApi, healthMetrics, monitoring);
+      final List<PayloadDispatcher> dispatchers = new ArrayList<>(serializerShards);
+      dispatchers.add(dispatcher);
+      for (int i = 1; i < serializerShards; i++) {
+        dispatchers.add(dispatcher.newShard(new DDAgentMapperDiscovery(featureDiscovery)));
+      }
       final TraceProcessingWorker traceProcessingWorker =
           new TraceProcessingWorker(
               traceBufferSize,
               healthMetrics,
-              dispatcher,
+              dispatchers,
               featureDiscovery,
               null == prioritization ? FAST_LANE : prioritization,
               flushFrequencySeconds,
@@ -4,6 +4,7 @@ import datadog.communication.monitor.Monitoring;
 import datadog.communication.monitor.Recording;
 import datadog.communication.serialization.ByteBufferConsumer;
 import datadog.communication.serialization.FlushingBuffer;
+import datadog.communication.serialization.FrequencyEncodingCache;
 import datadog.communication.serialization.WritableFormatter;
 import datadog.communication.serialization.msgpack.MsgPackWriter;
 import datadog.trace.core.CoreSpan;
@@ -28,20 +29,61 @@ public class PayloadDispatcher implements ByteBufferConsumer {
   private RemoteMapper mapper;
   private WritableFormatter packer;
 
-  private final FixedSizeStripedLongCounter droppedSpanCount =
-      CountersFactory.createFixedSizeStripedCounter(8);
-  private final FixedSizeStripedLongCounter droppedTraceCount =
-      CountersFactory.createFixedSizeStripedCounter(8);
+  private final FixedSizeStripedLongCounter droppedSpanCount;
+  private final FixedSizeStripedLongCounter droppedTraceCount;
+
+  // shared by all the shards of a dispatcher so payloads are still sent one at a time
+  private final Object sendLock;
 
   public PayloadDispatcher(
       RemoteMapperDiscovery mapperDiscovery,
       RemoteApi api,
       HealthMetrics healthMetrics,
       Monitoring monitoring) {
+    this(
+        mapperDiscovery,
+        api,
+        healthMetrics,
+        monitoring,
+        CountersFactory.createFixedSizeStripedCounter(8),
+        CountersFactory.createFixedSizeStripedCounter(8),
+        new Object());
+  }
+
+  private PayloadDispatcher(
+      RemoteMapperDiscovery mapperDiscovery,
+      RemoteApi api,
+      HealthMetrics healthMetrics,
+      Monitoring monitoring,
+      FixedSizeStripedLongCounter droppedSpanCount,
+      FixedSizeStripedLongCounter droppedTraceCount,
+      Object sendLock) {
     this.mapperDiscovery = mapperDiscovery;
     this.api = api;
     this.healthMetrics = healthMetrics;
     this.monitoring = monitoring;
+    this.droppedSpanCount = droppedSpanCount;
+    this.droppedTraceCount = droppedTraceCount;
+    this.sendLock = sendLock;
+  }
+
+  /**
+   * Creates a dispatcher which serializes with its own mapper and buffer, but shares the remote
+   * API, dropped trace accounting and send path with this one. Each shard must only be used from a
+   * single serializing thread.
+   *
+   * @param mapperDiscovery a discovery instance dedicated to the new shard, since mappers are
+   *     stateful
+   */
+  public PayloadDispatcher newShard(RemoteMapperDiscovery mapperDiscovery) {
+    return new PayloadDispatcher(
+        mapperDiscovery,
+        api,
+        healthMetrics,
+        monitoring,
+        droppedSpanCount,
+        droppedTraceCount,
+        sendLock);
   }
 
   void flush() {
@@ -96,11 +138,16 @@ public class PayloadDispatcher implements ByteBufferConsumer {
     // or when the packer is flushed at a heartbeat
     if (messageCount > 0) {
       batchTimer.reset();
-      Payload payload = newPayload(messageCount, buffer);
-      final int sizeInBytes = payload.sizeInBytes();
-      healthMetrics.onSerialize(sizeInBytes);
-      RemoteApi.Response response = api.sendSerializedTraces(payload);
+      final RemoteApi.Response response;
+      final int sizeInBytes;
+      synchronized (sendLock) {
+        Payload payload = newPayload(messageCount, buffer);
+        sizeInBytes = payload.sizeInBytes();
+        healthMetrics.onSerialize(sizeInBytes);
+        response = api.sendSerializedTraces(payload);
+      }
       mapper.reset();
+      reportEncodingCache();
       if (response.success()) {
         if (log.isDebugEnabled()) {
           log.debug("Successfully sent {} traces to the API", messageCount);
@@ -115,4 +162,15 @@ public class PayloadDispatcher implements ByteBufferConsumer {
       }
     }
   }
+
+  private void reportEncodingCache() {
+    FrequencyEncodingCache encodingCache = mapper.getEncodingCache();
+    if (null != encodingCache) {
+      healthMetrics.onEncodingCache(
+          encodingCache.getHitCount(),
+          encodingCache.getMissCount(),
+          encodingCache.getEvictionCount());
+      encodingCache.resetCounts();
+    }
+  }
 }
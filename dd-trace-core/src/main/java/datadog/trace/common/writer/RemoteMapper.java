@@ -2,6 +2,7 @@ package datadog.trace.common.writer;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import datadog.communication.serialization.FrequencyEncodingCache;
 import datadog.communication.serialization.Mapper;
 import datadog.communication.serialization.Writable;
 import datadog.trace.api.DDTags;
@@ -40,6 +41,11 @@ public interface RemoteMapper extends Mapper<List<? extends CoreSpan<?>>> {
 
   String endpoint();
 
+  /** @return the cache of encoded strings kept across payloads, {@code null} if there is none. */
+  default FrequencyEncodingCache getEncodingCache() {
+    return null;
+  }
+
   class NoopRemoteMapper implements RemoteMapper {
 
     @Override
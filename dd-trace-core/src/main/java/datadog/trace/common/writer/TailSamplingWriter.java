@@ -0,0 +1,198 @@
+package datadog.trace.common.writer;
+
+import static datadog.trace.api.sampling.PrioritySampling.SAMPLER_DROP;
+import static datadog.trace.api.sampling.PrioritySampling.USER_DROP;
+
+import datadog.trace.api.Config;
+import datadog.trace.core.DDSpan;
+import datadog.trace.core.monitor.HealthMetrics;
+import datadog.trace.core.util.SimpleRateLimiter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes a second look at traces that the head-based samplers decided to drop, once they have
+ * finished. Traces with errors or a local root span slower than the latency threshold are kept, as
+ * is a rate-limited sample of the rest. Everything else is passed on unchanged.
+ *
+ * <p>Chunks written by partial flushes before the local root span finishes are buffered until the
+ * decision can be made. The buffer is limited to a number of spans; when it's full the oldest
+ * chunks are passed on without waiting for a decision.
+ *
+ * <p>Only traces handed to the writer are seen here, so this can only reverse drops expressed as a
+ * sampling priority. The built-in samplers always hand traces on, but a {@link
+ * datadog.trace.common.sampling.Sampler} whose {@code sample} method returns {@code false} discards
+ * the trace in the tracer before any tail-sampling rule is evaluated.
+ */
+public class TailSamplingWriter implements Writer {
+  public static final String ERROR_REASON = "error";
+  public static final String LATENCY_REASON = "latency";
+  public static final String RATE_REASON = "rate";
+
+  private final Writer delegate;
+  private final long latencyThresholdNanos;
+  private final SimpleRateLimiter rateLimiter;
+  private final int maxBufferedSpans;
+  private final HealthMetrics healthMetrics;
+
+  /** Chunks waiting for their local root span to finish, oldest first. */
+  private final Map<DDSpan, List<DDSpan>> bufferedChunks = new LinkedHashMap<>();
+
+  private int bufferedSpans;
+
+  public TailSamplingWriter(Writer delegate, Config config, HealthMetrics healthMetrics) {
+    this(
+        delegate,
+        TimeUnit.MILLISECONDS.toNanos(config.getTraceTailSamplingLatencyThresholdMs()),
+        config.getTraceTailSamplingRateLimit(),
+        config.getTraceTailSamplingMaxBufferedSpans(),
+        healthMetrics);
+  }
+
+  TailSamplingWriter(
+      Writer delegate,
+      long latencyThresholdNanos,
+      int rateLimit,
+      int maxBufferedSpans,
+      HealthMetrics healthMetrics) {
+    this.delegate = delegate;
+    this.latencyThresholdNanos = latencyThresholdNanos;
+    this.rateLimiter = rateLimit > 0 ? new SimpleRateLimiter(rateLimit) : null;
+    this.maxBufferedSpans = maxBufferedSpans;
+    this.healthMetrics = healthMetrics;
+  }
+
+  @Override
+  public void write(List<DDSpan> trace) {
+    if (trace.isEmpty()) {
+      delegate.write(trace);
+      return;
+    }
+    DDSpan firstSpan = trace.get(0);
+    DDSpan rootSpan = firstSpan.getLocalRootSpan();
+    int samplingPriority = firstSpan.samplingPriority();
+    if (null == rootSpan
+        || firstSpan.isForceKeep()
+        || (samplingPriority != SAMPLER_DROP && samplingPriority != USER_DROP)) {
+      // kept by the head-based samplers, release anything we held back for this trace
+      delegate.write(withBufferedChunks(rootSpan, trace));
+      return;
+    }
+
+    if (!rootSpan.isFinished()) {
+      List<List<DDSpan>> evictedChunks = buffer(rootSpan, trace);
+      if (null != evictedChunks) {
+        for (List<DDSpan> chunk : evictedChunks) {
+          healthMetrics.onTailSamplingOverflow();
+          delegate.write(chunk);
+        }
+      }
+      return;
+    }
+
+    List<DDSpan> completeTrace = withBufferedChunks(rootSpan, trace);
+    String reason = keepReason(rootSpan, completeTrace);
+    if (null != reason) {
+      rootSpan.context().forceKeep();
+      completeTrace.get(0).forceKeep(true);
+      healthMetrics.onTailSamplingKeep(reason);
+    } else {
+      healthMetrics.onTailSamplingDrop();
+    }
+    delegate.write(completeTrace);
+  }
+
+  private String keepReason(DDSpan rootSpan, List<DDSpan> trace) {
+    for (DDSpan span : trace) {
+      if (span.isError()) {
+        return ERROR_REASON;
+      }
+    }
+    if (rootSpan.getDurationNano() >= latencyThresholdNanos) {
+      return LATENCY_REASON;
+    }
+    if (null != rateLimiter && rateLimiter.tryAcquire()) {
+      return RATE_REASON;
+    }
+    return null;
+  }
+
+  /** Buffers the chunk, returns any chunks that had to be evicted to make room for it. */
+  private synchronized List<List<DDSpan>> buffer(DDSpan rootSpan, List<DDSpan> chunk) {
+    List<List<DDSpan>> evictedChunks = null;
+    if (chunk.size() > maxBufferedSpans) {
+      evictedChunks = new ArrayList<>(1);
+      evictedChunks.add(chunk);
+      return evictedChunks;
+    }
+    Iterator<List<DDSpan>> oldestChunks = bufferedChunks.values().iterator();
+    while (bufferedSpans + chunk.size() > maxBufferedSpans && oldestChunks.hasNext()) {
+      List<DDSpan> evictedChunk = oldestChunks.next();
+      oldestChunks.remove();
+      bufferedSpans -= evictedChunk.size();
+      if (null == evictedChunks) {
+        evictedChunks = new ArrayList<>();
+      }
+      evictedChunks.add(evictedChunk);
+    }
+    List<DDSpan> buffered = bufferedChunks.get(rootSpan);
+    if (null == buffered) {
+      bufferedChunks.put(rootSpan, new ArrayList<>(chunk));
+    } else {
+      buffered.addAll(chunk);
+    }
+    bufferedSpans += chunk.size();
+    return evictedChunks;
+  }
+
+  private List<DDSpan> withBufferedChunks(DDSpan rootSpan, List<DDSpan> trace) {
+    List<DDSpan> buffered;
+    synchronized (this) {
+      if (bufferedChunks.isEmpty() || null == (buffered = bufferedChunks.remove(rootSpan))) {
+        return trace;
+      }
+      bufferedSpans -= buffered.size();
+    }
+    List<DDSpan> completeTrace = new ArrayList<>(trace.size() + buffered.size());
+    completeTrace.addAll(trace);
+    completeTrace.addAll(buffered);
+    return completeTrace;
+  }
+
+  private List<List<DDSpan>> releaseAll() {
+    List<List<DDSpan>> chunks;
+    synchronized (this) {
+      chunks = new ArrayList<>(bufferedChunks.values());
+      bufferedChunks.clear();
+      bufferedSpans = 0;
+    }
+    return chunks;
+  }
+
+  @Override
+  public void start() {
+    delegate.start();
+  }
+
+  @Override
+  public boolean flush() {
+    return delegate.flush();
+  }
+
+  @Override
+  public void close() {
+    for (List<DDSpan> chunk : releaseAll()) {
+      delegate.write(chunk);
+    }
+    delegate.close();
+  }
+
+  @Override
+  public void incrementDropCounts(int spanCount) {
+    delegate.incrementDropCounts(spanCount);
+  }
+}
@@ -13,6 +13,7 @@ import datadog.trace.common.writer.ddagent.PrioritizationStrategy;
 import datadog.trace.core.CoreSpan;
 import datadog.trace.core.DDSpan;
 import datadog.trace.core.monitor.HealthMetrics;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -39,6 +40,9 @@ public class TraceProcessingWorker implements AutoCloseable {
   private final Thread serializerThread;
   private final int capacity;
 
+  // additional serializer shards, empty unless more than one dispatcher was provided
+  private final SerializerShard[] extraShards;
+
   private final SpanSamplingWorker spanSamplingWorker;
 
   public TraceProcessingWorker(
@@ -50,9 +54,36 @@ public class TraceProcessingWorker implements AutoCloseable {
       final long flushInterval,
       final TimeUnit timeUnit,
       final SingleSpanSampler singleSpanSampler) {
+    this(
+        capacity,
+        healthMetrics,
+        Collections.singletonList(dispatcher),
+        droppingPolicy,
+        prioritization,
+        flushInterval,
+        timeUnit,
+        singleSpanSampler);
+  }
+
+  /**
+   * Creates a worker with one serializer thread per dispatcher. Traces are routed to a shard by
+   * trace id, so all the chunks of a trace are serialized by the same thread, and each shard has
+   * its own queues, mapper and buffer. The queue capacity is divided between the shards.
+   */
+  public TraceProcessingWorker(
+      final int capacity,
+      final HealthMetrics healthMetrics,
+      final List<PayloadDispatcher> dispatchers,
+      final DroppingPolicy droppingPolicy,
+      final Prioritization prioritization,
+      final long flushInterval,
+      final TimeUnit timeUnit,
+      final SingleSpanSampler singleSpanSampler) {
     this.capacity = capacity;
-    this.primaryQueue = createQueue(capacity);
-    this.secondaryQueue = createQueue(capacity);
+    final int shardCapacity = Math.max(1, capacity / dispatchers.size());
+    this.primaryQueue = createQueue(shardCapacity);
+    this.secondaryQueue = createQueue(shardCapacity);
+    // single span sampled chunks are always serialized by the first shard
     this.spanSamplingWorker =
         SpanSamplingWorker.build(
             capacity,
@@ -69,22 +100,48 @@ public class TraceProcessingWorker implements AutoCloseable {
             droppingPolicy);
     this.serializingHandler =
         new TraceSerializingHandler(
-            primaryQueue, secondaryQueue, healthMetrics, dispatcher, flushInterval, timeUnit);
+            primaryQueue,
+            secondaryQueue,
+            healthMetrics,
+            dispatchers.get(0),
+            flushInterval,
+            timeUnit);
     this.serializerThread = newAgentThread(TRACE_PROCESSOR, serializingHandler);
+    this.extraShards = new SerializerShard[dispatchers.size() - 1];
+    for (int i = 0; i < extraShards.length; i++) {
+      MpscBlockingConsumerArrayQueue<Object> primary = createQueue(shardCapacity);
+      MpscBlockingConsumerArrayQueue<Object> secondary = createQueue(shardCapacity);
+      extraShards[i] =
+          new SerializerShard(
+              i + 1,
+              primary,
+              prioritization.create(
+                  primary, secondary, spanSamplingWorker.getSpanSamplingQueue(), droppingPolicy),
+              new TraceSerializingHandler(
+                  primary,
+                  secondary,
+                  healthMetrics,
+                  dispatchers.get(i + 1),
+                  flushInterval,
+                  timeUnit));
+    }
   }
 
   public void start() {
     this.serializerThread.start();
+    for (SerializerShard shard : extraShards) {
+      shard.serializerThread.start();
+    }
     this.spanSamplingWorker.start();
   }
 
   public boolean flush(long timeout, TimeUnit timeUnit) {
-    CountDownLatch latch = new CountDownLatch(1);
+    CountDownLatch latch = new CountDownLatch(1 + extraShards.length);
     FlushEvent flush = new FlushEvent(latch);
-    boolean offered;
-    do {
-      offered = primaryQueue.offer(flush);
-    } while (!offered && serializerThread.isAlive());
+    offerFlush(primaryQueue, serializerThread, flush);
+    for (SerializerShard shard : extraShards) {
+      offerFlush(shard.primaryQueue, shard.serializerThread, flush);
+    }
     try {
       return latch.await(timeout, timeUnit);
     } catch (InterruptedException e) {
@@ -93,34 +150,80 @@ public class TraceProcessingWorker implements AutoCloseable {
     }
   }
 
+  private static void offerFlush(
+      MpscBlockingConsumerArrayQueue<Object> queue, Thread serializerThread, FlushEvent flush) {
+    boolean offered;
+    do {
+      offered = queue.offer(flush);
+    } while (!offered && serializerThread.isAlive());
+  }
+
   @Override
   public void close() {
     spanSamplingWorker.close();
     serializerThread.interrupt();
+    for (SerializerShard shard : extraShards) {
+      shard.serializerThread.interrupt();
+    }
     try {
       serializerThread.join(THREAD_JOIN_TIMOUT_MS);
+      for (SerializerShard shard : extraShards) {
+        shard.serializerThread.join(THREAD_JOIN_TIMOUT_MS);
+      }
     } catch (InterruptedException ignored) {
     }
   }
 
   public <T extends CoreSpan<T>> PrioritizationStrategy.PublishResult publish(
       T root, int samplingPriority, final List<T> trace) {
+    if (extraShards.length > 0) {
+      int shard = shardFor(root.getTraceId().toLong(), extraShards.length + 1);
+      if (shard > 0) {
+        return extraShards[shard - 1].prioritizationStrategy.publish(
+            root, samplingPriority, trace);
+      }
+    }
     return prioritizationStrategy.publish(root, samplingPriority, trace);
   }
 
+  static int shardFor(long traceId, int shardCount) {
+    // trace ids are random, but mix the high bits in case they are not
+    return (int) ((traceId ^ (traceId >>> 32)) & Integer.MAX_VALUE) % shardCount;
+  }
+
   public int getCapacity() {
     return capacity;
   }
 
   public long getRemainingCapacity() {
     // only advertise primary capacity (partly to keep test which aims to saturate the queue happy)
-    return primaryQueue.remainingCapacity();
+    long remainingCapacity = primaryQueue.remainingCapacity();
+    for (SerializerShard shard : extraShards) {
+      remainingCapacity += shard.primaryQueue.remainingCapacity();
+    }
+    return remainingCapacity;
   }
 
   private static MpscBlockingConsumerArrayQueue<Object> createQueue(int capacity) {
     return new MpscBlockingConsumerArrayQueue<>(capacity);
   }
 
+  private static final class SerializerShard {
+    final MpscBlockingConsumerArrayQueue<Object> primaryQueue;
+    final PrioritizationStrategy prioritizationStrategy;
+    final Thread serializerThread;
+
+    SerializerShard(
+        int index,
+        MpscBlockingConsumerArrayQueue<Object> primaryQueue,
+        PrioritizationStrategy prioritizationStrategy,
+        TraceSerializingHandler serializingHandler) {
+      this.primaryQueue = primaryQueue;
+      this.prioritizationStrategy = prioritizationStrategy;
+      this.serializerThread = newAgentThread(TRACE_PROCESSOR, "-" + index, serializingHandler);
+    }
+  }
+
   public static class TraceSerializingHandler implements Runnable {
 
     private final MpscBlockingConsumerArrayQueue<Object> primaryQueue;
@@ -7,6 +7,11 @@ import datadog.trace.core.DDSpanContext;
 
 public interface TraceMapper extends RemoteMapper {
 
+  /** Number of strings whose encoding is kept across payloads. */
+  int ENCODING_CACHE_CAPACITY = 1 << 10;
+  /** Longer strings are rarely repeated and are not worth caching. */
+  int ENCODING_CACHE_MAX_LENGTH = 128;
+
   UTF8BytesString THREAD_NAME = UTF8BytesString.create(DDTags.THREAD_NAME);
   UTF8BytesString THREAD_ID = UTF8BytesString.create(DDTags.THREAD_ID);
   UTF8BytesString SAMPLING_PRIORITY_KEY =
@@ -2,12 +2,15 @@ package datadog.trace.common.writer.ddagent;
 
 import static datadog.communication.http.OkHttpUtils.msgpackRequestBodyOf;
 
+import datadog.communication.serialization.EncodingCache;
+import datadog.communication.serialization.FrequencyEncodingCache;
 import datadog.communication.serialization.Writable;
 import datadog.trace.bootstrap.instrumentation.api.InstrumentationTags;
 import datadog.trace.common.writer.Payload;
 import datadog.trace.core.CoreSpan;
 import datadog.trace.core.Metadata;
 import datadog.trace.core.MetadataConsumer;
+import datadog.trace.core.TagMap;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritableByteChannel;
@@ -19,6 +22,8 @@ import okhttp3.RequestBody;
 public final class TraceMapperV0_4 implements TraceMapper {
 
   private final int size;
+  private final FrequencyEncodingCache encodingCache =
+      new FrequencyEncodingCache(ENCODING_CACHE_CAPACITY, ENCODING_CACHE_MAX_LENGTH);
 
   public TraceMapperV0_4(int size) {
     this.size = size;
@@ -28,10 +33,16 @@ public final class TraceMapperV0_4 implements TraceMapper {
     this(5 << 20);
   }
 
-  private static final class MetaWriter extends MetadataConsumer {
+  private static final class MetaWriter extends MetadataConsumer implements TagMap.Visitor {
 
+    private final EncodingCache encodingCache;
     private Writable writable;
     private boolean writeSamplingPriority;
+    private boolean writingMetrics;
+
+    MetaWriter(EncodingCache encodingCache) {
+      this.encodingCache = encodingCache;
+    }
 
     MetaWriter withWritable(Writable writable) {
       this.writable = writable;
@@ -45,9 +56,12 @@ public final class TraceMapperV0_4 implements TraceMapper {
 
     @Override
     public void accept(Metadata metadata) {
+      TagMap tags = metadata.getTags();
+      int numberCount = tags.numberCount();
       int metaSize =
           metadata.getBaggage().size()
-              + metadata.getTags().size()
+              + tags.size()
+              - numberCount
               + (null == metadata.getHttpStatusCode() ? 0 : 1)
               + (null == metadata.getOrigin() ? 0 : 1)
               + 1;
@@ -55,13 +69,8 @@ public final class TraceMapperV0_4 implements TraceMapper {
           (writeSamplingPriority && metadata.hasSamplingPriority() ? 1 : 0)
               + (metadata.measured() ? 1 : 0)
               + (metadata.topLevel() ? 1 : 0)
-              + 1;
-      for (Map.Entry<String, Object> tag : metadata.getTags().entrySet()) {
-        if (tag.getValue() instanceof Number) {
-          ++metricsSize;
-          --metaSize;
-        }
-      }
+              + 1
+              + numberCount;
       writable.writeUTF8(METRICS);
       writable.startMap(metricsSize);
       if (writeSamplingPriority && metadata.hasSamplingPriority()) {
@@ -78,12 +87,8 @@ public final class TraceMapperV0_4 implements TraceMapper {
       }
       writable.writeUTF8(THREAD_ID);
       writable.writeLong(metadata.getThreadId());
-      for (Map.Entry<String, Object> entry : metadata.getTags().entrySet()) {
-        if (entry.getValue() instanceof Number) {
-          writable.writeString(entry.getKey(), null);
-          writable.writeObject(entry.getValue(), null);
-        }
-      }
+      writingMetrics = true;
+      tags.visit(this);
 
       writable.writeUTF8(META);
       writable.startMap(metaSize);
@@ -91,8 +96,8 @@ public final class TraceMapperV0_4 implements TraceMapper {
       // since they will be accumulated into maps in the same order downstream,
       // we just need to be sure that the size is the same as the number of elements
       for (Map.Entry<String, String> entry : metadata.getBaggage().entrySet()) {
-        writable.writeString(entry.getKey(), null);
-        writable.writeString(entry.getValue(), null);
+        writable.writeString(entry.getKey(), encodingCache);
+        writable.writeString(entry.getValue(), encodingCache);
       }
       writable.writeUTF8(THREAD_NAME);
       writable.writeUTF8(metadata.getThreadName());
@@ -102,18 +107,59 @@ public final class TraceMapperV0_4 implements TraceMapper {
       }
       if (null != metadata.getOrigin()) {
         writable.writeUTF8(ORIGIN_KEY);
-        writable.writeString(metadata.getOrigin(), null);
+        writable.writeString(metadata.getOrigin(), encodingCache);
       }
-      for (Map.Entry<String, Object> entry : metadata.getTags().entrySet()) {
-        if (!(entry.getValue() instanceof Number)) {
-          writable.writeString(entry.getKey(), null);
-          writable.writeObjectString(entry.getValue(), null);
+      writingMetrics = false;
+      tags.visit(this);
+    }
+
+    @Override
+    public void visit(String key, Object value) {
+      if (value instanceof Number) {
+        if (writingMetrics) {
+          writable.writeString(key, encodingCache);
+          writable.writeObject(value, null);
         }
+      } else if (!writingMetrics) {
+        writable.writeString(key, encodingCache);
+        writable.writeObjectString(value, encodingCache);
+      }
+    }
+
+    @Override
+    public void visit(String key, int value) {
+      if (writingMetrics) {
+        writable.writeString(key, encodingCache);
+        writable.writeInt(value);
+      }
+    }
+
+    @Override
+    public void visit(String key, long value) {
+      if (writingMetrics) {
+        writable.writeString(key, encodingCache);
+        writable.writeLong(value);
+      }
+    }
+
+    @Override
+    public void visit(String key, float value) {
+      if (writingMetrics) {
+        writable.writeString(key, encodingCache);
+        writable.writeFloat(value);
+      }
+    }
+
+    @Override
+    public void visit(String key, double value) {
+      if (writingMetrics) {
+        writable.writeString(key, encodingCache);
+        writable.writeDouble(value);
       }
     }
   }
 
-  private final MetaWriter metaWriter = new MetaWriter();
+  private final MetaWriter metaWriter = new MetaWriter(encodingCache);
 
   @Override
   public void map(List<? extends CoreSpan<?>> trace, final Writable writable) {
@@ -123,7 +169,7 @@ public final class TraceMapperV0_4 implements TraceMapper {
       writable.startMap(12);
       /* 1  */
       writable.writeUTF8(SERVICE);
-      writable.writeString(span.getServiceName(), null);
+      writable.writeString(span.getServiceName(), encodingCache);
       /* 2  */
       writable.writeUTF8(NAME);
       writable.writeObject(span.getOperationName(), null);
@@ -147,7 +193,7 @@ public final class TraceMapperV0_4 implements TraceMapper {
       writable.writeLong(span.getDurationNano());
       /* 9  */
       writable.writeUTF8(TYPE);
-      writable.writeString(span.getType(), null);
+      writable.writeString(span.getType(), encodingCache);
       /* 10 */
       writable.writeUTF8(ERROR);
       writable.writeInt(span.getError());
@@ -172,6 +218,12 @@ public final class TraceMapperV0_4 implements TraceMapper {
   @Override
   public void reset() {}
 
+  /** The cache of encoded strings, which lives as long as the mapper. */
+  @Override
+  public FrequencyEncodingCache getEncodingCache() {
+    return encodingCache;
+  }
+
   @Override
   public String endpoint() {
     return "v0.4";
@@ -2,6 +2,8 @@ package datadog.trace.common.writer.ddagent;
 
 import static datadog.communication.http.OkHttpUtils.msgpackRequestBodyOf;
 
+import datadog.communication.serialization.EncodingCache;
+import datadog.communication.serialization.FrequencyEncodingCache;
 import datadog.communication.serialization.GrowableBuffer;
 import datadog.communication.serialization.Mapper;
 import datadog.communication.serialization.Writable;
@@ -13,6 +15,7 @@ import datadog.trace.common.writer.Payload;
 import datadog.trace.core.CoreSpan;
 import datadog.trace.core.Metadata;
 import datadog.trace.core.MetadataConsumer;
+import datadog.trace.core.TagMap;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritableByteChannel;
@@ -25,7 +28,10 @@ import okhttp3.RequestBody;
 public final class TraceMapperV0_5 implements TraceMapper {
 
   private final WritableFormatter dictionaryWriter;
-  private final DictionaryMapper dictionaryMapper = new DictionaryMapper();
+  // the dictionary is rebuilt for every payload, but the encoding of its strings is kept
+  private final FrequencyEncodingCache encodingCache =
+      new FrequencyEncodingCache(ENCODING_CACHE_CAPACITY, ENCODING_CACHE_MAX_LENGTH);
+  private final DictionaryMapper dictionaryMapper = new DictionaryMapper(encodingCache);
   private final Map<Object, Integer> encoding = new HashMap<>();
   private final GrowableBuffer dictionary;
 
@@ -119,14 +125,26 @@ public final class TraceMapperV0_5 implements TraceMapper {
     return "v0.5";
   }
 
+  /** The cache of encoded strings, which lives as long as the mapper. */
+  @Override
+  public FrequencyEncodingCache getEncodingCache() {
+    return encodingCache;
+  }
+
   private static class DictionaryMapper implements Mapper<Object> {
 
+    private final EncodingCache encodingCache;
+
+    DictionaryMapper(final EncodingCache encodingCache) {
+      this.encodingCache = encodingCache;
+    }
+
     @Override
     public void map(final Object data, final Writable packer) {
       if (data instanceof UTF8BytesString) {
         packer.writeObject(data, null);
       } else {
-        packer.writeString(String.valueOf(data), null);
+        packer.writeString(String.valueOf(data), encodingCache);
       }
     }
   }
@@ -175,10 +193,11 @@ public final class TraceMapperV0_5 implements TraceMapper {
     }
   }
 
-  private final class MetaWriter extends MetadataConsumer {
+  private final class MetaWriter extends MetadataConsumer implements TagMap.Visitor {
 
     private Writable writable;
     private boolean writeSamplingPriority;
+    private boolean writingMetrics;
 
     MetaWriter withWritable(final Writable writable) {
       this.writable = writable;
@@ -192,9 +211,12 @@ public final class TraceMapperV0_5 implements TraceMapper {
 
     @Override
     public void accept(Metadata metadata) {
+      TagMap tags = metadata.getTags();
+      int numberCount = tags.numberCount();
       int metaSize =
           metadata.getBaggage().size()
-              + metadata.getTags().size()
+              + tags.size()
+              - numberCount
               + (null == metadata.getHttpStatusCode() ? 0 : 1)
               + (null == metadata.getOrigin() ? 0 : 1)
               + 1;
@@ -202,13 +224,8 @@ public final class TraceMapperV0_5 implements TraceMapper {
           (writeSamplingPriority && metadata.hasSamplingPriority() ? 1 : 0)
               + (metadata.measured() ? 1 : 0)
               + (metadata.topLevel() ? 1 : 0)
-              + 1;
-      for (Map.Entry<String, Object> tag : metadata.getTags().entrySet()) {
-        if (tag.getValue() instanceof Number) {
-          ++metricsSize;
-          --metaSize;
-        }
-      }
+              + 1
+              + numberCount;
       writable.startMap(metaSize);
       // we don't need to deduplicate any overlap between tags and baggage here
       // since they will be accumulated into maps in the same order downstream,
@@ -227,12 +244,8 @@ public final class TraceMapperV0_5 implements TraceMapper {
         writeDictionaryEncoded(writable, ORIGIN_KEY);
         writeDictionaryEncoded(writable, metadata.getOrigin());
       }
-      for (Map.Entry<String, Object> entry : metadata.getTags().entrySet()) {
-        if (!(entry.getValue() instanceof Number)) {
-          writeDictionaryEncoded(writable, entry.getKey());
-          writeDictionaryEncoded(writable, entry.getValue());
-        }
-      }
+      writingMetrics = false;
+      tags.visit(this);
       writable.startMap(metricsSize);
       if (writeSamplingPriority && metadata.hasSamplingPriority()) {
         writeDictionaryEncoded(writable, SAMPLING_PRIORITY_KEY);
@@ -248,11 +261,52 @@ public final class TraceMapperV0_5 implements TraceMapper {
       }
       writeDictionaryEncoded(writable, THREAD_ID);
       writable.writeLong(metadata.getThreadId());
-      for (Map.Entry<String, Object> entry : metadata.getTags().entrySet()) {
-        if (entry.getValue() instanceof Number) {
-          writeDictionaryEncoded(writable, entry.getKey());
-          writable.writeObject(entry.getValue(), null);
+      writingMetrics = true;
+      tags.visit(this);
+    }
+
+    @Override
+    public void visit(String key, Object value) {
+      if (value instanceof Number) {
+        if (writingMetrics) {
+          writeDictionaryEncoded(writable, key);
+          writable.writeObject(value, null);
         }
+      } else if (!writingMetrics) {
+        writeDictionaryEncoded(writable, key);
+        writeDictionaryEncoded(writable, value);
+      }
+    }
+
+    @Override
+    public void visit(String key, int value) {
+      if (writingMetrics) {
+        writeDictionaryEncoded(writable, key);
+        writable.writeInt(value);
+      }
+    }
+
+    @Override
+    public void visit(String key, long value) {
+      if (writingMetrics) {
+        writeDictionaryEncoded(writable, key);
+        writable.writeLong(value);
+      }
+    }
+
+    @Override
+    public void visit(String key, float value) {
+      if (writingMetrics) {
+        writeDictionaryEncoded(writable, key);
+        writable.writeFloat(value);
+      }
+    }
+
+    @Override
+    public void visit(String key, double value) {
+      if (writingMetrics) {
+        writeDictionaryEncoded(writable, key);
+        writable.writeDouble(value);
       }
     }
   }
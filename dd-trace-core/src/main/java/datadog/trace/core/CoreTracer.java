@@ -53,6 +53,7 @@ import datadog.trace.common.sampling.PrioritySampler;
 import datadog.trace.common.sampling.Sampler;
 import datadog.trace.common.sampling.SingleSpanSampler;
 import datadog.trace.common.writer.DDAgentWriter;
+import datadog.trace.common.writer.TailSamplingWriter;
 import datadog.trace.common.writer.Writer;
 import datadog.trace.common.writer.WriterFactory;
 import datadog.trace.common.writer.ddintake.DDIntakeTraceInterceptor;
@@ -62,6 +63,7 @@ import datadog.trace.core.datastreams.StubDataStreamsCheckpointer;
 import datadog.trace.core.monitor.HealthMetrics;
 import datadog.trace.core.monitor.MonitoringImpl;
 import datadog.trace.core.monitor.TracerHealthMetrics;
+import datadog.trace.core.propagation.BinaryCodec;
 import datadog.trace.core.propagation.ExtractedContext;
 import datadog.trace.core.propagation.HttpCodec;
 import datadog.trace.core.propagation.PropagationTags;
@@ -525,9 +527,13 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     sharedCommunicationObjects.createRemaining(config);
 
     if (writer == null) {
-      this.writer =
+      Writer tracerWriter =
           WriterFactory.createWriter(
               config, sharedCommunicationObjects, sampler, singleSpanSampler, this.statsDClient);
+      this.writer =
+          config.isTraceTailSamplingEnabled()
+              ? new TailSamplingWriter(tracerWriter, config, this.healthMetrics)
+              : tracerWriter;
     } else {
       this.writer = writer;
     }
@@ -535,7 +541,7 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     this.pendingTraceBuffer =
         strictTraceWrites
             ? PendingTraceBuffer.discarding()
-            : PendingTraceBuffer.delaying(this.timeSource);
+            : PendingTraceBuffer.delaying(this.timeSource, this.healthMetrics);
     pendingTraceFactory =
         new PendingTrace.Factory(
             this, pendingTraceBuffer, this.timeSource, strictTraceWrites, healthMetrics);
@@ -759,6 +765,32 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     inject(span.context(), carrier, setter, style);
   }
 
+  @Override
+  public <C> void injectBinary(
+      AgentSpan span, C carrier, BinarySetter<C> setter, LinkedHashMap<String, String> sortedTags) {
+    if (!(span.context() instanceof DDSpanContext)) {
+      return;
+    }
+
+    final DDSpanContext ddSpanContext = (DDSpanContext) span.context();
+    setSamplingPriorityIfNecessary(ddSpanContext.getTrace().getRootSpan());
+
+    byte[] encodedPathway = null;
+    if (null != sortedTags) {
+      PathwayContext pathwayContext = ddSpanContext.getPathwayContext();
+      pathwayContext.setCheckpoint(sortedTags, dataStreamsCheckpointer);
+      try {
+        encodedPathway = pathwayContext.encode();
+        if (encodedPathway != null) {
+          injectPathwayTags(span, pathwayContext);
+        }
+      } catch (IOException e) {
+        log.debug("Unable to set encode pathway context", e);
+      }
+    }
+    setter.set(carrier, BinaryCodec.CONTEXT_KEY, BinaryCodec.encode(ddSpanContext, encodedPathway));
+  }
+
   @Override
   public <C> void injectBinaryPathwayContext(
       AgentSpan span, C carrier, BinarySetter<C> setter, LinkedHashMap<String, String> sortedTags) {
@@ -823,6 +855,12 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     return extractor.extract(carrier, getter);
   }
 
+  @Override
+  public <C> AgentSpan.Context.Extracted extractBinary(
+      final C carrier, final BinaryContextVisitor<C> getter) {
+    return BinaryCodec.extract(carrier, getter, propagationTagsFactory);
+  }
+
   @Override
   public <C> PathwayContext extractBinaryPathwayContext(C carrier, BinaryContextVisitor<C> getter) {
     return dataStreamsCheckpointer.extractBinaryPathwayContext(carrier, getter);
@@ -3,6 +3,7 @@ package datadog.trace.core;
 import static datadog.trace.api.cache.RadixTreeCache.HTTP_STATUSES;
 
 import datadog.trace.api.Config;
+import datadog.trace.api.DDSpanId;
 import datadog.trace.api.DDTags;
 import datadog.trace.api.DDTraceId;
 import datadog.trace.api.Functions;
@@ -88,7 +89,7 @@ public class DDSpanContext implements AgentSpan.Context, RequestContext, TraceSe
    * rather read and accessed in a serial fashion on thread after thread. The synchronization can
    * then be wrapped around bulk operations to minimize the costly atomic operations.
    */
-  private final Map<String, Object> unsafeTags;
+  private final TagMap unsafeTags;
 
   /** The service name is required, otherwise the span are dropped by the agent */
   private volatile String serviceName;
@@ -169,10 +170,8 @@ public class DDSpanContext implements AgentSpan.Context, RequestContext, TraceSe
     assert pathwayContext != null;
     this.pathwayContext = pathwayContext;
 
-    // The +1 is the magic number from the tags below that we set at the end,
-    // and "* 4 / 3" is to make sure that we don't resize immediately
-    final int capacity = Math.max((tagsSize <= 0 ? 3 : (tagsSize + 1)) * 4 / 3, 8);
-    this.unsafeTags = new HashMap<>(capacity);
+    // The +1 is the magic number from the tags below that we set at the end
+    this.unsafeTags = new TagMap(tagsSize <= 0 ? 3 : (tagsSize + 1));
 
     setServiceName(serviceName);
     this.operationName = operationName;
@@ -505,6 +504,35 @@ public class DDSpanContext implements AgentSpan.Context, RequestContext, TraceSe
     }
   }
 
+  public void setMetric(final CharSequence key, final short value) {
+    // boxed like any other Number, so the tag keeps its Short type
+    setMetric(key, (Number) value);
+  }
+
+  public void setMetric(final CharSequence key, final int value) {
+    synchronized (unsafeTags) {
+      unsafeTags.putInt(key.toString(), value);
+    }
+  }
+
+  public void setMetric(final CharSequence key, final long value) {
+    synchronized (unsafeTags) {
+      unsafeTags.putLong(key.toString(), value);
+    }
+  }
+
+  public void setMetric(final CharSequence key, final float value) {
+    synchronized (unsafeTags) {
+      unsafeTags.putFloat(key.toString(), value);
+    }
+  }
+
+  public void setMetric(final CharSequence key, final double value) {
+    synchronized (unsafeTags) {
+      unsafeTags.putDouble(key.toString(), value);
+    }
+  }
+
   /**
    * Add a tag to the span. Tags are not propagated to the children
    *
@@ -571,16 +599,16 @@ public class DDSpanContext implements AgentSpan.Context, RequestContext, TraceSe
 
   public Map<String, Object> getTags() {
     synchronized (unsafeTags) {
-      Map<String, Object> tags = new HashMap<>(unsafeTags);
-      tags.put(DDTags.THREAD_ID, threadId);
+      TagMap tags = unsafeTags.copy();
+      tags.putLong(DDTags.THREAD_ID, threadId);
       tags.put(DDTags.THREAD_NAME, threadName.toString());
       if (samplingPriority != PrioritySampling.UNSET) {
-        tags.put(SAMPLE_RATE_KEY, samplingPriority);
+        tags.putInt(SAMPLE_RATE_KEY, samplingPriority);
       }
       if (httpStatusCode != 0) {
-        tags.put(Tags.HTTP_STATUS, (int) httpStatusCode);
+        tags.putInt(Tags.HTTP_STATUS, httpStatusCode);
       }
-      return Collections.unmodifiableMap(tags);
+      return tags.freeze();
     }
   }
 
@@ -588,6 +616,16 @@ public class DDSpanContext implements AgentSpan.Context, RequestContext, TraceSe
     synchronized (unsafeTags) {
       Map<String, String> baggageItemsWithPropagationTags = new HashMap<>(baggageItems);
       propagationTags.fillTagMap(baggageItemsWithPropagationTags);
+      long traceIdHighOrderBits = traceId.toHighOrderLong();
+      if (traceIdHighOrderBits != 0 && getRootSpanContextIfDifferent() == null) {
+        // the higher order bits of a 128 bit trace id go on the local root span
+        if (!baggageItemsWithPropagationTags.containsKey(
+            PropagationTags.TRACE_ID_HIGH_ORDER_BITS_TAG)) {
+          baggageItemsWithPropagationTags.put(
+              PropagationTags.TRACE_ID_HIGH_ORDER_BITS_TAG,
+              DDSpanId.toHexStringPadded(traceIdHighOrderBits));
+        }
+      }
       consumer.accept(
           new Metadata(
               threadId,
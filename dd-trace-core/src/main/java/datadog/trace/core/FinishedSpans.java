@@ -0,0 +1,219 @@
+package datadog.trace.core;
+
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Append-only collection of the finished spans of a {@link PendingTrace}.
+ *
+ * <p>Spans are stored in pre-sized chunks, claiming a slot is a single atomic increment. When a
+ * chunk is full a bigger one is chained in front of it. {@link #drain()} swaps the chunks out and
+ * hands them to the writer as a list view, without copying the spans.
+ *
+ * <p>Iteration and {@link #drain()} return the most recently added spans first, which is the order
+ * the traces have always been written in.
+ */
+final class FinishedSpans extends AbstractCollection<DDSpan> {
+
+  private static final int INITIAL_CAPACITY = 8;
+  private static final int MAX_CHUNK_CAPACITY = 4096;
+
+  // added to the claimed count of a drained chunk so appenders move on to the new chunk
+  private static final int CLOSED = 1 << 30;
+
+  static final class Chunk {
+    final AtomicReferenceArray<DDSpan> spans;
+    final Chunk previous;
+    volatile int claimed;
+    // number of spans in the chunk once it has been drained
+    int count;
+
+    Chunk(int capacity, Chunk previous) {
+      this.spans = new AtomicReferenceArray<>(capacity);
+      this.previous = previous;
+    }
+
+    int capacity() {
+      return spans.length();
+    }
+
+    int visibleCount() {
+      return Math.min(claimed, capacity());
+    }
+  }
+
+  private static final AtomicIntegerFieldUpdater<Chunk> CLAIMED =
+      AtomicIntegerFieldUpdater.newUpdater(Chunk.class, "claimed");
+
+  private static final AtomicReferenceFieldUpdater<FinishedSpans, Chunk> CURRENT =
+      AtomicReferenceFieldUpdater.newUpdater(FinishedSpans.class, Chunk.class, "current");
+
+  private volatile Chunk current = new Chunk(INITIAL_CAPACITY, null);
+
+  @Override
+  public boolean add(DDSpan span) {
+    while (true) {
+      Chunk chunk = current;
+      int index = CLAIMED.getAndIncrement(chunk);
+      if (index < chunk.capacity()) {
+        chunk.spans.lazySet(index, span);
+        return true;
+      }
+      if (index < CLOSED) {
+        // the chunk is full, chain a bigger one in front of it unless another thread did already
+        CURRENT.compareAndSet(
+            this, chunk, new Chunk(Math.min(chunk.capacity() << 1, MAX_CHUNK_CAPACITY), chunk));
+      }
+      // otherwise the chunk has been drained and replaced, so retry with the new one
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    Chunk chunk = current;
+    return chunk.claimed == 0 && null == chunk.previous;
+  }
+
+  /** @return the number of spans which have claimed a slot, some may not be visible yet */
+  @Override
+  public int size() {
+    int size = 0;
+    for (Chunk chunk = current; null != chunk; chunk = chunk.previous) {
+      size += chunk.visibleCount();
+    }
+    return size;
+  }
+
+  /**
+   * Takes all the spans added so far. Spans added concurrently are either part of the returned list
+   * or left for the next drain. Must not be called concurrently with itself.
+   */
+  List<DDSpan> drain() {
+    Chunk head;
+    do {
+      head = current;
+      if (head.claimed == 0 && null == head.previous) {
+        return Collections.emptyList();
+      }
+      // the next trace chunk starts as big as the one which was needed so far
+    } while (!CURRENT.compareAndSet(this, head, new Chunk(head.capacity(), null)));
+    int size = 0;
+    for (Chunk chunk = head; null != chunk; chunk = chunk.previous) {
+      chunk.count = Math.min(CLAIMED.getAndAdd(chunk, CLOSED), chunk.capacity());
+      // wait for appenders which have claimed a slot but not filled it yet
+      for (int i = 0; i < chunk.count; i++) {
+        while (null == chunk.spans.get(i)) {
+          Thread.yield();
+        }
+      }
+      size += chunk.count;
+    }
+    return new ChunkList(head, size);
+  }
+
+  /** @return Long.MAX_VALUE if no spans finished. */
+  long oldestFinishedTime() {
+    long oldest = Long.MAX_VALUE;
+    for (Chunk chunk = current; null != chunk; chunk = chunk.previous) {
+      int count = chunk.visibleCount();
+      for (int i = 0; i < count; i++) {
+        DDSpan span = chunk.spans.get(i);
+        if (null != span) {
+          oldest = Math.min(oldest, span.getStartTime() + span.getDurationNano());
+        }
+      }
+    }
+    return oldest;
+  }
+
+  /** Weakly consistent iterator over the spans visible when it was created. */
+  @Override
+  public Iterator<DDSpan> iterator() {
+    return new Iterator<DDSpan>() {
+      private Chunk chunk = current;
+      private int index = chunk.visibleCount();
+      private DDSpan next = advance();
+
+      private DDSpan advance() {
+        while (null != chunk) {
+          while (--index >= 0) {
+            DDSpan span = chunk.spans.get(index);
+            if (null != span) {
+              return span;
+            }
+          }
+          chunk = chunk.previous;
+          index = null == chunk ? 0 : chunk.visibleCount();
+        }
+        return null;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return null != next;
+      }
+
+      @Override
+      public DDSpan next() {
+        if (null == next) {
+          throw new NoSuchElementException();
+        }
+        DDSpan span = next;
+        next = advance();
+        return span;
+      }
+    };
+  }
+
+  /** List view over drained chunks, the most recently added span first. */
+  private static final class ChunkList extends AbstractList<DDSpan> implements RandomAccess {
+    private final Chunk head;
+    private final int size;
+
+    ChunkList(Chunk head, int size) {
+      this.head = head;
+      this.size = size;
+    }
+
+    @Override
+    public DDSpan get(int index) {
+      checkIndex(index);
+      Chunk chunk = head;
+      while (index >= chunk.count) {
+        index -= chunk.count;
+        chunk = chunk.previous;
+      }
+      return chunk.spans.get(chunk.count - 1 - index);
+    }
+
+    @Override
+    public DDSpan set(int index, DDSpan span) {
+      checkIndex(index);
+      Chunk chunk = head;
+      while (index >= chunk.count) {
+        index -= chunk.count;
+        chunk = chunk.previous;
+      }
+      return chunk.spans.getAndSet(chunk.count - 1 - index, span);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    private void checkIndex(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+    }
+  }
+}
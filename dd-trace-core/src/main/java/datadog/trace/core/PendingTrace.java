@@ -8,7 +8,6 @@ import datadog.trace.bootstrap.instrumentation.api.AgentTrace;
 import datadog.trace.core.monitor.HealthMetrics;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
@@ -72,9 +71,9 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
   private final TimeSource timeSource;
   private final boolean strictTraceWrites;
   private final HealthMetrics healthMetrics;
-  private final ConcurrentLinkedDeque<DDSpan> finishedSpans = new ConcurrentLinkedDeque<>();
+  private final FinishedSpans finishedSpans = new FinishedSpans();
 
-  // We must maintain a separate count because ConcurrentLinkedDeque.size() is a linear operation.
+  // We must maintain a separate count because FinishedSpans.size() is a linear operation.
   private volatile int completedSpanCount = 0;
   private static final AtomicIntegerFieldUpdater<PendingTrace> COMPLETED_SPAN_COUNT =
       AtomicIntegerFieldUpdater.newUpdater(PendingTrace.class, "completedSpanCount");
@@ -152,9 +151,12 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
 
   @Override
   public boolean lastReferencedNanosAgo(long nanos) {
-    long currentNanoTicks = timeSource.getNanoTicks();
-    long age = currentNanoTicks - lastReferenced;
-    return nanos < age;
+    return nanos < nanosSinceLastReferenced();
+  }
+
+  @Override
+  public long nanosSinceLastReferenced() {
+    return timeSource.getNanoTicks() - lastReferenced;
   }
 
   void registerSpan(final DDSpan span) {
@@ -164,7 +166,7 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
   }
 
   PublishState onPublish(final DDSpan span) {
-    finishedSpans.addFirst(span);
+    finishedSpans.add(span);
     // There is a benign race here where the span added above can get written out by a writer in
     // progress before the count has been incremented. It's being taken care of in the internal
     // write method.
@@ -180,11 +182,7 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
   /** @return Long.MAX_VALUE if no spans finished. */
   @Override
   public long oldestFinishedTime() {
-    long oldest = Long.MAX_VALUE;
-    for (DDSpan span : finishedSpans) {
-      oldest = Math.min(oldest, span.getStartTime() + span.getDurationNano());
-    }
-    return oldest;
+    return finishedSpans.oldestFinishedTime();
   }
 
   /**
@@ -269,12 +267,8 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
           // count(s) will be incremented, and any new spans added during the period that the count
           // was negative will be written by someone even if we don't write them right now.
           if (size > 0 && (!isPartial || size > tracer.getPartialFlushMinSpans())) {
-            trace = new ArrayList<>(size);
-            DDSpan span = finishedSpans.pollFirst();
-            while (null != span) {
-              trace.add(span);
-              span = finishedSpans.pollFirst();
-            }
+            // hands the finished chunks over to the writer without copying them
+            trace = finishedSpans.drain();
           } else {
             trace = EMPTY;
           }
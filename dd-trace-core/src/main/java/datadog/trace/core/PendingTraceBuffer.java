@@ -3,8 +3,11 @@ package datadog.trace.core;
 import static datadog.trace.util.AgentThreadFactory.AgentThread.TRACE_MONITOR;
 import static datadog.trace.util.AgentThreadFactory.THREAD_JOIN_TIMOUT_MS;
 import static datadog.trace.util.AgentThreadFactory.newAgentThread;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 import datadog.trace.api.time.TimeSource;
+import datadog.trace.core.monitor.HealthMetrics;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.jctools.queues.MessagePassingQueue;
@@ -32,16 +35,31 @@ public abstract class PendingTraceBuffer implements AutoCloseable {
      *     otherwise
      */
     boolean setEnqueued(boolean enqueued);
+
+    /**
+     * @return nanoseconds since the {@code Element} was last referenced, or a negative value if
+     *     unknown in which case {@link #lastReferencedNanosAgo(long)} is polled instead
+     */
+    default long nanosSinceLastReferenced() {
+      return -1;
+    }
   }
 
   private static class DelayingPendingTraceBuffer extends PendingTraceBuffer {
     private static final long FORCE_SEND_DELAY_MS = TimeUnit.SECONDS.toMillis(5);
     private static final long SEND_DELAY_NS = TimeUnit.MILLISECONDS.toNanos(500);
-    private static final long SLEEP_TIME_MS = 100;
+    private static final long RECHECK_DELAY_NS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long REPORT_INTERVAL_NS = TimeUnit.SECONDS.toNanos(1);
+    // 512 ticks of 10ms, a turn of the wheel covers the force send delay
+    private static final long TICK_NS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int WHEEL_SLOTS = 512;
 
     private final MpscBlockingConsumerArrayQueue<Element> queue;
     private final Thread worker;
     private final TimeSource timeSource;
+    private final HealthMetrics healthMetrics;
+    // only accessed by the worker thread
+    private final PendingTraceWheel wheel;
 
     private volatile boolean closed = false;
     private final AtomicInteger flushCounter = new AtomicInteger(0);
@@ -104,15 +122,6 @@ public abstract class PendingTraceBuffer implements AutoCloseable {
       }
     }
 
-    private static final class WriteDrain implements MessagePassingQueue.Consumer<Element> {
-      private static final WriteDrain WRITE_DRAIN = new WriteDrain();
-
-      @Override
-      public void accept(Element pendingTrace) {
-        pendingTrace.write();
-      }
-    }
-
     private static final class FlushElement implements Element {
       static FlushElement FLUSH_ELEMENT = new FlushElement();
 
@@ -140,53 +149,126 @@ public abstract class PendingTraceBuffer implements AutoCloseable {
       }
     }
 
-    private final class Worker implements Runnable {
+    private final class Worker
+        implements Runnable, MessagePassingQueue.Consumer<Element>, PendingTraceWheel.Expiry {
+
+      private boolean flushRequested;
+      private long lastReportNanoTicks;
+      private int lastReportedSize;
 
       @Override
       public void run() {
         try {
           while (!closed && !Thread.currentThread().isInterrupted()) {
-
-            Element pendingTrace = queue.take(); // block until available.
-
-            if (pendingTrace instanceof FlushElement) {
-              // Since this is an MPSC queue, the drain needs to be called on the consumer thread
-              queue.drain(WriteDrain.WRITE_DRAIN);
-              flushCounter.incrementAndGet();
-              continue;
+            Element pendingTrace;
+            if (wheel.isEmpty()) {
+              pendingTrace = queue.take(); // block until available.
+            } else {
+              // only wake up when the next deadline is due, unless new elements arrive
+              long timeout = wheel.nanosUntilNextTick(timeSource.getNanoTicks());
+              pendingTrace = timeout > 0 ? queue.poll(timeout, NANOSECONDS) : queue.poll();
             }
-
-            // The element is no longer in the queue
-            pendingTrace.setEnqueued(false);
-
-            long oldestFinishedTime = pendingTrace.oldestFinishedTime();
-
-            long finishTimestampMillis = TimeUnit.NANOSECONDS.toMillis(oldestFinishedTime);
-            if (finishTimestampMillis <= timeSource.getCurrentTimeMillis() - FORCE_SEND_DELAY_MS) {
-              // Root span is getting old. Send the trace to avoid being discarded by agent.
-              pendingTrace.write();
-              continue;
+            if (null != pendingTrace) {
+              accept(pendingTrace);
+              // Since this is an MPSC queue, the drain needs to be called on the consumer thread
+              queue.drain(this);
             }
-
-            if (pendingTrace.lastReferencedNanosAgo(SEND_DELAY_NS)) {
-              // Trace has been unmodified long enough, go ahead and write whatever is finished.
-              pendingTrace.write();
+            if (flushRequested) {
+              wheel.clear(this);
+              flushRequested = false;
+              flushCounter.incrementAndGet();
             } else {
-              // Trace is too new.  Requeue it and sleep to avoid a hot loop.
-              enqueue(pendingTrace);
-              Thread.sleep(SLEEP_TIME_MS);
+              wheel.advance(timeSource.getNanoTicks(), this);
             }
+            reportPendingTraces();
           }
         } catch (InterruptedException e) {
           Thread.currentThread().interrupt();
         }
       }
+
+      /** Moves an element from the queue to the wheel. */
+      @Override
+      public void accept(Element pendingTrace) {
+        if (pendingTrace instanceof FlushElement) {
+          flushRequested = true;
+        } else {
+          schedule(pendingTrace);
+        }
+      }
+
+      /** Checks again an element once its deadline has passed. */
+      @Override
+      public void expire(Element pendingTrace) {
+        if (flushRequested) {
+          write(pendingTrace);
+        } else {
+          schedule(pendingTrace);
+        }
+      }
+
+      /** Writes the element if it is ready, or puts it in the wheel until it could be ready. */
+      private void schedule(Element pendingTrace) {
+        long oldestFinishedTime = pendingTrace.oldestFinishedTime();
+
+        long finishTimestampMillis = TimeUnit.NANOSECONDS.toMillis(oldestFinishedTime);
+        long forceSendInMillis =
+            finishTimestampMillis + FORCE_SEND_DELAY_MS - timeSource.getCurrentTimeMillis();
+        if (forceSendInMillis <= 0) {
+          // Root span is getting old. Send the trace to avoid being discarded by agent.
+          write(pendingTrace);
+          return;
+        }
+
+        long sendInNanos;
+        long lastReferencedNanos = pendingTrace.nanosSinceLastReferenced();
+        if (lastReferencedNanos >= 0) {
+          sendInNanos = Math.max(0, SEND_DELAY_NS - lastReferencedNanos);
+        } else {
+          // the element can only tell whether it is old enough, so check it periodically
+          sendInNanos = pendingTrace.lastReferencedNanosAgo(SEND_DELAY_NS) ? 0 : RECHECK_DELAY_NS;
+        }
+        if (sendInNanos == 0) {
+          // Trace has been unmodified long enough, go ahead and write whatever is finished.
+          write(pendingTrace);
+          return;
+        }
+
+        // Trace is too new. Keep it enqueued until one of the delays could have passed.
+        long delayNanos = Math.min(sendInNanos, MILLISECONDS.toNanos(forceSendInMillis));
+        wheel.schedule(pendingTrace, timeSource.getNanoTicks() + delayNanos);
+      }
+
+      private void write(Element pendingTrace) {
+        // The element is no longer in the buffer
+        pendingTrace.setEnqueued(false);
+        pendingTrace.write();
+      }
+
+      private void reportPendingTraces() {
+        int size = wheel.size();
+        long now = timeSource.getNanoTicks();
+        if (size != lastReportedSize
+            && (size == 0 || now - lastReportNanoTicks >= REPORT_INTERVAL_NS)) {
+          lastReportNanoTicks = now;
+          lastReportedSize = size;
+          healthMetrics.onBufferedTraces(size);
+        }
+      }
     }
 
-    public DelayingPendingTraceBuffer(int bufferSize, TimeSource timeSource) {
+    public DelayingPendingTraceBuffer(
+        int bufferSize, TimeSource timeSource, HealthMetrics healthMetrics) {
       this.queue = new MpscBlockingConsumerArrayQueue<>(bufferSize);
       this.worker = newAgentThread(TRACE_MONITOR, new Worker());
       this.timeSource = timeSource;
+      this.healthMetrics = healthMetrics;
+      this.wheel = new PendingTraceWheel(WHEEL_SLOTS, TICK_NS, timeSource.getNanoTicks());
+    }
+
+    /** @return the number of elements waiting for their deadline */
+    int bufferedTraces() {
+      return wheel.size();
     }
   }
 
@@ -210,7 +292,11 @@ public abstract class PendingTraceBuffer implements AutoCloseable {
   }
 
   public static PendingTraceBuffer delaying(TimeSource timeSource) {
-    return new DelayingPendingTraceBuffer(BUFFER_SIZE, timeSource);
+    return delaying(timeSource, HealthMetrics.NO_OP);
+  }
+
+  public static PendingTraceBuffer delaying(TimeSource timeSource, HealthMetrics healthMetrics) {
+    return new DelayingPendingTraceBuffer(BUFFER_SIZE, timeSource, healthMetrics);
   }
 
   public static PendingTraceBuffer discarding() {
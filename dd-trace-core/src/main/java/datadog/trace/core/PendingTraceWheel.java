@@ -0,0 +1,153 @@
+package datadog.trace.core;
+
+import java.util.Arrays;
+
+/**
+ * Hashed timer wheel holding the {@link PendingTraceBuffer.Element elements} waiting in the {@link
+ * PendingTraceBuffer} until their deadline. Scheduling is constant time and an element is only
+ * looked at again once its deadline has passed, deadlines fire at most one tick late.
+ *
+ * <p>Deadlines further away than a full turn of the wheel stay in their bucket until the right
+ * turn. This class is not thread-safe, it is only used by the buffer's worker thread.
+ */
+final class PendingTraceWheel {
+
+  interface Expiry {
+    void expire(PendingTraceBuffer.Element element);
+  }
+
+  private static final class Bucket {
+    PendingTraceBuffer.Element[] elements = new PendingTraceBuffer.Element[4];
+    long[] deadlineTicks = new long[4];
+    int size;
+
+    void add(PendingTraceBuffer.Element element, long deadlineTick) {
+      if (size == elements.length) {
+        elements = Arrays.copyOf(elements, size << 1);
+        deadlineTicks = Arrays.copyOf(deadlineTicks, size << 1);
+      }
+      elements[size] = element;
+      deadlineTicks[size] = deadlineTick;
+      ++size;
+    }
+  }
+
+  private final long tickNanos;
+  private final long originNanoTicks;
+  private final int mask;
+  private final Bucket[] buckets;
+
+  // the last tick which has been processed
+  private long currentTick;
+  private int size;
+
+  // expired elements are collected first so they can be rescheduled while expiring
+  private PendingTraceBuffer.Element[] expired = new PendingTraceBuffer.Element[16];
+
+  /**
+   * @param slots number of buckets, rounded up to a power of two
+   * @param tickNanos width of each bucket
+   * @param nowNanoTicks current time, ticks are counted from it
+   */
+  PendingTraceWheel(int slots, long tickNanos, long nowNanoTicks) {
+    int capacity = Integer.highestOneBit(Math.max(slots, 2) - 1) << 1;
+    this.tickNanos = tickNanos;
+    this.originNanoTicks = nowNanoTicks;
+    this.mask = capacity - 1;
+    this.buckets = new Bucket[capacity];
+    for (int i = 0; i < capacity; i++) {
+      buckets[i] = new Bucket();
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Schedules the element to expire once {@code deadlineNanoTicks} has passed. */
+  void schedule(PendingTraceBuffer.Element element, long deadlineNanoTicks) {
+    long elapsed = deadlineNanoTicks - originNanoTicks;
+    // round up so elements never expire early
+    long deadlineTick = Math.max((elapsed + tickNanos - 1) / tickNanos, currentTick + 1);
+    buckets[(int) (deadlineTick & mask)].add(element, deadlineTick);
+    ++size;
+  }
+
+  /**
+   * @return nanoseconds until the next non-empty bucket is due, zero if it is due already or {@code
+   *     Long.MAX_VALUE} if the wheel is empty
+   */
+  long nanosUntilNextTick(long nowNanoTicks) {
+    if (size == 0) {
+      return Long.MAX_VALUE;
+    }
+    long tick = currentTick + 1;
+    for (int i = 0; i <= mask && buckets[(int) (tick & mask)].size == 0; i++) {
+      ++tick;
+    }
+    return Math.max(0, originNanoTicks + tick * tickNanos - nowNanoTicks);
+  }
+
+  /** Expires every element whose deadline has passed, the expiry may schedule them again. */
+  void advance(long nowNanoTicks, Expiry expiry) {
+    long targetTick = (nowNanoTicks - originNanoTicks) / tickNanos;
+    if (targetTick <= currentTick) {
+      return;
+    }
+    // after a long pause every bucket is visited once
+    long ticks = Math.min(targetTick - currentTick, mask + 1);
+    long tick = currentTick;
+    currentTick = targetTick;
+    int expiredCount = 0;
+    for (long i = 0; i < ticks; i++) {
+      Bucket bucket = buckets[(int) (++tick & mask)];
+      int kept = 0;
+      for (int j = 0; j < bucket.size; j++) {
+        PendingTraceBuffer.Element element = bucket.elements[j];
+        long deadlineTick = bucket.deadlineTicks[j];
+        if (deadlineTick <= targetTick) {
+          if (expiredCount == expired.length) {
+            expired = Arrays.copyOf(expired, expiredCount << 1);
+          }
+          expired[expiredCount++] = element;
+        } else {
+          bucket.elements[kept] = element;
+          bucket.deadlineTicks[kept] = deadlineTick;
+          ++kept;
+        }
+      }
+      Arrays.fill(bucket.elements, kept, bucket.size, null);
+      size -= bucket.size - kept;
+      bucket.size = kept;
+    }
+    expireAll(expiredCount, expiry);
+  }
+
+  /** Removes every element from the wheel, whatever its deadline. */
+  void clear(Expiry expiry) {
+    int expiredCount = 0;
+    for (Bucket bucket : buckets) {
+      if (expiredCount + bucket.size > expired.length) {
+        expired = Arrays.copyOf(expired, Math.max(expired.length << 1, expiredCount + bucket.size));
+      }
+      System.arraycopy(bucket.elements, 0, expired, expiredCount, bucket.size);
+      expiredCount += bucket.size;
+      Arrays.fill(bucket.elements, 0, bucket.size, null);
+      bucket.size = 0;
+    }
+    size = 0;
+    expireAll(expiredCount, expiry);
+  }
+
+  private void expireAll(int expiredCount, Expiry expiry) {
+    for (int i = 0; i < expiredCount; i++) {
+      PendingTraceBuffer.Element element = expired[i];
+      expired[i] = null;
+      expiry.expire(element);
+    }
+  }
+}
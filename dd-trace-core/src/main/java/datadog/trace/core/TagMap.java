@@ -0,0 +1,398 @@
+package datadog.trace.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Open-addressed map used to store span tags. Compared to a {@link java.util.HashMap} it doesn't
+ * allocate a node per tag, can hold {@code int}, {@code long}, {@code float} and {@code double}
+ * values without boxing them, and can be iterated in place with a {@link Visitor}.
+ *
+ * <p>Keys are compared by identity before equality, since tag names are usually constants. Putting
+ * a {@code null} value removes the tag. The map is not thread-safe, and its iterators don't support
+ * removal.
+ */
+public final class TagMap extends AbstractMap<String, Object> {
+
+  /** Receives the tags of a {@link TagMap}, primitive values are passed without boxing. */
+  public interface Visitor {
+    void visit(String key, Object value);
+
+    void visit(String key, int value);
+
+    void visit(String key, long value);
+
+    void visit(String key, float value);
+
+    void visit(String key, double value);
+  }
+
+  private static final int MIN_CAPACITY = 8;
+
+  private static final byte OBJECT = 0;
+  private static final byte INT = 1;
+  private static final byte LONG = 2;
+  private static final byte DOUBLE = 3;
+  private static final byte FLOAT = 4;
+
+  private String[] keys;
+  private Object[] values;
+  // only allocated once a primitive value is stored
+  private byte[] kinds;
+  private long[] primitives;
+  private int size;
+  private boolean frozen;
+
+  public TagMap() {
+    this(MIN_CAPACITY);
+  }
+
+  public TagMap(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity * 3 <= expectedSize * 4) {
+      capacity <<= 1;
+    }
+    this.keys = new String[capacity];
+    this.values = new Object[capacity];
+  }
+
+  private TagMap(TagMap other) {
+    this.keys = other.keys.clone();
+    this.values = other.values.clone();
+    this.kinds = null == other.kinds ? null : other.kinds.clone();
+    this.primitives = null == other.primitives ? null : other.primitives.clone();
+    this.size = other.size;
+  }
+
+  public static TagMap fromMap(Map<String, ?> map) {
+    if (map instanceof TagMap) {
+      return (TagMap) map;
+    }
+    TagMap tags = new TagMap(map.size());
+    for (Map.Entry<String, ?> entry : map.entrySet()) {
+      tags.put(entry.getKey(), entry.getValue());
+    }
+    return tags;
+  }
+
+  /** @return a mutable copy of this map, sharing no state with it */
+  public TagMap copy() {
+    return new TagMap(this);
+  }
+
+  /** Makes this map read-only, mutators will throw {@link UnsupportedOperationException}. */
+  public TagMap freeze() {
+    this.frozen = true;
+    return this;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key instanceof String && indexOf((String) key) >= 0;
+  }
+
+  @Override
+  public Object get(Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    int index = indexOf((String) key);
+    return index < 0 ? null : valueAt(index);
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    if (null == value) {
+      return remove(key);
+    }
+    int index = slotFor(key);
+    Object previous = null == keys[index] ? null : valueAt(index);
+    values[index] = value;
+    if (null != kinds) {
+      kinds[index] = OBJECT;
+    }
+    insertKey(index, key);
+    return previous;
+  }
+
+  public void putInt(String key, int value) {
+    putPrimitive(key, INT, value);
+  }
+
+  public void putLong(String key, long value) {
+    putPrimitive(key, LONG, value);
+  }
+
+  public void putFloat(String key, float value) {
+    putPrimitive(key, FLOAT, Float.floatToRawIntBits(value));
+  }
+
+  public void putDouble(String key, double value) {
+    putPrimitive(key, DOUBLE, Double.doubleToRawLongBits(value));
+  }
+
+  @Override
+  public Object remove(Object key) {
+    checkNotFrozen();
+    if (!(key instanceof String)) {
+      return null;
+    }
+    int index = indexOf((String) key);
+    if (index < 0) {
+      return null;
+    }
+    Object previous = valueAt(index);
+    removeAt(index);
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    checkNotFrozen();
+    Arrays.fill(keys, null);
+    Arrays.fill(values, null);
+    if (null != kinds) {
+      Arrays.fill(kinds, OBJECT);
+    }
+    size = 0;
+  }
+
+  /** Passes every tag to the visitor, without allocating. */
+  public void visit(Visitor visitor) {
+    String[] keys = this.keys;
+    for (int i = 0; i < keys.length; i++) {
+      String key = keys[i];
+      if (null != key) {
+        switch (kindAt(i)) {
+          case INT:
+            visitor.visit(key, (int) primitives[i]);
+            break;
+          case LONG:
+            visitor.visit(key, primitives[i]);
+            break;
+          case FLOAT:
+            visitor.visit(key, Float.intBitsToFloat((int) primitives[i]));
+            break;
+          case DOUBLE:
+            visitor.visit(key, Double.longBitsToDouble(primitives[i]));
+            break;
+          default:
+            visitor.visit(key, values[i]);
+        }
+      }
+    }
+  }
+
+  /** @return the number of tags with a numeric value, primitive or boxed */
+  public int numberCount() {
+    int count = 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (null != keys[i] && (kindAt(i) != OBJECT || values[i] instanceof Number)) {
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return new EntrySet();
+  }
+
+  private void putPrimitive(String key, byte kind, long bits) {
+    int index = slotFor(key);
+    if (null == kinds) {
+      kinds = new byte[keys.length];
+      primitives = new long[keys.length];
+    }
+    values[index] = null;
+    kinds[index] = kind;
+    primitives[index] = bits;
+    insertKey(index, key);
+  }
+
+  private void insertKey(int index, String key) {
+    if (null == keys[index]) {
+      keys[index] = key;
+      if (++size * 4 > keys.length * 3) {
+        resize(keys.length << 1);
+      }
+    }
+  }
+
+  private byte kindAt(int index) {
+    return null == kinds ? OBJECT : kinds[index];
+  }
+
+  private Object valueAt(int index) {
+    switch (kindAt(index)) {
+      case INT:
+        return (int) primitives[index];
+      case LONG:
+        return primitives[index];
+      case FLOAT:
+        return Float.intBitsToFloat((int) primitives[index]);
+      case DOUBLE:
+        return Double.longBitsToDouble(primitives[index]);
+      default:
+        return values[index];
+    }
+  }
+
+  private static int hash(String key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private int indexOf(String key) {
+    int mask = keys.length - 1;
+    int index = hash(key) & mask;
+    String candidate;
+    while (null != (candidate = keys[index])) {
+      if (candidate == key || candidate.equals(key)) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  /** @return the index holding the key, or the free index where it should be inserted */
+  private int slotFor(String key) {
+    checkNotFrozen();
+    int mask = keys.length - 1;
+    int index = hash(key) & mask;
+    String candidate;
+    while (null != (candidate = keys[index])) {
+      if (candidate == key || candidate.equals(key)) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+    return index;
+  }
+
+  private void removeAt(int index) {
+    int mask = keys.length - 1;
+    int hole = index;
+    int next = index;
+    // shift back the following entries of the cluster which would become unreachable
+    while (true) {
+      next = (next + 1) & mask;
+      String key = keys[next];
+      if (null == key) {
+        break;
+      }
+      int ideal = hash(key) & mask;
+      boolean reachable =
+          hole <= next ? hole < ideal && ideal <= next : hole < ideal || ideal <= next;
+      if (!reachable) {
+        moveSlot(next, hole);
+        hole = next;
+      }
+    }
+    keys[hole] = null;
+    values[hole] = null;
+    if (null != kinds) {
+      kinds[hole] = OBJECT;
+    }
+    --size;
+  }
+
+  private void moveSlot(int from, int to) {
+    keys[to] = keys[from];
+    values[to] = values[from];
+    if (null != kinds) {
+      kinds[to] = kinds[from];
+      primitives[to] = primitives[from];
+    }
+  }
+
+  private void resize(int capacity) {
+    String[] oldKeys = keys;
+    Object[] oldValues = values;
+    byte[] oldKinds = kinds;
+    long[] oldPrimitives = primitives;
+    keys = new String[capacity];
+    values = new Object[capacity];
+    if (null != oldKinds) {
+      kinds = new byte[capacity];
+      primitives = new long[capacity];
+    }
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      String key = oldKeys[i];
+      if (null != key) {
+        int index = hash(key) & mask;
+        while (null != keys[index]) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = oldValues[i];
+        if (null != oldKinds) {
+          kinds[index] = oldKinds[i];
+          primitives[index] = oldPrimitives[i];
+        }
+      }
+    }
+  }
+
+  private void checkNotFrozen() {
+    if (frozen) {
+      throw new UnsupportedOperationException("tags are read-only");
+    }
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<String, Object>> {
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public Iterator<Entry<String, Object>> iterator() {
+      return new EntryIterator();
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Entry<String, Object>> {
+    private int next = advance(0);
+
+    private int advance(int from) {
+      while (from < keys.length && null == keys[from]) {
+        ++from;
+      }
+      return from;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < keys.length;
+    }
+
+    @Override
+    public Entry<String, Object> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      int index = next;
+      next = advance(index + 1);
+      return new SimpleImmutableEntry<>(keys[index], valueAt(index));
+    }
+  }
+}
@@ -20,11 +20,10 @@ import datadog.trace.core.DDTraceCoreInfo;
 import datadog.trace.util.AgentTaskScheduler;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import org.jctools.queues.MpscBlockingConsumerArrayQueue;
 import org.slf4j.Logger;
@@ -42,7 +41,9 @@ public class DefaultDataStreamsCheckpointer
   private static final StatsPoint POISON_PILL =
       new StatsPoint(Collections.<String>emptyList(), 0, 0, 0, 0, 0);
 
-  private final Map<Long, StatsBucket> timeToBucket = new HashMap<>();
+  // buckets are updated directly by the threads doing the checkpoints
+  private final ConcurrentHashMap<Long, StatsBucket> timeToBucket = new ConcurrentHashMap<>();
+  // only carries the report and stop signals
   private final BlockingQueue<StatsPoint> inbox = new MpscBlockingConsumerArrayQueue<>(1024);
   private final DatastreamsPayloadWriter payloadWriter;
   private final DDAgentFeaturesDiscovery features;
@@ -119,11 +120,25 @@ public class DefaultDataStreamsCheckpointer
     thread.start();
   }
 
-  // With Java 8, this becomes unnecessary
   @Override
   public void accept(StatsPoint statsPoint) {
     if (thread.isAlive()) {
-      inbox.offer(statsPoint);
+      Long bucket = currentBucket(statsPoint.getTimestampNanos());
+      while (true) {
+        StatsBucket statsBucket = timeToBucket.get(bucket);
+        if (null == statsBucket) {
+          StatsBucket newBucket = new StatsBucket(bucket, bucketDurationNanos);
+          statsBucket = timeToBucket.putIfAbsent(bucket, newBucket);
+          if (null == statsBucket) {
+            statsBucket = newBucket;
+          }
+        }
+        if (statsBucket.addPoint(statsPoint)) {
+          return;
+        }
+        // the bucket has just been reported, the point goes to a new bucket for the same time
+        timeToBucket.remove(bucket, statsBucket);
+      }
     }
   }
 
@@ -166,22 +181,14 @@ public class DefaultDataStreamsCheckpointer
           StatsPoint statsPoint = inbox.take();
 
           if (statsPoint == REPORT) {
-            if (supportsDataStreams) {
-              flush(timeSource.getCurrentTimeNanos());
-            } else if (timeSource.getCurrentTimeNanos() >= nextFeatureCheck) {
+            // completed buckets are dropped if data streams is not supported
+            flush(timeSource.getCurrentTimeNanos());
+            if (!supportsDataStreams && timeSource.getCurrentTimeNanos() >= nextFeatureCheck) {
               checkFeatures();
             }
           } else if (statsPoint == POISON_PILL) {
-            if (supportsDataStreams) {
-              flush(Long.MAX_VALUE);
-            }
+            flush(Long.MAX_VALUE);
             break;
-          } else if (supportsDataStreams) {
-            Long bucket = currentBucket(statsPoint.getTimestampNanos());
-            StatsBucket statsBucket =
-                timeToBucket.computeIfAbsent(
-                    bucket, startTime -> new StatsBucket(startTime, bucketDurationNanos));
-            statsBucket.addPoint(statsPoint);
           }
         } catch (InterruptedException e) {
           currentThread.interrupt();
@@ -196,22 +203,21 @@ public class DefaultDataStreamsCheckpointer
     return timestampNanos - (timestampNanos % bucketDurationNanos);
   }
 
+  /** Swaps out the completed buckets and writes them if data streams is supported. */
   private void flush(long timestampNanos) {
     long currentBucket = currentBucket(timestampNanos);
 
     List<StatsBucket> includedBuckets = new ArrayList<>();
-    Iterator<Map.Entry<Long, StatsBucket>> mapIterator = timeToBucket.entrySet().iterator();
-
-    while (mapIterator.hasNext()) {
-      Map.Entry<Long, StatsBucket> entry = mapIterator.next();
-
-      if (entry.getKey() < currentBucket) {
-        mapIterator.remove();
-        includedBuckets.add(entry.getValue());
+    for (Map.Entry<Long, StatsBucket> entry : timeToBucket.entrySet()) {
+      if (entry.getKey() < currentBucket && timeToBucket.remove(entry.getKey(), entry.getValue())) {
+        StatsBucket statsBucket = entry.getValue();
+        // wait for the points being added, later points go to a new bucket
+        statsBucket.seal();
+        includedBuckets.add(statsBucket);
       }
     }
 
-    if (!includedBuckets.isEmpty()) {
+    if (supportsDataStreams && !includedBuckets.isEmpty()) {
       log.debug("Flushing {} buckets", includedBuckets.size());
       payloadWriter.writePayload(includedBuckets);
     }
@@ -13,6 +13,7 @@ import datadog.trace.bootstrap.instrumentation.api.PathwayContext;
 import datadog.trace.bootstrap.instrumentation.api.StatsPoint;
 import datadog.trace.core.Base64Decoder;
 import datadog.trace.core.Base64Encoder;
+import datadog.trace.core.propagation.BinaryCodec;
 import datadog.trace.util.FNV64Hash;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -260,6 +261,16 @@ public class DefaultPathwayContext implements PathwayContext {
         } catch (IOException e) {
           return false;
         }
+      } else if (null == extractedContext && BinaryCodec.CONTEXT_KEY.equalsIgnoreCase(key)) {
+        // the pathway can also be embedded in the binary trace context
+        byte[] pathway = BinaryCodec.pathway(value);
+        if (null != pathway) {
+          try {
+            extractedContext = decode(timeSource, wellKnownTags, pathway);
+          } catch (IOException e) {
+            return false;
+          }
+        }
       }
       return true;
     }
@@ -1,32 +1,67 @@
 package datadog.trace.core.datastreams;
 
 import datadog.trace.bootstrap.instrumentation.api.StatsPoint;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Stats groups of a time bucket, updated concurrently by the threads doing the checkpoints until
+ * the bucket is sealed by the reporter.
+ */
 public class StatsBucket {
   private final long startTimeNanos;
   private final long bucketDurationNanos;
-  private final Map<Long, StatsGroup> hashToGroup = new HashMap<>();
+  private final ConcurrentHashMap<Long, StatsGroup> hashToGroup = new ConcurrentHashMap<>();
+  private volatile boolean sealed;
+  private volatile Collection<StatsGroup> sealedGroups;
 
   public StatsBucket(long startTimeNanos, long bucketDurationNanos) {
     this.startTimeNanos = startTimeNanos;
     this.bucketDurationNanos = bucketDurationNanos;
   }
 
-  public void addPoint(StatsPoint statsPoint) {
+  /** @return false if the bucket has been sealed, the point must go to a new bucket */
+  public boolean addPoint(StatsPoint statsPoint) {
+    if (sealed) {
+      return false;
+    }
     StatsGroup statsGroup = hashToGroup.get(statsPoint.getHash());
 
-    // FIXME Java 7
     if (statsGroup == null) {
-      statsGroup =
+      StatsGroup newGroup =
           new StatsGroup(
               statsPoint.getEdgeTags(), statsPoint.getHash(), statsPoint.getParentHash());
-      hashToGroup.put(statsPoint.getHash(), statsGroup);
+      statsGroup = hashToGroup.putIfAbsent(statsPoint.getHash(), newGroup);
+      if (statsGroup == null) {
+        statsGroup = newGroup;
+      }
     }
 
-    statsGroup.add(statsPoint.getPathwayLatencyNano(), statsPoint.getEdgeLatencyNano());
+    return statsGroup.add(
+        this, statsPoint.getPathwayLatencyNano(), statsPoint.getEdgeLatencyNano());
+  }
+
+  boolean isSealed() {
+    return sealed;
+  }
+
+  /**
+   * Stops accepting points and waits for the points being added. Once sealed, the groups can be
+   * read.
+   */
+  void seal() {
+    sealed = true;
+    List<StatsGroup> groups = new ArrayList<>(hashToGroup.size());
+    for (StatsGroup statsGroup : hashToGroup.values()) {
+      statsGroup.awaitRecorded();
+      // a group created while sealing may have been added without any points
+      if (statsGroup.hasRecorded()) {
+        groups.add(statsGroup);
+      }
+    }
+    sealedGroups = groups;
   }
 
   public long getStartTimeNanos() {
@@ -37,7 +72,9 @@ public class StatsBucket {
     return bucketDurationNanos;
   }
 
+  /** The groups with recorded points once sealed, all the groups until then. */
   public Collection<StatsGroup> getGroups() {
-    return hashToGroup.values();
+    Collection<StatsGroup> groups = sealedGroups;
+    return null != groups ? groups : hashToGroup.values();
   }
 }
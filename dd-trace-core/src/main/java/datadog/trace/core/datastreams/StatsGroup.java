@@ -3,27 +3,85 @@ package datadog.trace.core.datastreams;
 import com.datadoghq.sketch.ddsketch.DDSketch;
 import datadog.trace.core.histogram.Histograms;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Latencies of a pathway hash in a {@link StatsBucket}. Points are recorded directly by the threads
+ * doing the checkpoints, each one in the sketches of a stripe which isn't in use by another thread.
+ * The stripes are merged once the bucket has been sealed.
+ */
 public class StatsGroup {
   private static final double NANOSECONDS_TO_SECOND = 1_000_000_000d;
 
+  private static final int STRIPES =
+      Math.min(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
   private final List<String> edgeTags;
   private final long hash;
   private final long parentHash;
-  private final DDSketch pathwayLatency;
-  private final DDSketch edgeLatency;
+  // stripes are only allocated once used
+  private final AtomicReferenceArray<Stripe> stripes = new AtomicReferenceArray<>(STRIPES);
+  private DDSketch pathwayLatency;
+  private DDSketch edgeLatency;
 
   public StatsGroup(List<String> edgeTags, long hash, long parentHash) {
     this.edgeTags = edgeTags;
     this.hash = hash;
     this.parentHash = parentHash;
-    pathwayLatency = Histograms.newHistogram();
-    edgeLatency = Histograms.newHistogram();
   }
 
-  public void add(long pathwayLatencyNano, long edgeLatencyNano) {
-    pathwayLatency.accept(((double) pathwayLatencyNano) / NANOSECONDS_TO_SECOND);
-    edgeLatency.accept(((double) edgeLatencyNano) / NANOSECONDS_TO_SECOND);
+  /**
+   * Records the latencies, unless the bucket has been sealed.
+   *
+   * @return false if the bucket was sealed and the latencies were not recorded
+   */
+  boolean add(StatsBucket bucket, long pathwayLatencyNano, long edgeLatencyNano) {
+    int index = (int) Thread.currentThread().getId();
+    for (int attempt = 1; ; attempt++) {
+      Stripe stripe = stripe(index++ & (STRIPES - 1));
+      if (stripe.tryAcquire()) {
+        try {
+          if (bucket.isSealed()) {
+            return false;
+          }
+          stripe.pathwayLatency.accept(((double) pathwayLatencyNano) / NANOSECONDS_TO_SECOND);
+          stripe.edgeLatency.accept(((double) edgeLatencyNano) / NANOSECONDS_TO_SECOND);
+          stripe.recorded = true;
+          return true;
+        } finally {
+          stripe.release();
+        }
+      }
+      if ((attempt & (STRIPES - 1)) == 0) {
+        // every stripe is busy, give the threads holding them (maybe descheduled) a chance to run
+        Thread.yield();
+      }
+    }
+  }
+
+  /** Waits for the points being recorded, must be called once the bucket has been sealed. */
+  void awaitRecorded() {
+    for (int i = 0; i < STRIPES; i++) {
+      Stripe stripe = stripes.get(i);
+      if (null != stripe) {
+        while (!stripe.tryAcquire()) {
+          Thread.yield();
+        }
+        stripe.release();
+      }
+    }
+  }
+
+  /** Whether any points were recorded, must be called after {@link #awaitRecorded()}. */
+  boolean hasRecorded() {
+    for (int i = 0; i < STRIPES; i++) {
+      Stripe stripe = stripes.get(i);
+      if (null != stripe && stripe.recorded) {
+        return true;
+      }
+    }
+    return false;
   }
 
   public List<String> getEdgeTags() {
@@ -38,14 +96,50 @@ public class StatsGroup {
     return parentHash;
   }
 
+  /** Must only be called once the bucket has been sealed. */
   public DDSketch getPathwayLatency() {
+    if (null == pathwayLatency) {
+      merge();
+    }
     return pathwayLatency;
   }
 
+  /** Must only be called once the bucket has been sealed. */
   public DDSketch getEdgeLatency() {
+    if (null == edgeLatency) {
+      merge();
+    }
     return edgeLatency;
   }
 
+  private void merge() {
+    DDSketch pathwayLatency = null;
+    DDSketch edgeLatency = null;
+    for (int i = 0; i < STRIPES; i++) {
+      Stripe stripe = stripes.get(i);
+      if (null != stripe) {
+        if (null == pathwayLatency) {
+          pathwayLatency = stripe.pathwayLatency;
+          edgeLatency = stripe.edgeLatency;
+        } else {
+          pathwayLatency.mergeWith(stripe.pathwayLatency);
+          edgeLatency.mergeWith(stripe.edgeLatency);
+        }
+      }
+    }
+    this.pathwayLatency = null == pathwayLatency ? Histograms.newHistogram() : pathwayLatency;
+    this.edgeLatency = null == edgeLatency ? Histograms.newHistogram() : edgeLatency;
+  }
+
+  private Stripe stripe(int index) {
+    Stripe stripe = stripes.get(index);
+    if (null == stripe) {
+      stripes.compareAndSet(index, null, new Stripe());
+      stripe = stripes.get(index);
+    }
+    return stripe;
+  }
+
   @Override
   public String toString() {
     return "StatsGroup{"
@@ -58,4 +152,23 @@ public class StatsGroup {
         + parentHash
         + '}';
   }
+
+  private static final class Stripe {
+    private static final AtomicIntegerFieldUpdater<Stripe> BUSY =
+        AtomicIntegerFieldUpdater.newUpdater(Stripe.class, "busy");
+
+    final DDSketch pathwayLatency = Histograms.newHistogram();
+    final DDSketch edgeLatency = Histograms.newHistogram();
+    // only written while the stripe is acquired
+    boolean recorded;
+    private volatile int busy;
+
+    boolean tryAcquire() {
+      return busy == 0 && BUSY.compareAndSet(this, 0, 1);
+    }
+
+    void release() {
+      BUSY.lazySet(this, 0);
+    }
+  }
 }
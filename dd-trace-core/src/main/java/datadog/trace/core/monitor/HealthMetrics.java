@@ -37,10 +37,20 @@ public abstract class HealthMetrics implements AutoCloseable {
 
   public void onPartialFlush(final int sizeInBytes) {};
 
+  public void onBufferedTraces(final int bufferedTraces) {};
+
   public void onSerialize(final int serializedSizeInBytes) {};
 
   public void onFailedSerialize(final List<DDSpan> trace, final Throwable optionalCause) {};
 
+  public void onEncodingCache(final long hits, final long misses, final long evictions) {};
+
+  public void onTailSamplingKeep(final String reason) {};
+
+  public void onTailSamplingDrop() {};
+
+  public void onTailSamplingOverflow() {};
+
   public void onCreateSpan() {};
 
   public void onCreateTrace() {};
@@ -12,6 +12,7 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import datadog.trace.api.StatsDClient;
 import datadog.trace.api.cache.RadixTreeCache;
 import datadog.trace.common.writer.RemoteApi;
+import datadog.trace.common.writer.TailSamplingWriter;
 import datadog.trace.core.DDSpan;
 import datadog.trace.util.AgentTaskScheduler;
 import java.util.List;
@@ -80,6 +81,17 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
   private final FixedSizeStripedLongCounter clientSpansWithoutContext =
       CountersFactory.createFixedSizeStripedCounter(8);
 
+  private final FixedSizeStripedLongCounter tailSamplingErrorKeeps =
+      CountersFactory.createFixedSizeStripedCounter(8);
+  private final FixedSizeStripedLongCounter tailSamplingLatencyKeeps =
+      CountersFactory.createFixedSizeStripedCounter(8);
+  private final FixedSizeStripedLongCounter tailSamplingRateKeeps =
+      CountersFactory.createFixedSizeStripedCounter(8);
+  private final FixedSizeStripedLongCounter tailSamplingDrops =
+      CountersFactory.createFixedSizeStripedCounter(8);
+  private final FixedSizeStripedLongCounter tailSamplingOverflows =
+      CountersFactory.createFixedSizeStripedCounter(8);
+
   private final StatsDClient statsd;
   private final long interval;
   private final TimeUnit units;
@@ -183,6 +195,11 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
     statsd.count("span.flushed.partial", sizeInBytes, NO_TAGS);
   }
 
+  @Override
+  public void onBufferedTraces(final int bufferedTraces) {
+    statsd.gauge("pending.buffered_traces", bufferedTraces, NO_TAGS);
+  }
+
   @Override
   public void onSerialize(final int serializedSizeInBytes) {
     // DQH - Because of Java tracer's 2 phase acceptance and serialization scheme, this doesn't
@@ -195,6 +212,43 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
     serialFailedDroppedTraces.inc();
   }
 
+  @Override
+  public void onEncodingCache(final long hits, final long misses, final long evictions) {
+    if (hits > 0) {
+      statsd.count("serialization.encoding_cache.hits", hits, NO_TAGS);
+    }
+    if (misses > 0) {
+      statsd.count("serialization.encoding_cache.misses", misses, NO_TAGS);
+    }
+    if (evictions > 0) {
+      statsd.count("serialization.encoding_cache.evictions", evictions, NO_TAGS);
+    }
+  }
+
+  @Override
+  public void onTailSamplingKeep(final String reason) {
+    switch (reason) {
+      case TailSamplingWriter.ERROR_REASON:
+        tailSamplingErrorKeeps.inc();
+        break;
+      case TailSamplingWriter.LATENCY_REASON:
+        tailSamplingLatencyKeeps.inc();
+        break;
+      default:
+        tailSamplingRateKeeps.inc();
+    }
+  }
+
+  @Override
+  public void onTailSamplingDrop() {
+    tailSamplingDrops.inc();
+  }
+
+  @Override
+  public void onTailSamplingOverflow() {
+    tailSamplingOverflows.inc();
+  }
+
   @Override
   public void onCreateSpan() {
     createdSpans.inc();
@@ -265,6 +319,9 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
     private static final String[] SAMPLER_KEEP_TAG = new String[] {"priority:sampler_keep"};
     private static final String[] SERIAL_FAILED_TAG = new String[] {"failure:serial"};
     private static final String[] UNSET_TAG = new String[] {"priority:unset"};
+    private static final String[] ERROR_REASON_TAG = new String[] {"reason:error"};
+    private static final String[] LATENCY_REASON_TAG = new String[] {"reason:latency"};
+    private static final String[] RATE_REASON_TAG = new String[] {"reason:rate"};
 
     @Override
     public void run(TracerHealthMetrics target) {
@@ -310,6 +367,18 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
       reportIfChanged(target.statsd, "queue.dropped.spans", target.droppedSpans, NO_TAGS);
       reportIfChanged(
           target.statsd, "span.client.no-context", target.clientSpansWithoutContext, NO_TAGS);
+      reportIfChanged(
+          target.statsd, "tail_sampling.kept", target.tailSamplingErrorKeeps, ERROR_REASON_TAG);
+      reportIfChanged(
+          target.statsd,
+          "tail_sampling.kept",
+          target.tailSamplingLatencyKeeps,
+          LATENCY_REASON_TAG);
+      reportIfChanged(
+          target.statsd, "tail_sampling.kept", target.tailSamplingRateKeeps, RATE_REASON_TAG);
+      reportIfChanged(target.statsd, "tail_sampling.dropped", target.tailSamplingDrops, NO_TAGS);
+      reportIfChanged(
+          target.statsd, "tail_sampling.overflow", target.tailSamplingOverflows, NO_TAGS);
     }
 
     private void reportIfChanged(
@@ -151,7 +151,7 @@ class B3HttpCodec {
         traceId = DDTraceId.ZERO;
         return false;
       } else {
-        traceId = DDTraceId.fromHexTruncatedWithOriginal(tId);
+        traceId = DDTraceId.fromHex128WithOriginal(tId);
       }
       if (tags.isEmpty()) {
         tags = new TreeMap<>();
@@ -162,6 +162,15 @@ class B3HttpCodec {
   }
 
   private static final class B3MultiContextInterpreter extends B3BaseContextInterpreter {
+    private static final int TRACE_ID = 0;
+    private static final int SPAN_ID = 1;
+    private static final int SAMPLING_PRIORITY = 2;
+
+    private static final HeaderClassifier HEADERS =
+        new HeaderClassifier(
+            new String[] {TRACE_ID_KEY, SPAN_ID_KEY, SAMPLING_PRIORITY_KEY},
+            new int[] {TRACE_ID, SPAN_ID, SAMPLING_PRIORITY});
+
     private B3MultiContextInterpreter(
         final Map<String, String> taggedHeaders,
         Map<String, String> baggageMapping,
@@ -178,19 +187,23 @@ class B3HttpCodec {
         log.debug("Header: {}", key);
       }
       try {
+        switch (HEADERS.classify(key)) {
+          case TRACE_ID:
+            setTraceId(firstHeaderValue(value));
+            return true;
+          case SPAN_ID:
+            setSpanId(firstHeaderValue(value));
+            return true;
+          case SAMPLING_PRIORITY:
+            String sampled = firstHeaderValue(value);
+            samplingPriority = convertSamplingPriority(sampled, 0, sampled.length());
+            return true;
+          default:
+        }
         char first = Character.toLowerCase(key.charAt(0));
         switch (first) {
           case 'x':
-            if (TRACE_ID_KEY.equalsIgnoreCase(key)) {
-              setTraceId(firstHeaderValue(value));
-              return true;
-            } else if (SPAN_ID_KEY.equalsIgnoreCase(key)) {
-              setSpanId(firstHeaderValue(value));
-              return true;
-            } else if (SAMPLING_PRIORITY_KEY.equalsIgnoreCase(key)) {
-              samplingPriority = convertSamplingPriority(firstHeaderValue(value));
-              return true;
-            } else if (handledXForwarding(key, value)) {
+            if (handledXForwarding(key, value)) {
               return true;
             }
             break;
@@ -270,7 +283,7 @@ class B3HttpCodec {
 
     private boolean extractB3(final String firstValue) {
       if (firstValue.length() == 1) {
-        samplingPriority = convertSamplingPriority(firstValue);
+        samplingPriority = convertSamplingPriority(firstValue, 0, 1);
       } else {
         final int firstIndex = firstValue.indexOf("-");
         final int secondIndex = firstValue.indexOf("-", firstIndex + 1);
@@ -286,16 +299,17 @@ class B3HttpCodec {
         } else {
           final String b3SpanId = firstValue.substring(firstIndex + 1, secondIndex);
           setSpanId(b3SpanId);
-          final String b3SamplingId = firstValue.substring(secondIndex + 1);
-          samplingPriority = convertSamplingPriority(b3SamplingId);
+          samplingPriority =
+              convertSamplingPriority(firstValue, secondIndex + 1, firstValue.length());
         }
       }
       return true;
     }
   }
 
-  private static int convertSamplingPriority(final String samplingPriority) {
-    return "1".equals(samplingPriority)
+  private static int convertSamplingPriority(final String value, int start, int end) {
+    // only a lone "1" means keep, check it in place instead of cutting it out of the header
+    return end - start == 1 && value.charAt(start) == '1'
         ? PrioritySampling.SAMPLER_KEEP
         : PrioritySampling.SAMPLER_DROP;
   }
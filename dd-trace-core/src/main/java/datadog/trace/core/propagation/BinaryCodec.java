@@ -0,0 +1,325 @@
+package datadog.trace.core.propagation;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import datadog.trace.api.DDTraceId;
+import datadog.trace.api.sampling.PrioritySampling;
+import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
+import datadog.trace.core.DDSpanContext;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A codec for carriers that take {@code byte[]} values, like Kafka record headers. The whole
+ * context goes into a single header instead of one text header per field:
+ *
+ * <pre>
+ *   version          1 byte
+ *   trace id high    8 bytes, big-endian, only in version 2 for 128 bit trace ids
+ *   trace id         8 bytes, big-endian
+ *   span id          8 bytes, big-endian
+ *   sampling         zig-zag varint, UNSET if the priority wasn't locked
+ *   end-to-end start varint, milliseconds since epoch or 0
+ *   origin           varint length, UTF-8 bytes
+ *   x-datadog-tags   varint length, UTF-8 bytes
+ *   baggage          varint count, then varint length and UTF-8 bytes for each key and value
+ *   pathway          varint length, the encoded data streams pathway context
+ * </pre>
+ *
+ * An empty origin, x-datadog-tags or pathway means the field wasn't set.
+ */
+public final class BinaryCodec {
+  private static final Logger log = LoggerFactory.getLogger(BinaryCodec.class);
+
+  /** Ends in {@code -bin} so it can also be used as a gRPC binary metadata key. */
+  public static final String CONTEXT_KEY = "dd-ctx-bin";
+
+  private static final byte VERSION = 1;
+  private static final byte VERSION_128_BIT_TRACE_ID = 2;
+  private static final int HEADER_SIZE = 1 + 8 + 8;
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private BinaryCodec() {
+    // This class should not be created. This also makes code coverage checks happy.
+  }
+
+  /** Encodes the context, with the given pathway context bytes if they're not {@code null}. */
+  public static byte[] encode(DDSpanContext context, byte[] pathway) {
+    int samplingPriority =
+        context.lockSamplingPriority() ? context.getSamplingPriority() : PrioritySampling.UNSET;
+    long endToEndStartMillis = NANOSECONDS.toMillis(Math.max(0, context.getEndToEndStartTime()));
+    byte[] origin = utf8(context.getOrigin());
+    byte[] datadogTags =
+        utf8(context.getPropagationTags().headerValue(PropagationTags.HeaderType.DATADOG));
+    Map<String, String> baggageItems = context.getBaggageItems();
+    byte[][] baggage = new byte[baggageItems.size() * 2][];
+    int i = 0;
+    for (Map.Entry<String, String> entry : baggageItems.entrySet()) {
+      baggage[i++] = utf8(entry.getKey());
+      baggage[i++] = utf8(entry.getValue());
+    }
+    if (null == pathway) {
+      pathway = EMPTY;
+    }
+    DDTraceId traceId = context.getTraceId();
+    long traceIdHighOrderBits = traceId.toHighOrderLong();
+
+    int size = traceIdHighOrderBits == 0 ? HEADER_SIZE : HEADER_SIZE + 8;
+    size += varIntSize(zigZag(samplingPriority));
+    size += varLongSize(endToEndStartMillis);
+    size += bytesSize(origin);
+    size += bytesSize(datadogTags);
+    size += varIntSize(baggageItems.size());
+    for (byte[] bytes : baggage) {
+      size += bytesSize(bytes);
+    }
+    size += bytesSize(pathway);
+
+    byte[] buffer = new byte[size];
+    int pos = 1;
+    if (traceIdHighOrderBits == 0) {
+      buffer[0] = VERSION;
+    } else {
+      buffer[0] = VERSION_128_BIT_TRACE_ID;
+      pos = writeLong(buffer, pos, traceIdHighOrderBits);
+    }
+    pos = writeLong(buffer, pos, traceId.toLong());
+    pos = writeLong(buffer, pos, context.getSpanId());
+    pos = writeVarLong(buffer, pos, zigZag(samplingPriority) & 0xFFFFFFFFL);
+    pos = writeVarLong(buffer, pos, endToEndStartMillis);
+    pos = writeBytes(buffer, pos, origin);
+    pos = writeBytes(buffer, pos, datadogTags);
+    pos = writeVarLong(buffer, pos, baggageItems.size());
+    for (byte[] bytes : baggage) {
+      pos = writeBytes(buffer, pos, bytes);
+    }
+    writeBytes(buffer, pos, pathway);
+    return buffer;
+  }
+
+  /** Returns the context found in the carrier, or {@code null} if there isn't a valid one. */
+  public static <C> ExtractedContext extract(
+      C carrier,
+      AgentPropagation.BinaryContextVisitor<C> getter,
+      PropagationTags.Factory propagationTagsFactory) {
+    ContextClassifier classifier = new ContextClassifier();
+    getter.forEachKey(carrier, classifier);
+    return null == classifier.encoded ? null : decode(classifier.encoded, propagationTagsFactory);
+  }
+
+  /** Returns the context encoded in the value, or {@code null} if it isn't a valid one. */
+  public static ExtractedContext decode(
+      byte[] value, PropagationTags.Factory propagationTagsFactory) {
+    try {
+      if (headerSize(value) < 0) {
+        log.debug("Ignoring binary context with unsupported version or size {}", value.length);
+        return null;
+      }
+      Reader reader = new Reader(value, 1);
+      long traceIdHighOrderBits = value[0] == VERSION_128_BIT_TRACE_ID ? reader.readLong() : 0;
+      DDTraceId traceId = DDTraceId.from(traceIdHighOrderBits, reader.readLong());
+      long spanId = reader.readLong();
+      if (DDTraceId.ZERO.equals(traceId)) {
+        return null;
+      }
+      int samplingPriority = unZigZag((int) reader.readVarLong());
+      long endToEndStartMillis = reader.readVarLong();
+      String origin = emptyToNull(reader.readString());
+      String datadogTags = emptyToNull(reader.readString());
+      int baggageCount = (int) reader.readVarLong();
+      Map<String, String> baggage = Collections.emptyMap();
+      if (baggageCount > 0) {
+        baggage = new TreeMap<>();
+        for (int i = 0; i < baggageCount; i++) {
+          baggage.put(reader.readString(), reader.readString());
+        }
+      }
+      return new ExtractedContext(
+          traceId,
+          spanId,
+          samplingPriority,
+          origin,
+          MILLISECONDS.toNanos(endToEndStartMillis),
+          baggage,
+          Collections.<String, String>emptyMap(),
+          null,
+          null == datadogTags
+              ? propagationTagsFactory.empty()
+              : propagationTagsFactory.fromHeaderValue(
+                  PropagationTags.HeaderType.DATADOG, datadogTags));
+    } catch (RuntimeException e) {
+      log.debug("Exception when decoding binary context", e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the pathway context bytes embedded in the value, or {@code null} if there are none.
+   */
+  public static byte[] pathway(byte[] value) {
+    try {
+      int headerSize = headerSize(value);
+      if (headerSize < 0) {
+        return null;
+      }
+      Reader reader = new Reader(value, headerSize);
+      reader.readVarLong(); // sampling
+      reader.readVarLong(); // end-to-end start
+      reader.skipBytes(); // origin
+      reader.skipBytes(); // x-datadog-tags
+      for (long i = reader.readVarLong() * 2; i > 0; i--) {
+        reader.skipBytes(); // baggage
+      }
+      int length = (int) reader.readVarLong();
+      if (length == 0) {
+        return null;
+      }
+      reader.checkLength(length);
+      return Arrays.copyOfRange(value, reader.pos, reader.pos + length);
+    } catch (RuntimeException e) {
+      log.debug("Exception when decoding binary pathway context", e);
+      return null;
+    }
+  }
+
+  /** Returns the size of the fixed part of the value, or -1 if the version isn't supported. */
+  private static int headerSize(byte[] value) {
+    if (value.length >= HEADER_SIZE) {
+      if (value[0] == VERSION) {
+        return HEADER_SIZE;
+      }
+      if (value[0] == VERSION_128_BIT_TRACE_ID && value.length >= HEADER_SIZE + 8) {
+        return HEADER_SIZE + 8;
+      }
+    }
+    return -1;
+  }
+
+  private static final class ContextClassifier implements AgentPropagation.BinaryKeyClassifier {
+    byte[] encoded;
+
+    @Override
+    public boolean accept(String key, byte[] value) {
+      if (CONTEXT_KEY.equalsIgnoreCase(key)) {
+        encoded = value;
+        return false;
+      }
+      return true;
+    }
+  }
+
+  private static final class Reader {
+    private final byte[] buffer;
+    int pos;
+
+    Reader(byte[] buffer, int pos) {
+      this.buffer = buffer;
+      this.pos = pos;
+    }
+
+    long readLong() {
+      long value = 0;
+      for (int i = 0; i < 8; i++) {
+        value = value << 8 | (buffer[pos++] & 0xFF);
+      }
+      return value;
+    }
+
+    long readVarLong() {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        byte b = buffer[pos++];
+        value |= (long) (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Malformed varint");
+    }
+
+    String readString() {
+      int length = (int) readVarLong();
+      if (length == 0) {
+        return "";
+      }
+      checkLength(length);
+      String value = new String(buffer, pos, length, UTF_8);
+      pos += length;
+      return value;
+    }
+
+    void skipBytes() {
+      int length = (int) readVarLong();
+      checkLength(length);
+      pos += length;
+    }
+
+    void checkLength(int length) {
+      if (length < 0 || length > buffer.length - pos) {
+        throw new IllegalArgumentException("Malformed length " + length);
+      }
+    }
+  }
+
+  private static byte[] utf8(CharSequence value) {
+    return null == value || value.length() == 0 ? EMPTY : value.toString().getBytes(UTF_8);
+  }
+
+  private static String emptyToNull(String value) {
+    return value.isEmpty() ? null : value;
+  }
+
+  private static int zigZag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  private static int unZigZag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static int bytesSize(byte[] bytes) {
+    return varIntSize(bytes.length) + bytes.length;
+  }
+
+  private static int varIntSize(int value) {
+    return varLongSize(value & 0xFFFFFFFFL);
+  }
+
+  private static int varLongSize(long value) {
+    int size = 1;
+    while ((value & ~0x7FL) != 0) {
+      value >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
+  private static int writeLong(byte[] buffer, int pos, long value) {
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      buffer[pos++] = (byte) (value >>> shift);
+    }
+    return pos;
+  }
+
+  private static int writeVarLong(byte[] buffer, int pos, long value) {
+    while ((value & ~0x7FL) != 0) {
+      buffer[pos++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[pos++] = (byte) value;
+    return pos;
+  }
+
+  private static int writeBytes(byte[] buffer, int pos, byte[] bytes) {
+    pos = writeVarLong(buffer, pos, bytes.length);
+    System.arraycopy(bytes, 0, buffer, pos, bytes.length);
+    return pos + bytes.length;
+  }
+}
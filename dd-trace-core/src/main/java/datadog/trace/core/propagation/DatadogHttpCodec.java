@@ -1,6 +1,7 @@
 package datadog.trace.core.propagation;
 
 import static datadog.trace.core.propagation.HttpCodec.firstHeaderValue;
+import static datadog.trace.core.propagation.PropagationTags.TRACE_ID_HIGH_ORDER_BITS_TAG;
 import static datadog.trace.core.propagation.XRayHttpCodec.XRayContextInterpreter.handleXRayTraceHeader;
 import static datadog.trace.core.propagation.XRayHttpCodec.X_AMZN_TRACE_ID;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -11,6 +12,7 @@ import datadog.trace.api.DDSpanId;
 import datadog.trace.api.DDTags;
 import datadog.trace.api.DDTraceId;
 import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
+import datadog.trace.bootstrap.instrumentation.api.TagContext;
 import datadog.trace.core.DDSpanContext;
 import java.util.Map;
 import java.util.TreeMap;
@@ -28,6 +30,7 @@ class DatadogHttpCodec {
   static final String ORIGIN_KEY = "x-datadog-origin";
   private static final String E2E_START_KEY = OT_BAGGAGE_PREFIX + DDTags.TRACE_START_TIME;
   static final String DATADOG_TAGS_KEY = "x-datadog-tags";
+  private static final String TRACE_ID_HIGH_ORDER_BITS_PREFIX = TRACE_ID_HIGH_ORDER_BITS_TAG + "=";
 
   private DatadogHttpCodec() {
     // This class should not be created. This also makes code coverage checks happy.
@@ -73,12 +76,66 @@ class DatadogHttpCodec {
       // inject x-datadog-tags
       String datadogTags =
           context.getPropagationTags().headerValue(PropagationTags.HeaderType.DATADOG);
+      long traceIdHighOrderBits = context.getTraceId().toHighOrderLong();
+      if (traceIdHighOrderBits != 0) {
+        datadogTags = withTraceIdHighOrderBits(datadogTags, traceIdHighOrderBits);
+      }
       if (datadogTags != null) {
         setter.set(carrier, DATADOG_TAGS_KEY, datadogTags);
       }
     }
   }
 
+  /**
+   * Adds the higher order bits of a 128 bit trace id to the x-datadog-tags value, unless they are
+   * already there because the trace was propagated from upstream.
+   */
+  static String withTraceIdHighOrderBits(String datadogTags, long traceIdHighOrderBits) {
+    if (datadogTags == null || datadogTags.isEmpty()) {
+      return TRACE_ID_HIGH_ORDER_BITS_PREFIX + DDSpanId.toHexStringPadded(traceIdHighOrderBits);
+    }
+    if (traceIdHighOrderBitsStart(datadogTags) >= 0) {
+      return datadogTags;
+    }
+    return datadogTags
+        + ','
+        + TRACE_ID_HIGH_ORDER_BITS_PREFIX
+        + DDSpanId.toHexStringPadded(traceIdHighOrderBits);
+  }
+
+  /**
+   * Returns the higher order bits of a 128 bit trace id carried by the x-datadog-tags value, or 0
+   * if there aren't any valid ones. The value is scanned in place, without splitting it up.
+   */
+  static long extractTraceIdHighOrderBits(String datadogTags) {
+    int start = traceIdHighOrderBitsStart(datadogTags);
+    if (start < 0) {
+      return 0;
+    }
+    int end = datadogTags.indexOf(',', start);
+    if (end < 0) {
+      end = datadogTags.length();
+    }
+    if (end - start != 16) {
+      log.debug("Ignoring invalid trace id higher order bits in {}", datadogTags);
+      return 0;
+    }
+    try {
+      return DDSpanId.fromHex(datadogTags, start, 16);
+    } catch (NumberFormatException e) {
+      log.debug("Ignoring invalid trace id higher order bits in {}", datadogTags, e);
+      return 0;
+    }
+  }
+
+  private static int traceIdHighOrderBitsStart(String datadogTags) {
+    int start = datadogTags.indexOf(TRACE_ID_HIGH_ORDER_BITS_PREFIX);
+    while (start > 0 && datadogTags.charAt(start - 1) != ',') {
+      start = datadogTags.indexOf(TRACE_ID_HIGH_ORDER_BITS_PREFIX, start + 1);
+    }
+    return start < 0 ? -1 : start + TRACE_ID_HIGH_ORDER_BITS_PREFIX.length();
+  }
+
   public static HttpCodec.Extractor newExtractor(
       final Map<String, String> tagMapping, final Map<String, String> baggageMapping) {
     return newExtractor(tagMapping, baggageMapping, Config.get());
@@ -109,10 +166,27 @@ class DatadogHttpCodec {
     private static final int OT_BAGGAGE = 4;
     private static final int E2E_START = 5;
     private static final int DD_TAGS = 6;
-    private static final int IGNORE = -1;
+    private static final int AWS_TRACE_ID = 7;
+    private static final int IGNORE = HeaderClassifier.UNKNOWN;
+
+    private static final HeaderClassifier HEADERS =
+        new HeaderClassifier(
+            new String[] {
+              TRACE_ID_KEY,
+              SPAN_ID_KEY,
+              ORIGIN_KEY,
+              SAMPLING_PRIORITY_KEY,
+              E2E_START_KEY,
+              DATADOG_TAGS_KEY,
+              X_AMZN_TRACE_ID
+            },
+            new int[] {
+              TRACE_ID, SPAN_ID, ORIGIN, SAMPLING_PRIORITY, E2E_START, DD_TAGS, AWS_TRACE_ID
+            });
 
     private final boolean isAwsPropagationEnabled;
     private final PropagationTags.Factory datadogTagsFactory;
+    private long traceIdHighOrderBits;
 
     private DatadogContextInterpreter(
         Map<String, String> taggedHeaders, Map<String, String> baggageMapping, Config config) {
@@ -130,46 +204,39 @@ class DatadogHttpCodec {
         log.debug("Header: {}", key);
       }
       String lowerCaseKey = null;
-      int classification = IGNORE;
-      char first = Character.toLowerCase(key.charAt(0));
-      switch (first) {
-        case 'x':
-          if (TRACE_ID_KEY.equalsIgnoreCase(key)) {
-            classification = TRACE_ID;
-          } else if (SPAN_ID_KEY.equalsIgnoreCase(key)) {
-            classification = SPAN_ID;
-          } else if (SAMPLING_PRIORITY_KEY.equalsIgnoreCase(key)) {
-            classification = SAMPLING_PRIORITY;
-          } else if (ORIGIN_KEY.equalsIgnoreCase(key)) {
-            classification = ORIGIN;
-          } else if (isAwsPropagationEnabled && X_AMZN_TRACE_ID.equalsIgnoreCase(key)) {
-            handleXRayTraceHeader(this, value);
-            return true;
-          } else if (handledXForwarding(key, value)) {
-            return true;
-          } else if (DATADOG_TAGS_KEY.equalsIgnoreCase(key)) {
-            classification = DD_TAGS;
-          }
-          break;
-        case 'f':
-          if (handledForwarding(key, value)) {
-            return true;
-          }
-          break;
-        case 'u':
-          if (handledUserAgent(key, value)) {
-            return true;
-          }
-          break;
-        case 'o':
-          lowerCaseKey = toLowerCase(key);
-          if (E2E_START_KEY.equals(lowerCaseKey)) {
-            classification = E2E_START;
-          } else if (lowerCaseKey.startsWith(OT_BAGGAGE_PREFIX)) {
-            classification = OT_BAGGAGE;
-          }
-          break;
-        default:
+      int classification = HEADERS.classify(key);
+      if (classification == AWS_TRACE_ID) {
+        if (isAwsPropagationEnabled) {
+          handleXRayTraceHeader(this, value);
+          return true;
+        }
+        classification = IGNORE;
+      } else if (classification == IGNORE) {
+        char first = Character.toLowerCase(key.charAt(0));
+        switch (first) {
+          case 'x':
+            if (handledXForwarding(key, value)) {
+              return true;
+            }
+            break;
+          case 'f':
+            if (handledForwarding(key, value)) {
+              return true;
+            }
+            break;
+          case 'u':
+            if (handledUserAgent(key, value)) {
+              return true;
+            }
+            break;
+          case 'o':
+            lowerCaseKey = toLowerCase(key);
+            if (lowerCaseKey.startsWith(OT_BAGGAGE_PREFIX)) {
+              classification = OT_BAGGAGE;
+            }
+            break;
+          default:
+        }
       }
 
       if (classification != IGNORE) {
@@ -194,6 +261,7 @@ class DatadogHttpCodec {
               case DD_TAGS:
                 propagationTags =
                     datadogTagsFactory.fromHeaderValue(PropagationTags.HeaderType.DATADOG, value);
+                traceIdHighOrderBits = extractTraceIdHighOrderBits(value);
                 break;
               case OT_BAGGAGE:
                 {
@@ -224,6 +292,20 @@ class DatadogHttpCodec {
       return true;
     }
 
+    @Override
+    public ContextInterpreter reset() {
+      traceIdHighOrderBits = 0;
+      return super.reset();
+    }
+
+    @Override
+    TagContext build() {
+      if (traceIdHighOrderBits != 0 && !DDTraceId.ZERO.equals(traceId)) {
+        traceId = DDTraceId.from(traceIdHighOrderBits, traceId.toLong());
+      }
+      return super.build();
+    }
+
     private long extractEndToEndStartTime(String value) {
       try {
         return MILLISECONDS.toNanos(Long.parseLong(value));
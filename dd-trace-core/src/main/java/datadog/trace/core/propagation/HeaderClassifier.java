@@ -0,0 +1,81 @@
+package datadog.trace.core.propagation;
+
+/**
+ * Maps a fixed set of header names to classifications, ignoring ASCII case, without allocating.
+ *
+ * <p>The names are placed in a power-of-two table using a hash that folds case as it goes. The
+ * hash seed and table size are searched for at construction time so that no two names share a
+ * slot, which means a lookup hashes the key once and compares it against at most one name.
+ */
+final class HeaderClassifier {
+  static final int UNKNOWN = -1;
+
+  private static final int MAX_SEEDS = 1 << 16;
+
+  private final String[] names;
+  private final int[] classifications;
+  private final int seed;
+  private final int mask;
+
+  HeaderClassifier(String[] names, int[] classifications) {
+    if (names.length != classifications.length) {
+      throw new IllegalArgumentException("Expected a classification for every header name");
+    }
+    int size = Integer.highestOneBit(Math.max(names.length, 1)) << 1;
+    int seed = 0;
+    String[] table;
+    while (null == (table = place(names, seed, size - 1))) {
+      if (++seed == MAX_SEEDS) {
+        seed = 0;
+        size <<= 1;
+      }
+    }
+    int[] values = new int[size];
+    for (int i = 0; i < names.length; i++) {
+      values[hash(names[i], seed) & (size - 1)] = classifications[i];
+    }
+    this.names = table;
+    this.classifications = values;
+    this.seed = seed;
+    this.mask = size - 1;
+  }
+
+  private static String[] place(String[] names, int seed, int mask) {
+    String[] table = new String[mask + 1];
+    for (String name : names) {
+      int slot = hash(name, seed) & mask;
+      if (null != table[slot]) {
+        if (table[slot].equalsIgnoreCase(name)) {
+          throw new IllegalArgumentException("Duplicate header name " + name);
+        }
+        return null;
+      }
+      table[slot] = name;
+    }
+    return table;
+  }
+
+  /** Returns the classification of the header name, or {@link #UNKNOWN} if it isn't one of ours. */
+  int classify(String key) {
+    int slot = hash(key, seed) & mask;
+    String name = names[slot];
+    if (null != name
+        && name.length() == key.length()
+        && name.regionMatches(true, 0, key, 0, key.length())) {
+      return classifications[slot];
+    }
+    return UNKNOWN;
+  }
+
+  private static int hash(String key, int seed) {
+    int h = seed;
+    for (int i = 0; i < key.length(); i++) {
+      char c = key.charAt(i);
+      if (c >= 'A' && c <= 'Z') {
+        c += 'a' - 'A';
+      }
+      h = 31 * h + c;
+    }
+    return h ^ (h >>> 16);
+  }
+}
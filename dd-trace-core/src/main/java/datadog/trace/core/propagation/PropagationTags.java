@@ -21,6 +21,9 @@ import java.util.Map;
  */
 public abstract class PropagationTags {
 
+  /** Carries the higher order 64 bits of a 128 bit trace id, as 16 lower case hex characters. */
+  public static final String TRACE_ID_HIGH_ORDER_BITS_TAG = "_dd.p.tid";
+
   public static PropagationTags.Factory factory(Config config) {
     return factory(config.getxDatadogTagsMaxLength());
   }
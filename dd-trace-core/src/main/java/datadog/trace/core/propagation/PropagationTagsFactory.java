@@ -22,7 +22,11 @@ public class PropagationTagsFactory implements PropagationTags.Factory {
 
   @Override
   public final PropagationTags fromHeaderValue(HeaderType headerType, String value) {
-    return ddFactory.fromHeaderValue(this, value);
+    if (value == null) {
+      return empty();
+    }
+    // defer parsing until the tags are needed, extraction happens on the request path
+    return new UndecodedPropagationTags(value);
   }
 
   PropagationTags createValid(List<String> tagPairs, int tagSize, boolean hasDecisionMaker) {
@@ -101,6 +105,67 @@ public class PropagationTagsFactory implements PropagationTags.Factory {
     }
   }
 
+  // This implementation holds on to the header value and decodes it on first use
+  private final class UndecodedPropagationTags extends PropagationTags {
+    private final String headerValue;
+
+    private volatile PropagationTags decoded;
+
+    private UndecodedPropagationTags(String headerValue) {
+      this.headerValue = headerValue;
+    }
+
+    private PropagationTags decoded() {
+      PropagationTags tags = decoded;
+      if (null == tags) {
+        // decode once, updates to the sampling priority must not land on a discarded copy
+        synchronized (this) {
+          tags = decoded;
+          if (null == tags) {
+            decoded = tags = ddFactory.fromHeaderValue(PropagationTagsFactory.this, headerValue);
+          }
+        }
+      }
+      return tags;
+    }
+
+    @Override
+    public void updateTraceSamplingPriority(
+        int samplingPriority, int samplingMechanism, String serviceName) {
+      decoded().updateTraceSamplingPriority(samplingPriority, samplingMechanism, serviceName);
+    }
+
+    @Override
+    public String headerValue(HeaderType headerType) {
+      return decoded().headerValue(headerType);
+    }
+
+    @Override
+    public void fillTagMap(Map<String, String> tagMap) {
+      decoded().fillTagMap(tagMap);
+    }
+
+    @Override
+    List<String> tagPairs() {
+      return decoded().tagPairs();
+    }
+
+    @Override
+    int tagsSize() {
+      return decoded().tagsSize();
+    }
+
+    @Override
+    boolean missingDecisionMaker() {
+      return decoded().missingDecisionMaker();
+    }
+
+    @Override
+    String decisionMakerTagValue() {
+      return decoded().decisionMakerTagValue();
+    }
+  }
+
   // This implementation is used for errors and doesn't allow any modifications
   private static final class InvalidPropagationTags extends PropagationTags {
     private final String error;
@@ -504,9 +504,12 @@ public final class ContinuableScopeManager implements AgentScopeManager {
    * cleanup() is called to ensure the invariant
    */
   static final class ScopeStack {
+    private static final int STACK_INITIAL_CAPACITY = 8;
 
     private final ProfilingContextIntegration profilingContextIntegration;
-    private final ArrayDeque<ContinuableScope> stack = new ArrayDeque<>(); // previous scopes
+    // previous scopes, only allocated once scopes are nested since short-lived threads like virtual
+    // threads typically only ever activate a single continuation
+    private ArrayDeque<ContinuableScope> stack;
 
     ContinuableScope top; // current scope
 
@@ -530,7 +533,7 @@ public final class ContinuableScopeManager implements AgentScopeManager {
         // no longer alive -- trigger listener & null out
         curScope.onProperClose();
         changedTop = true;
-        curScope = stack.poll();
+        curScope = stack != null ? stack.poll() : null;
       }
       if (curScope != null && curScope == overdueRootScope) {
         // we know this scope is the last on the stack and is overdue
@@ -554,6 +557,9 @@ public final class ContinuableScopeManager implements AgentScopeManager {
     void push(final ContinuableScope scope) {
       onTopChanged(scope);
       if (top != null) {
+        if (stack == null) {
+          stack = new ArrayDeque<>(STACK_INITIAL_CAPACITY);
+        }
         stack.push(top);
       } else {
         onBecomeNonEmpty();
@@ -580,6 +586,9 @@ public final class ContinuableScopeManager implements AgentScopeManager {
       // remaining references so the scope gets removed in the subsequent cleanup() call
       top.clearReferences();
       top.span.finishWithEndToEnd();
+      if (stack == null) {
+        return false;
+      }
       // now do the same for any previous iteration scopes ahead of the expected scope
       for (ContinuableScope scope : stack) {
         if (scope.source() != ScopeSource.ITERATION.id()) {
@@ -594,12 +603,14 @@ public final class ContinuableScopeManager implements AgentScopeManager {
 
     /** Returns the current depth, including the top scope */
     int depth() {
-      return top != null ? 1 + stack.size() : 0;
+      return top != null ? 1 + (stack != null ? stack.size() : 0) : 0;
     }
 
     // DQH - regrettably needed for pre-existing tests
     void clear() {
-      stack.clear();
+      if (stack != null) {
+        stack.clear();
+      }
       top = null;
     }
 
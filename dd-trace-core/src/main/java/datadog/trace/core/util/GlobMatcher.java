@@ -0,0 +1,117 @@
+package datadog.trace.core.util;
+
+/**
+ * Matches names against a glob, where {@code *} matches any run of characters and {@code ?} matches
+ * a single character. Same semantics as {@link GlobPattern} without going through regular
+ * expressions: literal globs and globs that are a literal prefix followed by {@code *} compile
+ * down to simple string comparisons, anything else uses a small backtracking matcher that never
+ * revisits more than the last {@code *}.
+ */
+public abstract class GlobMatcher {
+
+  public static GlobMatcher compile(String glob) {
+    if (null == glob || "*".equals(glob)) {
+      return ANY;
+    }
+    int firstWildcard = firstWildcard(glob);
+    if (firstWildcard < 0) {
+      return new Exact(glob);
+    }
+    if (firstWildcard == glob.length() - 1 && glob.charAt(firstWildcard) == '*') {
+      return new Prefix(glob.substring(0, firstWildcard));
+    }
+    return new Glob(glob);
+  }
+
+  private static int firstWildcard(String glob) {
+    for (int i = 0; i < glob.length(); i++) {
+      char c = glob.charAt(i);
+      if (c == '*' || c == '?') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  public abstract boolean matches(CharSequence name);
+
+  private static final GlobMatcher ANY =
+      new GlobMatcher() {
+        @Override
+        public boolean matches(CharSequence name) {
+          return true;
+        }
+      };
+
+  static final class Exact extends GlobMatcher {
+    private final String literal;
+
+    Exact(String literal) {
+      this.literal = literal;
+    }
+
+    @Override
+    public boolean matches(CharSequence name) {
+      return null != name && literal.contentEquals(name);
+    }
+  }
+
+  static final class Prefix extends GlobMatcher {
+    private final String prefix;
+
+    Prefix(String prefix) {
+      this.prefix = prefix;
+    }
+
+    @Override
+    public boolean matches(CharSequence name) {
+      if (null == name || name.length() < prefix.length()) {
+        return false;
+      }
+      for (int i = 0; i < prefix.length(); i++) {
+        if (prefix.charAt(i) != name.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  static final class Glob extends GlobMatcher {
+    private final char[] glob;
+
+    Glob(String glob) {
+      this.glob = glob.toCharArray();
+    }
+
+    @Override
+    public boolean matches(CharSequence name) {
+      if (null == name) {
+        return false;
+      }
+      int g = 0;
+      int n = 0;
+      int lastStar = -1;
+      int lastStarMatch = 0;
+      while (n < name.length()) {
+        if (g < glob.length && glob[g] == '*') {
+          // remember where we are so we can widen what the star matches
+          lastStar = g++;
+          lastStarMatch = n;
+        } else if (g < glob.length && (glob[g] == '?' || glob[g] == name.charAt(n))) {
+          g++;
+          n++;
+        } else if (lastStar >= 0) {
+          g = lastStar + 1;
+          n = ++lastStarMatch;
+        } else {
+          return false;
+        }
+      }
+      while (g < glob.length && glob[g] == '*') {
+        g++;
+      }
+      return g == glob.length;
+    }
+  }
+}
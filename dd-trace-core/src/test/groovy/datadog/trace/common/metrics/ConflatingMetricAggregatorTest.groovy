@@ -402,6 +402,53 @@ class ConflatingMetricAggregatorTest extends DDSpecification {
     aggregator.close()
   }
 
+  def "pre-aggregated spans published concurrently should be reported"() {
+    setup:
+    int maxAggregates = 10
+    MetricWriter writer = Mock(MetricWriter)
+    Sink sink = Stub(Sink)
+    DDAgentFeaturesDiscovery features = Mock(DDAgentFeaturesDiscovery)
+    features.supportsMetrics() >> true
+    ConflatingMetricsAggregator aggregator = new ConflatingMetricsAggregator(empty,
+      features, sink, writer, maxAggregates, queueSize, reportingInterval, SECONDS, true)
+    long duration = 100
+    aggregator.start()
+
+    when:
+    CountDownLatch latch = new CountDownLatch(1)
+    def threads = (1..threadCount).collect {
+      Thread.start {
+        for (int i = 0; i < count; ++i) {
+          aggregator.publish([
+            new SimpleSpan("service", "operation", "resource", "type", false, true, i % 10 == 0, 0, duration, HTTP_OK)
+          ])
+        }
+      }
+    }
+    threads*.join()
+    aggregator.report()
+    latch.await(2, SECONDS)
+
+    then: "every span is counted once"
+    1 * writer.startBucket(1, _, SECONDS.toNanos(reportingInterval))
+    1 * writer.add(new MetricKey("resource", "service", "operation", "type", HTTP_OK, false), _) >> { MetricKey key, AggregateMetric value ->
+      assert value.getHitCount() == threadCount * count
+      assert value.getErrorCount() == threadCount * count / 10
+      assert value.getTopLevelCount() == threadCount * count
+      assert value.getDuration() == threadCount * count * duration
+    }
+    1 * writer.finishBucket() >> { latch.countDown() }
+
+    cleanup:
+    aggregator.close()
+
+    where:
+    threadCount | count
+    1           | 10
+    4           | 100
+    8           | 1000
+  }
+
   def "should be resilient to serialization errors"() {
     setup:
     int maxAggregates = 10
@@ -0,0 +1,98 @@
+package datadog.trace.common.metrics
+
+import datadog.trace.test.util.DDSpecification
+import org.jctools.queues.SpmcArrayQueue
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class StripedBatchTest extends DDSpecification {
+
+  def key = new MetricKey("resource", "service", "operation", "type", 200, false)
+
+  def "durations are collected from the stripes"() {
+    setup:
+    Queue<Batch> batchPool = new SpmcArrayQueue<>(16)
+    Queue<InboxItem> inbox = new ConcurrentLinkedQueue<>()
+    def stripedBatch = new StripedBatch(key)
+    def aggregate = new AggregateMetric()
+
+    when:
+    10.times {
+      stripedBatch.add(0, 10, batchPool, inbox)
+    }
+    def contributed = stripedBatch.contributeTo(aggregate, batchPool)
+
+    then:
+    inbox.isEmpty()
+    contributed
+    aggregate.hitCount == 10
+    aggregate.duration == 100
+    batchPool.size() == 1
+    !stripedBatch.contributeTo(aggregate, batchPool)
+  }
+
+  def "full batches are handed to the aggregator"() {
+    setup:
+    Queue<Batch> batchPool = new SpmcArrayQueue<>(16)
+    Queue<InboxItem> inbox = new ConcurrentLinkedQueue<>()
+    def stripedBatch = new StripedBatch(key)
+    def aggregate = new AggregateMetric()
+
+    when:
+    100.times {
+      stripedBatch.add(0, 1, batchPool, inbox)
+    }
+    def handed = inbox.size()
+    ((Batch) inbox.poll()).contributeTo(aggregate)
+    stripedBatch.contributeTo(aggregate, batchPool)
+
+    then:
+    handed == 1
+    aggregate.hitCount == 100
+  }
+
+  def "every batch returns to the pool after contended adds"() {
+    setup:
+    def threads = 8
+    def addsPerThread = 2000
+    // enough batches that none have to be allocated, even if every thread but one loses each race
+    def poolSize = 4096
+    Queue<Batch> batchPool = new SpmcArrayQueue<>(poolSize)
+    poolSize.times {
+      batchPool.offer(new Batch())
+    }
+    Queue<InboxItem> inbox = new ConcurrentLinkedQueue<>()
+    def stripedBatch = new StripedBatch(key)
+    def executor = Executors.newFixedThreadPool(threads)
+    def start = new CountDownLatch(1)
+
+    when:
+    def futures = (1..threads).collect {
+      executor.submit {
+        start.await()
+        for (int i = 0; i < addsPerThread; i++) {
+          stripedBatch.add(0, 1, batchPool, inbox)
+        }
+      }
+    }
+    start.countDown()
+    futures*.get(30, TimeUnit.SECONDS)
+    // plays the aggregator, which is the only one returning batches to the pool
+    def aggregate = new AggregateMetric()
+    for (InboxItem item = inbox.poll(); null != item; item = inbox.poll()) {
+      ((Batch) item).contributeTo(aggregate)
+      batchPool.offer((Batch) item)
+    }
+    stripedBatch.contributeTo(aggregate, batchPool)
+
+    then:
+    aggregate.hitCount == threads * addsPerThread
+    batchPool.size() == poolSize
+
+    cleanup:
+    executor.shutdownNow()
+  }
+}
@@ -0,0 +1,58 @@
+package datadog.trace.common.sampling
+
+import datadog.trace.core.CoreSpan
+import datadog.trace.test.util.DDSpecification
+
+class CompiledSamplingRulesTest extends DDSpecification {
+
+  def "first matching rule wins"() {
+    setup:
+    def rules = [
+      new SamplingRule.SpanSamplingRule("web-*", "servlet.*", new DeterministicSampler.SpanSampler(1.0), null),
+      new SamplingRule.SpanSamplingRule("web-server", "*", new DeterministicSampler.SpanSampler(0.5), null),
+      new SamplingRule.SpanSamplingRule("*", "db.query", new DeterministicSampler.SpanSampler(0.1), null)
+    ]
+    def compiled = new CompiledSamplingRules<>(rules)
+
+    expect:
+    // run twice, the second lookup is memoized
+    compiled.firstMatch(span(service, operation)) == (expected == null ? null : rules[expected])
+    compiled.firstMatch(span(service, operation)) == (expected == null ? null : rules[expected])
+
+    where:
+    service      | operation         | expected
+    "web-server" | "servlet.request" | 0
+    "web-server" | "db.query"        | 1
+    "db-client"  | "db.query"        | 2
+    "db-client"  | "db.connect"      | null
+    null         | "db.query"        | 2
+  }
+
+  def "rules that are not name-based are always evaluated"() {
+    setup:
+    def matches = true
+    def rule = new SamplingRule(new DeterministicSampler.TraceSampler(1.0)) {
+        @Override
+        <T extends CoreSpan<T>> boolean matches(T span) {
+          return matches
+        }
+      }
+    def compiled = new CompiledSamplingRules<>([rule])
+
+    expect:
+    compiled.firstMatch(span("service", "operation")) == rule
+
+    when:
+    matches = false
+
+    then:
+    compiled.firstMatch(span("service", "operation")) == null
+  }
+
+  CoreSpan span(String service, String operation) {
+    Stub(CoreSpan) {
+      getServiceName() >> service
+      getOperationName() >> operation
+    }
+  }
+}
@@ -69,6 +69,7 @@ class PayloadDispatcherTest extends DDSpecification {
     then:
     2 * discovery.getTraceEndpoint() >> traceEndpoint
     1 * healthMetrics.onSerialize({ it > 0 })
+    1 * healthMetrics.onEncodingCache({ it >= 0 }, { it >= 0 }, 0)
     1 * api.sendSerializedTraces({ it.traceCount() == traceCount }) >> RemoteApi.Response.success(200)
 
     where:
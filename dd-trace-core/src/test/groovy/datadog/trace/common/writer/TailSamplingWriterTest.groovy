@@ -0,0 +1,153 @@
+package datadog.trace.common.writer
+
+import datadog.trace.core.CoreTracer
+import datadog.trace.core.DDSpan
+import datadog.trace.core.monitor.HealthMetrics
+import datadog.trace.core.test.DDCoreSpecification
+
+import java.util.concurrent.TimeUnit
+
+import static datadog.trace.api.sampling.PrioritySampling.SAMPLER_DROP
+import static datadog.trace.api.sampling.PrioritySampling.SAMPLER_KEEP
+import static datadog.trace.api.sampling.PrioritySampling.USER_KEEP
+import static datadog.trace.api.sampling.SamplingMechanism.DEFAULT
+
+class TailSamplingWriterTest extends DDCoreSpecification {
+
+  CoreTracer tracer = tracerBuilder().writer(new ListWriter()).build()
+
+  Writer delegate = Mock(Writer)
+
+  HealthMetrics healthMetrics = Mock(HealthMetrics)
+
+  def cleanup() {
+    tracer.close()
+  }
+
+  def "traces kept by head-based sampling pass through"() {
+    setup:
+    def writer = tailSamplingWriter(0, 100)
+    def root = rootSpan(SAMPLER_KEEP)
+    root.finish()
+
+    when:
+    writer.write([root])
+
+    then:
+    1 * delegate.write([root])
+    0 * healthMetrics._
+    root.samplingPriority() == SAMPLER_KEEP
+  }
+
+  def "dropped traces are kept when #reason"() {
+    setup:
+    def writer = tailSamplingWriter(rateLimit, 100)
+    def root = rootSpan(SAMPLER_DROP)
+    def child = childSpan(root)
+    child.setError(error)
+    child.finish()
+    root.finishWithDuration(durationMillis * 1_000_000L)
+
+    when:
+    writer.write([root, child])
+
+    then:
+    1 * delegate.write([root, child])
+    1 * healthMetrics.onTailSamplingKeep(reason)
+    root.samplingPriority() == USER_KEEP
+    root.isForceKeep()
+
+    where:
+    reason                            | error | durationMillis | rateLimit
+    TailSamplingWriter.ERROR_REASON   | true  | 1              | 0
+    TailSamplingWriter.LATENCY_REASON | false | 2000           | 0
+    TailSamplingWriter.RATE_REASON    | false | 1              | 10
+  }
+
+  def "dropped traces that match nothing stay dropped"() {
+    setup:
+    def writer = tailSamplingWriter(0, 100)
+    def root = rootSpan(SAMPLER_DROP)
+    root.finishWithDuration(1_000_000L)
+
+    when:
+    writer.write([root])
+
+    then:
+    1 * delegate.write([root])
+    1 * healthMetrics.onTailSamplingDrop()
+    root.samplingPriority() == SAMPLER_DROP
+  }
+
+  def "partial chunks wait for the root span"() {
+    setup:
+    def writer = tailSamplingWriter(0, 100)
+    def root = rootSpan(SAMPLER_DROP)
+    def child = childSpan(root)
+    child.setError(true)
+    child.finish()
+
+    when:
+    writer.write([child])
+
+    then:
+    0 * delegate._
+
+    when:
+    root.finishWithDuration(1_000_000L)
+    writer.write([root])
+
+    then:
+    1 * delegate.write([root, child])
+    1 * healthMetrics.onTailSamplingKeep(TailSamplingWriter.ERROR_REASON)
+  }
+
+  def "oldest chunks are released when the buffer is full"() {
+    setup:
+    def writer = tailSamplingWriter(0, 1)
+    def root1 = rootSpan(SAMPLER_DROP)
+    def child1 = childSpan(root1)
+    child1.finish()
+    def root2 = rootSpan(SAMPLER_DROP)
+    def child2 = childSpan(root2)
+    child2.finish()
+
+    when:
+    writer.write([child1])
+
+    then:
+    0 * delegate._
+
+    when:
+    writer.write([child2])
+
+    then:
+    1 * delegate.write([child1])
+    1 * healthMetrics.onTailSamplingOverflow()
+
+    when:
+    writer.close()
+
+    then:
+    1 * delegate.write([child2])
+    1 * delegate.close()
+
+    cleanup:
+    root1.finish()
+    root2.finish()
+  }
+
+  TailSamplingWriter tailSamplingWriter(int rateLimit, int maxBufferedSpans) {
+    new TailSamplingWriter(delegate, TimeUnit.SECONDS.toNanos(1), rateLimit, maxBufferedSpans, healthMetrics)
+  }
+
+  DDSpan rootSpan(int samplingPriority) {
+    def span = tracer.buildSpan("root").start() as DDSpan
+    span.setSamplingPriority(samplingPriority, DEFAULT)
+    span
+  }
+
+  DDSpan childSpan(DDSpan root) {
+    tracer.buildSpan("child").asChildOf(root.context()).start() as DDSpan
+  }
+}
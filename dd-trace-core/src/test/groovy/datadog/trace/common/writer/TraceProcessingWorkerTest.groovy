@@ -1,5 +1,6 @@
 package datadog.trace.common.writer
 
+import datadog.trace.api.DDTraceId
 import datadog.trace.common.sampling.SingleSpanSampler
 import datadog.trace.common.writer.ddagent.PrioritizationStrategy.PublishResult
 import datadog.trace.core.CoreSpan
@@ -110,6 +111,46 @@ class TraceProcessingWorkerTest extends DDSpecification {
     worker.close()
   }
 
+  def "sharded traces should be serialized by the shard of their trace id"() {
+    setup:
+    AtomicInteger[] acceptedCounts = [new AtomicInteger(), new AtomicInteger(), new AtomicInteger()]
+    AtomicInteger flushCount = new AtomicInteger()
+    List<PayloadDispatcher> dispatchers = acceptedCounts.collect { counter ->
+      PayloadDispatcher dispatcher = Mock(PayloadDispatcher)
+      dispatcher.addTrace(_) >> {
+        counter.incrementAndGet()
+      }
+      dispatcher.flush() >> {
+        flushCount.incrementAndGet()
+      }
+      return dispatcher
+    }
+    TraceProcessingWorker worker = new TraceProcessingWorker(30, Stub(HealthMetrics),
+      dispatchers, {
+        false
+      }, FAST_LANE, 100, TimeUnit.SECONDS, null) // prevent heartbeats from helping the flush happen
+    worker.start()
+
+    when: "traces are submitted"
+    int[] expected = new int[acceptedCounts.length]
+    for (long id = 1; id <= 9; id++) {
+      DDSpan root = Stub(DDSpan)
+      root.getTraceId() >> DDTraceId.from(id)
+      worker.publish(root, SAMPLER_KEEP, [root])
+      expected[TraceProcessingWorker.shardFor(id, acceptedCounts.length)]++
+    }
+    boolean flushed = worker.flush(10, TimeUnit.SECONDS)
+
+    then: "each trace reaches the dispatcher of its shard and every shard is flushed"
+    flushed
+    flushCount.get() == acceptedCounts.length
+    acceptedCounts*.get() == expected as List
+    worker.getCapacity() == 30
+
+    cleanup:
+    worker.close()
+  }
+
   def "should report failure if serialization fails"() {
     setup:
     Throwable theError = new IllegalStateException("thrown by test")
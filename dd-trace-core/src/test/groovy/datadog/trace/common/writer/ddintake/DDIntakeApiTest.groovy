@@ -135,6 +135,43 @@ class DDIntakeApiTest extends DDCoreSpecification {
     TrackType.CITESTCYCLE | "v2"
   }
 
+  def "retried requests send the whole payload"() {
+    setup:
+    def bodies = []
+    def path = buildIntakePath(trackType, apiVersion)
+    def intake = httpServer {
+      handlers {
+        post(path) {
+          bodies.add(request.body)
+          if (bodies.size() < 3) {
+            response.status(503).send()
+          } else {
+            response.status(200).send()
+          }
+        }
+      }
+    }
+
+    def client = createIntakeApi(intake.address.toString(), trackType)
+    def span = buildSpan(1L, "service.name", "my-service")
+    span.finish()
+    def payload = prepareTraces(trackType, [[span]])
+
+    expect:
+    def response = client.sendSerializedTraces(payload)
+    response.success()
+    bodies.size() == 3
+    bodies.every { it.length == payload.sizeInBytes() && Arrays.equals(it, bodies[0]) }
+    payload.sizeInBytes() > 0
+
+    cleanup:
+    intake.close()
+
+    where:
+    trackType             | apiVersion
+    TrackType.CITESTCYCLE | "v2"
+  }
+
   def "content is sent as MSGPACK"() {
     setup:
     def path = buildIntakePath(trackType, apiVersion)
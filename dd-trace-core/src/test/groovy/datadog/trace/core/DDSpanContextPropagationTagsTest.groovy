@@ -1,6 +1,8 @@
 package datadog.trace.core
 
+import datadog.trace.api.DDSpanId
 import datadog.trace.api.DDTraceId
+import datadog.trace.api.IdGenerationStrategy
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan
 import datadog.trace.common.writer.ListWriter
 import datadog.trace.core.propagation.ExtractedContext
@@ -138,4 +140,33 @@ class DDSpanContextPropagationTagsTest extends DDCoreSpecification {
     SAMPLER_KEEP | "_dd.p.dm=9bf3439f2f-1,_dd.p.usr=123" | "_dd.p.dm=9bf3439f2f-1,_dd.p.usr=123" | [:]        | ["_dd.p.dm": "9bf3439f2f-1", "_dd.p.usr": "123"]
     SAMPLER_KEEP | "_dd.p.usr=123"                       | "_dd.p.usr=123"                       | [:]        | ["_dd.p.usr": "123"]
   }
+
+  def "128 bit trace id is tagged on the local root span"() {
+    setup:
+    tracer = tracerBuilder().writer(writer).idGenerationStrategy(IdGenerationStrategy.fromName("SEQUENTIAL", true)).build()
+    def rootSpan = (DDSpan) tracer.buildSpan("top").start()
+    def span = (DDSpan) tracer.buildSpan("current").asChildOf(rootSpan).start()
+    def expectedTag = DDSpanId.toHexStringPadded(rootSpan.traceId.toHighOrderLong())
+
+    expect:
+    rootSpan.traceId.toHighOrderLong() != 0
+    span.traceId == rootSpan.traceId
+    baggageWithPropagationTags(rootSpan)[PropagationTags.TRACE_ID_HIGH_ORDER_BITS_TAG] == expectedTag
+    !baggageWithPropagationTags(span).containsKey(PropagationTags.TRACE_ID_HIGH_ORDER_BITS_TAG)
+
+    cleanup:
+    span.finish()
+    rootSpan.finish()
+  }
+
+  Map<String, String> baggageWithPropagationTags(DDSpan span) {
+    List<Map<String, String>> captured = []
+    span.context().processTagsAndBaggage(new MetadataConsumer() {
+        @Override
+        void accept(Metadata metadata) {
+          captured.add(metadata.baggage)
+        }
+      })
+    return captured.first()
+  }
 }
@@ -0,0 +1,218 @@
+package datadog.trace.core
+
+import datadog.trace.common.writer.ListWriter
+import datadog.trace.core.test.DDCoreSpecification
+import spock.lang.Shared
+import spock.lang.Timeout
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class FinishedSpansTest extends DDCoreSpecification {
+
+  @Shared def tracer = tracerBuilder().writer(new ListWriter()).build()
+
+  def cleanupSpec() {
+    tracer?.close()
+  }
+
+  def "grows past the first chunk"() {
+    setup:
+    def finishedSpans = new FinishedSpans()
+    def spans = createSpans(count)
+
+    when:
+    spans.each { finishedSpans.add(it) }
+
+    then:
+    !finishedSpans.isEmpty()
+    finishedSpans.size() == count
+    finishedSpans.current.capacity() == capacity
+    finishedSpans.asList() == spans.reverse()
+
+    where:
+    count | capacity
+    1     | 8
+    8     | 8
+    9     | 16
+    25    | 32
+    100   | 128
+  }
+
+  def "drain returns the most recent span first across chained chunks"() {
+    setup:
+    def finishedSpans = new FinishedSpans()
+    def spans = createSpans(30)
+    spans.each { finishedSpans.add(it) }
+
+    when:
+    def drained = finishedSpans.drain()
+
+    then:
+    drained.size() == 30
+    drained == spans.reverse()
+    (0..<30).every { drained.get(it).is(spans[29 - it]) }
+    finishedSpans.isEmpty()
+    finishedSpans.size() == 0
+    finishedSpans.drain().isEmpty()
+
+    when: "the next chunk starts as big as the drained one"
+    def more = createSpans(20)
+    more.each { finishedSpans.add(it) }
+
+    then:
+    finishedSpans.current.capacity() == 32
+    finishedSpans.current.previous == null
+    finishedSpans.drain() == more.reverse()
+  }
+
+  def "drained list can be updated in place"() {
+    setup:
+    def finishedSpans = new FinishedSpans()
+    def spans = createSpans(10)
+    def replacement = createSpans(1).first()
+    spans.each { finishedSpans.add(it) }
+    def drained = finishedSpans.drain()
+
+    when:
+    def previous = drained.set(9, replacement)
+
+    then:
+    previous.is(spans[0])
+    drained.get(9).is(replacement)
+
+    when:
+    drained.get(10)
+
+    then:
+    thrown(IndexOutOfBoundsException)
+  }
+
+  @Timeout(value = 60, unit = TimeUnit.SECONDS)
+  def "concurrent adds racing drain lose and duplicate no span"() {
+    setup:
+    def threads = 4
+    def spansPerThread = 2000
+    def spans = createSpans(threads * spansPerThread)
+    def finishedSpans = new FinishedSpans()
+    def executor = Executors.newFixedThreadPool(threads)
+    def start = new CountDownLatch(1)
+    def done = new CountDownLatch(threads)
+    def drained = []
+
+    when:
+    (0..<threads).each { t ->
+      executor.submit {
+        start.await()
+        try {
+          for (int i = t * spansPerThread; i < (t + 1) * spansPerThread; i++) {
+            finishedSpans.add(spans[i])
+          }
+        } finally {
+          done.countDown()
+        }
+      }
+    }
+    start.countDown()
+    while (done.count > 0) {
+      drained.addAll(finishedSpans.drain())
+    }
+    drained.addAll(finishedSpans.drain())
+
+    then:
+    drained.size() == spans.size()
+    identities(drained) == identities(spans)
+    finishedSpans.isEmpty()
+
+    cleanup:
+    executor.shutdownNow()
+  }
+
+  @Timeout(value = 60, unit = TimeUnit.SECONDS)
+  def "concurrent adds chain new chunks without losing spans"() {
+    setup:
+    def threads = 8
+    def spansPerThread = 1000
+    def spans = createSpans(threads * spansPerThread)
+    def finishedSpans = new FinishedSpans()
+    def executor = Executors.newFixedThreadPool(threads)
+    def start = new CountDownLatch(1)
+
+    when:
+    def futures = (0..<threads).collect { t ->
+      executor.submit {
+        start.await()
+        for (int i = t * spansPerThread; i < (t + 1) * spansPerThread; i++) {
+          finishedSpans.add(spans[i])
+        }
+      }
+    }
+    start.countDown()
+    futures*.get(30, TimeUnit.SECONDS)
+
+    then:
+    finishedSpans.size() == spans.size()
+    finishedSpans.current.capacity() == 4096
+    identities(finishedSpans.asList()) == identities(spans)
+    identities(finishedSpans.drain()) == identities(spans)
+    finishedSpans.isEmpty()
+
+    cleanup:
+    executor.shutdownNow()
+  }
+
+  @Timeout(value = 60, unit = TimeUnit.SECONDS)
+  def "iteration racing adds and drains only sees added spans"() {
+    setup:
+    def threads = 4
+    def spansPerThread = 2000
+    def spans = createSpans(threads * spansPerThread)
+    def added = identities(spans)
+    def finishedSpans = new FinishedSpans()
+    def executor = Executors.newFixedThreadPool(threads)
+    def start = new CountDownLatch(1)
+    def done = new CountDownLatch(threads)
+    def drained = []
+
+    when:
+    (0..<threads).each { t ->
+      executor.submit {
+        start.await()
+        try {
+          for (int i = t * spansPerThread; i < (t + 1) * spansPerThread; i++) {
+            finishedSpans.add(spans[i])
+          }
+        } finally {
+          done.countDown()
+        }
+      }
+    }
+    start.countDown()
+    while (done.count > 0) {
+      // iteration is weakly consistent, but must never return a slot which isn't filled yet
+      for (DDSpan span : finishedSpans) {
+        assert added.contains(span)
+      }
+      finishedSpans.oldestFinishedTime()
+      drained.addAll(finishedSpans.drain())
+    }
+    drained.addAll(finishedSpans.drain())
+
+    then:
+    identities(drained) == added
+
+    cleanup:
+    executor.shutdownNow()
+  }
+
+  def createSpans(int count) {
+    return (0..<count).collect { tracer.buildSpan("test").start() as DDSpan }
+  }
+
+  static Set<DDSpan> identities(List<DDSpan> spans) {
+    Set<DDSpan> identities = Collections.newSetFromMap(new IdentityHashMap<DDSpan, Boolean>())
+    spans.each { assert identities.add(it) }
+    return identities
+  }
+}
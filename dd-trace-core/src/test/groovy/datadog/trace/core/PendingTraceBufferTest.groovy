@@ -326,6 +326,60 @@ class PendingTraceBufferTest extends DDSpecification {
     counter.get() == 3
   }
 
+  def "buffered trace is written once its send delay has passed"() {
+    setup:
+    buffer.start()
+    def counter = new AtomicInteger(0)
+    def lastReferenced = System.nanoTime()
+    def element = new PendingTraceBuffer.Element() {
+        @Override
+        long oldestFinishedTime() {
+          return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis())
+        }
+
+        @Override
+        boolean lastReferencedNanosAgo(long nanos) {
+          return nanos < nanosSinceLastReferenced()
+        }
+
+        @Override
+        long nanosSinceLastReferenced() {
+          return System.nanoTime() - lastReferenced
+        }
+
+        @Override
+        void write() {
+          counter.incrementAndGet()
+        }
+
+        @Override
+        DDSpan getRootSpan() {
+          return null
+        }
+
+        @Override
+        boolean setEnqueued(boolean enqueued) {
+          return true
+        }
+      }
+
+    when:
+    buffer.enqueue(element)
+
+    then:
+    new PollingConditions(timeout: 1, initialDelay: 0, delay: 0.05, factor: 1).eventually {
+      assert buffer.bufferedTraces() == 1
+    }
+    counter.get() == 0
+
+    and:
+    new PollingConditions(timeout: 3, initialDelay: 0, delay: 0.1, factor: 1).eventually {
+      assert counter.get() == 1
+      assert buffer.bufferedTraces() == 0
+    }
+    System.nanoTime() - lastReferenced > TimeUnit.MILLISECONDS.toNanos(500)
+  }
+
   def "the same pending thrace is not enqueued multiple times"() {
     setup:
     // Don't start the buffer thread
@@ -0,0 +1,130 @@
+package datadog.trace.core
+
+import datadog.trace.test.util.DDSpecification
+
+class TagMapTest extends DDSpecification {
+
+  def "should behave like a map"() {
+    setup:
+    def tags = new TagMap(2)
+    def expected = [:]
+
+    when:
+    for (int i = 0; i < 100; i++) {
+      tags.put("key" + i, "value" + i)
+      expected.put("key" + i, "value" + i)
+      if (i % 3 == 0) {
+        tags.remove("key" + (i / 2 as int))
+        expected.remove("key" + (i / 2 as int))
+      }
+    }
+
+    then:
+    tags.size() == expected.size()
+    tags == expected
+    expected.keySet().every { tags.containsKey(it) }
+  }
+
+  def "primitive values are boxed on read"() {
+    setup:
+    def tags = new TagMap()
+
+    when:
+    tags.putInt("int", 1)
+    tags.putLong("long", 2L)
+    tags.putFloat("float", 0.25f)
+    tags.putDouble("double", 0.5d)
+    tags.put("string", "value")
+
+    then:
+    tags.get("int") == 1
+    tags.get("int") instanceof Integer
+    tags.get("long") instanceof Long
+    tags.get("float") == 0.25f
+    tags.get("float") instanceof Float
+    tags.get("double") == 0.5d
+    tags.numberCount() == 4
+
+    when: "a primitive value is replaced by an object"
+    tags.put("int", "one")
+
+    then:
+    tags.get("int") == "one"
+    tags.numberCount() == 3
+  }
+
+  def "visitor receives primitives without boxing"() {
+    setup:
+    def tags = new TagMap()
+    tags.putInt("int", 1)
+    tags.putLong("long", 2L)
+    tags.putFloat("float", 0.25f)
+    tags.putDouble("double", 0.5d)
+    tags.put("string", "value")
+    def visited = [:]
+
+    when:
+    tags.visit(new TagMap.Visitor() {
+        void visit(String key, Object value) {
+          visited.put(key, value)
+        }
+
+        void visit(String key, int value) {
+          visited.put(key, "int:" + value)
+        }
+
+        void visit(String key, long value) {
+          visited.put(key, "long:" + value)
+        }
+
+        void visit(String key, float value) {
+          visited.put(key, "float:" + value)
+        }
+
+        void visit(String key, double value) {
+          visited.put(key, "double:" + value)
+        }
+      })
+
+    then:
+    visited == [
+      int   : "int:1",
+      long  : "long:2",
+      float : "float:0.25",
+      double: "double:0.5",
+      string: "value"
+    ]
+  }
+
+  def "frozen copies are independent and read-only"() {
+    setup:
+    def tags = new TagMap()
+    tags.put("a", "b")
+
+    when:
+    def copy = tags.copy().freeze()
+    tags.put("c", "d")
+
+    then:
+    copy == [a: "b"]
+
+    when:
+    copy.put("c", "d")
+
+    then:
+    thrown(UnsupportedOperationException)
+  }
+
+  def "null values remove tags"() {
+    setup:
+    def tags = new TagMap()
+    tags.putInt("a", 1)
+
+    when:
+    tags.put("a", null)
+
+    then:
+    tags.isEmpty()
+    !tags.containsKey("a")
+  }
+}
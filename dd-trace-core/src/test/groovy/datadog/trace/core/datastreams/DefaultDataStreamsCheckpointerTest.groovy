@@ -345,6 +345,49 @@ class DefaultDataStreamsCheckpointerTest extends DDCoreSpecification {
     checkpointer.close()
   }
 
+  def "Points checkpointed concurrently are all recorded"() {
+    given:
+    def conditions = new PollingConditions(timeout: 1)
+    def features = Stub(DDAgentFeaturesDiscovery) {
+      supportsDataStreams() >> true
+    }
+    def timeSource = new ControllableTimeSource()
+    def sink = Mock(Sink)
+    def payloadWriter = new CapturingPayloadWriter()
+
+    when:
+    def checkpointer = new DefaultDataStreamsCheckpointer(sink, features, timeSource, wellKnownTags, payloadWriter, DEFAULT_BUCKET_DURATION_NANOS)
+    checkpointer.start()
+    def threads = (1..8).collect { index ->
+      Thread.start {
+        for (int i = 0; i < 1000; ++i) {
+          checkpointer.accept(new StatsPoint(["type:testType", "group:testGroup", "topic:testTopic"], index % 2, 0, timeSource.currentTimeNanos, SECONDS.toNanos(1), SECONDS.toNanos(1)))
+        }
+      }
+    }
+    threads*.join()
+    timeSource.advance(DEFAULT_BUCKET_DURATION_NANOS)
+    checkpointer.report()
+
+    then:
+    conditions.eventually {
+      assert checkpointer.inbox.isEmpty()
+      assert checkpointer.thread.state != Thread.State.RUNNABLE
+      assert payloadWriter.buckets.size() == 1
+    }
+
+    with(payloadWriter.buckets.get(0)) {
+      groups.size() == 2
+      groups.every {
+        it.pathwayLatency.count == 4000 && it.edgeLatency.count == 4000
+      }
+    }
+
+    cleanup:
+    payloadWriter.close()
+    checkpointer.close()
+  }
+
   def "feature upgrade"() {
     given:
     def conditions = new PollingConditions(timeout: 1)
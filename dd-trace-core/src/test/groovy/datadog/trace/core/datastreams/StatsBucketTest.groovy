@@ -0,0 +1,80 @@
+package datadog.trace.core.datastreams
+
+import datadog.trace.bootstrap.instrumentation.api.StatsPoint
+import datadog.trace.core.test.DDCoreSpecification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class StatsBucketTest extends DDCoreSpecification {
+
+  def "points are merged across stripes once sealed"() {
+    setup:
+    def bucket = new StatsBucket(0, 10)
+    def threads = 8
+    def pointsPerThread = 10000
+    def executor = Executors.newFixedThreadPool(threads)
+    def start = new CountDownLatch(1)
+
+    when:
+    def futures = (1..threads).collect {
+      executor.submit {
+        start.await()
+        for (int i = 0; i < pointsPerThread; i++) {
+          assert bucket.addPoint(new StatsPoint([], i % 2, 0, 0, 1, 1))
+        }
+      }
+    }
+    start.countDown()
+    futures*.get(30, TimeUnit.SECONDS)
+    bucket.seal()
+
+    then:
+    bucket.getGroups().size() == 2
+    bucket.getGroups().sum { it.pathwayLatency.count } == threads * pointsPerThread
+    bucket.getGroups().sum { it.edgeLatency.count } == threads * pointsPerThread
+
+    cleanup:
+    executor.shutdownNow()
+  }
+
+  def "points are rejected once sealed"() {
+    setup:
+    def bucket = new StatsBucket(0, 10)
+    bucket.addPoint(new StatsPoint([], 1, 0, 0, 1, 1))
+    bucket.seal()
+
+    expect:
+    !bucket.addPoint(new StatsPoint([], 1, 0, 0, 1, 1))
+    !bucket.addPoint(new StatsPoint([], 2, 0, 0, 1, 1))
+    bucket.getGroups()*.hash == [1L]
+    bucket.getGroups().first().pathwayLatency.count == 1
+  }
+
+  def "group created while sealing is not reported"() {
+    setup:
+    def bucket = new StatsBucket(0, 10)
+    bucket.addPoint(new StatsPoint([], 1, 0, 0, 1, 1))
+    // seals the bucket after the sealed check, before the group is added
+    def racingPoint = new StatsPoint([], 2, 0, 0, 1, 1) {
+        boolean sealing = true
+
+        @Override
+        long getHash() {
+          if (sealing) {
+            sealing = false
+            bucket.seal()
+          }
+          return super.getHash()
+        }
+      }
+
+    when:
+    def added = bucket.addPoint(racingPoint)
+
+    then:
+    !added
+    bucket.getGroups()*.hash == [1L]
+  }
+}
@@ -44,6 +44,18 @@ class HealthMetricsTest extends DDSpecification {
     0 * _
   }
 
+  def "test onBufferedTraces"() {
+    when:
+    healthMetrics.onBufferedTraces(bufferedTraces)
+
+    then:
+    1 * statsD.gauge('pending.buffered_traces', bufferedTraces)
+    0 * _
+
+    where:
+    bufferedTraces = ThreadLocalRandom.current().nextInt(0, 100_000)
+  }
+
   def "test onPublish"() {
     setup:
     def latch = new CountDownLatch(trace.isEmpty() ? 1 : 2)
@@ -159,6 +171,23 @@ class HealthMetricsTest extends DDSpecification {
     0 * _
   }
 
+  def "test onEncodingCache"() {
+    when:
+    healthMetrics.onEncodingCache(hits, misses, evictions)
+
+    then:
+    (hits > 0 ? 1 : 0) * statsD.count('serialization.encoding_cache.hits', hits)
+    (misses > 0 ? 1 : 0) * statsD.count('serialization.encoding_cache.misses', misses)
+    (evictions > 0 ? 1 : 0) * statsD.count('serialization.encoding_cache.evictions', evictions)
+    0 * _
+
+    where:
+    hits | misses | evictions
+    0    | 0      | 0
+    10   | 2      | 0
+    3    | 7      | 5
+  }
+
   def "test onSend"() {
     when:
     healthMetrics.onSend(traceCount, sendSize, response)
@@ -151,7 +151,7 @@ class B3HttpExtractorTest extends DDSpecification {
     samplingPriority = 1
   }
 
-  def "extract 128 bit id truncates id to 64 bit"() {
+  def "extract 128 bit id keeps all 128 bits"() {
     setup:
     def headers = [
       (TRACE_ID_KEY.toUpperCase()): traceId,
@@ -177,11 +177,11 @@ class B3HttpExtractorTest extends DDSpecification {
     "-1"                               | "1"                | null                                                                       | null
     "1"                                | "-1"               | null                                                                       | null
     "0"                                | "1"                | null                                                                       | null
-    "00001"                            | "1"                | DDTraceId.fromHexTruncatedWithOriginal("00001")                            | DDSpanId.fromHex("00001")
+    "00001"                            | "1"                | DDTraceId.fromHex128WithOriginal("00001")                                  | DDSpanId.fromHex("00001")
     "463ac35c9f6413ad"                 | "463ac35c9f6413ad" | DDTraceId.from("5060571933882717101")                                      | DDSpanId.from("5060571933882717101")
-    "463ac35c9f6413ad48485a3953bb6124" | "1"                | DDTraceId.fromHexTruncatedWithOriginal("463ac35c9f6413ad48485a3953bb6124") | 1
+    "463ac35c9f6413ad48485a3953bb6124" | "1"                | DDTraceId.fromHex128WithOriginal("463ac35c9f6413ad48485a3953bb6124")       | 1
     "f" * 16                           | "1"                | DDTraceId.MAX                                                              | 1
-    "a" * 16 + "f" * 16                | "1"                | DDTraceId.fromHexTruncatedWithOriginal("a" * 16 + "f" * 16)                | 1
+    "a" * 16 + "f" * 16                | "1"                | DDTraceId.fromHex128WithOriginal("a" * 16 + "f" * 16)                      | 1
     "1" + "f" * 32                     | "1"                | null                                                                       | null
     "0" + "f" * 32                     | "1"                | null                                                                       | null
     "1"                                | "f" * 16           | DDTraceId.ONE                                                              | DDSpanId.MAX
@@ -324,14 +324,14 @@ class B3HttpExtractorTest extends DDSpecification {
     }
 
     where:
-    traceId                            | spanId             | expectedTraceId                       | expectedSpanId
-    "00001"                            | "00001"            | DDTraceId.ONE                         | 1
-    "463ac35c9f6413ad"                 | "463ac35c9f6413ad" | DDTraceId.from("5060571933882717101") | DDSpanId.from("5060571933882717101")
-    "463ac35c9f6413ad48485a3953bb6124" | "1"                | DDTraceId.from("5208512171318403364") | 1
-    "f" * 16                           | "1"                | DDTraceId.MAX                         | 1
-    "a" * 16 + "f" * 16                | "1"                | DDTraceId.MAX                         | 1
-    "1"                                | "f" * 16           | DDTraceId.ONE                         | DDSpanId.MAX
-    "1"                                | "000" + "f" * 16   | DDTraceId.ONE                         | DDSpanId.MAX
+    traceId                            | spanId             | expectedTraceId                                                                            | expectedSpanId
+    "00001"                            | "00001"            | DDTraceId.ONE                                                                              | 1
+    "463ac35c9f6413ad"                 | "463ac35c9f6413ad" | DDTraceId.from("5060571933882717101")                                                      | DDSpanId.from("5060571933882717101")
+    "463ac35c9f6413ad48485a3953bb6124" | "1"                | DDTraceId.from(DDSpanId.fromHex("463ac35c9f6413ad"), DDSpanId.from("5208512171318403364")) | 1
+    "f" * 16                           | "1"                | DDTraceId.MAX                                                                              | 1
+    "a" * 16 + "f" * 16                | "1"                | DDTraceId.from(DDSpanId.fromHex("a" * 16), DDTraceId.MAX.toLong())                         | 1
+    "1"                                | "f" * 16           | DDTraceId.ONE                                                                              | DDSpanId.MAX
+    "1"                                | "000" + "f" * 16   | DDTraceId.ONE                                                                              | DDSpanId.MAX
   }
 
   String trimmed(String hex) {
@@ -0,0 +1,177 @@
+package datadog.trace.core.propagation
+
+import datadog.trace.api.DDSpanId
+import datadog.trace.api.DDTraceId
+import datadog.trace.bootstrap.instrumentation.api.AgentPropagation
+import datadog.trace.bootstrap.instrumentation.api.AgentTracer.NoopPathwayContext
+import datadog.trace.common.writer.ListWriter
+import datadog.trace.core.CoreTracer
+import datadog.trace.core.DDSpanContext
+import datadog.trace.core.test.DDCoreSpecification
+
+import static datadog.trace.api.sampling.PrioritySampling.*
+import static datadog.trace.core.CoreTracer.TRACE_ID_MAX
+
+class BinaryCodecTest extends DDCoreSpecification {
+
+  CoreTracer tracer = tracerBuilder().writer(new ListWriter()).build()
+
+  def cleanup() {
+    tracer.close()
+  }
+
+  def "round trip #traceId #spanId #samplingPriority #origin"() {
+    setup:
+    def context = context(traceId, spanId, samplingPriority, origin, baggage, datadogTags)
+
+    when:
+    def extracted = BinaryCodec.decode(BinaryCodec.encode(context, null), PropagationTags.factory())
+
+    then:
+    extracted.traceId == DDTraceId.from(traceId)
+    extracted.spanId == DDSpanId.from(spanId)
+    extracted.samplingPriority == samplingPriority
+    extracted.origin == origin
+    extracted.baggage == baggage
+    extracted.tags == [:]
+    extracted.propagationTags.headerValue(PropagationTags.HeaderType.DATADOG) == datadogTags
+    BinaryCodec.pathway(BinaryCodec.encode(context, null)) == null
+
+    where:
+    traceId               | spanId                | samplingPriority | origin   | baggage                | datadogTags
+    "1"                   | "2"                   | UNSET            | null     | [:]                    | null
+    "1"                   | "2"                   | SAMPLER_KEEP     | "saipan" | ["k1": "v1"]           | "_dd.p.usr=123"
+    "$TRACE_ID_MAX"       | "${TRACE_ID_MAX - 1}" | USER_DROP        | "saipan" | ["k1": "v1", "k2": ""] | null
+    "${TRACE_ID_MAX - 1}" | "$TRACE_ID_MAX"       | USER_KEEP        | null     | ["ünï": "cödé"]        | "_dd.p.usr=123"
+  }
+
+  def "pathway is embedded after the context"() {
+    setup:
+    def context = context("1", "2", SAMPLER_KEEP, "saipan", ["k1": "v1"], "_dd.p.usr=123")
+    byte[] pathway = [1, 2, 3, -1, 0, 127]
+
+    when:
+    def encoded = BinaryCodec.encode(context, pathway)
+
+    then:
+    BinaryCodec.pathway(encoded) == pathway
+    BinaryCodec.decode(encoded, PropagationTags.factory()).traceId == DDTraceId.ONE
+  }
+
+  def "round trip 128 bit trace id"() {
+    setup:
+    def traceId = DDTraceId.from(0x6400a1b200000000L, 42)
+    def context = context(traceId, "2", SAMPLER_KEEP, "saipan", ["k1": "v1"], "_dd.p.usr=123")
+    byte[] pathway = [1, 2, 3]
+
+    when:
+    def encoded = BinaryCodec.encode(context, pathway)
+    def extracted = BinaryCodec.decode(encoded, PropagationTags.factory())
+
+    then:
+    encoded[0] == 2
+    extracted.traceId == traceId
+    extracted.traceId.toHighOrderLong() == traceId.toHighOrderLong()
+    extracted.spanId == 2
+    extracted.origin == "saipan"
+    extracted.baggage == ["k1": "v1"]
+    BinaryCodec.pathway(encoded) == pathway
+  }
+
+  def "invalid values are ignored"() {
+    expect:
+    BinaryCodec.decode(value as byte[], PropagationTags.factory()) == null
+    BinaryCodec.pathway(value as byte[]) == null
+
+    where:
+    value << [
+      [],
+      [1, 0, 0],
+      // unsupported version
+      [3, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 2, 0, 0, 0, 0, 0, 0],
+      // 128 bit trace id without the lower order bits
+      [2, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 2],
+      // zero trace id
+      [1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 0, 0, 0, 0, 0],
+      // origin longer than the value
+      [1, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 2, 0, 0, 100, 0, 0, 0],
+      // truncated
+      [1, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 2, 0]
+    ]
+  }
+
+  def "inject and extract through the tracer"() {
+    setup:
+    def span = tracer.buildSpan("operation").withOrigin("saipan").start()
+    span.setBaggageItem("k1", "v1")
+    Map<String, byte[]> carrier = [:]
+
+    when:
+    tracer.propagate().injectBinary(span, carrier, MAP_SETTER, null)
+    def extracted = tracer.propagate().extractBinary(carrier, MAP_VISITOR) as ExtractedContext
+
+    then:
+    carrier.keySet() == [BinaryCodec.CONTEXT_KEY] as Set
+    extracted.traceId == span.traceId
+    extracted.spanId == span.spanId
+    extracted.samplingPriority == span.context().samplingPriority
+    extracted.origin == "saipan"
+    extracted.baggage == ["k1": "v1"]
+
+    when:
+    carrier.clear()
+
+    then:
+    tracer.propagate().extractBinary(carrier, MAP_VISITOR) == null
+
+    cleanup:
+    span.finish()
+  }
+
+  DDSpanContext context(
+    String traceId, String spanId, int samplingPriority, String origin, Map<String, String> baggage, String datadogTags) {
+    context(DDTraceId.from(traceId), spanId, samplingPriority, origin, baggage, datadogTags)
+  }
+
+  DDSpanContext context(
+    DDTraceId traceId, String spanId, int samplingPriority, String origin, Map<String, String> baggage, String datadogTags) {
+    new DDSpanContext(
+      traceId,
+      DDSpanId.from(spanId),
+      DDSpanId.ZERO,
+      null,
+      "fakeService",
+      "fakeOperation",
+      "fakeResource",
+      samplingPriority,
+      origin,
+      baggage,
+      false,
+      "fakeType",
+      0,
+      tracer.pendingTraceFactory.create(DDTraceId.ONE),
+      null,
+      null,
+      NoopPathwayContext.INSTANCE,
+      false,
+      PropagationTags.factory().fromHeaderValue(PropagationTags.HeaderType.DATADOG, datadogTags))
+  }
+
+  static final AgentPropagation.BinarySetter<Map<String, byte[]>> MAP_SETTER = new AgentPropagation.BinarySetter<Map<String, byte[]>>() {
+      @Override
+      void set(Map<String, byte[]> carrier, String key, byte[] value) {
+        carrier.put(key, value)
+      }
+    }
+
+  static final AgentPropagation.BinaryContextVisitor<Map<String, byte[]>> MAP_VISITOR = new AgentPropagation.BinaryContextVisitor<Map<String, byte[]>>() {
+      @Override
+      void forEachKey(Map<String, byte[]> carrier, AgentPropagation.BinaryKeyClassifier classifier) {
+        for (Map.Entry<String, byte[]> entry : carrier.entrySet()) {
+          if (!classifier.accept(entry.key, entry.value)) {
+            return
+          }
+        }
+      }
+    }
+}
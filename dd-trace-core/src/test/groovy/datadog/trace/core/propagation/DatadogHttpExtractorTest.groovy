@@ -11,6 +11,7 @@ import datadog.trace.test.util.DDSpecification
 
 import static datadog.trace.api.config.TracerConfig.PROPAGATION_EXTRACT_LOG_HEADER_NAMES_ENABLED
 import static datadog.trace.core.CoreTracer.TRACE_ID_MAX
+import static datadog.trace.core.propagation.DatadogHttpCodec.DATADOG_TAGS_KEY
 import static datadog.trace.core.propagation.DatadogHttpCodec.ORIGIN_KEY
 import static datadog.trace.core.propagation.DatadogHttpCodec.OT_BAGGAGE_PREFIX
 import static datadog.trace.core.propagation.DatadogHttpCodec.SAMPLING_PRIORITY_KEY
@@ -343,6 +344,37 @@ class DatadogHttpExtractorTest extends DDSpecification {
     "2"     | "3"    | 1610001234
   }
 
+  def "extract 128 bit trace id from x-datadog-tags #datadogTags"() {
+    setup:
+    def headers = [
+      (TRACE_ID_KEY.toUpperCase()): "1",
+      (SPAN_ID_KEY.toUpperCase()) : "2",
+      (DATADOG_TAGS_KEY)          : datadogTags,
+    ]
+
+    when:
+    final ExtractedContext context = extractor.extract(headers, ContextVisitors.stringValuesMap())
+
+    then:
+    context.traceId == DDTraceId.from(highOrderBits, 1)
+    context.traceId.toHighOrderLong() == highOrderBits
+    context.traceId.toString() == "1"
+    context.spanId == 2
+
+    where:
+    datadogTags                                        | highOrderBits
+    "_dd.p.tid=640cfd8d00000000"                       | 0x640cfd8d00000000L
+    "_dd.p.dm=-4,_dd.p.tid=640cfd8d00000000"           | 0x640cfd8d00000000L
+    "_dd.p.tid=640cfd8d00000000,_dd.p.dm=-4"           | 0x640cfd8d00000000L
+    "_dd.p.tid=ffffffffffffffff"                       | -1
+    "_dd.p.usr=123"                                    | 0
+    "_dd.p.tid=640cfd8d"                               | 0
+    "_dd.p.tid=640cfd8d000000000"                      | 0
+    "_dd.p.tid=640cfd8d0000000z"                       | 0
+    "_dd.p.usr=_dd.p.tid=640cfd8d00000000"             | 0
+    "_dd.p.usr=_dd.p.tid=1,_dd.p.tid=640cfd8d00000000" | 0x640cfd8d00000000L
+  }
+
   def "baggage is mapped on context creation"() {
     setup:
     def headers = [
@@ -167,4 +167,53 @@ class DatadogHttpInjectorTest extends DDCoreSpecification {
     cleanup:
     tracer.close()
   }
+
+  def "inject 128 bit trace id #datadogTags"() {
+    setup:
+    def writer = new ListWriter()
+    def tracer = tracerBuilder().writer(writer).build()
+    def traceId = DDTraceId.from(0x640cfd8d00000000L, 1)
+    final DDSpanContext mockedContext =
+      new DDSpanContext(
+      traceId,
+      2,
+      DDSpanId.ZERO,
+      null,
+      "fakeService",
+      "fakeOperation",
+      "fakeResource",
+      UNSET,
+      null,
+      [:],
+      false,
+      "fakeType",
+      0,
+      tracer.pendingTraceFactory.create(traceId),
+      null,
+      null,
+      NoopPathwayContext.INSTANCE,
+      false,
+      PropagationTags.factory().fromHeaderValue(PropagationTags.HeaderType.DATADOG, datadogTags))
+
+    final Map<String, String> carrier = Mock()
+
+    when:
+    injector.inject(mockedContext, carrier, MapSetter.INSTANCE)
+
+    then:
+    1 * carrier.put(TRACE_ID_KEY, "1")
+    1 * carrier.put(SPAN_ID_KEY, "2")
+    1 * carrier.put(DATADOG_TAGS_KEY, expectedTags)
+    0 * _
+
+    cleanup:
+    tracer.close()
+
+    where:
+    datadogTags                                | expectedTags
+    null                                       | "_dd.p.tid=640cfd8d00000000"
+    "_dd.p.usr=123"                            | "_dd.p.usr=123,_dd.p.tid=640cfd8d00000000"
+    "_dd.p.tid=640cfd8d00000000"               | "_dd.p.tid=640cfd8d00000000"
+    "_dd.p.usr=123,_dd.p.tid=640cfd8d00000000" | "_dd.p.usr=123,_dd.p.tid=640cfd8d00000000"
+  }
 }
@@ -0,0 +1,61 @@
+package datadog.trace.core.propagation
+
+import datadog.trace.test.util.DDSpecification
+
+class HeaderClassifierTest extends DDSpecification {
+
+  static final String[] NAMES = [
+    "x-datadog-trace-id",
+    "x-datadog-parent-id",
+    "x-datadog-sampling-priority",
+    "x-datadog-origin",
+    "x-datadog-tags",
+    "ot-baggage-t0",
+    "X-Amzn-Trace-Id"
+  ]
+
+  def "classifies header names ignoring case"() {
+    setup:
+    def classifier = new HeaderClassifier(NAMES, [0, 1, 2, 3, 4, 5, 6] as int[])
+
+    expect:
+    classifier.classify(key) == classification
+
+    where:
+    key                           | classification
+    "x-datadog-trace-id"          | 0
+    "X-Datadog-Trace-Id"          | 0
+    "X-DATADOG-PARENT-ID"         | 1
+    "x-datadog-sampling-priority" | 2
+    "x-DataDog-Origin"            | 3
+    "x-datadog-tags"              | 4
+    "OT-Baggage-T0"               | 5
+    "x-amzn-trace-id"             | 6
+    "x-datadog-trace-i"           | HeaderClassifier.UNKNOWN
+    "x-datadog-trace-idx"         | HeaderClassifier.UNKNOWN
+    "x-datadog-trace_id"          | HeaderClassifier.UNKNOWN
+    "some-header"                 | HeaderClassifier.UNKNOWN
+    ""                            | HeaderClassifier.UNKNOWN
+  }
+
+  def "every name gets its own slot"() {
+    setup:
+    String[] names = (0..<count).collect { "x-header-$it".toString() }
+    int[] classifications = (0..<count) as int[]
+    def classifier = new HeaderClassifier(names, classifications)
+
+    expect:
+    (0..<count).every { classifier.classify(names[it].toUpperCase()) == it }
+
+    where:
+    count << [1, 2, 10, 50]
+  }
+
+  def "rejects duplicate names"() {
+    when:
+    new HeaderClassifier(["x-a", "X-A"] as String[], [0, 1] as int[])
+
+    then:
+    thrown(IllegalArgumentException)
+  }
+}
@@ -0,0 +1,30 @@
+package datadog.trace.core.util
+
+import datadog.trace.test.util.DDSpecification
+
+class GlobMatcherTest extends DDSpecification {
+
+  def "glob #glob matches #name: #expected"() {
+    expect:
+    GlobMatcher.compile(glob).matches(name) == expected
+
+    where:
+    glob       | name          | expected
+    null       | "anything"    | true
+    "*"        | "anything"    | true
+    "abc"      | "abc"         | true
+    "abc"      | "abcd"        | false
+    "web-*"    | "web-server"  | true
+    "web-*"    | "web"         | false
+    "*-server" | "web-server"  | true
+    "*-server" | "web-servers" | false
+    "w?b"      | "web"         | true
+    "w?b"      | "wb"          | false
+    "a*b*c"    | "aXbYbZc"     | true
+    "a*b*c"    | "aXbYbZ"      | false
+    "a.b"      | "aXb"         | false
+    "a.b"      | "a.b"         | true
+    "**"       | ""            | true
+    "*?"       | ""            | false
+  }
+}
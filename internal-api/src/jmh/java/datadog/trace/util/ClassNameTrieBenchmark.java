@@ -0,0 +1,66 @@
+package datadog.trace.util;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares lookups against a large exclude list held in a {@link ClassNameTrie} and a set of
+ * package prefixes checked one package level at a time.
+ */
+@State(Scope.Benchmark)
+public class ClassNameTrieBenchmark {
+
+  @Param({"1000", "10000"})
+  int excludeCount;
+
+  ClassNameTrie trie;
+  Set<String> packagePrefixes;
+
+  String[] keys;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    ClassNameTrie.Builder builder = new ClassNameTrie.Builder();
+    packagePrefixes = new HashSet<>();
+    for (int i = 0; i < excludeCount; i++) {
+      String prefix = "com.example" + (i % 100) + ".module" + i;
+      builder.put(prefix + ".*", 1);
+      packagePrefixes.add(prefix);
+    }
+    trie = builder.buildTrie();
+    keys = new String[1024];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = "com.example" + (i % 100) + ".module" + (i * 31) + ".service.SomeClass";
+    }
+  }
+
+  @Benchmark
+  public void classNameTrie(Blackhole blackhole) {
+    for (String key : keys) {
+      blackhole.consume(trie.apply(key));
+    }
+  }
+
+  @Benchmark
+  public void packagePrefixSet(Blackhole blackhole) {
+    for (String key : keys) {
+      blackhole.consume(matchesPackagePrefix(key));
+    }
+  }
+
+  private boolean matchesPackagePrefix(String key) {
+    for (int i = key.indexOf('.'); i > 0; i = key.indexOf('.', i + 1)) {
+      if (packagePrefixes.contains(key.substring(0, i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -67,12 +67,18 @@ import static datadog.trace.api.ConfigDefaults.DEFAULT_SERVLET_ROOT_CONTEXT_SERV
 import static datadog.trace.api.ConfigDefaults.DEFAULT_SITE;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TELEMETRY_DEPENDENCY_COLLECTION_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TELEMETRY_HEARTBEAT_INTERVAL;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_128_BIT_TRACEID_GENERATION_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_AGENT_PORT;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_AGENT_V05_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_ANALYTICS_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_RATE_LIMIT;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_REPORT_HOSTNAME;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_RESOLVER_ENABLED;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_SERIALIZER_SHARDS;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_TAIL_SAMPLING_ENABLED;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_TAIL_SAMPLING_LATENCY_THRESHOLD_MS;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_TAIL_SAMPLING_MAX_BUFFERED_SPANS;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_TAIL_SAMPLING_RATE_LIMIT;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_X_DATADOG_TAGS_MAX_LENGTH;
 import static datadog.trace.api.DDTags.HOST_TAG;
 import static datadog.trace.api.DDTags.INTERNAL_HOST_NAME;
@@ -144,6 +150,7 @@ import static datadog.trace.api.config.GeneralConfig.TRACER_METRICS_ENABLED;
 import static datadog.trace.api.config.GeneralConfig.TRACER_METRICS_IGNORED_RESOURCES;
 import static datadog.trace.api.config.GeneralConfig.TRACER_METRICS_MAX_AGGREGATES;
 import static datadog.trace.api.config.GeneralConfig.TRACER_METRICS_MAX_PENDING;
+import static datadog.trace.api.config.GeneralConfig.TRACER_METRICS_PRE_AGGREGATION_ENABLED;
 import static datadog.trace.api.config.GeneralConfig.VERSION;
 import static datadog.trace.api.config.IastConfig.IAST_DEBUG_ENABLED;
 import static datadog.trace.api.config.IastConfig.IAST_DEDUPLICATION_ENABLED;
@@ -230,6 +237,7 @@ import static datadog.trace.api.config.TraceInstrumentationConfig.INTEGRATION_SY
 import static datadog.trace.api.config.TraceInstrumentationConfig.JMS_PROPAGATION_DISABLED_QUEUES;
 import static datadog.trace.api.config.TraceInstrumentationConfig.JMS_PROPAGATION_DISABLED_TOPICS;
 import static datadog.trace.api.config.TraceInstrumentationConfig.KAFKA_CLIENT_BASE64_DECODING_ENABLED;
+import static datadog.trace.api.config.TraceInstrumentationConfig.KAFKA_CLIENT_BINARY_PROPAGATION_ENABLED;
 import static datadog.trace.api.config.TraceInstrumentationConfig.KAFKA_CLIENT_PROPAGATION_DISABLED_TOPICS;
 import static datadog.trace.api.config.TraceInstrumentationConfig.MESSAGE_BROKER_SPLIT_BY_DESTINATION;
 import static datadog.trace.api.config.TraceInstrumentationConfig.OBFUSCATION_QUERY_STRING_REGEXP;
@@ -273,6 +281,7 @@ import static datadog.trace.api.config.TracerConfig.SPAN_SAMPLING_RULES;
 import static datadog.trace.api.config.TracerConfig.SPAN_SAMPLING_RULES_FILE;
 import static datadog.trace.api.config.TracerConfig.SPAN_TAGS;
 import static datadog.trace.api.config.TracerConfig.SPLIT_BY_TAGS;
+import static datadog.trace.api.config.TracerConfig.TRACE_128_BIT_TRACEID_GENERATION_ENABLED;
 import static datadog.trace.api.config.TracerConfig.TRACE_AGENT_ARGS;
 import static datadog.trace.api.config.TracerConfig.TRACE_AGENT_PATH;
 import static datadog.trace.api.config.TracerConfig.TRACE_AGENT_PORT;
@@ -291,7 +300,12 @@ import static datadog.trace.api.config.TracerConfig.TRACE_SAMPLE_RATE;
 import static datadog.trace.api.config.TracerConfig.TRACE_SAMPLING_OPERATION_RULES;
 import static datadog.trace.api.config.TracerConfig.TRACE_SAMPLING_RULES;
 import static datadog.trace.api.config.TracerConfig.TRACE_SAMPLING_SERVICE_RULES;
+import static datadog.trace.api.config.TracerConfig.TRACE_SERIALIZER_SHARDS;
 import static datadog.trace.api.config.TracerConfig.TRACE_STRICT_WRITES_ENABLED;
+import static datadog.trace.api.config.TracerConfig.TRACE_TAIL_SAMPLING_ENABLED;
+import static datadog.trace.api.config.TracerConfig.TRACE_TAIL_SAMPLING_LATENCY_THRESHOLD_MS;
+import static datadog.trace.api.config.TracerConfig.TRACE_TAIL_SAMPLING_MAX_BUFFERED_SPANS;
+import static datadog.trace.api.config.TracerConfig.TRACE_TAIL_SAMPLING_RATE_LIMIT;
 import static datadog.trace.api.config.TracerConfig.TRACE_X_DATADOG_TAGS_MAX_LENGTH;
 import static datadog.trace.api.config.TracerConfig.WRITER_TYPE;
 import static datadog.trace.util.CollectionUtils.tryMakeImmutableList;
@@ -461,6 +475,7 @@ public class Config {
   private final boolean tracerMetricsBufferingEnabled;
   private final int tracerMetricsMaxAggregates;
   private final int tracerMetricsMaxPending;
+  private final boolean tracerMetricsPreAggregationEnabled;
 
   private final boolean reportHostName;
 
@@ -473,6 +488,10 @@ public class Config {
   private final String traceSamplingRules;
   private final Double traceSampleRate;
   private final int traceRateLimit;
+  private final boolean traceTailSamplingEnabled;
+  private final int traceTailSamplingLatencyThresholdMs;
+  private final int traceTailSamplingRateLimit;
+  private final int traceTailSamplingMaxBufferedSpans;
   private final String spanSamplingRules;
   private final String spanSamplingRulesFile;
 
@@ -553,6 +572,7 @@ public class Config {
   private final boolean kafkaClientPropagationEnabled;
   private final Set<String> kafkaClientPropagationDisabledTopics;
   private final boolean kafkaClientBase64DecodingEnabled;
+  private final boolean kafkaClientBinaryPropagationEnabled;
 
   private final boolean jmsPropagationEnabled;
   private final Set<String> jmsPropagationDisabledTopics;
@@ -584,11 +604,13 @@ public class Config {
   private final int xDatadogTagsMaxLength;
 
   private final boolean traceAgentV05Enabled;
+  private final int traceSerializerShards;
 
   private final boolean debugEnabled;
   private final String configFileStatus;
 
   private final IdGenerationStrategy idGenerationStrategy;
+  private final boolean traceId128BitGenerationEnabled;
 
   private final boolean secureRandom;
 
@@ -690,13 +712,18 @@ public class Config {
     if (strategyName == null) {
       strategyName = "RANDOM";
     }
-    IdGenerationStrategy strategy = IdGenerationStrategy.fromName(strategyName);
+    traceId128BitGenerationEnabled =
+        configProvider.getBoolean(
+            TRACE_128_BIT_TRACEID_GENERATION_ENABLED,
+            DEFAULT_TRACE_128_BIT_TRACEID_GENERATION_ENABLED);
+    IdGenerationStrategy strategy =
+        IdGenerationStrategy.fromName(strategyName, traceId128BitGenerationEnabled);
     if (strategy == null) {
       log.warn(
           "*** you are trying to use an unknown id generation strategy {} - falling back to RANDOM",
           strategyName);
       strategyName = "RANDOM";
-      strategy = IdGenerationStrategy.fromName(strategyName);
+      strategy = IdGenerationStrategy.fromName(strategyName, traceId128BitGenerationEnabled);
     }
     if (!strategyName.equals("RANDOM") && !strategyName.equals("SECURE_RANDOM")) {
       log.warn(
@@ -1021,6 +1048,8 @@ public class Config {
         configProvider.getBoolean(TRACER_METRICS_BUFFERING_ENABLED, false);
     tracerMetricsMaxAggregates = configProvider.getInteger(TRACER_METRICS_MAX_AGGREGATES, 2048);
     tracerMetricsMaxPending = configProvider.getInteger(TRACER_METRICS_MAX_PENDING, 2048);
+    tracerMetricsPreAggregationEnabled =
+        configProvider.getBoolean(TRACER_METRICS_PRE_AGGREGATION_ENABLED, false);
 
     reportHostName =
         configProvider.getBoolean(TRACE_REPORT_HOSTNAME, DEFAULT_TRACE_REPORT_HOSTNAME);
@@ -1028,6 +1057,11 @@ public class Config {
     traceAgentV05Enabled =
         configProvider.getBoolean(ENABLE_TRACE_AGENT_V05, DEFAULT_TRACE_AGENT_V05_ENABLED);
 
+    traceSerializerShards =
+        Math.max(
+            1,
+            configProvider.getInteger(TRACE_SERIALIZER_SHARDS, DEFAULT_TRACE_SERIALIZER_SHARDS));
+
     traceAnalyticsEnabled =
         configProvider.getBoolean(TRACE_ANALYTICS_ENABLED, DEFAULT_TRACE_ANALYTICS_ENABLED);
 
@@ -1048,6 +1082,18 @@ public class Config {
     traceSamplingRules = configProvider.getString(TRACE_SAMPLING_RULES);
     traceSampleRate = configProvider.getDouble(TRACE_SAMPLE_RATE);
     traceRateLimit = configProvider.getInteger(TRACE_RATE_LIMIT, DEFAULT_TRACE_RATE_LIMIT);
+    traceTailSamplingEnabled =
+        configProvider.getBoolean(TRACE_TAIL_SAMPLING_ENABLED, DEFAULT_TRACE_TAIL_SAMPLING_ENABLED);
+    traceTailSamplingLatencyThresholdMs =
+        configProvider.getInteger(
+            TRACE_TAIL_SAMPLING_LATENCY_THRESHOLD_MS,
+            DEFAULT_TRACE_TAIL_SAMPLING_LATENCY_THRESHOLD_MS);
+    traceTailSamplingRateLimit =
+        configProvider.getInteger(
+            TRACE_TAIL_SAMPLING_RATE_LIMIT, DEFAULT_TRACE_TAIL_SAMPLING_RATE_LIMIT);
+    traceTailSamplingMaxBufferedSpans =
+        configProvider.getInteger(
+            TRACE_TAIL_SAMPLING_MAX_BUFFERED_SPANS, DEFAULT_TRACE_TAIL_SAMPLING_MAX_BUFFERED_SPANS);
     spanSamplingRules = configProvider.getString(SPAN_SAMPLING_RULES);
     spanSamplingRulesFile = configProvider.getString(SPAN_SAMPLING_RULES_FILE);
 
@@ -1283,6 +1329,8 @@ public class Config {
         tryMakeImmutableSet(configProvider.getList(KAFKA_CLIENT_PROPAGATION_DISABLED_TOPICS));
     kafkaClientBase64DecodingEnabled =
         configProvider.getBoolean(KAFKA_CLIENT_BASE64_DECODING_ENABLED, false);
+    kafkaClientBinaryPropagationEnabled =
+        configProvider.getBoolean(KAFKA_CLIENT_BINARY_PROPAGATION_ENABLED, false);
 
     jmsPropagationEnabled = isPropagationEnabled(true, "jms");
     jmsPropagationDisabledTopics =
@@ -1689,6 +1737,10 @@ public class Config {
     return tracerMetricsMaxPending;
   }
 
+  public boolean isTracerMetricsPreAggregationEnabled() {
+    return tracerMetricsPreAggregationEnabled;
+  }
+
   public boolean isLogsInjectionEnabled() {
     return instrumenterConfig.isLogsInjectionEnabled();
   }
@@ -1731,6 +1783,22 @@ public class Config {
     return traceRateLimit;
   }
 
+  public boolean isTraceTailSamplingEnabled() {
+    return traceTailSamplingEnabled;
+  }
+
+  public int getTraceTailSamplingLatencyThresholdMs() {
+    return traceTailSamplingLatencyThresholdMs;
+  }
+
+  public int getTraceTailSamplingRateLimit() {
+    return traceTailSamplingRateLimit;
+  }
+
+  public int getTraceTailSamplingMaxBufferedSpans() {
+    return traceTailSamplingMaxBufferedSpans;
+  }
+
   public String getSpanSamplingRules() {
     return spanSamplingRules;
   }
@@ -2053,6 +2121,10 @@ public class Config {
     return kafkaClientBase64DecodingEnabled;
   }
 
+  public boolean isKafkaClientBinaryPropagationEnabled() {
+    return kafkaClientBinaryPropagationEnabled;
+  }
+
   public boolean isRabbitPropagationEnabled() {
     return rabbitPropagationEnabled;
   }
@@ -2111,6 +2183,10 @@ public class Config {
     return traceAgentV05Enabled;
   }
 
+  public int getTraceSerializerShards() {
+    return traceSerializerShards;
+  }
+
   public boolean isDebugEnabled() {
     return debugEnabled;
   }
@@ -2155,6 +2231,10 @@ public class Config {
     return idGenerationStrategy;
   }
 
+  public boolean isTraceId128BitGenerationEnabled() {
+    return traceId128BitGenerationEnabled;
+  }
+
   public Set<String> getGrpcIgnoredInboundMethods() {
     return grpcIgnoredInboundMethods;
   }
@@ -2970,6 +3050,8 @@ public class Config {
         + tracerMetricsMaxAggregates
         + ", tracerMetricsMaxPending="
         + tracerMetricsMaxPending
+        + ", tracerMetricsPreAggregationEnabled="
+        + tracerMetricsPreAggregationEnabled
         + ", reportHostName="
         + reportHostName
         + ", traceAnalyticsEnabled="
@@ -2984,6 +3066,14 @@ public class Config {
         + traceSampleRate
         + ", traceRateLimit="
         + traceRateLimit
+        + ", traceTailSamplingEnabled="
+        + traceTailSamplingEnabled
+        + ", traceTailSamplingLatencyThresholdMs="
+        + traceTailSamplingLatencyThresholdMs
+        + ", traceTailSamplingRateLimit="
+        + traceTailSamplingRateLimit
+        + ", traceTailSamplingMaxBufferedSpans="
+        + traceTailSamplingMaxBufferedSpans
         + ", spanSamplingRules="
         + spanSamplingRules
         + ", spanSamplingRulesFile="
@@ -3077,6 +3167,8 @@ public class Config {
         + kafkaClientPropagationDisabledTopics
         + ", kafkaClientBase64DecodingEnabled="
         + kafkaClientBase64DecodingEnabled
+        + ", kafkaClientBinaryPropagationEnabled="
+        + kafkaClientBinaryPropagationEnabled
         + ", jmsPropagationEnabled="
         + jmsPropagationEnabled
         + ", jmsPropagationDisabledTopics="
@@ -3105,6 +3197,8 @@ public class Config {
         + xDatadogTagsMaxLength
         + ", traceAgentV05Enabled="
         + traceAgentV05Enabled
+        + ", traceSerializerShards="
+        + traceSerializerShards
         + ", debugEnabled="
         + debugEnabled
         + ", configFile='"
@@ -3112,6 +3206,8 @@ public class Config {
         + '\''
         + ", idGenerationStrategy="
         + idGenerationStrategy
+        + ", traceId128BitGenerationEnabled="
+        + traceId128BitGenerationEnabled
         + ", grpcIgnoredInboundMethods="
         + grpcIgnoredInboundMethods
         + ", grpcIgnoredOutboundMethods="
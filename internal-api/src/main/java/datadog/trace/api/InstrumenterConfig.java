@@ -22,13 +22,18 @@ import static datadog.trace.api.config.ProfilingConfig.PROFILING_DIRECT_ALLOCATI
 import static datadog.trace.api.config.ProfilingConfig.PROFILING_DIRECT_ALLOCATION_ENABLED_DEFAULT;
 import static datadog.trace.api.config.ProfilingConfig.PROFILING_ENABLED;
 import static datadog.trace.api.config.ProfilingConfig.PROFILING_ENABLED_DEFAULT;
+import static datadog.trace.api.config.TraceInstrumentationConfig.INSTRUMENTER_TIMING_ENABLED;
 import static datadog.trace.api.config.TraceInstrumentationConfig.INTEGRATIONS_ENABLED;
 import static datadog.trace.api.config.TraceInstrumentationConfig.JDBC_CONNECTION_CLASS_NAME;
 import static datadog.trace.api.config.TraceInstrumentationConfig.JDBC_PREPARED_STATEMENT_CLASS_NAME;
+import static datadog.trace.api.config.TraceInstrumentationConfig.LAZY_ADVICE_ENABLED;
 import static datadog.trace.api.config.TraceInstrumentationConfig.LEGACY_INSTALLER_ENABLED;
 import static datadog.trace.api.config.TraceInstrumentationConfig.LOGS_INJECTION_ENABLED;
 import static datadog.trace.api.config.TraceInstrumentationConfig.LOGS_MDC_TAGS_INJECTION_ENABLED;
 import static datadog.trace.api.config.TraceInstrumentationConfig.RESOLVER_CACHE_CONFIG;
+import static datadog.trace.api.config.TraceInstrumentationConfig.RESOLVER_MATCH_CACHE_FILE;
+import static datadog.trace.api.config.TraceInstrumentationConfig.RESOLVER_OUTLINE_PREWARM;
+import static datadog.trace.api.config.TraceInstrumentationConfig.RESOLVER_OUTLINE_SCANNER;
 import static datadog.trace.api.config.TraceInstrumentationConfig.RESOLVER_RESET_INTERVAL;
 import static datadog.trace.api.config.TraceInstrumentationConfig.RESOLVER_USE_LOADCLASS;
 import static datadog.trace.api.config.TraceInstrumentationConfig.RUNTIME_CONTEXT_FIELD_INJECTION;
@@ -84,6 +89,9 @@ public class InstrumenterConfig {
   private final ResolverCacheConfig resolverCacheConfig;
   private final boolean resolverUseLoadClassEnabled;
   private final int resolverResetInterval;
+  private final String resolverMatchCacheFile;
+  private final boolean resolverOutlinePrewarm;
+  private final boolean resolverOutlineScanner;
 
   private final boolean runtimeContextFieldInjection;
   private final boolean serialVersionUIDFieldInjection;
@@ -94,6 +102,8 @@ public class InstrumenterConfig {
   private final boolean internalExitOnFailure;
 
   private final boolean legacyInstallerEnabled;
+  private final boolean lazyAdviceEnabled;
+  private final boolean instrumenterTimingEnabled;
 
   private InstrumenterConfig() {
     this(ConfigProvider.createDefault());
@@ -163,6 +173,9 @@ public class InstrumenterConfig {
         Platform.isNativeImageBuilder()
             ? 0
             : configProvider.getInteger(RESOLVER_RESET_INTERVAL, DEFAULT_RESOLVER_RESET_INTERVAL);
+    resolverMatchCacheFile = configProvider.getString(RESOLVER_MATCH_CACHE_FILE);
+    resolverOutlinePrewarm = configProvider.getBoolean(RESOLVER_OUTLINE_PREWARM, false);
+    resolverOutlineScanner = configProvider.getBoolean(RESOLVER_OUTLINE_SCANNER, true);
 
     runtimeContextFieldInjection =
         configProvider.getBoolean(
@@ -177,6 +190,8 @@ public class InstrumenterConfig {
     internalExitOnFailure = configProvider.getBoolean(INTERNAL_EXIT_ON_FAILURE, false);
 
     legacyInstallerEnabled = configProvider.getBoolean(LEGACY_INSTALLER_ENABLED, false);
+    lazyAdviceEnabled = configProvider.getBoolean(LAZY_ADVICE_ENABLED, false);
+    instrumenterTimingEnabled = configProvider.getBoolean(INSTRUMENTER_TIMING_ENABLED, true);
   }
 
   public boolean isIntegrationsEnabled() {
@@ -286,6 +301,18 @@ public class InstrumenterConfig {
     return resolverResetInterval;
   }
 
+  public String getResolverMatchCacheFile() {
+    return resolverMatchCacheFile;
+  }
+
+  public boolean isResolverOutlinePrewarm() {
+    return resolverOutlinePrewarm;
+  }
+
+  public boolean isResolverOutlineScanner() {
+    return resolverOutlineScanner;
+  }
+
   public boolean isRuntimeContextFieldInjection() {
     return runtimeContextFieldInjection;
   }
@@ -310,6 +337,14 @@ public class InstrumenterConfig {
     return legacyInstallerEnabled;
   }
 
+  public boolean isLazyAdviceEnabled() {
+    return lazyAdviceEnabled;
+  }
+
+  public boolean isInstrumenterTimingEnabled() {
+    return instrumenterTimingEnabled;
+  }
+
   public boolean isLegacyInstrumentationEnabled(
       final boolean defaultEnabled, final String... integrationNames) {
     return configProvider.isEnabled(
@@ -373,6 +408,12 @@ public class InstrumenterConfig {
         + resolverUseLoadClassEnabled
         + ", resolverResetInterval="
         + resolverResetInterval
+        + ", resolverMatchCacheFile="
+        + resolverMatchCacheFile
+        + ", resolverOutlinePrewarm="
+        + resolverOutlinePrewarm
+        + ", resolverOutlineScanner="
+        + resolverOutlineScanner
         + ", runtimeContextFieldInjection="
         + runtimeContextFieldInjection
         + ", serialVersionUIDFieldInjection="
@@ -387,6 +428,10 @@ public class InstrumenterConfig {
         + internalExitOnFailure
         + ", legacyInstallerEnabled="
         + legacyInstallerEnabled
+        + ", lazyAdviceEnabled="
+        + lazyAdviceEnabled
+        + ", instrumenterTimingEnabled="
+        + instrumenterTimingEnabled
         + '}';
   }
 }
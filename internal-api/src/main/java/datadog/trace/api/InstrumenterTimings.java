@@ -0,0 +1,230 @@
+package datadog.trace.api;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records how much each instrumenter costs while classes are loaded: time spent matching, time
+ * spent applying its transformation steps, and the size of the classes it transformed.
+ *
+ * <p>Each measure is kept in a fixed-size log2 histogram per instrumenter, so recording never
+ * allocates. Results are available over JMX and reported to telemetry.
+ */
+public final class InstrumenterTimings implements InstrumenterTimingsMBean {
+  private static final Logger log = LoggerFactory.getLogger(InstrumenterTimings.class);
+
+  public static final String MBEAN_NAME = "datadog.trace.agent:type=InstrumenterTimings";
+
+  public static final int BUCKET_COUNT = 16;
+
+  private static volatile InstrumenterTimings INSTANCE;
+
+  /** Starts recording timings for the given instrumenters, indexed by their id. */
+  public static InstrumenterTimings init(String[] instrumenterNames) {
+    return INSTANCE = new InstrumenterTimings(instrumenterNames);
+  }
+
+  /** Returns the current timings; {@code null} if they are not being recorded. */
+  public static InstrumenterTimings get() {
+    return INSTANCE;
+  }
+
+  /** Makes the timings available over JMX; only call this once it is safe to touch JMX. */
+  public static void registerMBean() {
+    InstrumenterTimings timings = INSTANCE;
+    if (null != timings) {
+      try {
+        ManagementFactory.getPlatformMBeanServer()
+            .registerMBean(timings, new ObjectName(MBEAN_NAME));
+      } catch (Throwable e) {
+        log.debug("Unable to register {}", MBEAN_NAME, e);
+      }
+    }
+  }
+
+  private final String[] names;
+
+  // match times are sampled, see CombiningMatcher
+  private final Histogram matchNanos;
+  private final Histogram transformNanos;
+  private final Histogram bytesEmitted;
+
+  // number of matches and transformations already reported, per instrumenter
+  private final long[] reportedCounts;
+
+  InstrumenterTimings(String[] names) {
+    this.names = names;
+    // 1us..32ms for times, 64b..2mb for sizes
+    this.matchNanos = new Histogram(names.length, 10);
+    this.transformNanos = new Histogram(names.length, 10);
+    this.bytesEmitted = new Histogram(names.length, 6);
+    this.reportedCounts = new long[names.length];
+  }
+
+  public void recordMatch(int id, long nanos) {
+    matchNanos.record(id, nanos);
+  }
+
+  public void recordTransform(int id, long nanos) {
+    transformNanos.record(id, nanos);
+  }
+
+  public void recordBytes(int id, int bytes) {
+    bytesEmitted.record(id, bytes);
+  }
+
+  /** Summarizes instrumenters with new matches or transformations since the last report. */
+  public synchronized List<Summary> reportChanges() {
+    List<Summary> changes = new ArrayList<>();
+    for (int id = 0; id < names.length; id++) {
+      long count = matchNanos.count(id) + transformNanos.count(id);
+      if (null != names[id] && count != reportedCounts[id]) {
+        reportedCounts[id] = count;
+        changes.add(
+            new Summary(
+                names[id],
+                transformNanos.count(id),
+                matchNanos.total(id),
+                transformNanos.total(id),
+                bytesEmitted.total(id)));
+      }
+    }
+    return changes;
+  }
+
+  @Override
+  public String[] getInstrumenters() {
+    List<String> instrumenters = new ArrayList<>();
+    for (int id = 0; id < names.length; id++) {
+      if (null != names[id] && matchNanos.count(id) + transformNanos.count(id) > 0) {
+        instrumenters.add(names[id]);
+      }
+    }
+    return instrumenters.toArray(new String[0]);
+  }
+
+  @Override
+  public String[] getSlowestInstrumenters() {
+    Integer[] ids = new Integer[names.length];
+    for (int id = 0; id < ids.length; id++) {
+      ids[id] = id;
+    }
+    Arrays.sort(
+        ids,
+        (a, b) ->
+            Long.compare(
+                matchNanos.total(b) + transformNanos.total(b),
+                matchNanos.total(a) + transformNanos.total(a)));
+    List<String> slowest = new ArrayList<>();
+    // limit to the top 20 to keep the JMX attribute readable
+    for (int i = 0; i < ids.length && slowest.size() < 20; i++) {
+      int id = ids[i];
+      if (null != names[id] && matchNanos.count(id) + transformNanos.count(id) > 0) {
+        slowest.add(
+            names[id]
+                + " match="
+                + matchNanos.total(id) / 1000
+                + "us(sampled) transform="
+                + transformNanos.total(id) / 1000
+                + "us transformed="
+                + transformNanos.count(id));
+      }
+    }
+    return slowest.toArray(new String[0]);
+  }
+
+  @Override
+  public long[] matchTimeHistogram(String instrumenter) {
+    return matchNanos.buckets(idOf(instrumenter));
+  }
+
+  @Override
+  public long[] transformTimeHistogram(String instrumenter) {
+    return transformNanos.buckets(idOf(instrumenter));
+  }
+
+  @Override
+  public long[] bytesEmittedHistogram(String instrumenter) {
+    return bytesEmitted.buckets(idOf(instrumenter));
+  }
+
+  private int idOf(String instrumenter) {
+    for (int id = 0; id < names.length; id++) {
+      if (instrumenter.equals(names[id])) {
+        return id;
+      }
+    }
+    return -1;
+  }
+
+  /** Totals recorded for an instrumenter. */
+  public static final class Summary {
+    public final String instrumenter;
+    public final long transformCount;
+    public final long matchNanos;
+    public final long transformNanos;
+    public final long bytesEmitted;
+
+    Summary(
+        String instrumenter,
+        long transformCount,
+        long matchNanos,
+        long transformNanos,
+        long bytesEmitted) {
+      this.instrumenter = instrumenter;
+      this.transformCount = transformCount;
+      this.matchNanos = matchNanos;
+      this.transformNanos = transformNanos;
+      this.bytesEmitted = bytesEmitted;
+    }
+  }
+
+  /** Fixed-size log2 histograms, one per instrumenter, with a running total and count. */
+  static final class Histogram {
+    private final int shift;
+    private final AtomicLongArray buckets;
+    private final AtomicLongArray totals;
+    private final AtomicLongArray counts;
+
+    Histogram(int instrumenterCount, int shift) {
+      this.shift = shift;
+      this.buckets = new AtomicLongArray(instrumenterCount * BUCKET_COUNT);
+      this.totals = new AtomicLongArray(instrumenterCount);
+      this.counts = new AtomicLongArray(instrumenterCount);
+    }
+
+    void record(int id, long value) {
+      if (id < 0 || id >= totals.length()) {
+        return;
+      }
+      int bucket = 64 - Long.numberOfLeadingZeros(value >>> shift);
+      buckets.incrementAndGet(id * BUCKET_COUNT + Math.min(bucket, BUCKET_COUNT - 1));
+      totals.addAndGet(id, value);
+      counts.incrementAndGet(id);
+    }
+
+    long total(int id) {
+      return totals.get(id);
+    }
+
+    long count(int id) {
+      return counts.get(id);
+    }
+
+    long[] buckets(int id) {
+      long[] result = new long[BUCKET_COUNT];
+      if (id >= 0 && id < totals.length()) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+          result[i] = buckets.get(id * BUCKET_COUNT + i);
+        }
+      }
+      return result;
+    }
+  }
+}
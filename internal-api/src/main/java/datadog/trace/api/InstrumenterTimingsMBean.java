@@ -0,0 +1,20 @@
+package datadog.trace.api;
+
+/**
+ * JMX view of {@link InstrumenterTimings}. Histograms have log2 buckets: bucket 0 counts times under
+ * 1us (sizes under 64 bytes), and each following bucket doubles the range.
+ */
+public interface InstrumenterTimingsMBean {
+
+  /** Names of instrumenters that have transformed at least one class. */
+  String[] getInstrumenters();
+
+  /** Instrumenters with the highest combined match and transform time, slowest first. */
+  String[] getSlowestInstrumenters();
+
+  long[] matchTimeHistogram(String instrumenter);
+
+  long[] transformTimeHistogram(String instrumenter);
+
+  long[] bytesEmittedHistogram(String instrumenter);
+}
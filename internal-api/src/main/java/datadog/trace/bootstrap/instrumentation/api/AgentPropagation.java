@@ -13,6 +13,13 @@ public interface AgentPropagation {
 
   <C> void inject(AgentSpan span, C carrier, Setter<C> setter, TracePropagationStyle style);
 
+  /**
+   * Injects the context as a single binary header, with the pathway context embedded if {@code
+   * sortedTags} are given. The input tags should be sorted.
+   */
+  <C> void injectBinary(
+      AgentSpan span, C carrier, BinarySetter<C> setter, LinkedHashMap<String, String> sortedTags);
+
   // The input tags should be sorted.
   <C> void injectBinaryPathwayContext(
       AgentSpan span, C carrier, BinarySetter<C> setter, LinkedHashMap<String, String> sortedTags);
@@ -31,6 +38,9 @@ public interface AgentPropagation {
 
   <C> AgentSpan.Context.Extracted extract(C carrier, ContextVisitor<C> getter);
 
+  /** Returns the context from the binary header, or {@code null} if the carrier doesn't have one. */
+  <C> AgentSpan.Context.Extracted extractBinary(C carrier, BinaryContextVisitor<C> getter);
+
   <C> PathwayContext extractBinaryPathwayContext(C carrier, BinaryContextVisitor<C> getter);
 
   <C> PathwayContext extractPathwayContext(C carrier, ContextVisitor<C> getter);
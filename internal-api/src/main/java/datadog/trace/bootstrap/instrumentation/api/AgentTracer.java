@@ -345,6 +345,13 @@ public class AgentTracer {
     public <C> void inject(
         AgentSpan span, C carrier, Setter<C> setter, TracePropagationStyle style) {}
 
+    @Override
+    public <C> void injectBinary(
+        AgentSpan span,
+        C carrier,
+        BinarySetter<C> setter,
+        LinkedHashMap<String, String> sortedTags) {}
+
     @Override
     public <C> void injectBinaryPathwayContext(
         AgentSpan span,
@@ -727,6 +734,13 @@ public class AgentTracer {
     public <C> void inject(
         AgentSpan span, C carrier, Setter<C> setter, TracePropagationStyle style) {}
 
+    @Override
+    public <C> void injectBinary(
+        AgentSpan span,
+        C carrier,
+        BinarySetter<C> setter,
+        LinkedHashMap<String, String> sortedTags) {}
+
     @Override
     public <C> void injectBinaryPathwayContext(
         AgentSpan span,
@@ -743,6 +757,11 @@ public class AgentTracer {
       return NoopContext.INSTANCE;
     }
 
+    @Override
+    public <C> Context.Extracted extractBinary(C carrier, BinaryContextVisitor<C> getter) {
+      return null;
+    }
+
     @Override
     public <C> PathwayContext extractBinaryPathwayContext(
         C carrier, BinaryContextVisitor<C> getter) {
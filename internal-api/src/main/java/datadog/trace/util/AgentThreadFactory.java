@@ -12,6 +12,8 @@ public final class AgentThreadFactory implements ThreadFactory {
   // known agent threads
   public enum AgentThread {
     TASK_SCHEDULER("dd-task-scheduler"),
+    MATCH_CACHE_WRITER("dd-match-cache-writer"),
+    OUTLINE_PREWARMER("dd-outline-prewarmer"),
 
     TRACE_STARTUP("dd-agent-startup-datadog-tracer"),
     TRACE_MONITOR("dd-trace-monitor"),
@@ -74,7 +76,21 @@ public final class AgentThreadFactory implements ThreadFactory {
    * @param runnable work to run on the new thread.
    */
   public static Thread newAgentThread(final AgentThread agentThread, final Runnable runnable) {
-    final Thread thread = new Thread(AGENT_THREAD_GROUP, runnable, agentThread.threadName);
+    return newAgentThread(agentThread, "", runnable);
+  }
+
+  /**
+   * Constructs a new agent {@code Thread} as a daemon with a null ContextClassLoader, for agent
+   * threads which run as several instances.
+   *
+   * @param agentThread the agent thread to create.
+   * @param nameSuffix suffix appended to the thread name to distinguish instances.
+   * @param runnable work to run on the new thread.
+   */
+  public static Thread newAgentThread(
+      final AgentThread agentThread, final String nameSuffix, final Runnable runnable) {
+    final Thread thread =
+        new Thread(AGENT_THREAD_GROUP, runnable, agentThread.threadName + nameSuffix);
     thread.setDaemon(true);
     thread.setContextClassLoader(null);
     thread.setUncaughtExceptionHandler(
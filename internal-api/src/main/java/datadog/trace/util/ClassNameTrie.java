@@ -245,10 +245,12 @@ public final class ClassNameTrie {
 
     public Builder() {}
 
+    /** Starts from a copy of the given trie, which is left unchanged by further mappings. */
     public Builder(ClassNameTrie trie) {
-      trieData = trie.trieData;
+      trieData = Arrays.copyOf(trie.trieData, trie.trieData.length);
       trieLength = trieData.length;
-      longJumps = trie.longJumps;
+      longJumps =
+          null != trie.longJumps ? Arrays.copyOf(trie.longJumps, trie.longJumps.length) : null;
       longJumpCount = null != longJumps ? longJumps.length : 0;
     }
 
@@ -334,7 +336,8 @@ public final class ClassNameTrie {
         value = (char) number;
       }
 
-      if (trieLength == 0) {
+      if (trieLength == 0 || (trieLength == 1 && trieData[0] == 0)) {
+        // first mapping, or the builder started from an empty trie
         int keyLength = key.length();
         trieLength = (keyLength > 1 ? 3 : 2) + keyLength;
         trieData = new char[8192]; // create table on first mapping
@@ -0,0 +1,46 @@
+package datadog.trace.api
+
+import datadog.trace.test.util.DDSpecification
+
+class InstrumenterTimingsTest extends DDSpecification {
+
+  def "timings are recorded in log2 buckets"() {
+    setup:
+    def timings = new InstrumenterTimings(['a/A', 'b/B', null] as String[])
+
+    when:
+    timings.recordMatch(0, 500) // <1us
+    timings.recordMatch(0, 3_000) // ~3us
+    timings.recordTransform(1, 40_000_000) // beyond last bucket
+    timings.recordBytes(1, 100)
+    timings.recordTransform(5, 1_000) // unknown id is ignored
+
+    then:
+    timings.matchTimeHistogram('a/A') == [1, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0] as long[]
+    timings.transformTimeHistogram('b/B')[InstrumenterTimings.BUCKET_COUNT - 1] == 1
+    timings.bytesEmittedHistogram('b/B')[1] == 1
+    timings.matchTimeHistogram('missing') == new long[InstrumenterTimings.BUCKET_COUNT]
+    timings.instrumenters as List == ['a/A', 'b/B']
+    timings.slowestInstrumenters[0].startsWith('b/B ')
+  }
+
+  def "only changes are reported"() {
+    setup:
+    def timings = new InstrumenterTimings(['a/A', 'b/B'] as String[])
+    timings.recordTransform(0, 1_000)
+
+    when:
+    def first = timings.reportChanges()
+    def second = timings.reportChanges()
+    timings.recordMatch(1, 1_000)
+    def third = timings.reportChanges()
+
+    then:
+    first*.instrumenter == ['a/A']
+    first[0].transformCount == 1
+    first[0].transformNanos == 1_000
+    second.empty
+    third*.instrumenter == ['b/B']
+    third[0].matchNanos == 1_000
+  }
+}
@@ -5,6 +5,7 @@ import datadog.telemetry.TelemetryRunnable.TelemetryPeriodicAction;
 import datadog.telemetry.dependency.DependencyPeriodicAction;
 import datadog.telemetry.dependency.DependencyService;
 import datadog.telemetry.dependency.DependencyServiceImpl;
+import datadog.telemetry.integration.InstrumenterTimingsPeriodicAction;
 import datadog.telemetry.integration.IntegrationPeriodicAction;
 import datadog.trace.api.Config;
 import datadog.trace.api.time.SystemTimeSource;
@@ -42,6 +43,7 @@ public class TelemetrySystem {
 
     List<TelemetryPeriodicAction> actions = new ArrayList<>();
     actions.add(new IntegrationPeriodicAction());
+    actions.add(new InstrumenterTimingsPeriodicAction());
     if (null != dependencyService) {
       actions.add(new DependencyPeriodicAction(dependencyService));
     }
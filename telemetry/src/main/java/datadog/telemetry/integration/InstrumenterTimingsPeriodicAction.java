@@ -0,0 +1,41 @@
+package datadog.telemetry.integration;
+
+import datadog.telemetry.TelemetryRunnable;
+import datadog.telemetry.TelemetryService;
+import datadog.telemetry.api.Metric;
+import datadog.trace.api.InstrumenterTimings;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+public class InstrumenterTimingsPeriodicAction
+    implements TelemetryRunnable.TelemetryPeriodicAction {
+
+  @Override
+  public void doIteration(TelemetryService service) {
+    InstrumenterTimings timings = InstrumenterTimings.get();
+    if (null == timings) {
+      return;
+    }
+    long timestamp = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    for (InstrumenterTimings.Summary summary : timings.reportChanges()) {
+      String tag = "instrumenter:" + summary.instrumenter;
+      service.addMetric(
+          gauge("instrumenter.match_time_us", timestamp, summary.matchNanos / 1000, tag));
+      service.addMetric(
+          gauge("instrumenter.transform_time_us", timestamp, summary.transformNanos / 1000, tag));
+      service.addMetric(
+          gauge("instrumenter.transform_count", timestamp, summary.transformCount, tag));
+      service.addMetric(gauge("instrumenter.bytes_emitted", timestamp, summary.bytesEmitted, tag));
+    }
+  }
+
+  private static Metric gauge(String name, long timestamp, long value, String tag) {
+    return new Metric()
+        .metric(name)
+        .type(Metric.TypeEnum.GAUGE)
+        .common(true)
+        .addPointsItem(Arrays.<Number>asList(timestamp, value))
+        .tags(Collections.singletonList(tag));
+  }
+}
@@ -0,0 +1,48 @@
+package datadog.telemetry.integration
+
+import datadog.telemetry.TelemetryService
+import datadog.telemetry.api.Metric
+import datadog.trace.api.InstrumenterTimings
+import spock.lang.Specification
+
+class InstrumenterTimingsPeriodicActionTest extends Specification {
+  InstrumenterTimingsPeriodicAction periodicAction = new InstrumenterTimingsPeriodicAction()
+  TelemetryService telemetryService = Mock()
+
+  void 'push instrumenter timings into the telemetry service'() {
+    setup:
+    def timings = InstrumenterTimings.init(['web/WebInstrumentation', 'jdbc/JdbcInstrumentation'] as String[])
+    timings.recordMatch(0, 5_000)
+    timings.recordTransform(0, 20_000)
+    timings.recordBytes(0, 1024)
+
+    when:
+    periodicAction.doIteration(telemetryService)
+
+    then:
+    1 * telemetryService.addMetric( { Metric metric ->
+      metric.metric == 'instrumenter.match_time_us' &&
+        metric.points[0][1] == 5 &&
+        metric.tags == ['instrumenter:web/WebInstrumentation']
+    } )
+    1 * telemetryService.addMetric( { Metric metric ->
+      metric.metric == 'instrumenter.transform_time_us' &&
+        metric.points[0][1] == 20
+    } )
+    1 * telemetryService.addMetric( { Metric metric ->
+      metric.metric == 'instrumenter.transform_count' &&
+        metric.points[0][1] == 1
+    } )
+    1 * telemetryService.addMetric( { Metric metric ->
+      metric.metric == 'instrumenter.bytes_emitted' &&
+        metric.points[0][1] == 1024
+    } )
+    0 * _._
+
+    when: 'nothing changed since the last report'
+    periodicAction.doIteration(telemetryService)
+
+    then:
+    0 * _._
+  }
+}